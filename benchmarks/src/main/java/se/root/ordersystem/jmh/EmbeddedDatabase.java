@@ -0,0 +1,53 @@
+package se.root.ordersystem.jmh;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import se.root.ordersystem.helpers.DBInfo;
+
+/**
+ * An H2 in-memory database in MySQL mode with the ordersystem tables, the JDBC stand-in for the
+ * benchmarks that go through {@link se.root.ordersystem.helpers.SQL}.
+ */
+final class EmbeddedDatabase {
+
+    static final String URL = "jdbc:h2:mem:ordersystem;MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER";
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Creates the tables and inserts the rows, once per JVM.
+     *
+     * @param users the number of users, each gets a work item
+     * @throws SQLException the SQL exception
+     */
+    static synchronized void create(int users) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, DBInfo.databaseUsername, DBInfo.databasePassword);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS workitem");
+            statement.execute("DROP TABLE IF EXISTS user");
+            statement.execute("DROP TABLE IF EXISTS team");
+            statement.execute("CREATE TABLE team (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                    + "is_active BOOLEAN NOT NULL DEFAULT TRUE)");
+            statement.execute("CREATE TABLE user (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(255) NOT NULL, "
+                    + "firstname VARCHAR(255) NOT NULL, lastname VARCHAR(255) NOT NULL, team_id BIGINT NULL, "
+                    + "is_active BOOLEAN NOT NULL DEFAULT TRUE)");
+            statement.execute("CREATE TABLE workitem (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                    + "status VARCHAR(16) NOT NULL DEFAULT 'UNSTARTED', user_id BIGINT NULL, issue_id BIGINT NULL, "
+                    + "is_active BOOLEAN NOT NULL DEFAULT TRUE)");
+            statement.execute("CREATE INDEX idx_user_team_active ON user (team_id, is_active)");
+            statement.execute("CREATE INDEX idx_workitem_status ON workitem (status)");
+            statement.execute("CREATE INDEX idx_workitem_user_status ON workitem (user_id, status)");
+            for (int i = 1; i <= users; i++) {
+                statement.addBatch("INSERT INTO user(username, firstname, lastname, team_id) VALUES('username" + i
+                        + "', 'first" + i + "', 'last" + i + "', " + (i % 10 + 1) + ")");
+                statement.addBatch("INSERT INTO workitem(name, status, user_id) VALUES('workitem" + i + "', 'STARTED', "
+                        + i + ")");
+            }
+            statement.executeBatch();
+        }
+    }
+}
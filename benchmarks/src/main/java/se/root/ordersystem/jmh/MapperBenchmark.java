@@ -0,0 +1,98 @@
+package se.root.ordersystem.jmh;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.root.ordersystem.helpers.Mapper;
+import se.root.ordersystem.helpers.ResultMapper;
+
+/**
+ * Mapping throughput per entity. The rows come from an in-memory result set, so the numbers only
+ * contain the column lookups and the model builders, not the driver.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    private SimpleResultSet users;
+    private SimpleResultSet teams;
+    private SimpleResultSet workItems;
+    private SimpleResultSet issues;
+
+    @Setup
+    public void setUp() {
+        users = resultSet("id", "username", "firstname", "lastname", "team_id", "is_active");
+        teams = resultSet("id", "name", "is_active");
+        workItems = resultSet("id", "name", "status", "issue_id", "is_active");
+        issues = resultSet("id", "title", "description", "is_active");
+        for (int i = 1; i <= ROWS; i++) {
+            users.addRow(String.valueOf(i), "username" + i, "first" + i, "last" + i, String.valueOf(i % 100), true);
+            teams.addRow(String.valueOf(i), "team" + i, true);
+            workItems.addRow(String.valueOf(i), "workitem" + i, "STARTED", i % 3 == 0 ? null : String.valueOf(i), true);
+            issues.addRow(String.valueOf(i), "issue" + i, "description of issue " + i, true);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapUsers(Blackhole blackhole) throws SQLException {
+        map(users, Mapper.USER_MAPPER, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapTeams(Blackhole blackhole) throws SQLException {
+        map(teams, Mapper.TEAM_MAPPER, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapWorkItems(Blackhole blackhole) throws SQLException {
+        map(workItems, Mapper.WORK_ITEM_MAPPER, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapIssues(Blackhole blackhole) throws SQLException {
+        map(issues, Mapper.ISSUE_MAPPER, blackhole);
+    }
+
+    private static <T> void map(SimpleResultSet resultSet, ResultMapper<T> mapper, Blackhole blackhole)
+            throws SQLException {
+        resultSet.beforeFirst();
+        ResultMapper<T> bound = mapper.bind(resultSet);
+        while (resultSet.next()) {
+            blackhole.consume(bound.map(resultSet));
+        }
+    }
+
+    private static SimpleResultSet resultSet(String... columns) {
+        SimpleResultSet resultSet = new SimpleResultSet();
+        resultSet.setAutoClose(false);
+        for (String column : columns) {
+            resultSet.addColumn(column, column.equals("is_active") ? Types.BOOLEAN : Types.VARCHAR, 255, 0);
+        }
+        return resultSet;
+    }
+}
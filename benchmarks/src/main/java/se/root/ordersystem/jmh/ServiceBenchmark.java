@@ -0,0 +1,115 @@
+package se.root.ordersystem.jmh;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.exception.ServiceException;
+import se.root.ordersystem.helpers.EntityCache;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.CachingUserRepository;
+import se.root.ordersystem.repository.InMemoryDatabase;
+import se.root.ordersystem.repository.InMemoryTeamRepository;
+import se.root.ordersystem.repository.InMemoryUserRepository;
+import se.root.ordersystem.repository.InMemoryWorkItemRepository;
+import se.root.ordersystem.repository.IndexedUserRepository;
+import se.root.ordersystem.service.TeamService;
+import se.root.ordersystem.service.UserService;
+import se.root.ordersystem.service.WorkItemService;
+
+/**
+ * Service operations on the in-memory repositories, so the numbers show the cost of the service
+ * and repository code without the database round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private TeamService teamService;
+    private UserService userService;
+    private UserService indexedUserService;
+    private UserService cachedUserService;
+    private WorkItemService workItemService;
+    private InMemoryUserRepository userRepository;
+
+    /**
+     * A new database for every iteration, addUserToTeam keeps adding users and teams.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws RepositoryException {
+        InMemoryDatabase database = new InMemoryDatabase();
+        userRepository = new InMemoryUserRepository(database);
+        InMemoryWorkItemRepository workItemRepository = new InMemoryWorkItemRepository(database);
+        for (int i = 1; i <= USERS; i++) {
+            long userId = userRepository.create(User.userBuilder("username" + i, "first" + i, "last" + i).build());
+            long workItemId = workItemRepository.create(WorkItem.workItemBuilder("workitem" + i).build());
+            userRepository.addWorkItemToUser(userId, workItemId);
+            if (i % 4 == 0) {
+                workItemRepository.changeWorkItemStatus(workItemId, WorkItemStatus.DONE);
+            }
+        }
+        teamService = new TeamService(new InMemoryTeamRepository(database), userRepository);
+        userService = new UserService(userRepository, workItemRepository);
+        indexedUserService = new UserService(new IndexedUserRepository(userRepository), workItemRepository);
+        cachedUserService = new UserService(new CachingUserRepository(userRepository, new EntityCache(USERS, 60_000, 5_000)),
+                workItemRepository);
+        workItemService = new WorkItemService(workItemRepository);
+    }
+
+    @Benchmark
+    public long addUserToTeam() throws ServiceException, RepositoryException {
+        long userId = userRepository.create(User.userBuilder("benchmarkuser", "first", "last").build());
+        return teamService.addUserToTeam(userId);
+    }
+
+    @Benchmark
+    public User getUserById() throws ServiceException {
+        return userService.getUserById(randomUserId());
+    }
+
+    @Benchmark
+    public User getUserByIdCached() throws ServiceException {
+        return cachedUserService.getUserById(randomUserId());
+    }
+
+    @Benchmark
+    public List<User> getUsersByScan() throws ServiceException {
+        return userService.getUsersBy("name12", "first", "last", 20);
+    }
+
+    @Benchmark
+    public List<User> getUsersByIndexed() throws ServiceException {
+        return indexedUserService.getUsersBy("name12", "first", "last", 20);
+    }
+
+    @Benchmark
+    public Page<WorkItem> getWorkItemByStatusPage() throws ServiceException {
+        return workItemService.getWorkItemByStatus(WorkItemStatus.DONE, ThreadLocalRandom.current().nextLong(USERS), 50);
+    }
+
+    private static long randomUserId() {
+        return ThreadLocalRandom.current().nextLong(1, USERS + 1);
+    }
+}
@@ -0,0 +1,85 @@
+package se.root.ordersystem.jmh;
+
+import static se.root.ordersystem.helpers.Mapper.USER_COLUMNS;
+import static se.root.ordersystem.helpers.Mapper.USER_MAPPER;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.root.ordersystem.helpers.ConnectionPool;
+import se.root.ordersystem.helpers.DBInfo;
+import se.root.ordersystem.helpers.SQL;
+import se.root.ordersystem.model.User;
+
+/**
+ * Statement preparation against the embedded database: a read by id through {@link SQL}, which
+ * borrows a pooled connection and reuses its cached statement, next to the same read on one
+ * connection with a new statement every time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final String READ_USER = "SELECT " + USER_COLUMNS + " FROM user WHERE id = ?";
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        EmbeddedDatabase.create(USERS);
+        connection = DriverManager.getConnection(EmbeddedDatabase.URL, DBInfo.databaseUsername, DBInfo.databasePassword);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        ConnectionPool.closeAll();
+    }
+
+    @Benchmark
+    public User readCachedStatement() throws SQLException {
+        return new SQL(EmbeddedDatabase.URL).query(READ_USER).parameter(randomId()).optional(USER_MAPPER);
+    }
+
+    @Benchmark
+    public User readNewStatement() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(READ_USER)) {
+            statement.setLong(1, randomId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? USER_MAPPER.bind(resultSet).map(resultSet) : null;
+            }
+        }
+    }
+
+    @Benchmark
+    public int updateCachedStatement() throws SQLException {
+        return new SQL(EmbeddedDatabase.URL).query("UPDATE workitem SET status = ? WHERE id = ?").parameter("DONE")
+                .parameter(randomId()).update();
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, USERS + 1);
+    }
+}
@@ -1,34 +1,66 @@
 package se.root.ordersystem;
 
+import se.root.ordersystem.exception.RepositoryException;
 import se.root.ordersystem.exception.ServiceException;
+import se.root.ordersystem.helpers.DBInfo;
+import se.root.ordersystem.helpers.MetricsServer;
+import se.root.ordersystem.helpers.TeamStatusAggregates;
 import se.root.ordersystem.model.Issue;
 import se.root.ordersystem.model.Team;
 import se.root.ordersystem.model.User;
 import se.root.ordersystem.model.WorkItem;
 import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.CachingIssueRepository;
+import se.root.ordersystem.repository.CachingTeamRepository;
+import se.root.ordersystem.repository.CachingUserRepository;
+import se.root.ordersystem.repository.CachingWorkItemRepository;
+import se.root.ordersystem.repository.IndexedUserRepository;
+import se.root.ordersystem.repository.IndexedWorkItemRepository;
 import se.root.ordersystem.repository.MySQLIssueRepository;
 import se.root.ordersystem.repository.MySQLTeamRepository;
 import se.root.ordersystem.repository.MySQLUserRepository;
 import se.root.ordersystem.repository.MySQLWorkItemRepository;
+import se.root.ordersystem.repository.WriteBehindWorkItemRepository;
+import se.root.ordersystem.repository.interfaces.IssueRepository;
+import se.root.ordersystem.repository.interfaces.TeamRepository;
+import se.root.ordersystem.repository.interfaces.UserRepository;
+import se.root.ordersystem.repository.interfaces.WorkItemRepository;
+import se.root.ordersystem.schema.Schema;
 import se.root.ordersystem.service.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Scanner;
 
 public class Main{
 	public static void main(String[] args) {
 
-		MySQLUserRepository mysqlUserRepository = new MySQLUserRepository();
-		MySQLTeamRepository mysqlTeamRepository = new MySQLTeamRepository();
-		MySQLWorkItemRepository mySQLWorkItemRepository = new MySQLWorkItemRepository();
-		MySQLIssueRepository mySQLIssueRepository = new MySQLIssueRepository();
+		UserRepository mysqlUserRepository = new IndexedUserRepository(new CachingUserRepository(new MySQLUserRepository()));
+		TeamRepository mysqlTeamRepository = new CachingTeamRepository(new MySQLTeamRepository());
+		WorkItemRepository mySQLWorkItemRepository = new IndexedWorkItemRepository(new CachingWorkItemRepository(new MySQLWorkItemRepository()));
+		if (DBInfo.writeBehindFlushMillis > 0) {
+			mySQLWorkItemRepository = new WriteBehindWorkItemRepository(mySQLWorkItemRepository);
+		}
+		IssueRepository mySQLIssueRepository = new CachingIssueRepository(new MySQLIssueRepository());
 
-		UserService userService = new UserService(mysqlUserRepository, mySQLWorkItemRepository);
-		TeamService teamService = new TeamService(mysqlTeamRepository, mysqlUserRepository);
-		WorkItemService workItemService = new WorkItemService(mySQLWorkItemRepository);
-		IssueService issueService = new IssueService(mySQLIssueRepository ,mySQLWorkItemRepository);
+		TeamStatusAggregates teamStatusAggregates = new TeamStatusAggregates();
+		UserService userService = new UserService(mysqlUserRepository, mySQLWorkItemRepository, teamStatusAggregates);
+		TeamService teamService = new TeamService(mysqlTeamRepository, mysqlUserRepository, teamStatusAggregates);
+		WorkItemService workItemService = new WorkItemService(mySQLWorkItemRepository, teamStatusAggregates);
+		IssueService issueService = new IssueService(mySQLIssueRepository ,mySQLWorkItemRepository, teamStatusAggregates);
+
+		if (DBInfo.metricsPort > 0) {
+			try {
+				MetricsServer.start(DBInfo.metricsPort);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
 		
 		try {
+			Schema.bootstrap(DBInfo.url);
+			teamService.rebuildWorkItemCounts();
+
 			// USER
 			 User user = userService.createUser(User.userBuilder("somethkkinssgNew", "standing", "out").build());
 			// System.out.println(user.getId());
@@ -79,7 +111,7 @@ public class Main{
 //			for(WorkItem w : issueService.getAllWorkItemsWithIssue()){
 //				System.out.println(w.getName());
 //			}
-		}catch(ServiceException e){
+		}catch(ServiceException | RepositoryException e){
 			e.printStackTrace();
 		} 
 			
@@ -0,0 +1,121 @@
+package se.root.ordersystem.helpers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import se.root.ordersystem.exception.RepositoryException;
+
+import static se.root.ordersystem.helpers.DBInfo.poolMaxSize;
+
+/**
+ * The Class AsyncExecutor - runs blocking repository calls off the caller's thread for the
+ * asynchronous repository and service methods.
+ *
+ * Calls run on virtual threads when the JVM has them (Java 21 and later) and on a cached pool of
+ * daemon threads otherwise, set ordersystem.async.executor to "platform" to always use the pool.
+ * At most as many calls as the connection pool has connections run at the same time, the rest
+ * wait for a permit on their own thread instead of queueing for a connection.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class AsyncExecutor {
+
+    private static volatile AsyncExecutor shared;
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    public AsyncExecutor(ExecutorService executor, int maxConcurrency) {
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Gets the shared executor, creating the default one on first use.
+     *
+     * @return the async executor
+     */
+    public static AsyncExecutor get() {
+        AsyncExecutor executor = shared;
+        if (executor == null) {
+            synchronized (AsyncExecutor.class) {
+                if (shared == null) {
+                    shared = new AsyncExecutor(defaultExecutorService(), poolMaxSize);
+                }
+                executor = shared;
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Replaces the shared executor, for example with a fixed pool in tests or benchmarks.
+     *
+     * @param executorService the executor service
+     * @param maxConcurrency  the maximum number of calls running at the same time
+     */
+    public static void configure(ExecutorService executorService, int maxConcurrency) {
+        AsyncExecutor previous;
+        synchronized (AsyncExecutor.class) {
+            previous = shared;
+            shared = new AsyncExecutor(executorService, maxConcurrency);
+        }
+        if (previous != null) {
+            previous.executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs a repository call asynchronously. A {@link RepositoryException} completes the future
+     * exceptionally with the exception as cause.
+     *
+     * @param <T>  the generic type
+     * @param call the call
+     * @return the future result
+     */
+    public <T> CompletableFuture<T> supply(RepositoryCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(new RepositoryException("Interrupted while waiting to run", e));
+            }
+            try {
+                return call.call();
+            } catch (RepositoryException e) {
+                throw new CompletionException(e);
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    private static ExecutorService defaultExecutorService() {
+        if (!"platform".equals(System.getProperty("ordersystem.async.executor"))) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // virtual threads are not available on this JVM
+            }
+        }
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ordersystem-async");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * A blocking repository call.
+     *
+     * @param <T> the generic type
+     */
+    public interface RepositoryCall<T> {
+        T call() throws RepositoryException;
+    }
+}
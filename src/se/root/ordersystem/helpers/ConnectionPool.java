@@ -0,0 +1,283 @@
+package se.root.ordersystem.helpers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static se.root.ordersystem.helpers.DBInfo.*;
+
+/**
+ * The Class ConnectionPool - a bounded pool of JDBC connections shared by every {@link SQL} call
+ * against the same url.
+ *
+ * - at most {@code maxSize} connections are open at the same time, callers wait up to the acquire
+ * timeout for a free one - idle connections above {@code minSize} are closed after the idle timeout
+ * - connections that have been idle for a while are validated before they are handed out - a
+ * connection that is held longer than the leak threshold is reported together with the stack
+ * trace of the code that acquired it
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class ConnectionPool {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+    private static final ConcurrentMap<String, ConnectionPool> POOLS = new ConcurrentHashMap<>();
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final long HOUSEKEEPING_INTERVAL_MILLIS = 5_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger open = new AtomicInteger();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String username, String password, int minSize, int maxSize,
+                          long idleTimeoutMillis, long acquireTimeoutMillis, long leakThresholdMillis,
+                          int validationTimeoutSeconds, int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size, min: " + minSize + " max: " + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = Math.max(1, statementCacheSize);
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the shared pool for an url, creating it with the settings in {@link DBInfo} on first use.
+     *
+     * @param url the url
+     * @return the connection pool
+     */
+    public static ConnectionPool forUrl(String url) {
+        return POOLS.computeIfAbsent(url, u -> new ConnectionPool(u, databaseUsername, databasePassword, poolMinSize,
+                poolMaxSize, poolIdleTimeoutMillis, poolAcquireTimeoutMillis, poolLeakThresholdMillis,
+                poolValidationTimeoutSeconds, poolStatementCacheSize));
+    }
+
+    /**
+     * Closes every shared pool.
+     */
+    public static void closeAll() {
+        for (ConnectionPool pool : POOLS.values()) {
+            pool.close();
+        }
+        POOLS.clear();
+    }
+
+    /**
+     * Borrows a connection, waiting at most the acquire timeout for one to become free.
+     *
+     * @return the pooled connection
+     * @throws SQLException if the pool is exhausted or a new connection could not be opened
+     */
+    public PooledConnection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed: " + url);
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + acquireTimeoutMillis
+                        + " ms waiting for a connection, " + leased.size() + " of " + maxSize + " in use: " + url);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection: " + url, e);
+        }
+        try {
+            PooledConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isUsable(connection)) {
+                    return lease(connection);
+                }
+                discard(connection);
+            }
+            return lease(openConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PooledConnection connection) {
+        if (!leased.remove(connection)) {
+            return;
+        }
+        try {
+            Connection jdbc = connection.connection();
+            if (closed || jdbc.isClosed()) {
+                discard(connection);
+                return;
+            }
+            // SQL and Transaction turn auto-commit back on when they commit or roll back, a
+            // connection that is still in a transaction was given back after a failure
+            if (!jdbc.getAutoCommit()) {
+                jdbc.rollback();
+                jdbc.setAutoCommit(true);
+            }
+            connection.returned();
+            idle.offerFirst(connection);
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes the idle connections and stops handing out new ones. Leased connections are closed
+     * when they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+
+    public int getOpenConnections() {
+        return open.get();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public int getLeasedConnections() {
+        return leased.size();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    private PooledConnection lease(PooledConnection connection) {
+        connection.lease(leakThresholdMillis > 0);
+        leased.add(connection);
+        return connection;
+    }
+
+    private PooledConnection openConnection() throws SQLException {
+        Connection jdbc = DriverManager.getConnection(url, username, password);
+        open.incrementAndGet();
+        return new PooledConnection(this, jdbc,
+                new StatementCache(jdbc, statementCacheSize, statementCacheHits, statementCacheMisses));
+    }
+
+    private boolean isUsable(PooledConnection connection) {
+        if (System.currentTimeMillis() - connection.getLastReturnedAt() < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return connection.connection().isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection connection) {
+        open.decrementAndGet();
+        try {
+            connection.connection().close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Could not close pooled connection", e);
+        }
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            evictIdle(now);
+            reportLeaks(now);
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Connection pool housekeeping failed for " + url, e);
+        }
+    }
+
+    private void evictIdle(long now) {
+        Iterator<PooledConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext() && open.get() > minSize) {
+            PooledConnection connection = iterator.next();
+            if (now - connection.getLastReturnedAt() > idleTimeoutMillis && idle.remove(connection)) {
+                discard(connection);
+            }
+        }
+    }
+
+    private void reportLeaks(long now) {
+        if (leakThresholdMillis <= 0) {
+            return;
+        }
+        for (PooledConnection connection : leased) {
+            if (!connection.isLeakReported() && now - connection.getLeasedAt() > leakThresholdMillis) {
+                connection.setLeakReported();
+                LOGGER.log(Level.WARNING, "Possible connection leak, connection to " + url + " held for "
+                        + (now - connection.getLeasedAt()) + " ms", connection.getLeaseTrace());
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && open.get() < minSize && permits.tryAcquire()) {
+            try {
+                idle.offerLast(openConnection());
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Could not pre-open connection to " + url, e);
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
@@ -2,8 +2,38 @@ package se.root.ordersystem.helpers;
 
 public class DBInfo {
 
-	public static final String url = "jdbc:mysql://localhost:3306/ordersystem?useSSL=false";
-	public static final String databaseUsername = "root";
-	public static final String databasePassword = "";
+	public static final String url = System.getProperty("ordersystem.db.url",
+			"jdbc:mysql://localhost:3306/ordersystem?useSSL=false&useServerPrepStmts=true&rewriteBatchedStatements=true");
+	public static final String databaseUsername = System.getProperty("ordersystem.db.username", "root");
+	public static final String databasePassword = System.getProperty("ordersystem.db.password", "");
+	public static final int batchSize = Integer.getInteger("ordersystem.db.batchSize", 500);
+	public static final int streamFetchSize = Integer.getInteger("ordersystem.db.streamFetchSize", Integer.MIN_VALUE);
+
+	public static final int poolMinSize = Integer.getInteger("ordersystem.pool.minSize", 2);
+	public static final int poolMaxSize = Integer.getInteger("ordersystem.pool.maxSize", 10);
+	public static final long poolIdleTimeoutMillis = Long.getLong("ordersystem.pool.idleTimeoutMillis", 600_000L);
+	public static final long poolAcquireTimeoutMillis = Long.getLong("ordersystem.pool.acquireTimeoutMillis", 30_000L);
+	public static final long poolLeakThresholdMillis = Long.getLong("ordersystem.pool.leakThresholdMillis", 60_000L);
+	public static final int poolValidationTimeoutSeconds = Integer.getInteger("ordersystem.pool.validationTimeoutSeconds", 2);
+	public static final int poolStatementCacheSize = Integer.getInteger("ordersystem.pool.statementCacheSize", 64);
+
+	public static final int cacheMaxSize = Integer.getInteger("ordersystem.cache.maxSize", 10_000);
+	public static final long cacheTtlMillis = Long.getLong("ordersystem.cache.ttlMillis", 60_000L);
+	public static final long cacheNegativeTtlMillis = Long.getLong("ordersystem.cache.negativeTtlMillis", 5_000L);
+
+	public static final boolean metricsEnabled = Boolean.parseBoolean(System.getProperty("ordersystem.metrics.enabled", "true"));
+	public static final int metricsPort = Integer.getInteger("ordersystem.metrics.port", 0);
+
+	public static final long slowQueryThresholdMillis = Long.getLong("ordersystem.slowQuery.thresholdMillis", 200L);
+	public static final String slowQueryLogFile = System.getProperty("ordersystem.slowQuery.file", "slow-query.%g.log");
+	public static final int slowQueryLogLimitBytes = Integer.getInteger("ordersystem.slowQuery.limitBytes", 10 * 1024 * 1024);
+	public static final int slowQueryLogCount = Integer.getInteger("ordersystem.slowQuery.count", 5);
+
+	public static final long writeBehindFlushMillis = Long.getLong("ordersystem.writeBehind.flushMillis", 0L);
+	public static final int writeBehindMaxPending = Integer.getInteger("ordersystem.writeBehind.maxPending", 1_000);
+
+	public static final long outboxSettleMillis = Long.getLong("ordersystem.outbox.settleMillis", 1_000L);
+
+	public static final String schemaVerification = System.getProperty("ordersystem.schema.verify", "warn");
 
 }
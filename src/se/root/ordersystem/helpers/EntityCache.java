@@ -0,0 +1,356 @@
+package se.root.ordersystem.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.model.Entity;
+
+import static se.root.ordersystem.helpers.DBInfo.cacheMaxSize;
+import static se.root.ordersystem.helpers.DBInfo.cacheNegativeTtlMillis;
+import static se.root.ordersystem.helpers.DBInfo.cacheTtlMillis;
+
+/**
+ * The Class EntityCache - a read-through cache of entities keyed by entity type and id.
+ *
+ * - entries expire after a time to live, ids that were not found are remembered for a shorter
+ * time - the cache is split in segments that each hold an equal share of the maximum size and
+ * evict their least recently used entry - the models are immutable, so cached instances are
+ * shared between callers
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class EntityCache {
+
+    private static final Object MISSING = new Object();
+    private static final int SEGMENTS = 16;
+
+    private static final EntityCache SHARED = new EntityCache(cacheMaxSize, cacheTtlMillis, cacheNegativeTtlMillis);
+
+    private final Segment[] segments;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EntityCache(int maxSize, long ttlMillis, long negativeTtlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.segments = new Segment[SEGMENTS];
+        int segmentSize = Math.max(1, maxSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * Gets the cache shared by the caching repositories, sized with the settings in {@link DBInfo}.
+     *
+     * @return the entity cache
+     */
+    public static EntityCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets an entity from the cache, or loads and caches it. A null result from the loader is
+     * cached as missing.
+     *
+     * @param <T>    the generic type
+     * @param type   the entity type
+     * @param id     the id
+     * @param loader loads the entity on a miss
+     * @return the entity, or null if it does not exist
+     * @throws RepositoryException the repository exception
+     */
+    public <T> T get(Class<T> type, long id, Loader<T> loader) throws RepositoryException {
+        Key key = new Key(type, id);
+        Segment segment = segmentFor(key);
+        long now = System.currentTimeMillis();
+        CacheEntry cached = segment.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            hits.increment();
+            return cached.value == MISSING ? null : type.cast(cached.value);
+        }
+        misses.increment();
+        long version = segment.version(key);
+        T loaded = loader.load();
+        long ttl = loaded == null ? negativeTtlMillis : ttlMillis;
+        if (ttl > 0) {
+            segment.putIfUnchanged(key, new CacheEntry(loaded == null ? MISSING : loaded, now + ttl), version);
+        }
+        return loaded;
+    }
+
+    /**
+     * Gets several entities, loading all that are not cached with one call of the loader.
+     *
+     * @param <T>    the generic type
+     * @param type   the entity type
+     * @param ids    the ids
+     * @param loader loads the entities that were not cached
+     * @return the entities that exist, in the order of the ids
+     * @throws RepositoryException the repository exception
+     */
+    public <T extends Entity> List<T> getAll(Class<T> type, long[] ids, BatchLoader<T> loader) throws RepositoryException {
+        Object[] values = new Object[ids.length];
+        long[] missing = new long[ids.length];
+        int[] positions = new int[ids.length];
+        long[] versions = new long[ids.length];
+        int misses = 0;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < ids.length; i++) {
+            Key key = new Key(type, ids[i]);
+            Segment segment = segmentFor(key);
+            CacheEntry cached = segment.get(key);
+            if (cached != null && cached.expiresAt > now) {
+                values[i] = cached.value;
+            } else {
+                missing[misses] = ids[i];
+                positions[misses] = i;
+                versions[misses] = segment.version(key);
+                misses++;
+            }
+        }
+        hits.add(ids.length - misses);
+        this.misses.add(misses);
+        if (misses > 0) {
+            Map<Long, T> loaded = new HashMap<>();
+            for (T entity : loader.load(Arrays.copyOf(missing, misses))) {
+                loaded.put(entity.getId(), entity);
+            }
+            for (int miss = 0; miss < misses; miss++) {
+                Key key = new Key(type, missing[miss]);
+                T entity = loaded.get(key.id);
+                values[positions[miss]] = entity == null ? MISSING : entity;
+                long ttl = entity == null ? negativeTtlMillis : ttlMillis;
+                if (ttl > 0) {
+                    segmentFor(key).putIfUnchanged(key, new CacheEntry(values[positions[miss]], now + ttl), versions[miss]);
+                }
+            }
+        }
+        List<T> entities = new ArrayList<>(ids.length);
+        for (Object value : values) {
+            if (value != MISSING) {
+                entities.add(type.cast(value));
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * Removes an entity from the cache. When a transaction is open the entity is removed again
+     * after it completes, so a read made before the commit does not stay cached.
+     *
+     * @param type the entity type
+     * @param id   the id
+     */
+    public void invalidate(Class<?> type, long id) {
+        Key key = new Key(type, id);
+        Segment segment = segmentFor(key);
+        segment.remove(key);
+        if (Transaction.current() != null) {
+            Transaction.afterCompletion(() -> segment.remove(key));
+        }
+    }
+
+    /**
+     * Removes every entity of a type, for writes that change rows the caller has no ids for.
+     *
+     * @param type the entity type
+     */
+    public void invalidateAll(Class<?> type) {
+        for (Segment segment : segments) {
+            segment.removeAll(type);
+        }
+        if (Transaction.current() != null) {
+            Transaction.afterCompletion(() -> {
+                for (Segment segment : segments) {
+                    segment.removeAll(type);
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the hit ratio.
+     *
+     * @return hits divided by lookups, 0 before the first lookup
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(Key key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Loads an entity on a cache miss.
+     *
+     * @param <T> the generic type
+     */
+    public interface Loader<T> {
+        T load() throws RepositoryException;
+    }
+
+    /**
+     * Loads the entities on cache misses, in one call.
+     *
+     * @param <T> the generic type
+     */
+    public interface BatchLoader<T> {
+        List<T> load(long[] ids) throws RepositoryException;
+    }
+
+    private final class Segment {
+
+        private final LinkedHashMap<Key, CacheEntry> entries;
+        private final Map<Key, Long> versions = new LinkedHashMap<>();
+        private final Map<Class<?>, Long> typeVersions = new HashMap<>();
+        private long clearedAt;
+        private long clock;
+
+        private Segment(int maxSize) {
+            this.entries = new LinkedHashMap<Key, CacheEntry>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, CacheEntry> eldest) {
+                    if (size() > maxSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private synchronized CacheEntry get(Key key) {
+            return entries.get(key);
+        }
+
+        private synchronized long version(Key key) {
+            Long version = versions.get(key);
+            Long typeVersion = typeVersions.get(key.type);
+            return Math.max(clearedAt, Math.max(version == null ? 0 : version, typeVersion == null ? 0 : typeVersion));
+        }
+
+        /**
+         * Only caches the loaded value when the key was not invalidated while it was loading.
+         */
+        private synchronized void putIfUnchanged(Key key, CacheEntry entry, long version) {
+            if (version(key) == version) {
+                entries.put(key, entry);
+            }
+        }
+
+        private synchronized void remove(Key key) {
+            entries.remove(key);
+            versions.remove(key);
+            versions.put(key, ++clock);
+            if (versions.size() > 1024) {
+                // forgetting the oldest version would let the key's version go back down, so a
+                // load that started before that removal could still cache its stale value
+                Iterator<Long> oldest = versions.values().iterator();
+                clearedAt = Math.max(clearedAt, oldest.next());
+                oldest.remove();
+            }
+        }
+
+        private synchronized void removeAll(Class<?> type) {
+            entries.keySet().removeIf(key -> key.type == type);
+            typeVersions.put(type, ++clock);
+        }
+
+        private synchronized void clear() {
+            entries.clear();
+            versions.clear();
+            typeVersions.clear();
+            clearedAt = ++clock;
+        }
+
+        private synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    private static final class CacheEntry {
+
+        private final Object value;
+        private final long expiresAt;
+
+        private CacheEntry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Key {
+
+        private final Class<?> type;
+        private final long id;
+
+        private Key(Class<?> type, long id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Long.hashCode(id);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other instanceof Key) {
+                Key otherKey = (Key) other;
+                return type == otherKey.type && id == otherKey.id;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,573 @@
+package se.root.ordersystem.helpers;
+
+import java.util.Arrays;
+
+/**
+ * The Class IdBitmap - a compressed set of ids, laid out like a roaring bitmap.
+ *
+ * The ids are split by their upper bits into chunks of 65536 ids. A chunk with at most 4096 ids
+ * keeps them as a sorted array of 16-bit values, a fuller chunk as a bitmap of 8 KB, so a set
+ * costs at most two bytes per id and one bit per id once it is dense, like the ids of a status
+ * that a large part of the table has. Intersections, unions and differences work chunk by chunk
+ * and word by word, without visiting the ids one at a time.
+ *
+ * Not thread-safe, callers that share a bitmap between threads must lock around it.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class IdBitmap {
+
+    private static final long[] NO_IDS = new long[0];
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private long[] keys;
+    private Container[] containers;
+    private int size;
+
+    public IdBitmap() {
+        this(4);
+    }
+
+    private IdBitmap(int capacity) {
+        keys = new long[capacity];
+        containers = new Container[capacity];
+    }
+
+    /**
+     * Creates a bitmap with the given ids.
+     *
+     * @param ids the ids, not negative
+     * @return the bitmap
+     */
+    public static IdBitmap of(long... ids) {
+        IdBitmap bitmap = new IdBitmap();
+        for (long id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Adds an id.
+     *
+     * @param id the id, not negative
+     */
+    public void add(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Ids can not be negative, was: " + id);
+        }
+        long key = id >>> 16;
+        char low = (char) id;
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            containers[index] = containers[index].add(low);
+        } else {
+            insert(-index - 1, key, new ArrayContainer(low));
+        }
+    }
+
+    /**
+     * Removes an id.
+     *
+     * @param id the id
+     */
+    public void remove(long id) {
+        if (id < 0) {
+            return;
+        }
+        int index = Arrays.binarySearch(keys, 0, size, id >>> 16);
+        if (index < 0) {
+            return;
+        }
+        Container container = containers[index].remove((char) id);
+        if (container.cardinality == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            containers[--size] = null;
+        } else {
+            containers[index] = container;
+        }
+    }
+
+    public boolean contains(long id) {
+        if (id < 0) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, 0, size, id >>> 16);
+        return index >= 0 && containers[index].contains((char) id);
+    }
+
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the ids that are in this bitmap and in the other one.
+     *
+     * @param other the other bitmap
+     * @return a new bitmap
+     */
+    public IdBitmap and(IdBitmap other) {
+        IdBitmap result = new IdBitmap(Math.max(1, Math.min(size, other.size)));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(keys[i], containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the ids that are in this bitmap or in the other one.
+     *
+     * @param other the other bitmap
+     * @return a new bitmap
+     */
+    public IdBitmap or(IdBitmap other) {
+        IdBitmap result = new IdBitmap(Math.max(1, size + other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the ids that are in this bitmap but not in the other one.
+     *
+     * @param other the other bitmap
+     * @return a new bitmap
+     */
+    public IdBitmap andNot(IdBitmap other) {
+        IdBitmap result = new IdBitmap(Math.max(1, size));
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                result.append(keys[i], containers[i].andNot(other.containers[j]));
+            } else {
+                result.append(keys[i], containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    public IdBitmap copy() {
+        IdBitmap copy = new IdBitmap(Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            copy.append(keys[i], containers[i].copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Gets every id.
+     *
+     * @return the ids, ascending
+     */
+    public long[] toArray() {
+        return toArray(-1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the ids above afterId.
+     *
+     * @param afterId only ids above this one
+     * @param limit   the maximum number of ids
+     * @return the ids, ascending
+     */
+    public long[] toArray(long afterId, int limit) {
+        long cardinality = cardinality();
+        if (cardinality == 0 || limit <= 0) {
+            return NO_IDS;
+        }
+        long[] ids = new long[(int) Math.min(cardinality, limit)];
+        int copied = 0;
+        int index = 0;
+        if (afterId >= 0) {
+            index = Arrays.binarySearch(keys, 0, size, afterId >>> 16);
+            index = index >= 0 ? index : -index - 1;
+        }
+        for (; index < size && copied < ids.length; index++) {
+            int afterLow = afterId >= 0 && keys[index] == afterId >>> 16 ? (int) (afterId & 0xFFFF) : -1;
+            copied = containers[index].copyTo(keys[index] << 16, afterLow, ids, copied);
+        }
+        return copied == ids.length ? ids : Arrays.copyOf(ids, copied);
+    }
+
+    private void insert(int index, long key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    /**
+     * Adds a chunk above every chunk so far, empty chunks are dropped.
+     */
+    private void append(long key, Container container) {
+        if (container.cardinality > 0) {
+            insert(size, key, container);
+        }
+    }
+
+    /**
+     * The ids of one chunk, as their lower 16 bits.
+     */
+    private abstract static class Container {
+
+        int cardinality;
+
+        abstract boolean contains(char low);
+
+        abstract Container add(char low);
+
+        abstract Container remove(char low);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        /**
+         * Copies the ids above afterLow to ids until it is full.
+         *
+         * @return the number of ids in ids
+         */
+        abstract int copyTo(long high, int afterLow, long[] ids, int offset);
+    }
+
+    /**
+     * A sparse chunk, a sorted array of at most ARRAY_MAX values.
+     */
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+
+        private ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        private ArrayContainer(char value) {
+            this(new char[] { value }, 1);
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        @Override
+        Container add(char low) {
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+            if (position >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            position = -position - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, position, values, position + 1, cardinality - position);
+            values[position] = low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+            if (position >= 0) {
+                System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            if (cardinality + array.cardinality > ARRAY_MAX) {
+                BitmapContainer bitmap = toBitmap();
+                for (int j = 0; j < array.cardinality; j++) {
+                    bitmap.set(array.values[j]);
+                }
+                return bitmap.shrink();
+            }
+            char[] result = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+        }
+
+        @Override
+        int copyTo(long high, int afterLow, long[] ids, int offset) {
+            int from = 0;
+            if (afterLow >= 0) {
+                from = Arrays.binarySearch(values, 0, cardinality, (char) afterLow);
+                from = from >= 0 ? from + 1 : -from - 1;
+            }
+            for (int i = from; i < cardinality && offset < ids.length; i++) {
+                ids[offset++] = high | values[i];
+            }
+            return offset;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer(new long[WORDS], 0);
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.set(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * A dense chunk, one bit per value.
+     */
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+
+        private BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container add(char low) {
+            set(low);
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            clear(low);
+            return shrink();
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[WORDS];
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            return new BitmapContainer(result, count).shrink();
+        }
+
+        @Override
+        Container or(Container other) {
+            BitmapContainer result = new BitmapContainer(words.clone(), cardinality);
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int j = 0; j < array.cardinality; j++) {
+                    result.set(array.values[j]);
+                }
+                return result;
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                result.words[i] |= otherWords[i];
+                count += Long.bitCount(result.words[i]);
+            }
+            result.cardinality = count;
+            return result;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            BitmapContainer result = new BitmapContainer(words.clone(), cardinality);
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int j = 0; j < array.cardinality; j++) {
+                    result.clear(array.values[j]);
+                }
+                return result.shrink();
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                result.words[i] &= ~otherWords[i];
+                count += Long.bitCount(result.words[i]);
+            }
+            result.cardinality = count;
+            return result.shrink();
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        int copyTo(long high, int afterLow, long[] ids, int offset) {
+            int from = afterLow + 1;
+            if (from >= 1 << 16) {
+                return offset;
+            }
+            int index = from >>> 6;
+            long word = words[index] & (-1L << from);
+            while (offset < ids.length) {
+                while (word == 0) {
+                    if (++index == WORDS) {
+                        return offset;
+                    }
+                    word = words[index];
+                }
+                ids[offset++] = high | ((long) index << 6) | Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+            return offset;
+        }
+
+        private void set(char low) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                words[low >>> 6] |= bit;
+                cardinality++;
+            }
+        }
+
+        private void clear(char low) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) != 0) {
+                words[low >>> 6] &= ~bit;
+                cardinality--;
+            }
+        }
+
+        /**
+         * Goes back to an array once the chunk is sparse again.
+         */
+        private Container shrink() {
+            if (cardinality > ARRAY_MAX) {
+                return this;
+            }
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
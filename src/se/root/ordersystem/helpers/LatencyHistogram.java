@@ -0,0 +1,176 @@
+package se.root.ordersystem.helpers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Class LatencyHistogram - records latencies in nanoseconds from many threads without locking
+ * and answers percentile queries.
+ *
+ * Values are counted in log-linear buckets: every power of two is split into 32 buckets, so a
+ * percentile is at most about 3% above the recorded value, whatever its magnitude. The histogram
+ * uses a fixed 15 KB and recording is a single atomic increment.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Records the time since a start time.
+     *
+     * @param startNanos the start, from {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Adds every value recorded by another histogram.
+     *
+     * @param other the other histogram
+     */
+    public void add(LatencyHistogram other) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long bucketCount = other.counts.get(bucket);
+            if (bucketCount != 0) {
+                counts.addAndGet(bucket, bucketCount);
+            }
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+        max.accumulate(other.max.get());
+    }
+
+    /**
+     * Copies the values recorded so far, so a report reads consistent numbers while recording
+     * goes on.
+     *
+     * @return the copy
+     */
+    public LatencyHistogram snapshot() {
+        LatencyHistogram snapshot = new LatencyHistogram();
+        snapshot.add(this);
+        return snapshot;
+    }
+
+    /**
+     * Copies the values recorded so far and starts over, for reports per interval.
+     *
+     * @return the values recorded since the last reset
+     */
+    public LatencyHistogram snapshotAndReset() {
+        LatencyHistogram snapshot = new LatencyHistogram();
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long bucketCount = counts.getAndSet(bucket, 0);
+            if (bucketCount != 0) {
+                snapshot.counts.set(bucket, bucketCount);
+            }
+        }
+        snapshot.count.add(count.sumThenReset());
+        snapshot.sum.add(sum.sumThenReset());
+        snapshot.max.accumulate(max.getThenReset());
+        return snapshot;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public long getTotalNanos() {
+        return sum.sum();
+    }
+
+    public double getMeanNanos() {
+        long total = count.sum();
+        return total == 0 ? 0 : (double) sum.sum() / total;
+    }
+
+    /**
+     * Gets the latency that the given share of the recorded values do not exceed.
+     *
+     * @param percentile the percentile, 0 to 100
+     * @return the latency in nanoseconds, the upper bound of its bucket, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            total += counts.get(bucket);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValue(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Formats count, mean, p50, p90, p99, p99.9 and max in one line.
+     *
+     * @param unit the unit of the latencies
+     * @return the summary
+     */
+    public String summary(TimeUnit unit) {
+        return String.format("count=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f (%s)", getCount(),
+                convert(getMeanNanos(), unit), convert(getValueAtPercentile(50), unit),
+                convert(getValueAtPercentile(90), unit), convert(getValueAtPercentile(99), unit),
+                convert(getValueAtPercentile(99.9), unit), convert(getMaxNanos(), unit),
+                unit.name().toLowerCase());
+    }
+
+    private static double convert(double nanos, TimeUnit unit) {
+        return nanos / unit.toNanos(1);
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
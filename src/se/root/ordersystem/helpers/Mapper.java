@@ -2,20 +2,82 @@ package se.root.ordersystem.helpers;
 
 import se.root.ordersystem.model.*;
 
+/**
+ * The Class Mapper - the columns read for each entity and the mappers for them.
+ * Queries select the column lists instead of *, and the mappers look up the column indices once
+ * per result set instead of resolving every label on every row.
+ */
 public final class Mapper {
-    public static final ResultMapper<Issue> ISSUE_MAPPER = (r -> Issue.issueBuilder(r.getString("title"))
-            .setId(r.getString("id")).setDescription(r.getString("description")).setActive(r.getBoolean("is_active"))
-            .build());
 
-    public static final ResultMapper<WorkItem> WORK_ITEM_MAPPER = (r -> WorkItem.workItemBuilder(r.getString("name"))
-            .setId(r.getString("id")).setStatus(WorkItemStatus.valueOf(r.getString("status"))).setIssue_id("issue_id")
-            .setIsActive(r.getBoolean("is_active")).build());
+    public static final String ISSUE_COLUMNS = "issue.id, issue.title, issue.description, issue.is_active";
 
-    public static final ResultMapper<Team> TEAM_MAPPER = (r -> Team.teamBuilder(r.getString("name"))
-            .setId(r.getString("id")).setIsActive(r.getBoolean("is_active")).build());
+    public static final String WORK_ITEM_COLUMNS = "workitem.id, workitem.name, workitem.status, workitem.issue_id, workitem.is_active";
 
-    public static final ResultMapper<User> USER_MAPPER = (r -> User
-            .userBuilder(r.getString("username"), r.getString("firstname"), r.getString("lastname"))
-            .setId(r.getString("id")).setTeamId(r.getString("team_id")).setActive(r.getBoolean("is_active"))
-            .build());
+    public static final String TEAM_COLUMNS = "team.id, team.name, team.is_active";
+
+    public static final String USER_COLUMNS = "user.id, user.username, user.firstname, user.lastname, user.team_id, user.is_active";
+
+    public static final String CHANGE_COLUMNS = "outbox.sequence, outbox.entity, outbox.entity_id, outbox.type, outbox.detail, outbox.created_at";
+
+    public static final ResultMapper<Issue> ISSUE_MAPPER = ResultMapper.indexed(r -> {
+        int id = r.findColumn("id");
+        int title = r.findColumn("title");
+        int description = r.findColumn("description");
+        int isActive = r.findColumn("is_active");
+        return row -> Issue.issueBuilder(row.getString(title)).setId(row.getLong(id))
+                .setDescription(row.getString(description)).setActive(row.getBoolean(isActive)).build();
+    });
+
+    public static final ResultMapper<WorkItem> WORK_ITEM_MAPPER = ResultMapper.indexed(r -> {
+        int id = r.findColumn("id");
+        int name = r.findColumn("name");
+        int status = r.findColumn("status");
+        int issueId = r.findColumn("issue_id");
+        int isActive = r.findColumn("is_active");
+        return row -> WorkItem.workItemBuilder(row.getString(name)).setId(row.getLong(id))
+                .setStatus(WorkItemStatus.of(row.getString(status))).setIssue_id(row.getLong(issueId))
+                .setIsActive(row.getBoolean(isActive)).build();
+    });
+
+    public static final ResultMapper<Team> TEAM_MAPPER = ResultMapper.indexed(r -> {
+        int id = r.findColumn("id");
+        int name = r.findColumn("name");
+        int isActive = r.findColumn("is_active");
+        return row -> Team.teamBuilder(row.getString(name)).setId(row.getLong(id))
+                .setIsActive(row.getBoolean(isActive)).build();
+    });
+
+    public static final ResultMapper<User> USER_MAPPER = ResultMapper.indexed(r -> {
+        int id = r.findColumn("id");
+        int username = r.findColumn("username");
+        int firstname = r.findColumn("firstname");
+        int lastname = r.findColumn("lastname");
+        int teamId = r.findColumn("team_id");
+        int isActive = r.findColumn("is_active");
+        return row -> User.userBuilder(row.getString(username), row.getString(firstname), row.getString(lastname))
+                .setId(row.getLong(id)).setTeamId(row.getLong(teamId)).setActive(row.getBoolean(isActive))
+                .build();
+    });
+
+    public static final String ASSIGNED_WORK_ITEM_COLUMNS = "workitem.id, workitem.user_id, user.team_id, workitem.status";
+
+    public static final ResultMapper<AssignedWorkItem> ASSIGNED_WORK_ITEM_MAPPER = ResultMapper.indexed(r -> {
+        int id = r.findColumn("id");
+        int userId = r.findColumn("user_id");
+        int teamId = r.findColumn("team_id");
+        int status = r.findColumn("status");
+        return row -> new AssignedWorkItem(row.getLong(id), row.getLong(userId), row.getLong(teamId),
+                WorkItemStatus.of(row.getString(status)));
+    });
+
+    public static final ResultMapper<Change> CHANGE_MAPPER = ResultMapper.indexed(r -> {
+        int sequence = r.findColumn("sequence");
+        int entity = r.findColumn("entity");
+        int entityId = r.findColumn("entity_id");
+        int type = r.findColumn("type");
+        int detail = r.findColumn("detail");
+        int createdAt = r.findColumn("created_at");
+        return row -> new Change(row.getLong(sequence), row.getString(entity), row.getLong(entityId),
+                ChangeType.valueOf(row.getString(type)), row.getString(detail), row.getTimestamp(createdAt).toInstant());
+    });
 }
@@ -0,0 +1,124 @@
+package se.root.ordersystem.helpers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * The Class PooledConnection - a physical connection owned by a {@link ConnectionPool}.
+ * Closing it hands the connection back to the pool instead of closing the socket.
+ * Prepared statements are cached per connection, see {@link StatementCache}.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class PooledConnection implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private final long createdAt;
+
+    private volatile long lastReturnedAt;
+    private volatile long leasedAt;
+    private volatile Throwable leaseTrace;
+    private volatile boolean leakReported;
+    private boolean pinned;
+
+    PooledConnection(ConnectionPool pool, Connection connection, StatementCache statementCache) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.createdAt = System.currentTimeMillis();
+        this.lastReturnedAt = createdAt;
+    }
+
+    /**
+     * The underlying JDBC connection. Do not close it directly, close this object instead.
+     *
+     * @return the connection
+     */
+    public Connection connection() {
+        return connection;
+    }
+
+    /**
+     * Prepared statement from the statement cache of this connection. The statement is owned by
+     * the cache and must not be closed by the caller, only its result sets.
+     *
+     * @param query      the query
+     * @param returnKeys whether generated keys should be returned
+     * @return the prepared statement
+     * @throws SQLException the SQL exception
+     */
+    public PreparedStatement prepareStatement(String query, boolean returnKeys) throws SQLException {
+        return statementCache.prepare(query, returnKeys);
+    }
+
+    /**
+     * Drops a cached statement, for example after it failed.
+     *
+     * @param query      the query
+     * @param returnKeys whether the statement returns generated keys
+     */
+    public void evictStatement(String query, boolean returnKeys) {
+        statementCache.evict(query, returnKeys);
+    }
+
+    /**
+     * Returns the connection to the pool, unless it is pinned to an open {@link Transaction}.
+     */
+    @Override
+    public void close() {
+        if (!pinned) {
+            pool.release(this);
+        }
+    }
+
+    void pin() {
+        pinned = true;
+    }
+
+    void unpin() {
+        pinned = false;
+    }
+
+    boolean isPinned() {
+        return pinned;
+    }
+
+    void lease(boolean traceLease) {
+        leasedAt = System.currentTimeMillis();
+        leaseTrace = traceLease ? new Throwable("Connection acquired here") : null;
+        leakReported = false;
+    }
+
+    void returned() {
+        lastReturnedAt = System.currentTimeMillis();
+        leaseTrace = null;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getLastReturnedAt() {
+        return lastReturnedAt;
+    }
+
+    long getLeasedAt() {
+        return leasedAt;
+    }
+
+    Throwable getLeaseTrace() {
+        return leaseTrace;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void setLeakReported() {
+        leakReported = true;
+    }
+}
@@ -0,0 +1,76 @@
+package se.root.ordersystem.helpers;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Class QueryEvent - a Flight Recorder event for every call through {@link SQL}, from acquiring
+ * the connection until the rows are mapped or the write is committed.
+ *
+ * When no recording has the event enabled, begin and commit are no-ops the JIT removes together
+ * with the allocation, the fields are only filled in for events that will be committed. The query
+ * shape is the normalized query of {@link QueryMetrics}, cached per distinct query string.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+@Name("se.root.ordersystem.Query")
+@Label("Query")
+@Category({"Ordersystem", "Database"})
+@Description("A statement run through SQL")
+@StackTrace(false)
+final class QueryEvent extends Event {
+
+    private static final ConcurrentMap<String, String> SHAPES = new ConcurrentHashMap<>();
+
+    @Label("Query")
+    @Description("The normalized query")
+    String shape;
+
+    @Label("Write")
+    boolean write;
+
+    @Label("Rows")
+    @Description("The rows read or changed")
+    long rows;
+
+    @Label("Failed")
+    boolean failed;
+
+    /**
+     * Ends the event and commits it if a recording wants it.
+     *
+     * @param query  the query as given to SQL
+     * @param write  whether the query is a write
+     * @param rows   the rows read or changed
+     * @param failed whether the call failed
+     */
+    void finish(String query, boolean write, long rows, boolean failed) {
+        end();
+        if (shouldCommit()) {
+            this.shape = shape(query);
+            this.write = write;
+            this.rows = rows;
+            this.failed = failed;
+            commit();
+        }
+    }
+
+    private static String shape(String query) {
+        String shape = SHAPES.get(query);
+        if (shape == null) {
+            shape = QueryMetrics.normalize(query);
+            if (SHAPES.size() < QueryMetrics.MAX_QUERIES * 4) {
+                SHAPES.putIfAbsent(query, shape);
+            }
+        }
+        return shape;
+    }
+}
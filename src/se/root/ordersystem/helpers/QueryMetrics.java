@@ -0,0 +1,343 @@
+package se.root.ordersystem.helpers;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import static se.root.ordersystem.helpers.DBInfo.metricsEnabled;
+
+/**
+ * The Class QueryMetrics - latency histograms and counters for every query run through
+ * {@link SQL}, keyed by the normalized query text.
+ *
+ * Each call records the time to acquire a connection, the time to execute the statement (including
+ * the commit of a write that is not part of a transaction), the time to map the rows of a read,
+ * and the number of rows read or changed. Recording only touches atomic counters, the normalized
+ * text is computed once per distinct query string. Queries are normalized by collapsing whitespace,
+ * replacing literals with ? and folding IN lists, so queries that only differ in their values
+ * share one entry.
+ *
+ * The metrics are registered with the platform MBean server as se.root.ordersystem:type=QueryMetrics
+ * and {@link #scrape()} formats them as text for {@link MetricsServer}. Set
+ * ordersystem.metrics.enabled to false to turn recording off.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class QueryMetrics {
+
+    private static final Logger LOGGER = Logger.getLogger(QueryMetrics.class.getName());
+
+    /**
+     * At most this many distinct queries get their own entry, the rest are counted together, so
+     * queries built with inlined values can not grow the registry without bound.
+     */
+    static final int MAX_QUERIES = 500;
+    static final String OTHER = "<other>";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private static final ConcurrentMap<String, QueryStats> BY_QUERY = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, QueryStats> BY_NORMALIZED = new ConcurrentHashMap<>();
+
+    static {
+        if (metricsEnabled) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(),
+                        new ObjectName("se.root.ordersystem:type=QueryMetrics"));
+            } catch (JMException e) {
+                LOGGER.log(Level.WARNING, "Could not register the query metrics MBean", e);
+            }
+        }
+    }
+
+    private QueryMetrics() {
+    }
+
+    /**
+     * Records a read.
+     *
+     * @param query         the query as given to SQL
+     * @param startNanos    when the call started
+     * @param acquiredNanos when the connection was acquired
+     * @param executedNanos when the statement returned its result set
+     * @param endNanos      when the rows were mapped
+     * @param rows          the rows read
+     */
+    static void recordRead(String query, long startNanos, long acquiredNanos, long executedNanos, long endNanos,
+                           long rows) {
+        if (metricsEnabled) {
+            QueryStats stats = stats(query);
+            stats.acquire.record(acquiredNanos - startNanos);
+            stats.execute.record(executedNanos - acquiredNanos);
+            stats.map.record(endNanos - executedNanos);
+            stats.rows.add(rows);
+            stats.calls.increment();
+        }
+    }
+
+    /**
+     * Records a write.
+     *
+     * @param query         the query as given to SQL
+     * @param startNanos    when the call started
+     * @param acquiredNanos when the connection was acquired
+     * @param endNanos      when the statement was executed and committed
+     * @param rows          the rows changed
+     */
+    static void recordWrite(String query, long startNanos, long acquiredNanos, long endNanos, long rows) {
+        if (metricsEnabled) {
+            QueryStats stats = stats(query);
+            stats.acquire.record(acquiredNanos - startNanos);
+            stats.execute.record(endNanos - acquiredNanos);
+            stats.rows.add(rows);
+            stats.calls.increment();
+        }
+    }
+
+    /**
+     * Records a call that failed, its latencies are not recorded.
+     *
+     * @param query the query as given to SQL
+     */
+    static void recordError(String query) {
+        if (metricsEnabled) {
+            QueryStats stats = stats(query);
+            stats.errors.increment();
+            stats.calls.increment();
+        }
+    }
+
+    /**
+     * Gets the metrics of every query seen since start or the last reset.
+     *
+     * @return the statistics, ordered by normalized query
+     */
+    public static List<QueryStatistics> getQueries() {
+        Map<String, QueryStats> sorted = new TreeMap<>(BY_NORMALIZED);
+        List<QueryStatistics> queries = new ArrayList<>(sorted.size());
+        sorted.forEach((query, stats) -> queries.add(new QueryStatistics(query, stats)));
+        return queries;
+    }
+
+    /**
+     * Gets the metrics of one query.
+     *
+     * @param query the query, as given to SQL or normalized
+     * @return the statistics, or null if the query was not run
+     */
+    public static QueryStatistics getQuery(String query) {
+        String normalized = normalize(query);
+        QueryStats stats = BY_NORMALIZED.get(normalized);
+        return stats == null ? null : new QueryStatistics(normalized, stats);
+    }
+
+    public static void reset() {
+        BY_QUERY.clear();
+        BY_NORMALIZED.clear();
+    }
+
+    /**
+     * Formats the metrics in the Prometheus text format: counters for calls, errors and rows, and
+     * summaries with the 0.5, 0.99 and 0.999 quantiles in seconds for acquire, execute and map.
+     *
+     * @return the metrics text
+     */
+    public static String scrape() {
+        List<QueryStatistics> queries = getQueries();
+        StringBuilder text = new StringBuilder(256 + queries.size() * 1024);
+        counter(text, "ordersystem_query_calls_total", "Calls, including the failed ones", queries, 0);
+        counter(text, "ordersystem_query_errors_total", "Calls that failed", queries, 1);
+        counter(text, "ordersystem_query_rows_total", "Rows read or changed", queries, 2);
+        summary(text, "ordersystem_query_acquire_seconds", "Time to acquire a connection", queries, 0);
+        summary(text, "ordersystem_query_execute_seconds", "Time to execute, and commit a write", queries, 1);
+        summary(text, "ordersystem_query_map_seconds", "Time to map the rows of a read", queries, 2);
+        return text.toString();
+    }
+
+    /**
+     * Normalizes a query: collapses whitespace, replaces string and number literals with ? and
+     * folds IN lists of placeholders to one placeholder.
+     *
+     * @param query the query
+     * @return the normalized query
+     */
+    static String normalize(String query) {
+        String normalized = WHITESPACE.matcher(query.trim()).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        return IN_LIST.matcher(normalized).replaceAll("IN (?)");
+    }
+
+    private static QueryStats stats(String query) {
+        QueryStats stats = BY_QUERY.get(query);
+        if (stats != null) {
+            return stats;
+        }
+        String normalized = normalize(query);
+        if (BY_NORMALIZED.size() >= MAX_QUERIES && !BY_NORMALIZED.containsKey(normalized)) {
+            normalized = OTHER;
+        }
+        stats = BY_NORMALIZED.computeIfAbsent(normalized, q -> new QueryStats());
+        if (BY_QUERY.size() < MAX_QUERIES * 4) {
+            BY_QUERY.putIfAbsent(query, stats);
+        }
+        return stats;
+    }
+
+    private static void counter(StringBuilder text, String name, String help, List<QueryStatistics> queries,
+                                int counter) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(" counter\n");
+        for (QueryStatistics query : queries) {
+            long value = counter == 0 ? query.getCalls() : counter == 1 ? query.getErrors() : query.getRows();
+            text.append(name).append("{query=\"").append(escape(query.getQuery())).append("\"} ").append(value)
+                    .append('\n');
+        }
+    }
+
+    private static void summary(StringBuilder text, String name, String help, List<QueryStatistics> queries,
+                                int phase) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(" summary\n");
+        for (QueryStatistics query : queries) {
+            LatencyHistogram histogram = phase == 0 ? query.stats.acquire : phase == 1 ? query.stats.execute
+                    : query.stats.map;
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            String label = "{query=\"" + escape(query.getQuery()) + "\"";
+            for (String quantile : new String[]{"0.5", "0.99", "0.999"}) {
+                text.append(name).append(label).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(histogram.getValueAtPercentile(Double.parseDouble(quantile) * 100)))
+                        .append('\n');
+            }
+            text.append(name).append("_sum").append(label).append("} ").append(seconds(histogram.getTotalNanos()))
+                    .append('\n');
+            text.append(name).append("_count").append(label).append("} ").append(histogram.getCount()).append('\n');
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class QueryStats {
+        private final LatencyHistogram acquire = new LatencyHistogram();
+        private final LatencyHistogram execute = new LatencyHistogram();
+        private final LatencyHistogram map = new LatencyHistogram();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+    }
+
+    /**
+     * The metrics of one normalized query, read when the getters are called. Latencies are in
+     * milliseconds.
+     */
+    public static final class QueryStatistics {
+
+        private final String query;
+        private final QueryStats stats;
+
+        private QueryStatistics(String query, QueryStats stats) {
+            this.query = query;
+            this.stats = stats;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public long getCalls() {
+            return stats.calls.sum();
+        }
+
+        public long getErrors() {
+            return stats.errors.sum();
+        }
+
+        public long getRows() {
+            return stats.rows.sum();
+        }
+
+        public double getAcquireP50Millis() {
+            return millis(stats.acquire, 50);
+        }
+
+        public double getAcquireP99Millis() {
+            return millis(stats.acquire, 99);
+        }
+
+        public double getAcquireP999Millis() {
+            return millis(stats.acquire, 99.9);
+        }
+
+        public double getExecuteP50Millis() {
+            return millis(stats.execute, 50);
+        }
+
+        public double getExecuteP99Millis() {
+            return millis(stats.execute, 99);
+        }
+
+        public double getExecuteP999Millis() {
+            return millis(stats.execute, 99.9);
+        }
+
+        public double getMapP50Millis() {
+            return millis(stats.map, 50);
+        }
+
+        public double getMapP99Millis() {
+            return millis(stats.map, 99);
+        }
+
+        public double getMapP999Millis() {
+            return millis(stats.map, 99.9);
+        }
+
+        private static double millis(LatencyHistogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+
+    /**
+     * The JMX view, see {@link QueryMetricsMXBean}.
+     */
+    private static final class MXBean implements QueryMetricsMXBean {
+
+        @Override
+        public List<QueryStatistics> getQueries() {
+            return QueryMetrics.getQueries();
+        }
+
+        @Override
+        public String scrape() {
+            return QueryMetrics.scrape();
+        }
+
+        @Override
+        public void reset() {
+            QueryMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package se.root.ordersystem.helpers;
+
+import java.util.List;
+
+/**
+ * The Interface QueryMetricsMXBean - the JMX view of {@link QueryMetrics}, registered as
+ * se.root.ordersystem:type=QueryMetrics.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public interface QueryMetricsMXBean {
+
+    /**
+     * Gets the metrics of every query, one row per normalized query.
+     *
+     * @return the queries
+     */
+    List<QueryMetrics.QueryStatistics> getQueries();
+
+    /**
+     * Formats the metrics as text, like the scrape endpoint.
+     *
+     * @return the metrics text
+     */
+    String scrape();
+
+    /**
+     * Clears the metrics.
+     */
+    void reset();
+}
@@ -5,4 +5,41 @@ import java.sql.SQLException;
 
 public interface ResultMapper<T> {
 	T map(ResultSet resultSet) throws SQLException;
+
+	/**
+	 * Bind - called once per result set before the first row is mapped. Mappers that look up
+	 * column indices do it here and return a mapper that reads the columns by index.
+	 *
+	 * @param resultSet the result set
+	 * @return the mapper to use for every row of the result set
+	 * @throws SQLException the SQL exception
+	 */
+	default ResultMapper<T> bind(ResultSet resultSet) throws SQLException {
+		return this;
+	}
+
+	/**
+	 * Creates a mapper that resolves its columns once per result set.
+	 *
+	 * @param <T> the generic type
+	 * @param binder looks up the column indices and returns the row mapper using them
+	 * @return the result mapper
+	 */
+	static <T> ResultMapper<T> indexed(Binder<T> binder) {
+		return new ResultMapper<T>() {
+			@Override
+			public T map(ResultSet resultSet) throws SQLException {
+				return binder.bind(resultSet).map(resultSet);
+			}
+
+			@Override
+			public ResultMapper<T> bind(ResultSet resultSet) throws SQLException {
+				return binder.bind(resultSet);
+			}
+		};
+	}
+
+	interface Binder<T> {
+		ResultMapper<T> bind(ResultSet resultSet) throws SQLException;
+	}
 }
@@ -1,19 +1,27 @@
 package se.root.ordersystem.helpers;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import static se.root.ordersystem.helpers.DBInfo.*;
-
+import static se.root.ordersystem.helpers.DBInfo.batchSize;
+import static se.root.ordersystem.helpers.DBInfo.streamFetchSize;
 
 /**
  * The Class SQL.
+ * Connections are borrowed from the shared {@link ConnectionPool} for the url. When a
+ * {@link Transaction} is open on the current thread the call joins it instead, and leaves the
+ * commit to the transaction.
+ * Every call is timed in {@link QueryMetrics}, slow statements are written to the {@link SlowQueryLog}
+ * and every call is a {@link QueryEvent} for Flight Recorder.
  * @author  Root Group
  * @version 1.0
  */
@@ -23,9 +31,13 @@ public final class SQL {
     private final String url;
     
     private final List<Object> parameters;
+
+    private final List<Object[]> rows;
     
     private String query;
 
+    private int chunkSize;
+
     /**
      * Instantiates a new sql.
      *
@@ -34,6 +46,8 @@ public final class SQL {
     public SQL(String url) {
         this.url = url;
         this.parameters = new ArrayList<>();
+        this.rows = new ArrayList<>();
+        this.chunkSize = batchSize;
     }
 
     /**
@@ -58,6 +72,31 @@ public final class SQL {
         return this;
     }
 
+    /**
+     * Row - adds one parameter row for {@link #insertBatch()} or {@link #updateBatch()}.
+     *
+     * @param parameters the parameters of the row, in query order
+     * @return the sql
+     */
+    public SQL row(Object... parameters) {
+        rows.add(parameters);
+        return this;
+    }
+
+    /**
+     * Chunk size - how many rows are sent to the database in one batch.
+     *
+     * @param chunkSize the chunk size
+     * @return the sql
+     */
+    public SQL chunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
     /**
      * Many- to get result from database in list.
      *
@@ -67,22 +106,94 @@ public final class SQL {
      * @throws SQLException the SQL exception
      */
     public <T> List<T> many(ResultMapper<T> mapper) throws SQLException {
-        try (Connection connection = DriverManager.getConnection(url, databaseUsername, databasePassword)) {
-            try (PreparedStatement statement = prepareStatement(connection);
-                 ResultSet resultSet = statement.executeQuery()) {
+        long start = System.nanoTime();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        try (PooledConnection connection = acquire()) {
+            long acquired = System.nanoTime();
+            try (ResultSet resultSet = prepareStatement(connection, false).executeQuery()) {
+                long executed = System.nanoTime();
                 List<T> result = new ArrayList<>();
+                ResultMapper<T> rowMapper = mapper.bind(resultSet);
                 while (resultSet.next()) {
-                    result.add(mapper.map(resultSet));
+                    result.add(rowMapper.map(resultSet));
                 }
+                recordRead(event, start, acquired, executed, result.size());
                 return result;
             } catch (SQLException e) {
+                connection.evictStatement(query, false);
+                recordError(event, false);
                 throw new RuntimeException("Could not ready many from database, please checkout your query:" + query);
             }
         } catch (SQLException e) {
+            recordError(event, false);
             throw new RuntimeException("Something went wrong with the connection, please check your url: " + url);
         }
     }
 
+    /**
+     * Stream - reads the result row by row instead of loading it into a list. The connection is
+     * held until the stream is closed, so always close it, preferably with try-with-resources.
+     *
+     * @param <T> the generic type
+     * @param mapper the mapper
+     * @return the stream, mapping each row when it is consumed
+     * @throws SQLException the SQL exception
+     */
+    public <T> Stream<T> stream(ResultMapper<T> mapper) throws SQLException {
+        long start = System.nanoTime();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        PooledConnection connection;
+        try {
+            connection = acquire();
+        } catch (SQLException e) {
+            recordError(event, false);
+            throw new RuntimeException("Something went wrong with the connection, please check your url: " + url);
+        }
+        long acquired = System.nanoTime();
+        PreparedStatement statement = null;
+        try {
+            statement = connection.connection().prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(streamFetchSize);
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            ResultSet resultSet = statement.executeQuery();
+            long executed = System.nanoTime();
+            ResultMapper<T> rowMapper = mapper.bind(resultSet);
+            PreparedStatement cursor = statement;
+            long[] read = new long[1];
+            Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!resultSet.next()) {
+                            return false;
+                        }
+                        read[0]++;
+                        action.accept(rowMapper.map(resultSet));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new RuntimeException("Could not stream from database, please checkout your query:" + query);
+                    }
+                }
+            };
+            // the map time of a stream includes the time the caller spent between rows
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                QueryMetrics.recordRead(query, start, acquired, executed, System.nanoTime(), read[0]);
+                SlowQueryLog.check(url, query, parameters, executed - acquired);
+                event.finish(query, false, read[0], false);
+                closeCursor(cursor, connection);
+            });
+        } catch (SQLException e) {
+            closeCursor(statement, connection);
+            recordError(event, false);
+            throw new RuntimeException("Could not stream from database, please checkout your query:" + query);
+        }
+    }
+
     /**
      * Single.
      *
@@ -92,12 +203,17 @@ public final class SQL {
      * @throws SQLException the SQL exception
      */
     public <T> T single(ResultMapper<T> mapper) throws SQLException {
-        try (Connection connection = DriverManager.getConnection(url, databaseUsername, databasePassword)) {
-            try (PreparedStatement statement = prepareStatement(connection);
-                 ResultSet resultSet = statement.executeQuery()) {
-
+        long start = System.nanoTime();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        try (PooledConnection connection = acquire()) {
+            long acquired = System.nanoTime();
+            try (ResultSet resultSet = prepareStatement(connection, false).executeQuery()) {
+                long executed = System.nanoTime();
                 if (resultSet.next()) {
-                    return mapper.map(resultSet);
+                    T result = mapper.bind(resultSet).map(resultSet);
+                    recordRead(event, start, acquired, executed, 1);
+                    return result;
                 } else {
                     throw new RuntimeException("No data found in the database with this query: " + query);
                 }
@@ -105,6 +221,38 @@ public final class SQL {
                 throw new SQLException("Couldn't get single with query :" + query);
             }
         } catch (Exception e) {
+            recordError(event, false);
+            throw new RuntimeException("Something went wrong with the connection, please check your url: " + url);
+        }
+    }
+
+    /**
+     * Optional - like {@link #single(ResultMapper)} but returns null instead of failing when the
+     * query finds no row.
+     *
+     * @param <T> the generic type
+     * @param mapper the mapper
+     * @return the t, or null
+     * @throws SQLException the SQL exception
+     */
+    public <T> T optional(ResultMapper<T> mapper) throws SQLException {
+        long start = System.nanoTime();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        try (PooledConnection connection = acquire()) {
+            long acquired = System.nanoTime();
+            try (ResultSet resultSet = prepareStatement(connection, false).executeQuery()) {
+                long executed = System.nanoTime();
+                T result = resultSet.next() ? mapper.bind(resultSet).map(resultSet) : null;
+                recordRead(event, start, acquired, executed, result == null ? 0 : 1);
+                return result;
+            } catch (SQLException e) {
+                connection.evictStatement(query, false);
+                recordError(event, false);
+                throw new RuntimeException("Couldn't get optional with query :" + query);
+            }
+        } catch (SQLException e) {
+            recordError(event, false);
             throw new RuntimeException("Something went wrong with the connection, please check your url: " + url);
         }
     }
@@ -117,51 +265,260 @@ public final class SQL {
      */
     public long insert() throws SQLException {
         long key;
-        try (Connection connection = DriverManager.getConnection(url, databaseUsername, databasePassword)) {
-            connection.setAutoCommit(false);
-            try (PreparedStatement statement = prepareStatement(connection)) {
+        long start = System.nanoTime();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        try (PooledConnection connection = acquire()) {
+            long acquired = System.nanoTime();
+            beginWrite(connection);
+            try {
+                PreparedStatement statement = prepareStatement(connection, true);
                 statement.executeUpdate();
-                ResultSet keys = statement.getGeneratedKeys();
-                if (keys.next()) {
-                    key = keys.getLong(1);
-                } else {
-                    throw new RuntimeException("No data found in the databse with this query: " + query);
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        key = keys.getLong(1);
+                    } else {
+                        throw new RuntimeException("No data found in the databse with this query: " + query);
+                    }
                 }
-                connection.commit();
+                commit(connection);
+                recordWrite(event, start, acquired, 1);
                 return key;
             } catch (SQLException e) {
-                connection.rollback();
+                connection.evictStatement(query, true);
+                rollback(connection);
+                recordError(event, true);
                 throw new RuntimeException("Could not insert row into the database, please checkout your query:" + query);
             }
         } catch (SQLException e) {
+            recordError(event, true);
             throw new RuntimeException("Something went wrong with the connection, please check your url: " + url);
         }
     }
 
-    public void update() throws SQLException {
-        try (Connection connection = DriverManager.getConnection(url, databaseUsername, databasePassword)) {
-            connection.setAutoCommit(false);
-            try (PreparedStatement statement = prepareStatement(connection)) {
-                statement.executeUpdate();
-                connection.commit();
+    /**
+     * Update.
+     *
+     * @return the number of rows the statement matched
+     * @throws SQLException the SQL exception
+     */
+    public int update() throws SQLException {
+        long start = System.nanoTime();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        try (PooledConnection connection = acquire()) {
+            long acquired = System.nanoTime();
+            beginWrite(connection);
+            try {
+                int rows = prepareStatement(connection, false).executeUpdate();
+                commit(connection);
+                recordWrite(event, start, acquired, rows);
+                return rows;
             } catch (SQLException e) {
-                connection.rollback();
+                connection.evictStatement(query, false);
+                rollback(connection);
+                recordError(event, true);
                 throw new RuntimeException("Could not update row in the database, please checkout your query:" + query);
             }
         } catch (SQLException e) {
+            recordError(event, true);
+            throw new RuntimeException("Something went wrong with the connection, please check your url: " + url);
+        }
+    }
+
+    /**
+     * Insert batch - runs the query once per row added with {@link #row(Object...)}, sending the
+     * rows in chunks with one round trip per chunk. All chunks are committed together.
+     *
+     * @return the generated keys, in row order
+     * @throws SQLException the SQL exception
+     */
+    public long[] insertBatch() throws SQLException {
+        long[] keys = new long[rows.size()];
+        if (rows.isEmpty()) {
+            return keys;
+        }
+        long startNanos = System.nanoTime();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        try (PooledConnection connection = acquire()) {
+            long acquired = System.nanoTime();
+            beginWrite(connection);
+            try {
+                PreparedStatement statement = connection.prepareStatement(query, true);
+                int key = 0;
+                for (int start = 0; start < rows.size(); start += chunkSize) {
+                    addBatch(statement, start);
+                    statement.executeBatch();
+                    try (ResultSet generated = statement.getGeneratedKeys()) {
+                        while (generated.next() && key < keys.length) {
+                            keys[key++] = generated.getLong(1);
+                        }
+                    }
+                }
+                if (key != keys.length) {
+                    throw new SQLException("Expected " + keys.length + " generated keys but got " + key);
+                }
+                commit(connection);
+                recordWrite(event, startNanos, acquired, keys.length);
+                return keys;
+            } catch (SQLException e) {
+                connection.evictStatement(query, true);
+                rollback(connection);
+                recordError(event, true);
+                throw new RuntimeException("Could not insert rows into the database, please checkout your query:" + query);
+            }
+        } catch (SQLException e) {
+            recordError(event, true);
+            throw new RuntimeException("Something went wrong with the connection, please check your url: " + url);
+        }
+    }
+
+    /**
+     * Update batch - runs the query once per row added with {@link #row(Object...)}, sending the
+     * rows in chunks with one round trip per chunk. All chunks are committed together.
+     *
+     * @return the update counts, in row order
+     * @throws SQLException the SQL exception
+     */
+    public int[] updateBatch() throws SQLException {
+        int[] counts = new int[rows.size()];
+        if (rows.isEmpty()) {
+            return counts;
+        }
+        long startNanos = System.nanoTime();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        try (PooledConnection connection = acquire()) {
+            long acquired = System.nanoTime();
+            beginWrite(connection);
+            try {
+                PreparedStatement statement = connection.prepareStatement(query, false);
+                for (int start = 0; start < rows.size(); start += chunkSize) {
+                    addBatch(statement, start);
+                    int[] chunk = statement.executeBatch();
+                    System.arraycopy(chunk, 0, counts, start, chunk.length);
+                }
+                commit(connection);
+                recordWrite(event, startNanos, acquired, changed(counts));
+                return counts;
+            } catch (SQLException e) {
+                connection.evictStatement(query, false);
+                rollback(connection);
+                recordError(event, true);
+                throw new RuntimeException("Could not update rows in the database, please checkout your query:" + query);
+            }
+        } catch (SQLException e) {
+            recordError(event, true);
             throw new RuntimeException("Something went wrong with the connection, please check your url: " + url);
         }
     }
 
+    private PooledConnection acquire() throws SQLException {
+        Transaction transaction = Transaction.current();
+        if (transaction == null) {
+            return ConnectionPool.forUrl(url).acquire();
+        }
+        PooledConnection connection = transaction.connection(url);
+        transaction.statementExecuted();
+        return connection;
+    }
+
+    private void recordRead(QueryEvent event, long start, long acquired, long executed, long read) {
+        long end = System.nanoTime();
+        QueryMetrics.recordRead(query, start, acquired, executed, end, read);
+        SlowQueryLog.check(url, query, parameters, end - acquired);
+        event.finish(query, false, read, false);
+    }
+
+    /**
+     * Records a write, a slow batch is explained with the parameters of its first row.
+     */
+    private void recordWrite(QueryEvent event, long start, long acquired, long changed) {
+        long end = System.nanoTime();
+        QueryMetrics.recordWrite(query, start, acquired, end, changed);
+        SlowQueryLog.check(url, query, rows.isEmpty() ? parameters : Arrays.asList(rows.get(0)), end - acquired);
+        event.finish(query, true, changed, false);
+    }
+
+    private void recordError(QueryEvent event, boolean write) {
+        QueryMetrics.recordError(query);
+        event.finish(query, write, 0, true);
+    }
+
+    private static void beginWrite(PooledConnection connection) throws SQLException {
+        if (!connection.isPinned()) {
+            connection.connection().setAutoCommit(false);
+        }
+    }
+
+    /**
+     * Commits by turning auto-commit back on, which commits the open transaction in the same
+     * round trip, so the pool gets the connection back clean and does not reset it.
+     */
+    private static void commit(PooledConnection connection) throws SQLException {
+        if (!connection.isPinned()) {
+            connection.connection().setAutoCommit(true);
+            Transaction.record(Transaction.AUTO_COMMIT, 1, true);
+        }
+    }
+
+    private static void rollback(PooledConnection connection) throws SQLException {
+        if (connection.isPinned()) {
+            Transaction.current().markRollbackOnly();
+        } else {
+            connection.connection().rollback();
+            connection.connection().setAutoCommit(true);
+        }
+    }
+
+    private static void closeCursor(PreparedStatement statement, PooledConnection connection) {
+        try {
+            if (statement != null) {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            // the connection is returned to the pool either way
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Sums batch update counts, the driver reports SUCCESS_NO_INFO (-2) when it does not know a count.
+     */
+    private static long changed(int[] counts) {
+        long changed = 0;
+        for (int count : counts) {
+            changed += Math.max(0, count);
+        }
+        return changed;
+    }
+
+    private void addBatch(PreparedStatement statement, int start) throws SQLException {
+        int end = Math.min(rows.size(), start + chunkSize);
+        for (int row = start; row < end; row++) {
+            Object[] values = rows.get(row);
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+        }
+    }
+
     /**
      * Prepare statement.
      *
+     * The statement comes from the statement cache of the connection and is not closed by the caller.
+     * Generated keys are only requested for inserts.
+     *
      * @param connection the connection
+     * @param returnKeys whether generated keys should be returned
      * @return the prepared statement
      * @throws SQLException the SQL exception
      */
-    private PreparedStatement prepareStatement(Connection connection) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+    private PreparedStatement prepareStatement(PooledConnection connection, boolean returnKeys) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(query, returnKeys);
         for (int i = 0; i < parameters.size(); i++) {
             statement.setObject(i + 1, parameters.get(i));
         }
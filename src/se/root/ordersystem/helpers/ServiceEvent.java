@@ -0,0 +1,66 @@
+package se.root.ordersystem.helpers;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Class ServiceEvent - a Flight Recorder event for a service method, from the call until it
+ * returns or throws.
+ *
+ * <pre>
+ * ServiceEvent event = ServiceEvent.start("UserService.activateUser", id);
+ * try {
+ *     ...
+ * } finally {
+ *     event.finish();
+ * }
+ * </pre>
+ *
+ * When no recording has the event enabled, starting and finishing it are no-ops the JIT removes
+ * together with the allocation. The query events of the method are nested in its duration on the
+ * same thread.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+@Name("se.root.ordersystem.Service")
+@Label("Service Call")
+@Category({"Ordersystem", "Service"})
+@Description("A call of a service method")
+public final class ServiceEvent extends Event {
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Entity Id")
+    @Description("The id of the entity the call is about, 0 if there is none")
+    private long entityId;
+
+    /**
+     * Starts the event.
+     *
+     * @param operation the service and method, like UserService.activateUser
+     * @param entityId  the id of the entity the call is about, or 0
+     * @return the started event
+     */
+    public static ServiceEvent start(String operation, long entityId) {
+        ServiceEvent event = new ServiceEvent();
+        event.operation = operation;
+        event.entityId = entityId;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if a recording wants it.
+     */
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package se.root.ordersystem.helpers;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static se.root.ordersystem.helpers.DBInfo.slowQueryLogCount;
+import static se.root.ordersystem.helpers.DBInfo.slowQueryLogFile;
+import static se.root.ordersystem.helpers.DBInfo.slowQueryLogLimitBytes;
+import static se.root.ordersystem.helpers.DBInfo.slowQueryThresholdMillis;
+
+/**
+ * The Class SlowQueryLog - writes the statements run through {@link SQL} that take longer than
+ * ordersystem.slowQuery.thresholdMillis to a rotating log file.
+ *
+ * Every slow statement gets one line with its duration and normalized query. The first slow
+ * statement of each query shape also gets its bound parameters, with strings redacted to their
+ * length, and the output of EXPLAIN run with the same parameters. EXPLAIN runs on a background
+ * thread with its own connection, so the caller is not slowed down further and an open
+ * transaction is not touched.
+ *
+ * The log is written to ordersystem.slowQuery.file, rotated at ordersystem.slowQuery.limitBytes
+ * over ordersystem.slowQuery.count files. A threshold of 0 logs every statement, a negative one
+ * turns the log off.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class SlowQueryLog {
+
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+    private static final long THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+    private static final Set<String> EXPLAINED = ConcurrentHashMap.newKeySet();
+    private static final ThreadPoolExecutor EXPLAINER = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(64), runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-explain");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static volatile Logger log;
+
+    private SlowQueryLog() {
+    }
+
+    /**
+     * Logs a statement if it was slow.
+     *
+     * @param url        the url the statement ran against
+     * @param query      the query
+     * @param parameters the bound parameters
+     * @param nanos      the time the statement took, without waiting for a connection
+     */
+    static void check(String url, String query, List<Object> parameters, long nanos) {
+        if (THRESHOLD_NANOS < 0 || nanos < THRESHOLD_NANOS) {
+            return;
+        }
+        String shape = QueryMetrics.normalize(query);
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (EXPLAINED.size() >= QueryMetrics.MAX_QUERIES || !EXPLAINED.add(shape)) {
+            log().info(String.format("%s slow query %d ms: %s", Instant.now(), millis, shape));
+            return;
+        }
+        Object[] values = parameters.toArray();
+        Instant at = Instant.now();
+        try {
+            EXPLAINER.execute(() -> log().info(String.format("%s slow query %d ms (first of its shape): %s%n"
+                    + "  parameters: %s%n  explain:%n%s", at, millis, shape, redact(values), explain(url, query, values))));
+        } catch (RejectedExecutionException e) {
+            EXPLAINED.remove(shape);
+            log().info(String.format("%s slow query %d ms: %s", at, millis, shape));
+        }
+    }
+
+    /**
+     * Forgets which query shapes were explained, so their next slow statement is explained again.
+     */
+    public static void reset() {
+        EXPLAINED.clear();
+    }
+
+    /**
+     * Renders the parameters with strings replaced by their length, numbers, booleans and enums
+     * are kept since they are ids and statuses.
+     */
+    static String redact(Object[] values) {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (i > 0) {
+                text.append(", ");
+            }
+            if (value == null || value instanceof Number || value instanceof Boolean || value instanceof Enum) {
+                text.append(value);
+            } else if (value instanceof CharSequence) {
+                text.append("<string length ").append(((CharSequence) value).length()).append('>');
+            } else {
+                text.append('<').append(value.getClass().getSimpleName()).append('>');
+            }
+        }
+        return text.append(']').toString();
+    }
+
+    private static String explain(String url, String query, Object[] values) {
+        String verb = query.trim().split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        if (!verb.equals("SELECT") && !verb.equals("UPDATE") && !verb.equals("DELETE") && !verb.equals("INSERT")
+                && !verb.equals("REPLACE") && !verb.equals("WITH")) {
+            return "    (EXPLAIN is not supported for " + verb + ")";
+        }
+        try (PooledConnection connection = ConnectionPool.forUrl(url).acquire();
+             PreparedStatement statement = connection.connection().prepareStatement("EXPLAIN " + query)) {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                while (resultSet.next()) {
+                    plan.append("   ");
+                    for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                        plan.append(' ').append(metaData.getColumnLabel(column)).append('=')
+                                .append(resultSet.getString(column));
+                    }
+                    plan.append(System.lineSeparator());
+                }
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            return "    (EXPLAIN failed: " + e.getMessage() + ")";
+        }
+    }
+
+    private static Logger log() {
+        Logger current = log;
+        if (current == null) {
+            synchronized (SlowQueryLog.class) {
+                if (log == null) {
+                    log = createLog();
+                }
+                current = log;
+            }
+        }
+        return current;
+    }
+
+    private static Logger createLog() {
+        Logger logger = Logger.getLogger("se.root.ordersystem.slowquery");
+        try {
+            FileHandler handler = new FileHandler(slowQueryLogFile, slowQueryLogLimitBytes, slowQueryLogCount, true);
+            handler.setFormatter(new Formatter() {
+                @Override
+                public String format(LogRecord record) {
+                    return record.getMessage() + System.lineSeparator();
+                }
+            });
+            logger.addHandler(handler);
+            logger.setUseParentHandlers(false);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not open the slow query log " + slowQueryLogFile
+                    + ", slow queries are logged to the console", e);
+        }
+        return logger;
+    }
+}
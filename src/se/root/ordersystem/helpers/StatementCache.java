@@ -0,0 +1,120 @@
+package se.root.ordersystem.helpers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Class StatementCache - a least recently used cache of prepared statements for one
+ * connection, keyed by query text and whether generated keys are returned.
+ * A connection is only used by one thread at a time, so the cache is not synchronized.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+final class StatementCache {
+
+    private final Connection connection;
+    private final LinkedHashMap<Key, PreparedStatement> statements;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    StatementCache(Connection connection, int maxSize, LongAdder hits, LongAdder misses) {
+        this.connection = connection;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<Key, PreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > maxSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets a cached statement for the query or prepares a new one. The parameters of a cached
+     * statement are cleared before it is returned.
+     *
+     * @param query      the query
+     * @param returnKeys whether the statement should return generated keys
+     * @return the prepared statement, owned by the cache
+     * @throws SQLException the SQL exception
+     */
+    PreparedStatement prepare(String query, boolean returnKeys) throws SQLException {
+        Key key = new Key(query, returnKeys);
+        PreparedStatement statement = statements.get(key);
+        if (statement != null && !statement.isClosed()) {
+            hits.increment();
+            statement.clearParameters();
+            return statement;
+        }
+        misses.increment();
+        statement = returnKeys ? connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)
+                : connection.prepareStatement(query);
+        statements.put(key, statement);
+        return statement;
+    }
+
+    /**
+     * Closes and forgets a statement, used when it failed and may be in an unknown state.
+     *
+     * @param query      the query
+     * @param returnKeys whether the statement returns generated keys
+     */
+    void evict(String query, boolean returnKeys) {
+        closeQuietly(statements.remove(new Key(query, returnKeys)));
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        if (statement == null) {
+            return;
+        }
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // the statement is discarded either way
+        }
+    }
+
+    private static final class Key {
+
+        private final String query;
+        private final boolean returnKeys;
+
+        private Key(String query, boolean returnKeys) {
+            this.query = query;
+            this.returnKeys = returnKeys;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * query.hashCode() + (returnKeys ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other instanceof Key) {
+                Key otherKey = (Key) other;
+                return returnKeys == otherKey.returnKeys && query.equals(otherKey.query);
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package se.root.ordersystem.helpers;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import se.root.ordersystem.model.AssignedWorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+
+/**
+ * The Class TeamStatusAggregates - the number of work items per team and status, kept up to date
+ * by the services as statuses and assignments change, so a team dashboard reads three counters
+ * instead of joining and loading every work item of the team.
+ *
+ * A work item counts for the team of the user it is assigned to. Every assigned work item is
+ * tracked with its user, team and status, and each change of one work item is applied atomically,
+ * so concurrent changes of the same work item can not count it twice. The counters are
+ * {@link LongAdder}s, so status changes of different work items do not contend.
+ *
+ * The services update the aggregates after their change is committed, and a change made while a
+ * work item is being assigned can be missed. {@link #rebuild(Stream)} recounts from the database,
+ * call it at startup and when the counts are found to drift.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class TeamStatusAggregates {
+
+    private static final int STATUSES = WorkItemStatus.values().length;
+
+    private volatile State state = new State();
+
+    /**
+     * Replaces the counts with the ones of the given work items. Changes applied while the rebuild
+     * runs are lost, so rebuild before serving requests.
+     *
+     * @param assignedWorkItems every work item that is assigned to a user
+     */
+    public void rebuild(Stream<AssignedWorkItem> assignedWorkItems) {
+        State rebuilt = new State();
+        assignedWorkItems.forEach(workItem -> rebuilt.assign(workItem.getWorkItemId(), workItem.getUserId(),
+                workItem.getTeamId(), workItem.getStatus()));
+        state = rebuilt;
+    }
+
+    /**
+     * Gets the number of work items of a team by status.
+     *
+     * @param teamId the team id
+     * @return the counts, every status is present
+     */
+    public Map<WorkItemStatus, Long> getCounts(long teamId) {
+        LongAdder[] counters = state.teams.get(teamId);
+        Map<WorkItemStatus, Long> counts = new EnumMap<>(WorkItemStatus.class);
+        for (WorkItemStatus status : WorkItemStatus.values()) {
+            counts.put(status, counters == null ? 0 : counters[status.ordinal()].sum());
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the number of work items of a team with a status.
+     *
+     * @param teamId the team id
+     * @param status the status
+     * @return the count
+     */
+    public long getCount(long teamId, WorkItemStatus status) {
+        LongAdder[] counters = state.teams.get(teamId);
+        return counters == null ? 0 : counters[status.ordinal()].sum();
+    }
+
+    /**
+     * A work item changed status, it only counts if it is assigned.
+     *
+     * @param workItemId the work item id
+     * @param status the new status
+     */
+    public void statusChanged(long workItemId, WorkItemStatus status) {
+        State current = state;
+        current.workItems.computeIfPresent(workItemId, (id, placement) -> {
+            current.move(placement.teamId, placement.status, placement.teamId, status);
+            return new Placement(placement.userId, placement.teamId, status);
+        });
+    }
+
+    /**
+     * A work item was assigned to a user.
+     *
+     * @param workItemId the work item id
+     * @param userId the user id
+     * @param teamId the team of the user, or 0 if the user is not in a team
+     * @param status the status of the work item
+     */
+    public void assigned(long workItemId, long userId, long teamId, WorkItemStatus status) {
+        state.assign(workItemId, userId, teamId, status);
+    }
+
+    /**
+     * A user moved to another team, the work items of the user move with it.
+     *
+     * @param userId the user id
+     * @param teamId the new team id
+     */
+    public void userMoved(long userId, long teamId) {
+        State current = state;
+        for (long workItemId : current.workItemsOf(userId)) {
+            current.workItems.computeIfPresent(workItemId, (id, placement) -> {
+                current.move(placement.teamId, placement.status, teamId, placement.status);
+                return new Placement(placement.userId, teamId, placement.status);
+            });
+        }
+    }
+
+    /**
+     * Every work item of a user got the same status.
+     *
+     * @param userId the user id
+     * @param status the status
+     */
+    public void userWorkItemsReset(long userId, WorkItemStatus status) {
+        for (long workItemId : state.workItemsOf(userId)) {
+            statusChanged(workItemId, status);
+        }
+    }
+
+    /**
+     * Every work item of a team got the same status. This looks at every assigned work item, it is
+     * meant for the rare inactivation of a team.
+     *
+     * @param teamId the team id
+     * @param status the status
+     */
+    public void teamWorkItemsReset(long teamId, WorkItemStatus status) {
+        State current = state;
+        for (Map.Entry<Long, Placement> entry : current.workItems.entrySet()) {
+            if (teamId == entry.getValue().teamId) {
+                statusChanged(entry.getKey(), status);
+            }
+        }
+    }
+
+    /**
+     * Where an assigned work item is counted.
+     */
+    private static final class Placement {
+        private final long userId;
+        private final long teamId;
+        private final WorkItemStatus status;
+
+        private Placement(long userId, long teamId, WorkItemStatus status) {
+            this.userId = userId;
+            this.teamId = teamId;
+            this.status = status;
+        }
+    }
+
+    /**
+     * The counts and what they were counted from, replaced as a whole by a rebuild.
+     */
+    private static final class State {
+        private final ConcurrentMap<Long, Placement> workItems = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Long, Set<Long>> workItemsByUser = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Long, LongAdder[]> teams = new ConcurrentHashMap<>();
+
+        private void assign(long workItemId, long userId, long teamId, WorkItemStatus status) {
+            Placement assigned = new Placement(userId, teamId, status);
+            workItems.compute(workItemId, (id, previous) -> {
+                if (previous == null) {
+                    move(0, null, assigned.teamId, status);
+                } else {
+                    move(previous.teamId, previous.status, assigned.teamId, status);
+                    if (previous.userId != userId) {
+                        workItemsOf(previous.userId).remove(workItemId);
+                    }
+                }
+                workItemsByUser.computeIfAbsent(userId, user -> ConcurrentHashMap.newKeySet()).add(workItemId);
+                return assigned;
+            });
+        }
+
+        private Set<Long> workItemsOf(long userId) {
+            Set<Long> workItemIds = workItemsByUser.get(userId);
+            return workItemIds == null ? Set.of() : workItemIds;
+        }
+
+        private void move(long fromTeam, WorkItemStatus fromStatus, long toTeam, WorkItemStatus toStatus) {
+            if (fromTeam != 0) {
+                counters(fromTeam)[fromStatus.ordinal()].decrement();
+            }
+            if (toTeam != 0) {
+                counters(toTeam)[toStatus.ordinal()].increment();
+            }
+        }
+
+        private LongAdder[] counters(long teamId) {
+            return teams.computeIfAbsent(teamId, team -> {
+                LongAdder[] counters = new LongAdder[STATUSES];
+                for (int i = 0; i < STATUSES; i++) {
+                    counters[i] = new LongAdder();
+                }
+                return counters;
+            });
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package se.root.ordersystem.helpers;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import se.root.ordersystem.exception.RepositoryException;
+
+/**
+ * The Class Transaction - a unit of work that lets several repository calls share one connection
+ * and one commit. Every {@link SQL} call made on the same thread while the transaction is open
+ * joins it instead of borrowing its own connection and committing on its own.
+ *
+ * <pre>
+ * try (Transaction transaction = Transaction.begin("UserService.inactivateUser")) {
+ *     ...repository calls...
+ *     transaction.commit();
+ * }
+ * </pre>
+ *
+ * The connection is only borrowed when the first statement runs, so a transaction around
+ * repositories that do not use {@link SQL} costs nothing. A transaction begun inside another one
+ * joins the outer transaction, only the outermost commit reaches the database.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class Transaction implements AutoCloseable {
+
+    /**
+     * Operation name used for statements that commit on their own, outside a transaction.
+     */
+    public static final String AUTO_COMMIT = "<auto-commit>";
+
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+    private static final ConcurrentMap<String, OperationStats> STATS = new ConcurrentHashMap<>();
+
+    private final String operation;
+    private final Transaction outer;
+    private final List<Runnable> afterCompletion = new ArrayList<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private PooledConnection connection;
+    private String url;
+    private int statements;
+    private boolean committed;
+    private boolean rollbackOnly;
+
+    private Transaction(String operation, Transaction outer) {
+        this.operation = operation;
+        this.outer = outer;
+    }
+
+    /**
+     * Begins a transaction on the current thread, or joins the one that is already open.
+     *
+     * @param operation the name the commits are counted under, for example "IssueService.addIssueToWorkItem"
+     * @return the transaction
+     */
+    public static Transaction begin(String operation) {
+        Transaction current = CURRENT.get();
+        if (current != null) {
+            return new Transaction(operation, current);
+        }
+        Transaction transaction = new Transaction(operation, null);
+        CURRENT.set(transaction);
+        return transaction;
+    }
+
+    /**
+     * Gets the transaction open on the current thread.
+     *
+     * @return the transaction, or null if there is none
+     */
+    public static Transaction current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs a callback when the transaction open on the current thread has committed or rolled back,
+     * or right away when there is none. Used to invalidate cached state that other threads could
+     * otherwise read back from the database before the transaction is done.
+     *
+     * @param callback the callback
+     */
+    public static void afterCompletion(Runnable callback) {
+        Transaction current = CURRENT.get();
+        if (current == null) {
+            callback.run();
+        } else {
+            current.afterCompletion.add(callback);
+        }
+    }
+
+    /**
+     * Runs a callback once the transaction open on the current thread has committed, or right away
+     * when there is none. Nothing runs when it rolls back. Used to publish a change to in-memory
+     * state only when the database kept it.
+     *
+     * @param callback the callback
+     */
+    public static void afterCommit(Runnable callback) {
+        Transaction current = CURRENT.get();
+        if (current == null) {
+            callback.run();
+        } else {
+            current.afterCommit.add(callback);
+        }
+    }
+
+    /**
+     * Commits when this is the outermost transaction. A joined transaction only marks its part as
+     * done and leaves the commit to the outer one.
+     *
+     * @throws RepositoryException if the commit failed or a statement in the transaction failed
+     */
+    public void commit() throws RepositoryException {
+        Transaction root = outer == null ? this : outer;
+        if (root.rollbackOnly) {
+            throw new RepositoryException("Transaction '" + root.operation + "' was marked for rollback and can not commit");
+        }
+        if (outer != null) {
+            committed = true;
+            return;
+        }
+        try {
+            if (connection != null) {
+                // commits and hands the connection back to the pool in auto-commit mode, in one round trip
+                connection.connection().setAutoCommit(true);
+                record(operation, statements, true);
+            }
+            committed = true;
+        } catch (SQLException e) {
+            rollbackOnly = true;
+            throw new RepositoryException("Could not commit transaction '" + operation + "'", e);
+        }
+    }
+
+    /**
+     * Ends the transaction. Rolls back unless it was committed, a joined transaction that was not
+     * committed marks the outer transaction for rollback.
+     */
+    @Override
+    public void close() {
+        if (outer != null) {
+            if (!committed) {
+                outer.rollbackOnly = true;
+            }
+            return;
+        }
+        CURRENT.remove();
+        try {
+            release();
+        } finally {
+            for (Runnable callback : afterCompletion) {
+                callback.run();
+            }
+        }
+        if (committed) {
+            for (Runnable callback : afterCommit) {
+                callback.run();
+            }
+        }
+    }
+
+    private void release() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (!committed) {
+                connection.connection().rollback();
+                connection.connection().setAutoCommit(true);
+                record(operation, statements, false);
+            }
+        } catch (SQLException e) {
+            // the pool rolls back or discards the connection when it is returned
+        } finally {
+            connection.unpin();
+            connection.close();
+            connection = null;
+        }
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    PooledConnection connection(String url) throws SQLException {
+        if (connection == null) {
+            PooledConnection acquired = ConnectionPool.forUrl(url).acquire();
+            try {
+                acquired.connection().setAutoCommit(false);
+            } catch (SQLException e) {
+                acquired.close();
+                throw e;
+            }
+            acquired.pin();
+            this.connection = acquired;
+            this.url = url;
+        } else if (!this.url.equals(url)) {
+            throw new SQLException("Transaction '" + operation + "' is bound to " + this.url + " and can not use " + url);
+        }
+        return connection;
+    }
+
+    void statementExecuted() {
+        statements++;
+    }
+
+    void markRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    static void record(String operation, int statements, boolean committed) {
+        OperationStats stats = STATS.computeIfAbsent(operation, o -> new OperationStats());
+        stats.statements.add(statements);
+        if (committed) {
+            stats.commits.increment();
+        } else {
+            stats.rollbacks.increment();
+        }
+    }
+
+    /**
+     * Gets the number of commits made by an operation since start or the last reset.
+     *
+     * @param operation the operation
+     * @return the commits
+     */
+    public static long getCommits(String operation) {
+        OperationStats stats = STATS.get(operation);
+        return stats == null ? 0 : stats.commits.sum();
+    }
+
+    /**
+     * Gets the commit, rollback and statement counts per operation, statements that committed on
+     * their own are counted under {@link #AUTO_COMMIT}.
+     *
+     * @return the counts by operation, each as {commits, rollbacks, statements}
+     */
+    public static Map<String, long[]> getStats() {
+        Map<String, long[]> result = new TreeMap<>();
+        STATS.forEach((operation, stats) -> result.put(operation,
+                new long[]{stats.commits.sum(), stats.rollbacks.sum(), stats.statements.sum()}));
+        return Collections.unmodifiableMap(result);
+    }
+
+    public static void resetStats() {
+        STATS.clear();
+    }
+
+    private static final class OperationStats {
+        private final LongAdder commits = new LongAdder();
+        private final LongAdder rollbacks = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+    }
+}
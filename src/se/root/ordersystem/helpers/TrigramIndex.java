@@ -0,0 +1,292 @@
+package se.root.ordersystem.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The Class TrigramIndex - an in-memory substring index over a fixed number of text fields per id.
+ *
+ * Every field value is split into its three character substrings (trigrams) and each trigram
+ * keeps a sorted posting list of the ids whose field contains it. Posting lists grow in place and
+ * ids that arrive in ascending order, like the rows of a table read by id, are appended, so
+ * building the index costs one append per trigram even for trigrams that most values share. A
+ * search for a term of three or
+ * more characters intersects the posting lists of the term's trigrams and then checks the few
+ * remaining candidates, shorter terms are checked against every value. Matching ignores case,
+ * like the default MySQL collation.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class TrigramIndex {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final int fields;
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Long, String[]> values = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public TrigramIndex(int fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Adds or replaces the field values of an id.
+     *
+     * @param id          the id
+     * @param fieldValues one value per field, null values are never matched
+     */
+    public void put(long id, String... fieldValues) {
+        if (fieldValues.length != fields) {
+            throw new IllegalArgumentException("Expected " + fields + " fields, got " + fieldValues.length);
+        }
+        String[] normalized = new String[fields];
+        for (int field = 0; field < fields; field++) {
+            normalized[field] = fieldValues[field] == null ? null : fieldValues[field].toLowerCase(Locale.ROOT);
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            values.put(id, normalized);
+            for (int field = 0; field < fields; field++) {
+                forEachTrigram(field, normalized[field], key -> postings.computeIfAbsent(key, k -> new Postings()).add(id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an id.
+     *
+     * @param id the id
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every id.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            values.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return values.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the ids where every field contains its term. An empty term matches every value that
+     * is not null, a null term matches nothing.
+     *
+     * @param limit the maximum number of ids, 0 for no limit
+     * @param terms one term per field
+     * @return the ids, ascending
+     */
+    public long[] search(int limit, String... terms) {
+        return search(0, limit, terms);
+    }
+
+    /**
+     * Finds the ids above afterId where every field contains its term.
+     *
+     * @param afterId only ids above this one, 0 for every id
+     * @param limit   the maximum number of ids, 0 for no limit
+     * @param terms   one term per field
+     * @return the ids, ascending
+     */
+    public long[] search(long afterId, int limit, String... terms) {
+        if (terms.length != fields) {
+            throw new IllegalArgumentException("Expected " + fields + " terms, got " + terms.length);
+        }
+        String[] normalized = new String[fields];
+        for (int field = 0; field < fields; field++) {
+            if (terms[field] == null) {
+                return NO_IDS;
+            }
+            normalized[field] = terms[field].toLowerCase(Locale.ROOT);
+        }
+        lock.readLock().lock();
+        try {
+            long[] candidates = null;
+            int count = 0;
+            for (int field = 0; field < fields; field++) {
+                List<Postings> lists = new ArrayList<>();
+                forEachTrigram(field, normalized[field], key -> lists.add(postings.getOrDefault(key, Postings.EMPTY)));
+                lists.sort((a, b) -> Integer.compare(a.size, b.size));
+                for (Postings list : lists) {
+                    if (candidates == null) {
+                        // the smallest list is only read, the intersections allocate the new arrays
+                        candidates = list.ids;
+                        count = list.size;
+                    } else {
+                        candidates = intersect(candidates, count, list.ids, list.size);
+                        count = candidates.length;
+                    }
+                    if (count == 0) {
+                        return NO_IDS;
+                    }
+                }
+            }
+            if (candidates == null) {
+                candidates = allIds();
+                count = candidates.length;
+            }
+            return verify(candidates, count, afterId, normalized, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] verify(long[] candidates, int length, long afterId, String[] terms, int limit) {
+        int from = Arrays.binarySearch(candidates, 0, length, afterId);
+        from = from >= 0 ? from + 1 : -from - 1;
+        int max = limit > 0 ? limit : Integer.MAX_VALUE;
+        long[] matches = new long[Math.min(length - from, max)];
+        int count = 0;
+        for (int i = from; i < length && count < max; i++) {
+            if (matches(values.get(candidates[i]), terms)) {
+                matches[count++] = candidates[i];
+            }
+        }
+        return count == matches.length ? matches : Arrays.copyOf(matches, count);
+    }
+
+    private boolean matches(String[] fieldValues, String[] terms) {
+        for (int field = 0; field < fields; field++) {
+            if (fieldValues[field] == null || !fieldValues[field].contains(terms[field])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long[] allIds() {
+        long[] ids = new long[values.size()];
+        int i = 0;
+        for (long id : values.keySet()) {
+            ids[i++] = id;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private void removeLocked(long id) {
+        String[] previous = values.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (int field = 0; field < fields; field++) {
+            forEachTrigram(field, previous[field], key -> {
+                Postings list = postings.get(key);
+                if (list != null && list.remove(id) && list.size == 0) {
+                    postings.remove(key);
+                }
+            });
+        }
+    }
+
+    private static void forEachTrigram(int field, String value, TrigramConsumer consumer) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            consumer.accept(((long) field << 48) | ((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16)
+                    | value.charAt(i + 2));
+        }
+    }
+
+    private static long[] intersect(long[] a, int aLength, long[] b, int bLength) {
+        long[] result = new long[Math.min(aLength, bLength)];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < aLength && j < bLength) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private interface TrigramConsumer {
+        void accept(long key);
+    }
+
+    /**
+     * The ascending ids of one trigram, in an array with room to grow.
+     */
+    private static final class Postings {
+
+        static final Postings EMPTY = new Postings();
+
+        private long[] ids = NO_IDS;
+        private int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0) {
+                    return;
+                }
+                grow();
+                index = -index - 1;
+                System.arraycopy(ids, index, ids, index + 1, size - index);
+                ids[index] = id;
+            } else {
+                grow();
+                ids[size] = id;
+            }
+            size++;
+        }
+
+        /**
+         * @return true if the id was removed
+         */
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+            }
+        }
+    }
+}
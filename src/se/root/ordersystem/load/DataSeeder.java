@@ -0,0 +1,252 @@
+package se.root.ordersystem.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.model.Issue;
+import se.root.ordersystem.model.Team;
+import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.interfaces.IssueRepository;
+import se.root.ordersystem.repository.interfaces.TeamRepository;
+import se.root.ordersystem.repository.interfaces.UserRepository;
+import se.root.ordersystem.repository.interfaces.WorkItemRepository;
+
+import static se.root.ordersystem.helpers.DBInfo.batchSize;
+
+/**
+ * The Class DataSeeder - fills the repositories with a dataset shaped like production data.
+ *
+ * Rows are inserted with createAll in chunks of ordersystem.db.batchSize, statuses are set with
+ * updateAll, and the writes that have no batch method (team membership, assignments and issues)
+ * are spread over a pool of threads. Teams get 1 to 10 members, users get up to --assigned work
+ * items, and the statuses and issues follow the shares in the options. The same seed gives the
+ * same dataset.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class DataSeeder {
+
+    private static final int MAX_TEAM_SIZE = 10;
+    private static final String[] FIRSTNAMES = {"Anna", "Erik", "Maria", "Lars", "Karin", "Johan", "Sara", "Anders",
+            "Emma", "Per", "Lena", "Nils", "Eva", "Olof", "Sofia", "Karl"};
+    private static final String[] LASTNAMES = {"Andersson", "Johansson", "Karlsson", "Nilsson", "Eriksson",
+            "Larsson", "Olsson", "Persson", "Svensson", "Gustafsson", "Pettersson", "Jonsson"};
+
+    private final TeamRepository teamRepository;
+    private final UserRepository userRepository;
+    private final WorkItemRepository workItemRepository;
+    private final IssueRepository issueRepository;
+    private final int threads;
+
+    public DataSeeder(TeamRepository teamRepository, UserRepository userRepository,
+                      WorkItemRepository workItemRepository, IssueRepository issueRepository, int threads) {
+        this.teamRepository = teamRepository;
+        this.userRepository = userRepository;
+        this.workItemRepository = workItemRepository;
+        this.issueRepository = issueRepository;
+        this.threads = threads;
+    }
+
+    /**
+     * Seeds the dataset.
+     *
+     * @param options the options
+     * @return the ids of the seeded rows
+     * @throws RepositoryException the repository exception
+     */
+    public Dataset seed(LoadOptions options) throws RepositoryException {
+        SplittableRandom random = new SplittableRandom(options.getSeed());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            long[] teamIds = createTeams(options.getTeams());
+            long[] userIds = createUsers(options.getUsers());
+            addUsersToTeams(executor, random, teamIds, userIds);
+            log("teams and users", start);
+
+            start = System.nanoTime();
+            long[] workItemIds = createWorkItems(options.getWorkItems());
+            WorkItemStatus[] statuses = setStatuses(random, workItemIds, options);
+            log("work items", start);
+
+            start = System.nanoTime();
+            assignWorkItems(executor, random, userIds, workItemIds, options.getAssignedPerUser());
+            addIssues(executor, random, workItemIds, statuses, options.getIssueShare());
+            log("assignments and issues", start);
+
+            return new Dataset(teamIds, userIds, workItemIds, options.getHotShare());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long[] createTeams(int count) throws RepositoryException {
+        long[] ids = new long[count];
+        List<Team> chunk = new ArrayList<>(batchSize);
+        for (int offset = 0; offset < count; offset += chunk.size()) {
+            chunk.clear();
+            for (int i = offset; i < Math.min(count, offset + batchSize); i++) {
+                chunk.add(Team.teamBuilder("Team " + (i + 1)).build());
+            }
+            System.arraycopy(teamRepository.createAll(chunk), 0, ids, offset, chunk.size());
+        }
+        return ids;
+    }
+
+    private long[] createUsers(int count) throws RepositoryException {
+        long[] ids = new long[count];
+        List<User> chunk = new ArrayList<>(batchSize);
+        for (int offset = 0; offset < count; offset += chunk.size()) {
+            chunk.clear();
+            for (int i = offset; i < Math.min(count, offset + batchSize); i++) {
+                chunk.add(User.userBuilder("user" + (i + 1), FIRSTNAMES[i % FIRSTNAMES.length],
+                        LASTNAMES[(i / FIRSTNAMES.length) % LASTNAMES.length]).build());
+            }
+            System.arraycopy(userRepository.createAll(chunk), 0, ids, offset, chunk.size());
+        }
+        return ids;
+    }
+
+    private long[] createWorkItems(int count) throws RepositoryException {
+        long[] ids = new long[count];
+        List<WorkItem> chunk = new ArrayList<>(batchSize);
+        for (int offset = 0; offset < count; offset += chunk.size()) {
+            chunk.clear();
+            for (int i = offset; i < Math.min(count, offset + batchSize); i++) {
+                chunk.add(WorkItem.workItemBuilder("Work item " + (i + 1)).build());
+            }
+            System.arraycopy(workItemRepository.createAll(chunk), 0, ids, offset, chunk.size());
+        }
+        return ids;
+    }
+
+    /**
+     * Draws a status for every work item and updates the ones that are not UNSTARTED, the status
+     * new work items get.
+     */
+    private WorkItemStatus[] setStatuses(SplittableRandom random, long[] workItemIds, LoadOptions options)
+            throws RepositoryException {
+        WorkItemStatus[] statuses = new WorkItemStatus[workItemIds.length];
+        List<WorkItem> chunk = new ArrayList<>(batchSize);
+        for (int i = 0; i < workItemIds.length; i++) {
+            double draw = random.nextDouble();
+            statuses[i] = draw < options.getDoneShare() ? WorkItemStatus.DONE
+                    : draw < options.getDoneShare() + options.getStartedShare() ? WorkItemStatus.STARTED
+                    : WorkItemStatus.UNSTARTED;
+            if (statuses[i] != WorkItemStatus.UNSTARTED) {
+                chunk.add(WorkItem.workItemBuilder("Work item " + (i + 1)).setId(workItemIds[i])
+                        .setStatus(statuses[i]).build());
+            }
+            if (chunk.size() == batchSize) {
+                workItemRepository.updateAll(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            workItemRepository.updateAll(chunk);
+        }
+        return statuses;
+    }
+
+    private void addUsersToTeams(ExecutorService executor, SplittableRandom random, long[] teamIds, long[] userIds)
+            throws RepositoryException {
+        long[] teamOfUser = new long[userIds.length];
+        int user = 0;
+        for (int team = 0; team < teamIds.length && user < userIds.length; team++) {
+            int members = 1 + random.nextInt(MAX_TEAM_SIZE);
+            for (int member = 0; member < members && user < userIds.length; member++) {
+                teamOfUser[user++] = teamIds[team];
+            }
+        }
+        inParallel(executor, user, i -> teamRepository.addUserToTeam(userIds[i], teamOfUser[i]));
+    }
+
+    private void assignWorkItems(ExecutorService executor, SplittableRandom random, long[] userIds,
+                                 long[] workItemIds, int assignedPerUser) throws RepositoryException {
+        int[] firstWorkItem = new int[userIds.length + 1];
+        int next = 0;
+        for (int user = 0; user < userIds.length; user++) {
+            firstWorkItem[user] = next;
+            next = Math.min(workItemIds.length, next + random.nextInt(assignedPerUser + 1));
+        }
+        firstWorkItem[userIds.length] = next;
+        inParallel(executor, userIds.length, user -> {
+            for (int i = firstWorkItem[user]; i < firstWorkItem[user + 1]; i++) {
+                userRepository.addWorkItemToUser(userIds[user], workItemIds[i]);
+            }
+        });
+    }
+
+    private void addIssues(ExecutorService executor, SplittableRandom random, long[] workItemIds,
+                           WorkItemStatus[] statuses, double issueShare) throws RepositoryException {
+        List<Long> withIssue = new ArrayList<>();
+        for (int i = 0; i < workItemIds.length; i++) {
+            if (statuses[i] == WorkItemStatus.DONE && random.nextDouble() < issueShare) {
+                withIssue.add(workItemIds[i]);
+            }
+        }
+        List<Issue> chunk = new ArrayList<>(batchSize);
+        for (int offset = 0; offset < withIssue.size(); offset += chunk.size()) {
+            chunk.clear();
+            for (int i = offset; i < Math.min(withIssue.size(), offset + batchSize); i++) {
+                chunk.add(Issue.issueBuilder("Issue " + (i + 1)).setDescription("Found after work item "
+                        + withIssue.get(i) + " was done").build());
+            }
+            long[] issueIds = issueRepository.createAll(chunk);
+            int first = offset;
+            inParallel(executor, chunk.size(), i -> {
+                Issue issue = chunk.get(i);
+                issueRepository.AddIssueToWorkItem(Issue.issueBuilder(issue.getTitle())
+                        .setDescription(issue.getDescription()).setId(issueIds[i]).build(),
+                        withIssue.get(first + i));
+            });
+        }
+    }
+
+    /**
+     * Runs a write for every index from 0 to count, in one slice per thread.
+     */
+    private void inParallel(ExecutorService executor, int count, IndexedWrite write) throws RepositoryException {
+        int slice = (count + threads - 1) / threads;
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int from = 0; from < count; from += slice) {
+            int start = from;
+            int end = Math.min(count, from + slice);
+            futures.add(executor.submit(() -> {
+                for (int i = start; i < end; i++) {
+                    write.run(i);
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while seeding", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RepositoryException("Could not seed the dataset", e.getCause());
+        }
+    }
+
+    private static void log(String step, long startNanos) {
+        System.out.printf("Seeded %s in %d ms%n", step, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    private interface IndexedWrite {
+        void run(int index) throws RepositoryException;
+    }
+}
@@ -0,0 +1,74 @@
+package se.root.ordersystem.load;
+
+import java.util.Random;
+
+/**
+ * The Class Dataset - the ids of the seeded rows, which the operations of a load test pick from.
+ *
+ * Picks are skewed like production traffic: the first share of the ids, the hot set, gets 80% of
+ * the picks.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class Dataset {
+
+    private static final double HOT_PICKS = 0.8;
+
+    private final long[] teamIds;
+    private final long[] userIds;
+    private final long[] workItemIds;
+    private final double hotShare;
+
+    public Dataset(long[] teamIds, long[] userIds, long[] workItemIds, double hotShare) {
+        this.teamIds = teamIds;
+        this.userIds = userIds;
+        this.workItemIds = workItemIds;
+        this.hotShare = hotShare;
+    }
+
+    public long pickTeamId(Random random) {
+        return pick(teamIds, random);
+    }
+
+    public long pickUserId(Random random) {
+        return pick(userIds, random);
+    }
+
+    public long pickWorkItemId(Random random) {
+        return pick(workItemIds, random);
+    }
+
+    /**
+     * Picks a team id to page from, any id in the range of the teams.
+     *
+     * @param random the random
+     * @return the id to read after
+     */
+    public long pickTeamPageStart(Random random) {
+        return teamIds.length == 0 ? 0 : teamIds[random.nextInt(teamIds.length)] - 1;
+    }
+
+    public int getTeams() {
+        return teamIds.length;
+    }
+
+    public int getUsers() {
+        return userIds.length;
+    }
+
+    public int getWorkItems() {
+        return workItemIds.length;
+    }
+
+    private long pick(long[] ids, Random random) {
+        if (ids.length == 0) {
+            throw new IllegalStateException("The dataset has no rows to pick from");
+        }
+        int hot = (int) (ids.length * hotShare);
+        if (hot > 0 && random.nextDouble() < HOT_PICKS) {
+            return ids[random.nextInt(hot)];
+        }
+        return ids[random.nextInt(ids.length)];
+    }
+}
@@ -0,0 +1,124 @@
+package se.root.ordersystem.load;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.exception.ServiceException;
+
+/**
+ * The Class LoadGenerator - runs a workload for a fixed time and reports the latencies.
+ *
+ * With a rate above 0 the load is open loop: a scheduler thread decides when every operation
+ * arrives, poisson or evenly spaced, and hands it to the workers whether or not the previous ones
+ * are done, like independent users would. Latencies are measured from the scheduled arrival, so a
+ * stall shows up in every operation that queued behind it instead of in one slow call. With a rate
+ * of 0 every worker runs operations back to back, which finds the most the services can do but
+ * hides queueing.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class LoadGenerator {
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+    private final Workload workload;
+    private final LoadOptions options;
+
+    public LoadGenerator(Workload workload, LoadOptions options) {
+        this.workload = workload;
+        this.options = options;
+    }
+
+    /**
+     * Runs the warmup and then the measured duration.
+     *
+     * @return the report of the measured duration
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public LoadReport run() throws InterruptedException {
+        LoadReport report = new LoadReport();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(options.getDurationSeconds());
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(options.getConcurrency(), options.getConcurrency(), 0,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "load-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            if (options.getRate() > 0) {
+                schedule(workers, report, start, measureFrom, end);
+            } else {
+                for (int i = 0; i < options.getConcurrency(); i++) {
+                    workers.execute(() -> loop(report, measureFrom, end));
+                }
+            }
+            workers.shutdown();
+            if (!workers.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                List<Runnable> neverRan = workers.shutdownNow();
+                report.unfinished(neverRan.size());
+            }
+            report.setElapsedNanos(Math.min(System.nanoTime(), end) - measureFrom);
+            return report;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void schedule(ExecutorService workers, LoadReport report, long start, long measureFrom, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double meanIntervalNanos = 1e9 / options.getRate();
+        double arrival = start;
+        while (arrival < end) {
+            long intended = (long) arrival;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            workers.execute(() -> runOne(report, intended, intended >= measureFrom));
+            arrival += options.isPoisson() ? -Math.log(1 - random.nextDouble()) * meanIntervalNanos
+                    : meanIntervalNanos;
+        }
+    }
+
+    private void loop(LoadReport report, long measureFrom, long end) {
+        for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+            runOne(report, now, now >= measureFrom);
+        }
+    }
+
+    private void runOne(LoadReport report, long intended, boolean measured) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Operation operation = workload.next(random);
+        long started = System.nanoTime();
+        try {
+            workload.execute(operation, random);
+            if (measured) {
+                report.completed(operation, intended, started, System.nanoTime());
+            }
+        } catch (ServiceException e) {
+            if (!measured) {
+                return;
+            }
+            // the services wrap repository failures, only the other service exceptions are rejections
+            if (e.getCause() instanceof RepositoryException) {
+                report.failed(operation, e);
+            } else {
+                report.rejected(operation, intended, started, System.nanoTime());
+            }
+        } catch (RuntimeException e) {
+            if (measured) {
+                report.failed(operation, e);
+            }
+        }
+    }
+}
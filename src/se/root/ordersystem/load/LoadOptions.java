@@ -0,0 +1,212 @@
+package se.root.ordersystem.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The Class LoadOptions - the settings of a load test, read from "--name=value" arguments.
+ *
+ * <pre>
+ * --target=memory       memory for the in-memory repositories, mysql for ordersystem.db.url
+ * --teams=1000          teams to seed, every team gets 1 to 10 members
+ * --users=6000          users to seed, the ones that do not fit a team stay without one
+ * --workItems=1000000   work items to seed
+ * --started=0.3         share of the work items seeded as STARTED
+ * --done=0.5            share of the work items seeded as DONE, the rest is UNSTARTED
+ * --assigned=3          most work items assigned to a user when seeding, at most 5
+ * --issues=0.05         share of the DONE work items seeded with an issue
+ * --seed=42             random seed of the dataset
+ * --mix=assign:20,...   weights of the operations, see {@link Operation}
+ * --rate=2000           arrivals per second, 0 runs closed loop as fast as the threads can
+ * --arrival=poisson     poisson or uniform arrivals
+ * --concurrency=16      worker threads
+ * --warmup=10           seconds before measuring starts
+ * --duration=60         seconds measured
+ * --hot=0.2             share of the ids that get 80% of the operations, 0 for uniform
+ * </pre>
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class LoadOptions {
+
+    private String target = "memory";
+    private int teams = 1_000;
+    private int users = 6_000;
+    private int workItems = 1_000_000;
+    private double startedShare = 0.3;
+    private double doneShare = 0.5;
+    private int assignedPerUser = 3;
+    private double issueShare = 0.05;
+    private long seed = 42;
+    private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    private double rate = 2_000;
+    private boolean poisson = true;
+    private int concurrency = 16;
+    private int warmupSeconds = 10;
+    private int durationSeconds = 60;
+    private double hotShare = 0.2;
+
+    public LoadOptions() {
+        for (Operation operation : Operation.values()) {
+            mix.put(operation, operation.getDefaultWeight());
+        }
+    }
+
+    /**
+     * Parses the arguments, the options that are not given keep their defaults.
+     *
+     * @param args the arguments
+     * @return the options
+     * @throws IllegalArgumentException if an argument is unknown or malformed
+     */
+    public static LoadOptions parse(String... args) {
+        LoadOptions options = new LoadOptions();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got '" + arg + "'");
+            }
+            options.set(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        if (options.startedShare + options.doneShare > 1) {
+            throw new IllegalArgumentException("--started and --done add up to more than 1");
+        }
+        if (options.assignedPerUser > 5) {
+            throw new IllegalArgumentException("--assigned can not be more than 5, the most work items of a user");
+        }
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+        case "target":
+            if (!value.equals("memory") && !value.equals("mysql")) {
+                throw new IllegalArgumentException("--target is memory or mysql, got '" + value + "'");
+            }
+            target = value;
+            break;
+        case "teams":
+            teams = Integer.parseInt(value);
+            break;
+        case "users":
+            users = Integer.parseInt(value);
+            break;
+        case "workItems":
+            workItems = Integer.parseInt(value);
+            break;
+        case "started":
+            startedShare = Double.parseDouble(value);
+            break;
+        case "done":
+            doneShare = Double.parseDouble(value);
+            break;
+        case "assigned":
+            assignedPerUser = Integer.parseInt(value);
+            break;
+        case "issues":
+            issueShare = Double.parseDouble(value);
+            break;
+        case "seed":
+            seed = Long.parseLong(value);
+            break;
+        case "mix":
+            mix.replaceAll((operation, weight) -> 0);
+            for (String entry : value.split(",")) {
+                String[] parts = entry.split(":");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Expected operation:weight in --mix, got '" + entry + "'");
+                }
+                mix.put(Operation.byName(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            }
+            break;
+        case "rate":
+            rate = Double.parseDouble(value);
+            break;
+        case "arrival":
+            if (!value.equals("poisson") && !value.equals("uniform")) {
+                throw new IllegalArgumentException("--arrival is poisson or uniform, got '" + value + "'");
+            }
+            poisson = value.equals("poisson");
+            break;
+        case "concurrency":
+            concurrency = Integer.parseInt(value);
+            break;
+        case "warmup":
+            warmupSeconds = Integer.parseInt(value);
+            break;
+        case "duration":
+            durationSeconds = Integer.parseInt(value);
+            break;
+        case "hot":
+            hotShare = Double.parseDouble(value);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown option --" + name);
+        }
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public int getTeams() {
+        return teams;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getWorkItems() {
+        return workItems;
+    }
+
+    public double getStartedShare() {
+        return startedShare;
+    }
+
+    public double getDoneShare() {
+        return doneShare;
+    }
+
+    public int getAssignedPerUser() {
+        return assignedPerUser;
+    }
+
+    public double getIssueShare() {
+        return issueShare;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public boolean isPoisson() {
+        return poisson;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public double getHotShare() {
+        return hotShare;
+    }
+}
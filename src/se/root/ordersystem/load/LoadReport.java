@@ -0,0 +1,136 @@
+package se.root.ordersystem.load;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import se.root.ordersystem.helpers.LatencyHistogram;
+
+/**
+ * The Class LoadReport - the outcomes and latencies of a load test per service method.
+ *
+ * The response time runs from the moment an operation was scheduled to arrive, so it includes the
+ * time it waited for a worker when the system fell behind. The service time runs from the moment
+ * a worker started it. Calls that end in a ServiceException, for example a user that already has
+ * 5 work items, are counted as rejected, unless the repository failed underneath it. Those and any
+ * other exception are counted as failed.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class LoadReport {
+
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final LongAdder unfinished = new LongAdder();
+    private volatile long elapsedNanos;
+
+    public LoadReport() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    void completed(Operation operation, long intendedNanos, long startNanos, long endNanos) {
+        OperationStats operationStats = stats.get(operation);
+        operationStats.completed.increment();
+        operationStats.responseTime.record(endNanos - intendedNanos);
+        operationStats.serviceTime.record(endNanos - startNanos);
+    }
+
+    void rejected(Operation operation, long intendedNanos, long startNanos, long endNanos) {
+        OperationStats operationStats = stats.get(operation);
+        operationStats.rejected.increment();
+        operationStats.responseTime.record(endNanos - intendedNanos);
+        operationStats.serviceTime.record(endNanos - startNanos);
+    }
+
+    void failed(Operation operation, Throwable failure) {
+        OperationStats operationStats = stats.get(operation);
+        operationStats.failed.increment();
+        operationStats.firstFailure.compareAndSet(null, String.valueOf(failure));
+    }
+
+    void unfinished(long count) {
+        unfinished.add(count);
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public LatencyHistogram getResponseTime(Operation operation) {
+        return stats.get(operation).responseTime;
+    }
+
+    public LatencyHistogram getServiceTime(Operation operation) {
+        return stats.get(operation).serviceTime;
+    }
+
+    public long getCompleted(Operation operation) {
+        return stats.get(operation).completed.sum();
+    }
+
+    public long getRejected(Operation operation) {
+        return stats.get(operation).rejected.sum();
+    }
+
+    public long getFailed(Operation operation) {
+        return stats.get(operation).failed.sum();
+    }
+
+    public long getUnfinished() {
+        return unfinished.sum();
+    }
+
+    /**
+     * Prints one line per service method with the throughput, outcomes and latency percentiles in
+     * milliseconds.
+     *
+     * @param out the stream
+     */
+    public void print(PrintStream out) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%-38s %9s %9s %8s %7s %8s %8s %8s %8s %9s %9s%n", "method", "ops/s", "ok", "rejected", "failed",
+                "p50", "p90", "p99", "p99.9", "max", "svc p99");
+        long total = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            long calls = operationStats.completed.sum() + operationStats.rejected.sum() + operationStats.failed.sum();
+            if (calls == 0) {
+                continue;
+            }
+            total += calls;
+            LatencyHistogram response = operationStats.responseTime;
+            out.printf("%-38s %9.1f %9d %8d %7d %8.3f %8.3f %8.3f %8.3f %9.3f %9.3f%n", entry.getKey().getMethod(),
+                    calls / seconds, operationStats.completed.sum(), operationStats.rejected.sum(),
+                    operationStats.failed.sum(), millis(response.getValueAtPercentile(50)),
+                    millis(response.getValueAtPercentile(90)), millis(response.getValueAtPercentile(99)),
+                    millis(response.getValueAtPercentile(99.9)), millis(response.getMaxNanos()),
+                    millis(operationStats.serviceTime.getValueAtPercentile(99)));
+        }
+        out.printf("%d calls in %.1f s, %.1f ops/s, latencies in ms", total, seconds, total / seconds);
+        out.println(unfinished.sum() > 0 ? ", " + unfinished.sum() + " arrivals never ran" : "");
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            String failure = entry.getValue().firstFailure.get();
+            if (failure != null) {
+                out.println("First failure of " + entry.getKey().getMethod() + ": " + failure);
+            }
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class OperationStats {
+        private final LatencyHistogram responseTime = new LatencyHistogram();
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final AtomicReference<String> firstFailure = new AtomicReference<>();
+    }
+}
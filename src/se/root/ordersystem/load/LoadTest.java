@@ -0,0 +1,105 @@
+package se.root.ordersystem.load;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.DBInfo;
+import se.root.ordersystem.repository.CachingIssueRepository;
+import se.root.ordersystem.repository.CachingTeamRepository;
+import se.root.ordersystem.repository.CachingUserRepository;
+import se.root.ordersystem.repository.CachingWorkItemRepository;
+import se.root.ordersystem.repository.InMemoryDatabase;
+import se.root.ordersystem.repository.InMemoryIssueRepository;
+import se.root.ordersystem.repository.InMemoryTeamRepository;
+import se.root.ordersystem.repository.InMemoryUserRepository;
+import se.root.ordersystem.repository.InMemoryWorkItemRepository;
+import se.root.ordersystem.repository.IndexedUserRepository;
+import se.root.ordersystem.repository.MySQLIssueRepository;
+import se.root.ordersystem.repository.MySQLTeamRepository;
+import se.root.ordersystem.repository.MySQLUserRepository;
+import se.root.ordersystem.repository.MySQLWorkItemRepository;
+import se.root.ordersystem.repository.interfaces.IssueRepository;
+import se.root.ordersystem.repository.interfaces.TeamRepository;
+import se.root.ordersystem.repository.interfaces.UserRepository;
+import se.root.ordersystem.repository.interfaces.WorkItemRepository;
+import se.root.ordersystem.schema.Schema;
+import se.root.ordersystem.service.IssueService;
+import se.root.ordersystem.service.TeamService;
+import se.root.ordersystem.service.UserService;
+import se.root.ordersystem.service.WorkItemService;
+
+/**
+ * The Class LoadTest - seeds a dataset and runs a workload against the services, see
+ * {@link LoadOptions} for the arguments.
+ *
+ * <pre>
+ * java -cp target/classes se.root.ordersystem.load.LoadTest --workItems=2000000 --rate=5000 --duration=120
+ * </pre>
+ *
+ * The default target keeps the data in the in-memory repositories, which need a heap of about
+ * 300 bytes per work item. The mysql target seeds the database in ordersystem.db.url through the
+ * same repositories as Main, create an empty database for it.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        UserRepository userRepository;
+        TeamRepository teamRepository;
+        WorkItemRepository workItemRepository;
+        IssueRepository issueRepository;
+        int seedThreads;
+        if (options.getTarget().equals("mysql")) {
+            try {
+                Schema.bootstrap(DBInfo.url);
+            } catch (RepositoryException e) {
+                e.printStackTrace();
+                System.exit(1);
+            }
+            userRepository = new IndexedUserRepository(new CachingUserRepository(new MySQLUserRepository()));
+            teamRepository = new CachingTeamRepository(new MySQLTeamRepository());
+            workItemRepository = new CachingWorkItemRepository(new MySQLWorkItemRepository());
+            issueRepository = new CachingIssueRepository(new MySQLIssueRepository());
+            seedThreads = DBInfo.poolMaxSize;
+        } else {
+            InMemoryDatabase database = new InMemoryDatabase();
+            userRepository = new IndexedUserRepository(new InMemoryUserRepository(database));
+            teamRepository = new InMemoryTeamRepository(database);
+            workItemRepository = new InMemoryWorkItemRepository(database);
+            issueRepository = new InMemoryIssueRepository(database);
+            seedThreads = Runtime.getRuntime().availableProcessors();
+        }
+
+        Dataset dataset;
+        try {
+            dataset = new DataSeeder(teamRepository, userRepository, workItemRepository, issueRepository, seedThreads)
+                    .seed(options);
+        } catch (RepositoryException e) {
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+        System.out.printf("Dataset: %d teams, %d users, %d work items%n", dataset.getTeams(), dataset.getUsers(),
+                dataset.getWorkItems());
+
+        Workload workload = new Workload(new UserService(userRepository, workItemRepository),
+                new TeamService(teamRepository, userRepository), new WorkItemService(workItemRepository),
+                new IssueService(issueRepository, workItemRepository), dataset, options.getMix());
+        System.out.printf("Running %s for %d s after %d s of warmup, %d workers%n",
+                options.getRate() > 0 ? options.getRate() + " ops/s open loop" : "closed loop",
+                options.getDurationSeconds(), options.getWarmupSeconds(), options.getConcurrency());
+        new LoadGenerator(workload, options).run().print(System.out);
+    }
+}
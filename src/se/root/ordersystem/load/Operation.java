@@ -0,0 +1,56 @@
+package se.root.ordersystem.load;
+
+/**
+ * The Enum Operation - the service calls a load test mixes, with the name used in --mix and the
+ * service method that is measured.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public enum Operation {
+
+    ASSIGN_WORK_ITEM("assign", "UserService.addWorkItemToUser", 20),
+    CHANGE_STATUS("status", "WorkItemService.changeWorkItemStatus", 30),
+    CREATE_ISSUE("issue", "IssueService.addIssueToWorkItem", 10),
+    LIST_TEAMS("teams", "TeamService.getAllTeams", 10),
+    LIST_TEAM_USERS("teamUsers", "TeamService.getUsersFromTeam", 20),
+    LIST_USER_WORK_ITEMS("userWorkItems", "UserService.getAllWorkItemsByUser", 10);
+
+    private final String name;
+    private final String method;
+    private final int defaultWeight;
+
+    Operation(String name, String method, int defaultWeight) {
+        this.name = name;
+        this.method = method;
+        this.defaultWeight = defaultWeight;
+    }
+
+    /**
+     * Gets the operation with a --mix name.
+     *
+     * @param name the name
+     * @return the operation
+     * @throws IllegalArgumentException if there is no operation with the name
+     */
+    public static Operation byName(String name) {
+        for (Operation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + name + "' in --mix");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+}
@@ -0,0 +1,102 @@
+package se.root.ordersystem.load;
+
+import java.util.Map;
+import java.util.Random;
+
+import se.root.ordersystem.exception.ServiceException;
+import se.root.ordersystem.model.Issue;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.service.IssueService;
+import se.root.ordersystem.service.TeamService;
+import se.root.ordersystem.service.UserService;
+import se.root.ordersystem.service.WorkItemService;
+
+/**
+ * The Class Workload - picks operations by their weight in the mix and runs them against the
+ * services with ids from the dataset.
+ *
+ * @author Root Group
+ * @version 1.0
+ */
+public final class Workload {
+
+    private static final int PAGE_SIZE = 50;
+    private static final WorkItemStatus[] STATUSES = WorkItemStatus.values();
+
+    private final UserService userService;
+    private final TeamService teamService;
+    private final WorkItemService workItemService;
+    private final IssueService issueService;
+    private final Dataset dataset;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    public Workload(UserService userService, TeamService teamService, WorkItemService workItemService,
+                    IssueService issueService, Dataset dataset, Map<Operation, Integer> mix) {
+        this.userService = userService;
+        this.teamService = teamService;
+        this.workItemService = workItemService;
+        this.issueService = issueService;
+        this.dataset = dataset;
+        this.operations = Operation.values();
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += Math.max(0, mix.getOrDefault(operations[i], 0));
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("The mix has no operation with a weight above 0");
+        }
+    }
+
+    /**
+     * Picks an operation, each with the chance of its share of the total weight.
+     *
+     * @param random the random
+     * @return the operation
+     */
+    public Operation next(Random random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < operations.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Runs an operation.
+     *
+     * @param operation the operation
+     * @param random    the random
+     * @throws ServiceException when the service rejects or fails the call
+     */
+    public void execute(Operation operation, Random random) throws ServiceException {
+        switch (operation) {
+        case ASSIGN_WORK_ITEM:
+            userService.addWorkItemToUser(dataset.pickUserId(random), dataset.pickWorkItemId(random));
+            break;
+        case CHANGE_STATUS:
+            workItemService.changeWorkItemStatus(dataset.pickWorkItemId(random),
+                    STATUSES[random.nextInt(STATUSES.length)]);
+            break;
+        case CREATE_ISSUE:
+            issueService.addIssueToWorkItem(Issue.issueBuilder("Load test issue")
+                    .setDescription("Reported by the load generator").build(), dataset.pickWorkItemId(random));
+            break;
+        case LIST_TEAMS:
+            teamService.getAllTeams(dataset.pickTeamPageStart(random), PAGE_SIZE);
+            break;
+        case LIST_TEAM_USERS:
+            teamService.getUsersFromTeam(dataset.pickTeamId(random));
+            break;
+        case LIST_USER_WORK_ITEMS:
+            userService.getAllWorkItemsByUser(dataset.pickUserId(random));
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package se.root.ordersystem.model;
+
+/**
+ * The Class AssignedWorkItem - a work item that is assigned to a user, with the team of the user
+ * and the status of the work item.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class AssignedWorkItem {
+
+    private final long workItemId;
+    private final long userId;
+    private final long teamId;
+    private final WorkItemStatus status;
+
+    public AssignedWorkItem(long workItemId, long userId, long teamId, WorkItemStatus status) {
+        this.workItemId = workItemId;
+        this.userId = userId;
+        this.teamId = teamId;
+        this.status = status;
+    }
+
+    public long getWorkItemId() {
+        return workItemId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the team id of the user.
+     *
+     * @return the team id, 0 if the user is not in a team
+     */
+    public long getTeamId() {
+        return teamId;
+    }
+
+    public WorkItemStatus getStatus() {
+        return status;
+    }
+}
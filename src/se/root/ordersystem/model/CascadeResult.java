@@ -0,0 +1,37 @@
+package se.root.ordersystem.model;
+
+/**
+ * The Class CascadeResult - the number of rows a cascading deactivation changed in each table.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class CascadeResult {
+
+    private final int teams;
+    private final int users;
+    private final int workItems;
+
+    public CascadeResult(int teams, int users, int workItems) {
+        this.teams = teams;
+        this.users = users;
+        this.workItems = workItems;
+    }
+
+    public int getTeams() {
+        return teams;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getWorkItems() {
+        return workItems;
+    }
+
+    @Override
+    public String toString() {
+        return "CascadeResult [teams=" + teams + ", users=" + users + ", workItems=" + workItems + "]";
+    }
+}
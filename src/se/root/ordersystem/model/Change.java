@@ -0,0 +1,67 @@
+package se.root.ordersystem.model;
+
+import java.time.Instant;
+
+/**
+ * The Class Change - one row of the outbox, a mutation of an entity made through a repository.
+ *
+ * The sequence orders the changes and is the cursor of the change feed. The detail carries the
+ * value a change set when the type alone does not tell, like the new status of a work item or the
+ * team a user was added to.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class Change {
+
+    private final long sequence;
+    private final String entity;
+    private final long entityId;
+    private final ChangeType type;
+    private final String detail;
+    private final Instant createdAt;
+
+    public Change(long sequence, String entity, long entityId, ChangeType type, String detail, Instant createdAt) {
+        this.sequence = sequence;
+        this.entity = entity;
+        this.entityId = entityId;
+        this.type = type;
+        this.detail = detail;
+        this.createdAt = createdAt;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the entity, the name of its table: team, user, workitem or issue.
+     *
+     * @return the entity
+     */
+    public String getEntity() {
+        return entity;
+    }
+
+    public long getEntityId() {
+        return entityId;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Change [sequence=" + sequence + ", entity=" + entity + ", entityId=" + entityId + ", type=" + type
+                + ", detail=" + detail + ", createdAt=" + createdAt + "]";
+    }
+}
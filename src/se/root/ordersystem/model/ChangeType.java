@@ -0,0 +1,17 @@
+package se.root.ordersystem.model;
+
+/**
+ * The kind of mutation a {@link Change} records.
+ */
+public enum ChangeType {
+    CREATE,
+    UPDATE,
+    ACTIVATE,
+    INACTIVATE,
+    WORK_ITEM_STATUS,
+    ASSIGN_WORK_ITEM,
+    ADD_USER_TO_TEAM,
+    ADD_ISSUE,
+    RESET_WORK_ITEMS,
+    INACTIVATE_TEAM_CASCADE
+}
@@ -5,6 +5,23 @@ package se.root.ordersystem.model;
  * Why? each class in the model package has these variables.
  */
 public abstract class Entity {
-    protected String id;
+    protected long id;
     protected boolean isActive;
+
+    /**
+     * Gets the id, the auto-increment key of the row.
+     *
+     * @return the id, 0 for an entity that is not stored yet
+     */
+    public abstract long getId();
+
+    /**
+     * Parses an id that arrives as text, for the callers that still pass ids as Strings.
+     *
+     * @param id the id, null or empty for none
+     * @return the id, 0 for none
+     */
+    public static long parseId(String id) {
+        return id == null || id.isEmpty() ? 0 : Long.parseLong(id);
+    }
 }
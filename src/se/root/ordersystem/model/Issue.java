@@ -12,7 +12,7 @@ public final class Issue extends Entity {
     private final String title;
     private final String description;
 
-    private Issue(String id, String title, String description, boolean isActive) {
+    private Issue(long id, String title, String description, boolean isActive) {
         this.id = id;
         this.title = title;
         this.description = description;
@@ -33,7 +33,7 @@ public final class Issue extends Entity {
     @Override
     public int hashCode() {
         int result = 1;
-        result += 37 * id.hashCode();
+        result += 37 * Long.hashCode(id);
         result += 37 * title.hashCode();
         return result;
     }
@@ -45,12 +45,12 @@ public final class Issue extends Entity {
         }
         if (other instanceof Issue) {
             Issue otherIssue = (Issue) other;
-            return id.equals(otherIssue.id) && title.equals(otherIssue.title);
+            return id == otherIssue.id && title.equals(otherIssue.title);
         }
         return false;
     }
 
-    public String getId() {
+    public long getId() {
         return id;
     }
 
@@ -78,7 +78,7 @@ public final class Issue extends Entity {
      */
     public static class IssueBuilder {
 
-        private String id;
+        private long id;
         private final String title;
         private String description;
         private boolean isActive;
@@ -89,7 +89,6 @@ public final class Issue extends Entity {
          * @param title The title of the issue
          */
         public IssueBuilder(String title) {
-            this.id = "";
             this.title = title;
             this.description = "";
             this.isActive = true;
@@ -105,11 +104,23 @@ public final class Issue extends Entity {
             return this;
         }
 
-        public IssueBuilder setId(String id) {
+        public IssueBuilder setId(long id) {
             this.id = id;
             return this;
         }
 
+        /**
+         * Sets the id.
+         *
+         * @param id the id
+         * @return the issue builder
+         * @deprecated use {@link #setId(long)}
+         */
+        @Deprecated
+        public IssueBuilder setId(String id) {
+            return setId(parseId(id));
+        }
+
         /**
          * Builds the issue.
          *
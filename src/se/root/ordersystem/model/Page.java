@@ -0,0 +1,74 @@
+package se.root.ordersystem.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * The Class Page - one page of a keyset paginated result.
+ * Pass {@link #getNextCursor()} as the "after id" of the next call to get the following page,
+ * the first page is read with cursor 0.
+ *
+ * @param <T> the generic type
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class Page<T> {
+
+    private final List<T> items;
+    private final long nextCursor;
+    private final boolean hasNext;
+
+    private Page(List<T> items, long nextCursor, boolean hasNext) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Builds a page from rows read with {@code LIMIT pageSize + 1}, the extra row only tells
+     * whether there is a next page and is not part of the page.
+     *
+     * @param <T>      the generic type
+     * @param rows     the rows, ordered by id
+     * @param pageSize the page size
+     * @param afterId  the cursor the rows were read after
+     * @param id       gets the id of a row
+     * @return the page
+     */
+    public static <T> Page<T> of(List<T> rows, int pageSize, long afterId, ToLongFunction<T> id) {
+        boolean hasNext = rows.size() > pageSize;
+        List<T> items = hasNext ? rows.subList(0, pageSize) : rows;
+        long nextCursor = items.isEmpty() ? afterId : id.applyAsLong(items.get(items.size() - 1));
+        return new Page<>(Collections.unmodifiableList(items), nextCursor, hasNext);
+    }
+
+    /**
+     * Maps the items of the page, keeping its cursor.
+     *
+     * @param <R>    the mapped type
+     * @param mapper maps one item
+     * @return the mapped page
+     */
+    public <R> Page<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = new ArrayList<>(items.size());
+        for (T item : items) {
+            mapped.add(mapper.apply(item));
+        }
+        return new Page<>(Collections.unmodifiableList(mapped), nextCursor, hasNext);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+}
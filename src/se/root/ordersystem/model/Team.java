@@ -16,7 +16,7 @@ public final class Team extends Entity {
     private final String name;
     private final List<User> users;
 
-    private Team(String id, String name, List<User> users, boolean isActive) {
+    private Team(long id, String name, List<User> users, boolean isActive) {
         this.name = name;
         this.users = users;
         this.id = id;
@@ -37,7 +37,7 @@ public final class Team extends Entity {
     @Override
     public int hashCode() {
         int result = 1;
-        result += 37 * id.hashCode();
+        result += 37 * Long.hashCode(id);
         result += 37 * name.hashCode();
         return result;
     }
@@ -49,12 +49,12 @@ public final class Team extends Entity {
         }
         if (other instanceof Team) {
             Team otherTeam = (Team) other;
-            return id.equals(otherTeam.getId()) && name.equals(otherTeam.getName());
+            return id == otherTeam.getId() && name.equals(otherTeam.getName());
         }
         return false;
     }
 
-    public String getId() {
+    public long getId() {
         return id;
     }
 
@@ -83,7 +83,7 @@ public final class Team extends Entity {
      */
     public static class TeamBuilder {
 
-        private String id;
+        private long id;
         private final String name;
         private List<User> users;
         private boolean isActive;
@@ -94,7 +94,6 @@ public final class Team extends Entity {
          * @param name the name of the team
          */
         public TeamBuilder(String name) {
-            this.id = "";
             this.users = new ArrayList<>();
             this.isActive = true;
             this.name = name;
@@ -105,11 +104,23 @@ public final class Team extends Entity {
             return this;
         }
 
-        public TeamBuilder setId(String id) {
+        public TeamBuilder setId(long id) {
             this.id = id;
             return this;
         }
 
+        /**
+         * Sets the id.
+         *
+         * @param id the id
+         * @return the team builder
+         * @deprecated use {@link #setId(long)}
+         */
+        @Deprecated
+        public TeamBuilder setId(String id) {
+            return setId(parseId(id));
+        }
+
         public TeamBuilder setIsActive(boolean isActive) {
             this.isActive = isActive;
             return this;
@@ -12,9 +12,9 @@ public final class User extends Entity {
     private final String firstname;
     private final String lastname;
     private final String username;
-    private final String teamId;
+    private final long teamId;
 
-    private User(String id, String username, String firstname, String lastname, String teamId, boolean isActive) {
+    private User(long id, String username, String firstname, String lastname, long teamId, boolean isActive) {
         this.id = id;
         this.firstname = firstname;
         this.lastname = lastname;
@@ -57,7 +57,7 @@ public final class User extends Entity {
         return false;
     }
 
-    public String getId() {
+    public long getId() {
         return id;
     }
 
@@ -73,7 +73,12 @@ public final class User extends Entity {
         return username;
     }
 
-    public String getTeamId() {
+    /**
+     * Gets the team id.
+     *
+     * @return the team id, 0 if the user is not in a team
+     */
+    public long getTeamId() {
         return teamId;
     }
 
@@ -89,11 +94,11 @@ public final class User extends Entity {
      */
     public static class UserBuilder {
 
-        private String id;
+        private long id;
         private final String firstname;
         private final String lastname;
         private final String username;
-        private String teamId;
+        private long teamId;
 
         private boolean isActive;
 
@@ -108,20 +113,43 @@ public final class User extends Entity {
             this.firstname = firstname;
             this.lastname = lastname;
             this.username = username;
-            this.teamId = "";
             this.isActive = true;
         }
 
-        public UserBuilder setId(String id) {
+        public UserBuilder setId(long id) {
             this.id = id;
             return this;
         }
 
-        public UserBuilder setTeamId(String teamId) {
+        /**
+         * Sets the id.
+         *
+         * @param id the id
+         * @return the user builder
+         * @deprecated use {@link #setId(long)}
+         */
+        @Deprecated
+        public UserBuilder setId(String id) {
+            return setId(parseId(id));
+        }
+
+        public UserBuilder setTeamId(long teamId) {
             this.teamId = teamId;
             return this;
         }
 
+        /**
+         * Sets the team id.
+         *
+         * @param teamId the team id, null or empty for none
+         * @return the user builder
+         * @deprecated use {@link #setTeamId(long)}
+         */
+        @Deprecated
+        public UserBuilder setTeamId(String teamId) {
+            return setTeamId(parseId(teamId));
+        }
+
         public UserBuilder setActive(boolean isActive) {
             this.isActive = isActive;
             return this;
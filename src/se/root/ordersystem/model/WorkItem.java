@@ -12,9 +12,9 @@ public final class WorkItem extends Entity {
 
     private final String name;
     private final WorkItemStatus status;
-    private final String issue_id;
+    private final long issue_id;
 
-    private WorkItem(String id, String name, WorkItemStatus status, String issue_id, boolean isActive) {
+    private WorkItem(long id, String name, WorkItemStatus status, long issue_id, boolean isActive) {
         this.id = id;
         this.name = name;
         this.status = status;
@@ -36,7 +36,7 @@ public final class WorkItem extends Entity {
     @Override
     public int hashCode() {
         int result = 1;
-        result += 37 * id.hashCode();
+        result += 37 * Long.hashCode(id);
         return result;
     }
 
@@ -47,12 +47,12 @@ public final class WorkItem extends Entity {
         }
         if (other instanceof WorkItem) {
             WorkItem otherTeam = (WorkItem) other;
-            return id.equals(otherTeam.getId());
+            return id == otherTeam.getId();
         }
         return false;
     }
 
-    public String getId() {
+    public long getId() {
         return id;
     }
 
@@ -64,7 +64,12 @@ public final class WorkItem extends Entity {
         return status;
     }
 
-    public String getIssueId() {
+    /**
+     * Gets the issue id.
+     *
+     * @return the issue id, 0 if the work item has no issue
+     */
+    public long getIssueId() {
         return issue_id;
     }
 
@@ -80,35 +85,57 @@ public final class WorkItem extends Entity {
      */
     public static class WorkItemBuilder {
 
-        private String id;
+        private long id;
         private final String name;
         private WorkItemStatus status;
-        private String issue_id;
+        private long issue_id;
         private boolean isActive;
 
         public WorkItemBuilder(String name) {
-            this.id = "";
             this.name = name;
             this.status = WorkItemStatus.UNSTARTED;
-            this.issue_id = "";
             this.isActive = true;
         }
 
-        public WorkItemBuilder setId(String id) {
+        public WorkItemBuilder setId(long id) {
             this.id = id;
             return this;
         }
 
+        /**
+         * Sets the id.
+         *
+         * @param id the id
+         * @return the work item builder
+         * @deprecated use {@link #setId(long)}
+         */
+        @Deprecated
+        public WorkItemBuilder setId(String id) {
+            return setId(parseId(id));
+        }
+
         public WorkItemBuilder setStatus(WorkItemStatus status) {
             this.status = status;
             return this;
         }
 
-        public WorkItemBuilder setIssue_id(String issue_id) {
+        public WorkItemBuilder setIssue_id(long issue_id) {
             this.issue_id = issue_id;
             return this;
         }
 
+        /**
+         * Sets the issue id.
+         *
+         * @param issue_id the issue id, null or empty for none
+         * @return the work item builder
+         * @deprecated use {@link #setIssue_id(long)}
+         */
+        @Deprecated
+        public WorkItemBuilder setIssue_id(String issue_id) {
+            return setIssue_id(parseId(issue_id));
+        }
+
         public WorkItemBuilder setIsActive(boolean active) {
             isActive = active;
             return this;
@@ -0,0 +1,72 @@
+package se.root.ordersystem.model;
+
+/**
+ * The outcome of assigning a work item to a user. An assignment that succeeded carries the team of
+ * the user and the status of the work item as they were when the work item was assigned.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class WorkItemAssignment {
+
+    /**
+     * The Enum Outcome.
+     */
+    public enum Outcome {
+        ASSIGNED,
+        USER_NOT_FOUND,
+        USER_INACTIVE,
+        WORK_ITEM_NOT_FOUND,
+        WORK_ITEM_LIMIT_REACHED
+    }
+
+    public static final WorkItemAssignment USER_NOT_FOUND = new WorkItemAssignment(Outcome.USER_NOT_FOUND, 0, null);
+    public static final WorkItemAssignment USER_INACTIVE = new WorkItemAssignment(Outcome.USER_INACTIVE, 0, null);
+    public static final WorkItemAssignment WORK_ITEM_NOT_FOUND = new WorkItemAssignment(Outcome.WORK_ITEM_NOT_FOUND, 0,
+            null);
+    public static final WorkItemAssignment WORK_ITEM_LIMIT_REACHED = new WorkItemAssignment(
+            Outcome.WORK_ITEM_LIMIT_REACHED, 0, null);
+
+    private final Outcome outcome;
+    private final long teamId;
+    private final WorkItemStatus status;
+
+    private WorkItemAssignment(Outcome outcome, long teamId, WorkItemStatus status) {
+        this.outcome = outcome;
+        this.teamId = teamId;
+        this.status = status;
+    }
+
+    /**
+     * A work item was assigned.
+     *
+     * @param teamId the team of the user, 0 if the user is not in a team
+     * @param status the status of the work item
+     * @return the assignment
+     */
+    public static WorkItemAssignment assigned(long teamId, WorkItemStatus status) {
+        return new WorkItemAssignment(Outcome.ASSIGNED, teamId, status);
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the team of the user the work item was assigned to.
+     *
+     * @return the team id, 0 if the user is not in a team or the work item was not assigned
+     */
+    public long getTeamId() {
+        return teamId;
+    }
+
+    /**
+     * Gets the status of the work item that was assigned.
+     *
+     * @return the status, null if the work item was not assigned
+     */
+    public WorkItemStatus getStatus() {
+        return status;
+    }
+}
@@ -1,7 +1,32 @@
 package se.root.ordersystem.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum WorkItemStatus {
     UNSTARTED,
     STARTED,
-    DONE
+    DONE;
+
+    private static final Map<String, WorkItemStatus> BY_NAME = new HashMap<>();
+
+    static {
+        for (WorkItemStatus status : values()) {
+            BY_NAME.put(status.name(), status);
+        }
+    }
+
+    /**
+     * Looks up a status by its name without the exception handling cost of valueOf.
+     *
+     * @param name the name as stored in the database
+     * @return the status
+     */
+    public static WorkItemStatus of(String name) {
+        WorkItemStatus status = BY_NAME.get(name);
+        if (status == null) {
+            throw new IllegalArgumentException("No work item status named: " + name);
+        }
+        return status;
+    }
 }
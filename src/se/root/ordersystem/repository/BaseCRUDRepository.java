@@ -1,45 +1,105 @@
 package se.root.ordersystem.repository;
 
+import static se.root.ordersystem.helpers.DBInfo.batchSize;
 import static se.root.ordersystem.helpers.DBInfo.url;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import se.root.ordersystem.helpers.ResultMapper;
 import se.root.ordersystem.helpers.SQL;
+import se.root.ordersystem.helpers.Transaction;
+import se.root.ordersystem.model.ChangeType;
+import se.root.ordersystem.model.Entity;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.exception.RepositoryException;
 import se.root.ordersystem.repository.interfaces.CRUDRepository;
 
-public abstract class BaseCRUDRepository<T> implements CRUDRepository<T> {
+public abstract class BaseCRUDRepository<T extends Entity> implements CRUDRepository<T> {
 
 	private final String tablename;
 
-	public BaseCRUDRepository(String tablename) {
+	private final String columns;
+
+	public BaseCRUDRepository(String tablename, String columns) {
 		this.tablename = tablename;
+		this.columns = columns;
 	}
 
 	@Override
 	public abstract long create(T t) throws RepositoryException;
 
+	@Override
+	public abstract long[] createAll(List<T> ts) throws RepositoryException;
+
 	@Override
 	public abstract void update(T t) throws RepositoryException;
 
 	@Override
-	public T read(String id, ResultMapper<T> resultMapper) throws RepositoryException {
+	public abstract void updateAll(List<T> ts) throws RepositoryException;
+
+	@Override
+	public T read(long id, ResultMapper<T> resultMapper) throws RepositoryException {
 		try {
-			return new SQL(url).query("SELECT * FROM " + tablename + " WHERE id = ?").parameter(id)
-					.single(resultMapper);
+			return new SQL(url).query("SELECT " + columns + " FROM " + tablename + " WHERE id = ?").parameter(id)
+					.optional(resultMapper);
 		} catch (SQLException e) {
 			e.printStackTrace();
 			throw new RepositoryException("could not read data from '" + tablename + "' with id: " + id, e);
 		}
 	}
 
-	@Override
-	public void changeStatus(boolean isActive, String id) throws RepositoryException {
+	/**
+	 * Reads several rows, in one query per batch of ids.
+	 *
+	 * @param ids the ids
+	 * @param resultMapper the result mapper
+	 * @return the rows that exist, in the order of the ids
+	 * @throws RepositoryException the repository exception
+	 */
+	protected List<T> readAll(long[] ids, ResultMapper<T> resultMapper) throws RepositoryException {
+		List<T> rows = new ArrayList<>(ids.length);
 		try {
+			for (int from = 0; from < ids.length; from += batchSize) {
+				int to = Math.min(ids.length, from + batchSize);
+				SQL sql = new SQL(url).query("SELECT " + columns + " FROM " + tablename + " WHERE id IN ("
+						+ String.join(", ", Collections.nCopies(to - from, "?")) + ") ORDER BY id");
+				for (int i = from; i < to; i++) {
+					sql.parameter(ids[i]);
+				}
+				rows.addAll(sql.many(resultMapper));
+			}
+		} catch (SQLException e) {
+			throw new RepositoryException("could not read " + ids.length + " rows from '" + tablename + "'", e);
+		}
+		if (!isAscending(ids)) {
+			Map<Long, T> byId = new HashMap<>();
+			for (T row : rows) {
+				byId.put(row.getId(), row);
+			}
+			rows.clear();
+			for (long id : ids) {
+				T row = byId.get(id);
+				if (row != null) {
+					rows.add(row);
+				}
+			}
+		}
+		return rows;
+	}
+
+	@Override
+	public void changeStatus(boolean isActive, long id) throws RepositoryException {
+		try (Transaction transaction = Transaction.begin("BaseCRUDRepository.changeStatus")) {
 			new SQL(url).query("UPDATE " + tablename + " SET is_active= ? WHERE id = ?").parameter(isActive)
 					.parameter(id).update();
+			Outbox.append(tablename, id, isActive ? ChangeType.ACTIVATE : ChangeType.INACTIVATE, null);
+			transaction.commit();
 		} catch (SQLException e) {
 			throw new RepositoryException(
 					"Could not change active status on data from '" + tablename + "' with id: " + id, e);
@@ -49,9 +109,49 @@ public abstract class BaseCRUDRepository<T> implements CRUDRepository<T> {
 	@Override
 	public List<T> getAll(ResultMapper<T> resultMapper) throws RepositoryException {
 		try {
-			return new SQL(url).query("SELECT * FROM " + tablename).many(resultMapper);
+			return new SQL(url).query("SELECT " + columns + " FROM " + tablename).many(resultMapper);
 		} catch (SQLException e) {
 			throw new RepositoryException("could not get all the data from table: " + tablename, e);
 		}
 	}
+
+	@Override
+	public Stream<T> getAllStreaming(ResultMapper<T> resultMapper) throws RepositoryException {
+		try {
+			return new SQL(url).query("SELECT " + columns + " FROM " + tablename).stream(resultMapper);
+		} catch (SQLException e) {
+			throw new RepositoryException("could not stream the data from table: " + tablename, e);
+		}
+	}
+
+	@Override
+	public Page<T> getAll(long afterId, int pageSize, ResultMapper<T> resultMapper) throws RepositoryException {
+		checkPageSize(pageSize);
+		try {
+			List<T> rows = new SQL(url).query("SELECT " + columns + " FROM " + tablename + " WHERE id > ? ORDER BY id LIMIT ?")
+					.parameter(afterId).parameter(pageSize + 1).many(resultMapper);
+			return page(rows, pageSize, afterId);
+		} catch (SQLException e) {
+			throw new RepositoryException("could not get a page of the data from table: " + tablename, e);
+		}
+	}
+
+	protected static void checkPageSize(int pageSize) throws RepositoryException {
+		if (pageSize < 1) {
+			throw new RepositoryException("Page size must be at least 1, was: " + pageSize);
+		}
+	}
+
+	protected static <E extends Entity> Page<E> page(List<E> rows, int pageSize, long afterId) {
+		return Page.of(rows, pageSize, afterId, Entity::getId);
+	}
+
+	private static boolean isAscending(long[] ids) {
+		for (int i = 1; i < ids.length; i++) {
+			if (ids[i - 1] >= ids[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
 }
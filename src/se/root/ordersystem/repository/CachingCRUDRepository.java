@@ -0,0 +1,105 @@
+package se.root.ordersystem.repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.EntityCache;
+import se.root.ordersystem.helpers.ResultMapper;
+import se.root.ordersystem.model.Entity;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.repository.interfaces.CRUDRepository;
+
+/**
+ * The Class CachingCRUDRepository - wraps a repository with a read-through {@link EntityCache}.
+ * read(id) is served from the cache and every write through the wrapper invalidates the entities
+ * it changes. Reads with a custom result mapper, lists and pages always go to the wrapped
+ * repository.
+ *
+ * @author Root Group
+ * @version 1.0.
+ *
+ * @param <T> the entity type
+ * @param <R> the wrapped repository type
+ */
+public abstract class CachingCRUDRepository<T extends Entity, R extends CRUDRepository<T>> implements CRUDRepository<T> {
+
+	protected final R delegate;
+	protected final EntityCache cache;
+	private final Class<T> type;
+
+	public CachingCRUDRepository(Class<T> type, R delegate, EntityCache cache) {
+		this.type = type;
+		this.delegate = delegate;
+		this.cache = cache;
+	}
+
+	/**
+	 * Reads through the cache.
+	 *
+	 * @param id the id
+	 * @return the t, or null if there is none with the id
+	 * @throws RepositoryException the repository exception
+	 */
+	protected abstract T load(long id) throws RepositoryException;
+
+	public T read(long id) throws RepositoryException {
+		return cache.get(type, id, () -> load(id));
+	}
+
+	@Override
+	public long create(T t) throws RepositoryException {
+		long id = delegate.create(t);
+		cache.invalidate(type, id);
+		return id;
+	}
+
+	@Override
+	public long[] createAll(List<T> ts) throws RepositoryException {
+		long[] ids = delegate.createAll(ts);
+		for (long id : ids) {
+			cache.invalidate(type, id);
+		}
+		return ids;
+	}
+
+	@Override
+	public void update(T t) throws RepositoryException {
+		delegate.update(t);
+		cache.invalidate(type, t.getId());
+	}
+
+	@Override
+	public void updateAll(List<T> ts) throws RepositoryException {
+		delegate.updateAll(ts);
+		for (T t : ts) {
+			cache.invalidate(type, t.getId());
+		}
+	}
+
+	@Override
+	public T read(long id, ResultMapper<T> resultMapper) throws RepositoryException {
+		return delegate.read(id, resultMapper);
+	}
+
+	@Override
+	public void changeStatus(boolean isActive, long id) throws RepositoryException {
+		delegate.changeStatus(isActive, id);
+		cache.invalidate(type, id);
+	}
+
+	@Override
+	public List<T> getAll(ResultMapper<T> resultMapper) throws RepositoryException {
+		return delegate.getAll(resultMapper);
+	}
+
+	@Override
+	public Stream<T> getAllStreaming(ResultMapper<T> resultMapper) throws RepositoryException {
+		return delegate.getAllStreaming(resultMapper);
+	}
+
+	@Override
+	public Page<T> getAll(long afterId, int pageSize, ResultMapper<T> resultMapper) throws RepositoryException {
+		return delegate.getAll(afterId, pageSize, resultMapper);
+	}
+}
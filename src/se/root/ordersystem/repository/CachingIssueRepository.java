@@ -0,0 +1,53 @@
+package se.root.ordersystem.repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.EntityCache;
+import se.root.ordersystem.model.Issue;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.repository.interfaces.IssueRepository;
+
+public final class CachingIssueRepository extends CachingCRUDRepository<Issue, IssueRepository> implements IssueRepository {
+
+	public CachingIssueRepository(IssueRepository delegate) {
+		this(delegate, EntityCache.shared());
+	}
+
+	public CachingIssueRepository(IssueRepository delegate, EntityCache cache) {
+		super(Issue.class, delegate, cache);
+	}
+
+	@Override
+	protected Issue load(long id) throws RepositoryException {
+		return delegate.read(id);
+	}
+
+	@Override
+	public List<Issue> getAll() throws RepositoryException {
+		return delegate.getAll();
+	}
+
+	@Override
+	public Stream<Issue> getAllStreaming() throws RepositoryException {
+		return delegate.getAllStreaming();
+	}
+
+	@Override
+	public Page<Issue> getAll(long afterId, int pageSize) throws RepositoryException {
+		return delegate.getAll(afterId, pageSize);
+	}
+
+	@Override
+	public void AddIssueToWorkItem(Issue issue, long workItemId) throws RepositoryException {
+		delegate.AddIssueToWorkItem(issue, workItemId);
+		cache.invalidate(WorkItem.class, workItemId);
+	}
+
+	@Override
+	public List<WorkItem> getAllWorkItemsWithIssue() throws RepositoryException {
+		return delegate.getAllWorkItemsWithIssue();
+	}
+}
@@ -0,0 +1,81 @@
+package se.root.ordersystem.repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.EntityCache;
+import se.root.ordersystem.model.CascadeResult;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.Team;
+import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.interfaces.TeamRepository;
+
+public final class CachingTeamRepository extends CachingCRUDRepository<Team, TeamRepository> implements TeamRepository {
+
+	public CachingTeamRepository(TeamRepository delegate) {
+		this(delegate, EntityCache.shared());
+	}
+
+	public CachingTeamRepository(TeamRepository delegate, EntityCache cache) {
+		super(Team.class, delegate, cache);
+	}
+
+	@Override
+	protected Team load(long id) throws RepositoryException {
+		return delegate.read(id);
+	}
+
+	@Override
+	public List<Team> getAll() throws RepositoryException {
+		return delegate.getAll();
+	}
+
+	@Override
+	public Stream<Team> getAllStreaming() throws RepositoryException {
+		return delegate.getAllStreaming();
+	}
+
+	@Override
+	public Page<Team> getAll(long afterId, int pageSize) throws RepositoryException {
+		return delegate.getAll(afterId, pageSize);
+	}
+
+	@Override
+	public List<User> getUsersFromTeam(long id) throws RepositoryException {
+		return delegate.getUsersFromTeam(id);
+	}
+
+	@Override
+	public Page<User> getUsersFromTeam(long id, long afterId, int pageSize) throws RepositoryException {
+		return delegate.getUsersFromTeam(id, afterId, pageSize);
+	}
+
+	@Override
+	public void addUserToTeam(long userId, long teamId) throws RepositoryException {
+		delegate.addUserToTeam(userId, teamId);
+		cache.invalidate(User.class, userId);
+	}
+
+	@Override
+	public long addUserToTeamWithRoom(long userId, int maxMembers) throws RepositoryException {
+		long teamId = delegate.addUserToTeamWithRoom(userId, maxMembers);
+		cache.invalidate(User.class, userId);
+		return teamId;
+	}
+
+	@Override
+	public CascadeResult inactivateTeamCascade(long teamId, WorkItemStatus workItemStatus) throws RepositoryException {
+		CascadeResult result = delegate.inactivateTeamCascade(teamId, workItemStatus);
+		cache.invalidate(Team.class, teamId);
+		if (result.getUsers() > 0) {
+			cache.invalidateAll(User.class);
+		}
+		if (result.getWorkItems() > 0) {
+			cache.invalidateAll(WorkItem.class);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,99 @@
+package se.root.ordersystem.repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.EntityCache;
+import se.root.ordersystem.model.AssignedWorkItem;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemAssignment;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.interfaces.UserRepository;
+
+public final class CachingUserRepository extends CachingCRUDRepository<User, UserRepository> implements UserRepository {
+
+	public CachingUserRepository(UserRepository delegate) {
+		this(delegate, EntityCache.shared());
+	}
+
+	public CachingUserRepository(UserRepository delegate, EntityCache cache) {
+		super(User.class, delegate, cache);
+	}
+
+	@Override
+	protected User load(long id) throws RepositoryException {
+		return delegate.read(id);
+	}
+
+	@Override
+	public List<User> readAll(long[] ids) throws RepositoryException {
+		return cache.getAll(User.class, ids, delegate::readAll);
+	}
+
+	@Override
+	public List<User> getAll() throws RepositoryException {
+		return delegate.getAll();
+	}
+
+	@Override
+	public Stream<User> getAllStreaming() throws RepositoryException {
+		return delegate.getAllStreaming();
+	}
+
+	@Override
+	public Page<User> getAll(long afterId, int pageSize) throws RepositoryException {
+		return delegate.getAll(afterId, pageSize);
+	}
+
+	@Override
+	public List<User> getUsersBy(String username, String firstname, String lastname) throws RepositoryException {
+		return delegate.getUsersBy(username, firstname, lastname);
+	}
+
+	@Override
+	public List<User> getUsersBy(String username, String firstname, String lastname, int limit) throws RepositoryException {
+		return delegate.getUsersBy(username, firstname, lastname, limit);
+	}
+
+	@Override
+	public void addWorkItemToUser(long userId, long workId) throws RepositoryException {
+		delegate.addWorkItemToUser(userId, workId);
+	}
+
+	@Override
+	public int resetWorkItemsByUser(long userId, WorkItemStatus workItemStatus) throws RepositoryException {
+		int workItems = delegate.resetWorkItemsByUser(userId, workItemStatus);
+		if (workItems > 0) {
+			cache.invalidateAll(WorkItem.class);
+		}
+		return workItems;
+	}
+
+	@Override
+	public int countWorkItemsByUser(long userId) throws RepositoryException {
+		return delegate.countWorkItemsByUser(userId);
+	}
+
+	@Override
+	public WorkItemAssignment assignWorkItemToUser(long userId, long workId, int maxWorkItems) throws RepositoryException {
+		return delegate.assignWorkItemToUser(userId, workId, maxWorkItems);
+	}
+
+	@Override
+	public List<WorkItem> getAllWorkItemsByUser(long id) throws RepositoryException {
+		return delegate.getAllWorkItemsByUser(id);
+	}
+
+	@Override
+	public Page<WorkItem> getAllWorkItemsByUser(long id, long afterId, int pageSize) throws RepositoryException {
+		return delegate.getAllWorkItemsByUser(id, afterId, pageSize);
+	}
+
+	@Override
+	public Stream<AssignedWorkItem> getAssignedWorkItemsStreaming() throws RepositoryException {
+		return delegate.getAssignedWorkItemsStreaming();
+	}
+}
@@ -0,0 +1,106 @@
+package se.root.ordersystem.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.EntityCache;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.interfaces.WorkItemRepository;
+
+public final class CachingWorkItemRepository extends CachingCRUDRepository<WorkItem, WorkItemRepository>
+		implements WorkItemRepository {
+
+	public CachingWorkItemRepository(WorkItemRepository delegate) {
+		this(delegate, EntityCache.shared());
+	}
+
+	public CachingWorkItemRepository(WorkItemRepository delegate, EntityCache cache) {
+		super(WorkItem.class, delegate, cache);
+	}
+
+	@Override
+	protected WorkItem load(long id) throws RepositoryException {
+		return delegate.read(id);
+	}
+
+	@Override
+	public List<WorkItem> getAll() throws RepositoryException {
+		return delegate.getAll();
+	}
+
+	@Override
+	public Stream<WorkItem> getAllStreaming() throws RepositoryException {
+		return delegate.getAllStreaming();
+	}
+
+	@Override
+	public Page<WorkItem> getAll(long afterId, int pageSize) throws RepositoryException {
+		return delegate.getAll(afterId, pageSize);
+	}
+
+	@Override
+	public void changeWorkItemStatus(long id, WorkItemStatus workItemStatus) throws RepositoryException {
+		delegate.changeWorkItemStatus(id, workItemStatus);
+		cache.invalidate(WorkItem.class, id);
+	}
+
+	@Override
+	public void changeWorkItemStatuses(Map<Long, WorkItemStatus> workItemStatuses) throws RepositoryException {
+		delegate.changeWorkItemStatuses(workItemStatuses);
+		for (long id : workItemStatuses.keySet()) {
+			cache.invalidate(WorkItem.class, id);
+		}
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus) throws RepositoryException {
+		return delegate.getWorkItemByStatus(workItemStatus);
+	}
+
+	@Override
+	public Page<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus, long afterId, int pageSize)
+			throws RepositoryException {
+		return delegate.getWorkItemByStatus(workItemStatus, afterId, pageSize);
+	}
+
+	@Override
+	public List<WorkItem> getAllWorkItemsByTeam(long id) throws RepositoryException {
+		return delegate.getAllWorkItemsByTeam(id);
+	}
+
+	@Override
+	public Page<WorkItem> getAllWorkItemsByTeam(long id, long afterId, int pageSize) throws RepositoryException {
+		return delegate.getAllWorkItemsByTeam(id, afterId, pageSize);
+	}
+
+	@Override
+	public List<WorkItem> readAll(long[] ids) throws RepositoryException {
+		return cache.getAll(WorkItem.class, ids, delegate::readAll);
+	}
+
+	@Override
+	public long[] getWorkItemIdsByTeam(long id) throws RepositoryException {
+		return delegate.getWorkItemIdsByTeam(id);
+	}
+
+	@Override
+	public long[] getWorkItemIdsByUser(long id) throws RepositoryException {
+		return delegate.getWorkItemIdsByUser(id);
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatusAndTeam(WorkItemStatus workItemStatus, long id)
+			throws RepositoryException {
+		return delegate.getWorkItemByStatusAndTeam(workItemStatus, id);
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatusAndUser(WorkItemStatus workItemStatus, long id)
+			throws RepositoryException {
+		return delegate.getWorkItemByStatusAndUser(workItemStatus, id);
+	}
+}
@@ -0,0 +1,120 @@
+package se.root.ordersystem.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.ResultMapper;
+import se.root.ordersystem.model.Entity;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.repository.interfaces.CRUDRepository;
+
+/**
+ * The Class InMemoryCRUDRepository - the CRUD operations of the in-memory repositories.
+ *
+ * Result mappers read JDBC result sets, the methods that take one ignore it and return the stored
+ * entities.
+ *
+ * @author Root Group
+ * @version 1.0.
+ *
+ * @param <T> the entity type
+ * @param <R> the row type
+ */
+public abstract class InMemoryCRUDRepository<T extends Entity, R> implements CRUDRepository<T> {
+
+	protected final InMemoryDatabase database;
+	private final InMemoryTable<R> table;
+
+	InMemoryCRUDRepository(InMemoryDatabase database, InMemoryTable<R> table) {
+		this.database = database;
+		this.table = table;
+	}
+
+	protected abstract T entity(R row);
+
+	protected abstract R withActive(R row, boolean isActive);
+
+	@Override
+	public long[] createAll(List<T> ts) throws RepositoryException {
+		long[] ids = new long[ts.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = create(ts.get(i));
+		}
+		return ids;
+	}
+
+	@Override
+	public void updateAll(List<T> ts) throws RepositoryException {
+		for (T t : ts) {
+			update(t);
+		}
+	}
+
+	public T read(long id) throws RepositoryException {
+		R row = table.get(id);
+		return row == null ? null : entity(row);
+	}
+
+	@Override
+	public T read(long id, ResultMapper<T> resultMapper) throws RepositoryException {
+		return read(id);
+	}
+
+	@Override
+	public void changeStatus(boolean isActive, long id) throws RepositoryException {
+		ReentrantReadWriteLock lock = table.lock(id);
+		lock.writeLock().lock();
+		try {
+			R row = table.getLocked(id);
+			if (row != null) {
+				table.putLocked(id, withActive(row, isActive));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public List<T> getAll() throws RepositoryException {
+		return entities(table.ids());
+	}
+
+	@Override
+	public List<T> getAll(ResultMapper<T> resultMapper) throws RepositoryException {
+		return getAll();
+	}
+
+	public Stream<T> getAllStreaming() throws RepositoryException {
+		return Arrays.stream(table.ids()).mapToObj(table::get).filter(Objects::nonNull).map(this::entity);
+	}
+
+	@Override
+	public Stream<T> getAllStreaming(ResultMapper<T> resultMapper) throws RepositoryException {
+		return getAllStreaming();
+	}
+
+	public Page<T> getAll(long afterId, int pageSize) throws RepositoryException {
+		BaseCRUDRepository.checkPageSize(pageSize);
+		return BaseCRUDRepository.page(entities(table.ids(afterId, pageSize + 1)), pageSize, afterId);
+	}
+
+	@Override
+	public Page<T> getAll(long afterId, int pageSize, ResultMapper<T> resultMapper) throws RepositoryException {
+		return getAll(afterId, pageSize);
+	}
+
+	protected List<T> entities(long[] ids) {
+		List<T> entities = new ArrayList<>(ids.length);
+		for (long id : ids) {
+			R row = table.get(id);
+			if (row != null) {
+				entities.add(entity(row));
+			}
+		}
+		return entities;
+	}
+}
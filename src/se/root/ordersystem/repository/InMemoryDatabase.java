@@ -0,0 +1,160 @@
+package se.root.ordersystem.repository;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import se.root.ordersystem.model.Issue;
+import se.root.ordersystem.model.Team;
+import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+
+/**
+ * The Class InMemoryDatabase - the tables and indexes shared by the in-memory repositories.
+ *
+ * Create one database and pass it to {@link InMemoryUserRepository}, {@link InMemoryTeamRepository},
+ * {@link InMemoryWorkItemRepository} and {@link InMemoryIssueRepository}, they then see each
+ * other's writes like the MySQL repositories do through the database.
+ *
+ * Writes that touch several tables take the row locks in the order team, user, work item, and the
+ * index locks last, so they can not deadlock.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class InMemoryDatabase {
+
+	final InMemoryTable<Team> teams = new InMemoryTable<>();
+	final InMemoryTable<User> users = new InMemoryTable<>();
+	final InMemoryTable<WorkItemRow> workItems = new InMemoryTable<>();
+	final InMemoryTable<Issue> issues = new InMemoryTable<>();
+
+	final InMemoryIndex usersByTeam = new InMemoryIndex();
+	final InMemoryIndex workItemsByUser = new InMemoryIndex();
+	final InMemoryIndex workItemsByStatus = new InMemoryIndex();
+	final InMemoryIndex workItemsByIssue = new InMemoryIndex();
+
+	/**
+	 * Serializes team placement, it reads the member count of several teams before it writes.
+	 */
+	final ReentrantLock placement = new ReentrantLock();
+
+	/**
+	 * Moves a user to a team.
+	 *
+	 * @return false if there is no user with the id
+	 */
+	boolean setTeam(long userId, long teamId) {
+		ReentrantReadWriteLock lock = users.lock(userId);
+		lock.writeLock().lock();
+		try {
+			User user = users.getLocked(userId);
+			if (user == null) {
+				return false;
+			}
+			long previous = user.getTeamId();
+			users.putLocked(userId, user(user, teamId, user.isActive()));
+			if (previous > 0) {
+				usersByTeam.remove(previous, userId);
+			}
+			usersByTeam.add(teamId, userId);
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	boolean setUserActive(long userId, boolean isActive) {
+		ReentrantReadWriteLock lock = users.lock(userId);
+		lock.writeLock().lock();
+		try {
+			User user = users.getLocked(userId);
+			if (user == null) {
+				return false;
+			}
+			users.putLocked(userId, user(user, user.getTeamId(), isActive));
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	boolean setWorkItemStatus(long workItemId, WorkItemStatus status) {
+		ReentrantReadWriteLock lock = workItems.lock(workItemId);
+		lock.writeLock().lock();
+		try {
+			WorkItemRow row = workItems.getLocked(workItemId);
+			if (row == null) {
+				return false;
+			}
+			WorkItem workItem = row.workItem;
+			workItems.putLocked(workItemId, new WorkItemRow(workItem(workItem, status, workItem.getIssueId(),
+					workItem.isActive()), row.userId));
+			if (workItem.getStatus() != status) {
+				workItemsByStatus.remove(workItem.getStatus().ordinal(), workItemId);
+				workItemsByStatus.add(status.ordinal(), workItemId);
+			}
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Assigns a work item to a user.
+	 *
+	 * @return the work item, or null if there is no work item with the id
+	 */
+	WorkItem setWorkItemUser(long workItemId, long userId) {
+		ReentrantReadWriteLock lock = workItems.lock(workItemId);
+		lock.writeLock().lock();
+		try {
+			WorkItemRow row = workItems.getLocked(workItemId);
+			if (row == null) {
+				return null;
+			}
+			workItems.putLocked(workItemId, new WorkItemRow(row.workItem, userId));
+			if (row.userId > 0) {
+				workItemsByUser.remove(row.userId, workItemId);
+			}
+			workItemsByUser.add(userId, workItemId);
+			return row.workItem;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	int setStatusOfUserWorkItems(long userId, WorkItemStatus status) {
+		int changed = 0;
+		for (long workItemId : workItemsByUser.get(userId)) {
+			if (setWorkItemStatus(workItemId, status)) {
+				changed++;
+			}
+		}
+		return changed;
+	}
+
+	static User user(User user, long teamId, boolean isActive) {
+		return User.userBuilder(user.getUsername(), user.getFirstname(), user.getLastname()).setId(user.getId())
+				.setTeamId(teamId).setActive(isActive).build();
+	}
+
+	static WorkItem workItem(WorkItem workItem, WorkItemStatus status, long issueId, boolean isActive) {
+		return WorkItem.workItemBuilder(workItem.getName()).setId(workItem.getId()).setStatus(status)
+				.setIssue_id(issueId).setIsActive(isActive).build();
+	}
+
+	/**
+	 * A work item and the user it is assigned to, the model does not carry the user.
+	 */
+	static final class WorkItemRow {
+
+		final WorkItem workItem;
+		final long userId;
+
+		WorkItemRow(WorkItem workItem, long userId) {
+			this.workItem = workItem;
+			this.userId = userId;
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package se.root.ordersystem.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import se.root.ordersystem.helpers.LongObjectMap;
+
+/**
+ * The Class InMemoryIndex - a secondary index from a long key, for example a user id or a status
+ * ordinal, to the ascending ids of the rows with that key.
+ *
+ * The ids of a key are kept in sorted blocks of at most 512 ids, so adding or removing an id
+ * moves at most one block even when a key, like a status, has millions of rows. Lookups copy the
+ * ids under the read lock and return a snapshot that later writes do not touch.
+ */
+final class InMemoryIndex {
+
+	private static final long[] NO_IDS = new long[0];
+
+	private final LongObjectMap<Postings> ids = new LongObjectMap<>();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	void add(long key, long id) {
+		lock.writeLock().lock();
+		try {
+			Postings postings = ids.get(key);
+			if (postings == null) {
+				postings = new Postings();
+				ids.put(key, postings);
+			}
+			postings.add(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	void remove(long key, long id) {
+		lock.writeLock().lock();
+		try {
+			Postings postings = ids.get(key);
+			if (postings != null) {
+				postings.remove(id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the ids with a key.
+	 *
+	 * @param key the key
+	 * @return the ids, ascending
+	 */
+	long[] get(long key) {
+		return get(key, 0, Integer.MAX_VALUE);
+	}
+
+	int count(long key) {
+		lock.readLock().lock();
+		try {
+			Postings postings = ids.get(key);
+			return postings == null ? 0 : postings.size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the ids with a key above afterId.
+	 *
+	 * @param key the key
+	 * @param afterId only ids above this one
+	 * @param limit the maximum number of ids
+	 * @return the ids, ascending
+	 */
+	long[] get(long key, long afterId, int limit) {
+		lock.readLock().lock();
+		try {
+			Postings postings = ids.get(key);
+			return postings == null ? NO_IDS : postings.range(afterId, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * The ids of one key, in ascending blocks that are split when they fill up and dropped when
+	 * they empty.
+	 */
+	private static final class Postings {
+
+		private static final int BLOCK_SIZE = 512;
+
+		private final List<Block> blocks = new ArrayList<>();
+		private int size;
+
+		void add(long id) {
+			if (blocks.isEmpty()) {
+				Block block = new Block(1);
+				block.ids[block.size++] = id;
+				blocks.add(block);
+				size++;
+				return;
+			}
+			int index = Math.min(blockOf(id), blocks.size() - 1);
+			Block block = blocks.get(index);
+			int position = Arrays.binarySearch(block.ids, 0, block.size, id);
+			if (position >= 0) {
+				return;
+			}
+			position = -position - 1;
+			if (block.size == BLOCK_SIZE) {
+				Block upper = block.splitUpperHalf();
+				blocks.add(index + 1, upper);
+				if (position > block.size) {
+					position -= block.size;
+					block = upper;
+				}
+			}
+			if (block.size == block.ids.length) {
+				block.ids = Arrays.copyOf(block.ids, Math.min(BLOCK_SIZE, block.size * 2));
+			}
+			System.arraycopy(block.ids, position, block.ids, position + 1, block.size - position);
+			block.ids[position] = id;
+			block.size++;
+			size++;
+		}
+
+		void remove(long id) {
+			int index = blockOf(id);
+			if (index == blocks.size()) {
+				return;
+			}
+			Block block = blocks.get(index);
+			int position = Arrays.binarySearch(block.ids, 0, block.size, id);
+			if (position < 0) {
+				return;
+			}
+			System.arraycopy(block.ids, position + 1, block.ids, position, block.size - position - 1);
+			size--;
+			if (--block.size == 0) {
+				blocks.remove(index);
+			}
+		}
+
+		long[] range(long afterId, int limit) {
+			long[] result = new long[Math.min(size, limit)];
+			int copied = 0;
+			for (int index = blockOf(afterId + 1); index < blocks.size() && copied < result.length; index++) {
+				Block block = blocks.get(index);
+				int from = Arrays.binarySearch(block.ids, 0, block.size, afterId);
+				from = from >= 0 ? from + 1 : -from - 1;
+				int length = Math.min(block.size - from, result.length - copied);
+				System.arraycopy(block.ids, from, result, copied, length);
+				copied += length;
+			}
+			return copied == result.length ? result : Arrays.copyOf(result, copied);
+		}
+
+		/**
+		 * Finds the first block whose last id is at least the given id.
+		 *
+		 * @return the block, or the number of blocks if every id is lower
+		 */
+		private int blockOf(long id) {
+			int low = 0;
+			int high = blocks.size() - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				if (blocks.get(middle).last() < id) {
+					low = middle + 1;
+				} else {
+					high = middle - 1;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * A block starts at the size it needs and grows up to BLOCK_SIZE, most keys of the user
+		 * and issue indexes only have a few ids.
+		 */
+		private static final class Block {
+			private long[] ids;
+			private int size;
+
+			Block(int capacity) {
+				ids = new long[capacity];
+			}
+
+			long last() {
+				return ids[size - 1];
+			}
+
+			/**
+			 * Moves the upper half of the ids to a new block.
+			 */
+			Block splitUpperHalf() {
+				Block upper = new Block(BLOCK_SIZE);
+				upper.size = size / 2;
+				size -= upper.size;
+				System.arraycopy(ids, size, upper.ids, 0, upper.size);
+				return upper;
+			}
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package se.root.ordersystem.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.model.Issue;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.repository.InMemoryDatabase.WorkItemRow;
+import se.root.ordersystem.repository.interfaces.IssueRepository;
+
+public final class InMemoryIssueRepository extends InMemoryCRUDRepository<Issue, Issue> implements IssueRepository {
+
+	private final InMemoryWorkItemRepository workItemRepository;
+
+	public InMemoryIssueRepository(InMemoryDatabase database) {
+		super(database, database.issues);
+		this.workItemRepository = new InMemoryWorkItemRepository(database);
+	}
+
+	@Override
+	protected Issue entity(Issue row) {
+		return row;
+	}
+
+	@Override
+	protected Issue withActive(Issue row, boolean isActive) {
+		return Issue.issueBuilder(row.getTitle()).setId(row.getId()).setDescription(row.getDescription())
+				.setActive(isActive).build();
+	}
+
+	@Override
+	public long create(Issue issue) throws RepositoryException {
+		return database.issues.insert(id -> Issue.issueBuilder(issue.getTitle()).setId(id)
+				.setDescription(issue.getDescription()).build());
+	}
+
+	@Override
+	public void update(Issue issue) throws RepositoryException {
+		long id = issue.getId();
+		ReentrantReadWriteLock lock = database.issues.lock(id);
+		lock.writeLock().lock();
+		try {
+			Issue stored = database.issues.getLocked(id);
+			if (stored != null) {
+				database.issues.putLocked(id, Issue.issueBuilder(issue.getTitle()).setId(stored.getId())
+						.setDescription(issue.getDescription()).setActive(stored.getIsActive()).build());
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void AddIssueToWorkItem(Issue issue, long workItemId) throws RepositoryException {
+		long id = workItemId;
+		ReentrantReadWriteLock lock = database.workItems.lock(id);
+		lock.writeLock().lock();
+		try {
+			WorkItemRow row = database.workItems.getLocked(id);
+			if (row == null) {
+				return;
+			}
+			WorkItem workItem = row.workItem;
+			database.workItems.putLocked(id, new WorkItemRow(InMemoryDatabase.workItem(workItem, workItem.getStatus(),
+					issue.getId(), workItem.isActive()), row.userId));
+			long previous = workItem.getIssueId();
+			if (previous > 0) {
+				database.workItemsByIssue.remove(previous, id);
+			}
+			long issueId = issue.getId();
+			if (issueId > 0) {
+				database.workItemsByIssue.add(issueId, id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public List<WorkItem> getAllWorkItemsWithIssue() throws RepositoryException {
+		List<WorkItem> workItems = new ArrayList<>();
+		for (long id : database.issues.ids()) {
+			Issue issue = database.issues.get(id);
+			if (issue != null && issue.getIsActive()) {
+				workItems.addAll(workItemRepository.entities(database.workItemsByIssue.get(id)));
+			}
+		}
+		return workItems;
+	}
+}
@@ -0,0 +1,137 @@
+package se.root.ordersystem.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+
+import se.root.ordersystem.helpers.LongObjectMap;
+
+/**
+ * The Class InMemoryTable - the rows of one in-memory table, keyed by a generated long id.
+ *
+ * The rows are split over lock stripes by id, so writes to different rows rarely wait for each
+ * other. Ids are generated in ascending order and kept in an append-only array, which gives the
+ * id ordered scans and keyset pages without sorting.
+ *
+ * @param <R> the row type
+ */
+final class InMemoryTable<R> {
+
+	private static final int STRIPES = 32;
+
+	private final LongObjectMap<R>[] rows;
+	private final ReentrantReadWriteLock[] locks;
+	private final Object appendLock = new Object();
+	private long sequence;
+	private volatile Ids ids = new Ids(new long[64], 0);
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	InMemoryTable() {
+		rows = (LongObjectMap<R>[]) new LongObjectMap[STRIPES];
+		locks = new ReentrantReadWriteLock[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			rows[i] = new LongObjectMap<>();
+			locks[i] = new ReentrantReadWriteLock();
+		}
+	}
+
+	/**
+	 * Inserts a row under the next id.
+	 *
+	 * @param row builds the row from its id
+	 * @return the id
+	 */
+	long insert(LongFunction<R> row) {
+		synchronized (appendLock) {
+			long id = ++sequence;
+			R value = row.apply(id);
+			ReentrantReadWriteLock lock = lock(id);
+			lock.writeLock().lock();
+			try {
+				rows[stripe(id)].put(id, value);
+			} finally {
+				lock.writeLock().unlock();
+			}
+			Ids current = ids;
+			long[] array = current.array;
+			if (current.size == array.length) {
+				array = Arrays.copyOf(array, array.length << 1);
+			}
+			array[current.size] = id;
+			ids = new Ids(array, current.size + 1);
+			return id;
+		}
+	}
+
+	R get(long id) {
+		ReentrantReadWriteLock lock = lock(id);
+		lock.readLock().lock();
+		try {
+			return rows[stripe(id)].get(id);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the lock of the stripe a row is in. Hold the write lock around
+	 * {@link #getLocked(long)} and {@link #putLocked(long, Object)} to change a row together with
+	 * the indexes on it.
+	 *
+	 * @param id the id
+	 * @return the lock
+	 */
+	ReentrantReadWriteLock lock(long id) {
+		return locks[stripe(id)];
+	}
+
+	R getLocked(long id) {
+		return rows[stripe(id)].get(id);
+	}
+
+	void putLocked(long id, R row) {
+		rows[stripe(id)].put(id, row);
+	}
+
+	/**
+	 * Gets the ids, ascending.
+	 *
+	 * @param afterId only ids above this one
+	 * @param limit the maximum number of ids
+	 * @return the ids
+	 */
+	long[] ids(long afterId, int limit) {
+		Ids current = ids;
+		int from = Arrays.binarySearch(current.array, 0, current.size, afterId);
+		from = from >= 0 ? from + 1 : -from - 1;
+		int to = (int) Math.min(current.size, (long) from + limit);
+		return Arrays.copyOfRange(current.array, from, Math.max(from, to));
+	}
+
+	long[] ids() {
+		Ids current = ids;
+		return Arrays.copyOf(current.array, current.size);
+	}
+
+	int size() {
+		return ids.size;
+	}
+
+	private static int stripe(long id) {
+		return (int) (id & (STRIPES - 1));
+	}
+
+	/**
+	 * A published prefix of the id array, appends after it was read do not change what it sees.
+	 */
+	private static final class Ids {
+
+		private final long[] array;
+		private final int size;
+
+		private Ids(long[] array, int size) {
+			this.array = array;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package se.root.ordersystem.repository;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.model.CascadeResult;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.Team;
+import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.interfaces.TeamRepository;
+
+public final class InMemoryTeamRepository extends InMemoryCRUDRepository<Team, Team> implements TeamRepository {
+
+	private final InMemoryUserRepository userRepository;
+
+	public InMemoryTeamRepository(InMemoryDatabase database) {
+		super(database, database.teams);
+		this.userRepository = new InMemoryUserRepository(database);
+	}
+
+	@Override
+	protected Team entity(Team row) {
+		return row;
+	}
+
+	@Override
+	protected Team withActive(Team row, boolean isActive) {
+		return Team.teamBuilder(row.getName()).setId(row.getId()).setIsActive(isActive).build();
+	}
+
+	@Override
+	public long create(Team team) throws RepositoryException {
+		return database.teams.insert(id -> Team.teamBuilder(team.getName()).setId(id).build());
+	}
+
+	@Override
+	public void update(Team team) throws RepositoryException {
+		long id = team.getId();
+		ReentrantReadWriteLock lock = database.teams.lock(id);
+		lock.writeLock().lock();
+		try {
+			Team stored = database.teams.getLocked(id);
+			if (stored != null) {
+				database.teams.putLocked(id, Team.teamBuilder(team.getName()).setId(stored.getId())
+						.setIsActive(stored.isActive()).build());
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public List<User> getUsersFromTeam(long id) throws RepositoryException {
+		return userRepository.entities(database.usersByTeam.get(id));
+	}
+
+	@Override
+	public Page<User> getUsersFromTeam(long id, long afterId, int pageSize) throws RepositoryException {
+		BaseCRUDRepository.checkPageSize(pageSize);
+		return BaseCRUDRepository.page(userRepository.entities(database.usersByTeam.get(id,
+				afterId, pageSize + 1)), pageSize, afterId);
+	}
+
+	@Override
+	public void addUserToTeam(long userId, long teamId) throws RepositoryException {
+		database.setTeam(userId, teamId);
+	}
+
+	@Override
+	public long addUserToTeamWithRoom(long userId, int maxMembers) throws RepositoryException {
+		database.placement.lock();
+		try {
+			long[] teams = database.teams.ids();
+			long teamId = 0;
+			for (long team : teams) {
+				if (database.usersByTeam.count(team) < maxMembers) {
+					teamId = team;
+					break;
+				}
+			}
+			if (teamId == 0) {
+				teamId = create(Team.teamBuilder("Team " + (teams.length + 1)).build());
+			}
+			if (!database.setTeam(userId, teamId)) {
+				throw new RepositoryException("Could not add user to a team with room: " + userId);
+			}
+			return teamId;
+		} finally {
+			database.placement.unlock();
+		}
+	}
+
+	@Override
+	public CascadeResult inactivateTeamCascade(long teamId, WorkItemStatus workItemStatus) throws RepositoryException {
+		ReentrantReadWriteLock lock = database.teams.lock(teamId);
+		lock.writeLock().lock();
+		try {
+			Team stored = database.teams.getLocked(teamId);
+			if (stored != null) {
+				database.teams.putLocked(teamId, withActive(stored, false));
+			}
+			int users = 0;
+			int workItems = 0;
+			for (long user : database.usersByTeam.get(teamId)) {
+				workItems += database.setStatusOfUserWorkItems(user, workItemStatus);
+				if (database.setUserActive(user, false)) {
+					users++;
+				}
+			}
+			return new CascadeResult(stored == null ? 0 : 1, users, workItems);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
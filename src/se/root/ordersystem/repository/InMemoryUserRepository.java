@@ -0,0 +1,159 @@
+package se.root.ordersystem.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.model.AssignedWorkItem;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemAssignment;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.interfaces.UserRepository;
+
+public final class InMemoryUserRepository extends InMemoryCRUDRepository<User, User> implements UserRepository {
+
+	private final InMemoryWorkItemRepository workItemRepository;
+
+	public InMemoryUserRepository(InMemoryDatabase database) {
+		super(database, database.users);
+		this.workItemRepository = new InMemoryWorkItemRepository(database);
+	}
+
+	@Override
+	protected User entity(User row) {
+		return row;
+	}
+
+	@Override
+	protected User withActive(User row, boolean isActive) {
+		return InMemoryDatabase.user(row, row.getTeamId(), isActive);
+	}
+
+	@Override
+	public long create(User user) throws RepositoryException {
+		return database.users.insert(id -> User.userBuilder(user.getUsername(), user.getFirstname(), user.getLastname())
+				.setId(id).build());
+	}
+
+	@Override
+	public void update(User user) throws RepositoryException {
+		long id = user.getId();
+		ReentrantReadWriteLock lock = database.users.lock(id);
+		lock.writeLock().lock();
+		try {
+			User stored = database.users.getLocked(id);
+			if (stored != null) {
+				database.users.putLocked(id, User.userBuilder(user.getUsername(), user.getFirstname(), user.getLastname())
+						.setId(stored.getId()).setTeamId(stored.getTeamId()).setActive(stored.isActive()).build());
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public List<User> readAll(long[] ids) throws RepositoryException {
+		return entities(ids);
+	}
+
+	@Override
+	public List<User> getUsersBy(String username, String firstname, String lastname) throws RepositoryException {
+		return getUsersBy(username, firstname, lastname, 0);
+	}
+
+	@Override
+	public List<User> getUsersBy(String username, String firstname, String lastname, int limit) throws RepositoryException {
+		List<User> users = new ArrayList<>();
+		if (username == null || firstname == null || lastname == null) {
+			return users;
+		}
+		String usernameTerm = username.toLowerCase(Locale.ROOT);
+		String firstnameTerm = firstname.toLowerCase(Locale.ROOT);
+		String lastnameTerm = lastname.toLowerCase(Locale.ROOT);
+		for (long id : database.users.ids()) {
+			User user = database.users.get(id);
+			if (contains(user.getUsername(), usernameTerm) && contains(user.getFirstname(), firstnameTerm)
+					&& contains(user.getLastname(), lastnameTerm)) {
+				users.add(user);
+				if (users.size() == limit) {
+					break;
+				}
+			}
+		}
+		return users;
+	}
+
+	@Override
+	public void addWorkItemToUser(long userId, long workId) throws RepositoryException {
+		database.setWorkItemUser(workId, userId);
+	}
+
+	@Override
+	public int resetWorkItemsByUser(long userId, WorkItemStatus workItemStatus) throws RepositoryException {
+		return database.setStatusOfUserWorkItems(userId, workItemStatus);
+	}
+
+	@Override
+	public int countWorkItemsByUser(long userId) throws RepositoryException {
+		return database.workItemsByUser.count(userId);
+	}
+
+	@Override
+	public WorkItemAssignment assignWorkItemToUser(long userId, long workId, int maxWorkItems) throws RepositoryException {
+		// holding the user's row lock serializes assignments to the same user
+		ReentrantReadWriteLock lock = database.users.lock(userId);
+		lock.writeLock().lock();
+		try {
+			User stored = database.users.getLocked(userId);
+			if (stored == null) {
+				return WorkItemAssignment.USER_NOT_FOUND;
+			}
+			if (!stored.isActive()) {
+				return WorkItemAssignment.USER_INACTIVE;
+			}
+			if (database.workItems.get(workId) == null) {
+				return WorkItemAssignment.WORK_ITEM_NOT_FOUND;
+			}
+			if (database.workItemsByUser.count(userId) >= maxWorkItems) {
+				return WorkItemAssignment.WORK_ITEM_LIMIT_REACHED;
+			}
+			WorkItem assigned = database.setWorkItemUser(workId, userId);
+			return assigned == null ? WorkItemAssignment.WORK_ITEM_NOT_FOUND
+					: WorkItemAssignment.assigned(stored.getTeamId(), assigned.getStatus());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public List<WorkItem> getAllWorkItemsByUser(long id) throws RepositoryException {
+		return workItemRepository.entities(database.workItemsByUser.get(id));
+	}
+
+	@Override
+	public Page<WorkItem> getAllWorkItemsByUser(long id, long afterId, int pageSize) throws RepositoryException {
+		BaseCRUDRepository.checkPageSize(pageSize);
+		return BaseCRUDRepository.page(workItemRepository.entities(database.workItemsByUser.get(id,
+				afterId, pageSize + 1)), pageSize, afterId);
+	}
+
+	@Override
+	public Stream<AssignedWorkItem> getAssignedWorkItemsStreaming() throws RepositoryException {
+		return Arrays.stream(database.workItems.ids()).mapToObj(database.workItems::get)
+				.filter(row -> row != null && row.userId > 0).map(row -> {
+					User user = database.users.get(row.userId);
+					return new AssignedWorkItem(row.workItem.getId(), row.userId,
+							user == null ? 0 : user.getTeamId(), row.workItem.getStatus());
+				});
+	}
+
+	private static boolean contains(String value, String term) {
+		return value != null && value.toLowerCase(Locale.ROOT).contains(term);
+	}
+}
@@ -0,0 +1,129 @@
+package se.root.ordersystem.repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.InMemoryDatabase.WorkItemRow;
+import se.root.ordersystem.repository.interfaces.WorkItemRepository;
+
+public final class InMemoryWorkItemRepository extends InMemoryCRUDRepository<WorkItem, WorkItemRow>
+		implements WorkItemRepository {
+
+	public InMemoryWorkItemRepository(InMemoryDatabase database) {
+		super(database, database.workItems);
+	}
+
+	@Override
+	protected WorkItem entity(WorkItemRow row) {
+		return row.workItem;
+	}
+
+	@Override
+	protected WorkItemRow withActive(WorkItemRow row, boolean isActive) {
+		WorkItem workItem = row.workItem;
+		return new WorkItemRow(InMemoryDatabase.workItem(workItem, workItem.getStatus(), workItem.getIssueId(), isActive),
+				row.userId);
+	}
+
+	@Override
+	public long create(WorkItem workItem) throws RepositoryException {
+		long id = database.workItems.insert(key -> new WorkItemRow(
+				WorkItem.workItemBuilder(workItem.getName()).setId(key).build(), 0));
+		database.workItemsByStatus.add(WorkItemStatus.UNSTARTED.ordinal(), id);
+		return id;
+	}
+
+	@Override
+	public void update(WorkItem workItem) throws RepositoryException {
+		long id = workItem.getId();
+		ReentrantReadWriteLock lock = database.workItems.lock(id);
+		lock.writeLock().lock();
+		try {
+			WorkItemRow row = database.workItems.getLocked(id);
+			if (row == null) {
+				return;
+			}
+			WorkItem stored = row.workItem;
+			database.workItems.putLocked(id, new WorkItemRow(WorkItem.workItemBuilder(workItem.getName())
+					.setId(stored.getId()).setStatus(workItem.getStatus()).setIssue_id(stored.getIssueId())
+					.setIsActive(stored.isActive()).build(), row.userId));
+			if (stored.getStatus() != workItem.getStatus()) {
+				database.workItemsByStatus.remove(stored.getStatus().ordinal(), id);
+				database.workItemsByStatus.add(workItem.getStatus().ordinal(), id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void changeWorkItemStatus(long id, WorkItemStatus workItemStatus) throws RepositoryException {
+		database.setWorkItemStatus(id, workItemStatus);
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus) throws RepositoryException {
+		return entities(database.workItemsByStatus.get(workItemStatus.ordinal()));
+	}
+
+	@Override
+	public Page<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus, long afterId, int pageSize)
+			throws RepositoryException {
+		BaseCRUDRepository.checkPageSize(pageSize);
+		return BaseCRUDRepository.page(entities(database.workItemsByStatus.get(workItemStatus.ordinal(), afterId,
+				pageSize + 1)), pageSize, afterId);
+	}
+
+	@Override
+	public List<WorkItem> getAllWorkItemsByTeam(long id) throws RepositoryException {
+		return entities(workItemIdsOfTeam(id));
+	}
+
+	@Override
+	public Page<WorkItem> getAllWorkItemsByTeam(long id, long afterId, int pageSize) throws RepositoryException {
+		BaseCRUDRepository.checkPageSize(pageSize);
+		long[] ids = workItemIdsOfTeam(id);
+		int from = Arrays.binarySearch(ids, afterId);
+		from = from >= 0 ? from + 1 : -from - 1;
+		int to = (int) Math.min(ids.length, (long) from + pageSize + 1);
+		return BaseCRUDRepository.page(entities(Arrays.copyOfRange(ids, from, to)), pageSize, afterId);
+	}
+
+	@Override
+	public List<WorkItem> readAll(long[] ids) throws RepositoryException {
+		return entities(ids);
+	}
+
+	@Override
+	public long[] getWorkItemIdsByTeam(long id) throws RepositoryException {
+		return workItemIdsOfTeam(id);
+	}
+
+	@Override
+	public long[] getWorkItemIdsByUser(long id) throws RepositoryException {
+		return database.workItemsByUser.get(id);
+	}
+
+	private long[] workItemIdsOfTeam(long teamId) {
+		long[] users = database.usersByTeam.get(teamId);
+		long[][] perUser = new long[users.length][];
+		int total = 0;
+		for (int i = 0; i < users.length; i++) {
+			perUser[i] = database.workItemsByUser.get(users[i]);
+			total += perUser[i].length;
+		}
+		long[] ids = new long[total];
+		int offset = 0;
+		for (long[] workItems : perUser) {
+			System.arraycopy(workItems, 0, ids, offset, workItems.length);
+			offset += workItems.length;
+		}
+		Arrays.sort(ids);
+		return ids;
+	}
+}
@@ -0,0 +1,294 @@
+package se.root.ordersystem.repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.ResultMapper;
+import se.root.ordersystem.helpers.TrigramIndex;
+import se.root.ordersystem.helpers.Transaction;
+import se.root.ordersystem.model.AssignedWorkItem;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemAssignment;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.interfaces.UserRepository;
+
+/**
+ * The Class IndexedUserRepository - answers getUsersBy from an in-memory {@link TrigramIndex} over
+ * username, firstname and lastname instead of scanning the user table.
+ *
+ * The index is built from the wrapped repository on the first search and kept in sync by the
+ * creates and updates made through this repository. Hits are read through the wrapped repository,
+ * so wrap a {@link CachingUserRepository} to serve them from the entity cache. Call
+ * {@link #rebuild()} after users were changed by another process, searches keep using the old
+ * index until the new one is built and users written during the build are read again before it
+ * replaces the old one.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class IndexedUserRepository implements UserRepository {
+
+	private final UserRepository delegate;
+	private final Object buildLock = new Object();
+	private volatile TrigramIndex index;
+	// the ids written while a build runs, null when no build runs
+	private Set<Long> writtenDuringBuild;
+
+	public IndexedUserRepository(UserRepository delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Reads every user from the wrapped repository into a new index.
+	 *
+	 * @throws RepositoryException the repository exception
+	 */
+	public synchronized void rebuild() throws RepositoryException {
+		TrigramIndex fresh = new TrigramIndex(3);
+		synchronized (buildLock) {
+			writtenDuringBuild = new HashSet<>();
+		}
+		try {
+			try (Stream<User> users = delegate.getAllStreaming()) {
+				users.forEach(user -> put(fresh, user));
+			} catch (RuntimeException e) {
+				throw new RepositoryException("Could not build the user index", e);
+			}
+			while (true) {
+				long[] written;
+				synchronized (buildLock) {
+					if (writtenDuringBuild.isEmpty()) {
+						index = fresh;
+						writtenDuringBuild = null;
+						return;
+					}
+					written = writtenDuringBuild.stream().mapToLong(Long::longValue).sorted().toArray();
+					writtenDuringBuild.clear();
+				}
+				// the stream can have read these users before they were written
+				for (long id : written) {
+					fresh.remove(id);
+				}
+				for (User user : delegate.readAll(written)) {
+					put(fresh, user);
+				}
+			}
+		} finally {
+			synchronized (buildLock) {
+				writtenDuringBuild = null;
+			}
+		}
+	}
+
+	@Override
+	public List<User> getUsersBy(String username, String firstname, String lastname) throws RepositoryException {
+		return getUsersBy(username, firstname, lastname, 0);
+	}
+
+	@Override
+	public List<User> getUsersBy(String username, String firstname, String lastname, int limit) throws RepositoryException {
+		TrigramIndex index = this.index;
+		if (index == null) {
+			synchronized (this) {
+				if (this.index == null) {
+					rebuild();
+				}
+				index = this.index;
+			}
+		}
+		List<User> users = new ArrayList<>();
+		long afterId = 0;
+		while (true) {
+			int wanted = limit > 0 ? limit - users.size() : 0;
+			long[] ids = index.search(afterId, wanted, username, firstname, lastname);
+			for (User user : delegate.readAll(ids)) {
+				// the index can lag behind a transaction that is still open, never return a user that no longer matches
+				if (contains(user.getUsername(), username) && contains(user.getFirstname(), firstname)
+						&& contains(user.getLastname(), lastname)) {
+					users.add(user);
+				}
+			}
+			// without a limit every hit was read, with one keep reading until enough hits still match
+			if (wanted == 0 || ids.length < wanted || users.size() >= limit) {
+				return users;
+			}
+			afterId = ids[ids.length - 1];
+		}
+	}
+
+	@Override
+	public long create(User user) throws RepositoryException {
+		long id = delegate.create(user);
+		reindex(id, user);
+		return id;
+	}
+
+	@Override
+	public long[] createAll(List<User> users) throws RepositoryException {
+		long[] ids = delegate.createAll(users);
+		for (int i = 0; i < ids.length; i++) {
+			reindex(ids[i], users.get(i));
+		}
+		return ids;
+	}
+
+	@Override
+	public void update(User user) throws RepositoryException {
+		delegate.update(user);
+		reindex(user.getId(), user);
+	}
+
+	@Override
+	public void updateAll(List<User> users) throws RepositoryException {
+		delegate.updateAll(users);
+		for (User user : users) {
+			reindex(user.getId(), user);
+		}
+	}
+
+	@Override
+	public User read(long id) throws RepositoryException {
+		return delegate.read(id);
+	}
+
+	@Override
+	public List<User> readAll(long[] ids) throws RepositoryException {
+		return delegate.readAll(ids);
+	}
+
+	@Override
+	public User read(long id, ResultMapper<User> resultMapper) throws RepositoryException {
+		return delegate.read(id, resultMapper);
+	}
+
+	@Override
+	public void changeStatus(boolean isActive, long id) throws RepositoryException {
+		delegate.changeStatus(isActive, id);
+	}
+
+	@Override
+	public List<User> getAll() throws RepositoryException {
+		return delegate.getAll();
+	}
+
+	@Override
+	public List<User> getAll(ResultMapper<User> resultMapper) throws RepositoryException {
+		return delegate.getAll(resultMapper);
+	}
+
+	@Override
+	public Stream<User> getAllStreaming() throws RepositoryException {
+		return delegate.getAllStreaming();
+	}
+
+	@Override
+	public Stream<User> getAllStreaming(ResultMapper<User> resultMapper) throws RepositoryException {
+		return delegate.getAllStreaming(resultMapper);
+	}
+
+	@Override
+	public Page<User> getAll(long afterId, int pageSize) throws RepositoryException {
+		return delegate.getAll(afterId, pageSize);
+	}
+
+	@Override
+	public Page<User> getAll(long afterId, int pageSize, ResultMapper<User> resultMapper) throws RepositoryException {
+		return delegate.getAll(afterId, pageSize, resultMapper);
+	}
+
+	@Override
+	public void addWorkItemToUser(long userId, long workId) throws RepositoryException {
+		delegate.addWorkItemToUser(userId, workId);
+	}
+
+	@Override
+	public int resetWorkItemsByUser(long userId, WorkItemStatus workItemStatus) throws RepositoryException {
+		return delegate.resetWorkItemsByUser(userId, workItemStatus);
+	}
+
+	@Override
+	public int countWorkItemsByUser(long userId) throws RepositoryException {
+		return delegate.countWorkItemsByUser(userId);
+	}
+
+	@Override
+	public WorkItemAssignment assignWorkItemToUser(long userId, long workId, int maxWorkItems) throws RepositoryException {
+		return delegate.assignWorkItemToUser(userId, workId, maxWorkItems);
+	}
+
+	@Override
+	public List<WorkItem> getAllWorkItemsByUser(long id) throws RepositoryException {
+		return delegate.getAllWorkItemsByUser(id);
+	}
+
+	@Override
+	public Page<WorkItem> getAllWorkItemsByUser(long id, long afterId, int pageSize) throws RepositoryException {
+		return delegate.getAllWorkItemsByUser(id, afterId, pageSize);
+	}
+
+	@Override
+	public Stream<AssignedWorkItem> getAssignedWorkItemsStreaming() throws RepositoryException {
+		return delegate.getAssignedWorkItemsStreaming();
+	}
+
+	/**
+	 * Indexes a written user. Inside a transaction the user is read back once the transaction is
+	 * done, so a rollback does not leave names in the index that were never committed.
+	 */
+	private void reindex(long id, User user) {
+		if (Transaction.current() == null) {
+			TrigramIndex index = written(id);
+			if (index != null) {
+				index.put(id, user.getUsername(), user.getFirstname(), user.getLastname());
+			}
+			return;
+		}
+		Transaction.afterCompletion(() -> {
+			TrigramIndex index = written(id);
+			if (index == null) {
+				return;
+			}
+			try {
+				User committed = delegate.read(id);
+				if (committed == null) {
+					index.remove(id);
+				} else {
+					put(index, committed);
+				}
+			} catch (RepositoryException e) {
+				// the next search builds a new index
+				this.index = null;
+			}
+		});
+	}
+
+	/**
+	 * Records a written user for a build that runs, so it is read again before the new index is
+	 * used.
+	 *
+	 * @return the index searches use now, null if there is none yet
+	 */
+	private TrigramIndex written(long id) {
+		synchronized (buildLock) {
+			if (writtenDuringBuild != null) {
+				writtenDuringBuild.add(id);
+			}
+			return index;
+		}
+	}
+
+	private static void put(TrigramIndex index, User user) {
+		index.put(user.getId(), user.getUsername(), user.getFirstname(), user.getLastname());
+	}
+
+	private static boolean contains(String value, String term) {
+		return value != null && value.toLowerCase(Locale.ROOT).contains(term.toLowerCase(Locale.ROOT));
+	}
+}
@@ -0,0 +1,297 @@
+package se.root.ordersystem.repository;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.IdBitmap;
+import se.root.ordersystem.helpers.ResultMapper;
+import se.root.ordersystem.model.ChangeType;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.interfaces.WorkItemRepository;
+
+/**
+ * The Class IndexedWorkItemRepository - answers the status queries from one in-memory
+ * {@link IdBitmap} per status instead of having the database scan for a large part of the work
+ * item table.
+ *
+ * The bitmaps are built from the wrapped repository on the first status query and then follow the
+ * work item changes that the MySQL repositories commit, through {@link Outbox.Listener}, so the
+ * status resets made by the user and team repositories are seen as well. Filters by team or user
+ * read the ids of the team or user and intersect them with the bitmap of the status. Hits are read
+ * with {@link WorkItemRepository#readAll(long[])}, so wrap a {@link CachingWorkItemRepository} to
+ * serve them from the entity cache and fetch the rest in batched IN queries. Call
+ * {@link #rebuild()} after work items were changed by another process.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class IndexedWorkItemRepository implements WorkItemRepository, AutoCloseable {
+
+	private final WorkItemRepository delegate;
+	private final Map<WorkItemStatus, IdBitmap> statuses = new EnumMap<>(WorkItemStatus.class);
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Outbox.Listener listener = this::changed;
+	private volatile boolean built;
+
+	public IndexedWorkItemRepository(WorkItemRepository delegate) {
+		this.delegate = delegate;
+		Outbox.addListener(listener);
+	}
+
+	/**
+	 * Reads the status of every work item from the wrapped repository into new bitmaps. Changes
+	 * that commit meanwhile wait for the rebuild and are applied after it.
+	 *
+	 * @throws RepositoryException the repository exception
+	 */
+	public void rebuild() throws RepositoryException {
+		lock.writeLock().lock();
+		try {
+			built = false;
+			for (WorkItemStatus status : WorkItemStatus.values()) {
+				statuses.put(status, new IdBitmap());
+			}
+			try (Stream<WorkItem> workItems = delegate.getAllStreaming()) {
+				workItems.forEach(workItem -> statuses.get(workItem.getStatus()).add(workItem.getId()));
+			} catch (RuntimeException e) {
+				throw new RepositoryException("Could not build the work item status index", e);
+			}
+			built = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Stops following the committed changes.
+	 */
+	@Override
+	public void close() {
+		Outbox.removeListener(listener);
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus) throws RepositoryException {
+		return matching(workItemStatus, ids(workItemStatus, null, -1, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public Page<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus, long afterId, int pageSize)
+			throws RepositoryException {
+		BaseCRUDRepository.checkPageSize(pageSize);
+		List<WorkItem> workItems = new ArrayList<>(pageSize + 1);
+		long after = afterId;
+		// keep reading after the last id until a stale id can not end the pages early
+		while (workItems.size() <= pageSize) {
+			int wanted = pageSize + 1 - workItems.size();
+			long[] ids = ids(workItemStatus, null, after, wanted);
+			workItems.addAll(matching(workItemStatus, ids));
+			if (ids.length < wanted) {
+				break;
+			}
+			after = ids[ids.length - 1];
+		}
+		return BaseCRUDRepository.page(workItems, pageSize, afterId);
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatusAndTeam(WorkItemStatus workItemStatus, long id)
+			throws RepositoryException {
+		IdBitmap team = IdBitmap.of(delegate.getWorkItemIdsByTeam(id));
+		return matching(workItemStatus, ids(workItemStatus, team, -1, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatusAndUser(WorkItemStatus workItemStatus, long id)
+			throws RepositoryException {
+		IdBitmap user = IdBitmap.of(delegate.getWorkItemIdsByUser(id));
+		return matching(workItemStatus, ids(workItemStatus, user, -1, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public long create(WorkItem workItem) throws RepositoryException {
+		return delegate.create(workItem);
+	}
+
+	@Override
+	public long[] createAll(List<WorkItem> workItems) throws RepositoryException {
+		return delegate.createAll(workItems);
+	}
+
+	@Override
+	public void update(WorkItem workItem) throws RepositoryException {
+		delegate.update(workItem);
+	}
+
+	@Override
+	public void updateAll(List<WorkItem> workItems) throws RepositoryException {
+		delegate.updateAll(workItems);
+	}
+
+	@Override
+	public WorkItem read(long id) throws RepositoryException {
+		return delegate.read(id);
+	}
+
+	@Override
+	public WorkItem read(long id, ResultMapper<WorkItem> resultMapper) throws RepositoryException {
+		return delegate.read(id, resultMapper);
+	}
+
+	@Override
+	public List<WorkItem> readAll(long[] ids) throws RepositoryException {
+		return delegate.readAll(ids);
+	}
+
+	@Override
+	public void changeStatus(boolean isActive, long id) throws RepositoryException {
+		delegate.changeStatus(isActive, id);
+	}
+
+	@Override
+	public List<WorkItem> getAll() throws RepositoryException {
+		return delegate.getAll();
+	}
+
+	@Override
+	public List<WorkItem> getAll(ResultMapper<WorkItem> resultMapper) throws RepositoryException {
+		return delegate.getAll(resultMapper);
+	}
+
+	@Override
+	public Stream<WorkItem> getAllStreaming() throws RepositoryException {
+		return delegate.getAllStreaming();
+	}
+
+	@Override
+	public Stream<WorkItem> getAllStreaming(ResultMapper<WorkItem> resultMapper) throws RepositoryException {
+		return delegate.getAllStreaming(resultMapper);
+	}
+
+	@Override
+	public Page<WorkItem> getAll(long afterId, int pageSize) throws RepositoryException {
+		return delegate.getAll(afterId, pageSize);
+	}
+
+	@Override
+	public Page<WorkItem> getAll(long afterId, int pageSize, ResultMapper<WorkItem> resultMapper)
+			throws RepositoryException {
+		return delegate.getAll(afterId, pageSize, resultMapper);
+	}
+
+	@Override
+	public void changeWorkItemStatus(long id, WorkItemStatus workItemStatus) throws RepositoryException {
+		delegate.changeWorkItemStatus(id, workItemStatus);
+	}
+
+	@Override
+	public void changeWorkItemStatuses(Map<Long, WorkItemStatus> workItemStatuses) throws RepositoryException {
+		delegate.changeWorkItemStatuses(workItemStatuses);
+	}
+
+	@Override
+	public List<WorkItem> getAllWorkItemsByTeam(long id) throws RepositoryException {
+		return delegate.getAllWorkItemsByTeam(id);
+	}
+
+	@Override
+	public Page<WorkItem> getAllWorkItemsByTeam(long id, long afterId, int pageSize) throws RepositoryException {
+		return delegate.getAllWorkItemsByTeam(id, afterId, pageSize);
+	}
+
+	@Override
+	public long[] getWorkItemIdsByTeam(long id) throws RepositoryException {
+		return delegate.getWorkItemIdsByTeam(id);
+	}
+
+	@Override
+	public long[] getWorkItemIdsByUser(long id) throws RepositoryException {
+		return delegate.getWorkItemIdsByUser(id);
+	}
+
+	private long[] ids(WorkItemStatus workItemStatus, IdBitmap filter, long afterId, int limit)
+			throws RepositoryException {
+		if (!built) {
+			synchronized (this) {
+				if (!built) {
+					rebuild();
+				}
+			}
+		}
+		lock.readLock().lock();
+		try {
+			IdBitmap ids = statuses.get(workItemStatus);
+			return (filter == null ? ids : ids.and(filter)).toArray(afterId, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Reads the work items, the index can lag behind a change that is still being applied, never
+	 * return a work item that no longer has the status. Changes are applied on the threads that
+	 * commit them, so two changes of one work item can be applied out of order, a work item read
+	 * with another status is moved to the bitmap of the status it has.
+	 */
+	private List<WorkItem> matching(WorkItemStatus workItemStatus, long[] ids) throws RepositoryException {
+		List<WorkItem> workItems = delegate.readAll(ids);
+		List<WorkItem> matching = new ArrayList<>(workItems.size());
+		for (WorkItem workItem : workItems) {
+			if (workItem.getStatus() == workItemStatus) {
+				matching.add(workItem);
+			} else {
+				move(new long[] { workItem.getId() }, workItem.getStatus());
+			}
+		}
+		return matching;
+	}
+
+	/**
+	 * Applies a committed change. Creates get the default status of the work item table, the
+	 * status resets of a user or team move every work item the user or team has now.
+	 */
+	private void changed(String entity, long entityId, ChangeType type, String detail) {
+		try {
+			if (Outbox.WORK_ITEM.equals(entity) && type == ChangeType.CREATE) {
+				move(new long[] { entityId }, WorkItemStatus.UNSTARTED);
+			} else if (Outbox.WORK_ITEM.equals(entity) && (type == ChangeType.UPDATE || type == ChangeType.WORK_ITEM_STATUS)) {
+				move(new long[] { entityId }, WorkItemStatus.valueOf(detail));
+			} else if (Outbox.USER.equals(entity) && type == ChangeType.RESET_WORK_ITEMS) {
+				move(delegate.getWorkItemIdsByUser(entityId), WorkItemStatus.valueOf(detail));
+			} else if (Outbox.TEAM.equals(entity) && type == ChangeType.INACTIVATE_TEAM_CASCADE) {
+				move(delegate.getWorkItemIdsByTeam(entityId), WorkItemStatus.valueOf(detail));
+			}
+		} catch (RepositoryException | RuntimeException e) {
+			// rebuilt by the next status query
+			built = false;
+		}
+	}
+
+	private void move(long[] ids, WorkItemStatus workItemStatus) {
+		lock.writeLock().lock();
+		try {
+			if (!built) {
+				return;
+			}
+			for (Map.Entry<WorkItemStatus, IdBitmap> entry : statuses.entrySet()) {
+				for (long id : ids) {
+					if (entry.getKey() == workItemStatus) {
+						entry.getValue().add(id);
+					} else {
+						entry.getValue().remove(id);
+					}
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
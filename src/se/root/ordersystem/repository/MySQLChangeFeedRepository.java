@@ -0,0 +1,65 @@
+package se.root.ordersystem.repository;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.ResultMapper;
+import se.root.ordersystem.helpers.SQL;
+import se.root.ordersystem.model.Change;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.repository.interfaces.ChangeFeedRepository;
+
+import static se.root.ordersystem.helpers.DBInfo.outboxSettleMillis;
+import static se.root.ordersystem.helpers.DBInfo.url;
+import static se.root.ordersystem.helpers.Mapper.CHANGE_COLUMNS;
+import static se.root.ordersystem.helpers.Mapper.CHANGE_MAPPER;
+
+/**
+ * The Class MySQLChangeFeedRepository - reads the outbox the MySQL repositories append to.
+ *
+ * Sequences are taken when a change is appended but become visible when its transaction commits,
+ * so a change can show up after a higher sequence was already read. Changes younger than
+ * ordersystem.outbox.settleMillis are therefore held back, which keeps the feed gap-free as long
+ * as the transactions that write are shorter than that.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class MySQLChangeFeedRepository implements ChangeFeedRepository {
+
+	private static final ResultMapper<Long> LONG_MAPPER = r -> r.getLong(1);
+
+	@Override
+	public Page<Change> getChangesAfter(long afterSequence, int batchSize) throws RepositoryException {
+		BaseCRUDRepository.checkPageSize(batchSize);
+		try {
+			List<Change> rows = new SQL(url)
+					.query("SELECT " + CHANGE_COLUMNS + " FROM outbox WHERE sequence > ? "
+							+ "AND created_at <= TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) ORDER BY sequence LIMIT ?")
+					.parameter(afterSequence).parameter(-outboxSettleMillis * 1000).parameter(batchSize + 1)
+					.many(CHANGE_MAPPER);
+			return Page.of(rows, batchSize, afterSequence, Change::getSequence);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not read the changes after sequence " + afterSequence, e);
+		}
+	}
+
+	@Override
+	public long getLastSequence() throws RepositoryException {
+		try {
+			return new SQL(url).query("SELECT COALESCE(MAX(sequence), 0) FROM outbox").single(LONG_MAPPER);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not read the last change sequence", e);
+		}
+	}
+
+	@Override
+	public int deleteChangesUpTo(long sequence) throws RepositoryException {
+		try {
+			return new SQL(url).query("DELETE FROM outbox WHERE sequence <= ?").parameter(sequence).update();
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not delete the changes up to sequence " + sequence, e);
+		}
+	}
+}
@@ -2,7 +2,10 @@ package se.root.ordersystem.repository;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.stream.Stream;
 
+import se.root.ordersystem.model.ChangeType;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.Issue;
 import se.root.ordersystem.model.WorkItem;
 import se.root.ordersystem.exception.RepositoryException;
@@ -10,40 +13,78 @@ import se.root.ordersystem.repository.interfaces.IssueRepository;
 import se.root.ordersystem.helpers.*;
 
 import static se.root.ordersystem.helpers.DBInfo.*;
+import static se.root.ordersystem.helpers.Mapper.ISSUE_COLUMNS;
 import static se.root.ordersystem.helpers.Mapper.ISSUE_MAPPER;
+import static se.root.ordersystem.helpers.Mapper.WORK_ITEM_COLUMNS;
 import static se.root.ordersystem.helpers.Mapper.WORK_ITEM_MAPPER;
 
 public final class MySQLIssueRepository extends BaseCRUDRepository<Issue> implements IssueRepository {
 
     public MySQLIssueRepository() {
-		super("issue");
+		super("issue", ISSUE_COLUMNS);
 	}
 
 	@Override
     public long create(Issue issue) throws RepositoryException {
-        try {
-            return new SQL(url).query("INSERT INTO issue(title, description) VALUES(?, ?)").parameter(issue.getTitle())
+        try (Transaction transaction = Transaction.begin("MySQLIssueRepository.create")) {
+            long id = new SQL(url).query("INSERT INTO issue(title, description) VALUES(?, ?)").parameter(issue.getTitle())
                     .parameter(issue.getDescription()).insert();
+            Outbox.append(Outbox.ISSUE, id, ChangeType.CREATE, null);
+            transaction.commit();
+            return id;
         } catch (SQLException e) {
             throw new RepositoryException("Could not insert issue with title: " + issue.getTitle(), e);
         }
     }
 
-    public Issue read(String id) throws RepositoryException {
+    @Override
+    public long[] createAll(List<Issue> issues) throws RepositoryException {
+        SQL sql = new SQL(url).query("INSERT INTO issue(title, description) VALUES(?, ?)");
+        for (Issue issue : issues) {
+            sql.row(issue.getTitle(), issue.getDescription());
+        }
+        try (Transaction transaction = Transaction.begin("MySQLIssueRepository.createAll")) {
+            long[] ids = sql.insertBatch();
+            Outbox.appendAll(Outbox.ISSUE, ids, ChangeType.CREATE);
+            transaction.commit();
+            return ids;
+        } catch (SQLException e) {
+            throw new RepositoryException("Could not insert " + issues.size() + " issues", e);
+        }
+    }
+
+    public Issue read(long id) throws RepositoryException {
         return super.read(id, Mapper.ISSUE_MAPPER);
     }
 
     @Override
     public void update(Issue issue) throws RepositoryException {
-        try {
+        try (Transaction transaction = Transaction.begin("MySQLIssueRepository.update")) {
             new SQL(url).query("UPDATE issue SET title= ? ,description=? WHERE id = ?").parameter(issue.getTitle())
                     .parameter(issue.getDescription()).parameter(issue.getId()).update();
+            Outbox.append(Outbox.ISSUE, issue.getId(), ChangeType.UPDATE, null);
+            transaction.commit();
         } catch (SQLException e) {
             throw new RepositoryException("Could not update issue with title: " + issue.getTitle(), e);
         }
     }
 
-    public void changeStatus(boolean isActive, String id) throws RepositoryException {
+    @Override
+    public void updateAll(List<Issue> issues) throws RepositoryException {
+        SQL sql = new SQL(url).query("UPDATE issue SET title= ? ,description=? WHERE id = ?");
+        for (Issue issue : issues) {
+            sql.row(issue.getTitle(), issue.getDescription(), issue.getId());
+        }
+        try (Transaction transaction = Transaction.begin("MySQLIssueRepository.updateAll")) {
+            sql.updateBatch();
+            Outbox.appendAll(Outbox.ISSUE, issues.stream().mapToLong(Issue::getId).toArray(), ChangeType.UPDATE);
+            transaction.commit();
+        } catch (SQLException e) {
+            throw new RepositoryException("Could not update " + issues.size() + " issues", e);
+        }
+    }
+
+    public void changeStatus(boolean isActive, long id) throws RepositoryException {
         super.changeStatus(isActive, id);
     }
 
@@ -52,11 +93,22 @@ public final class MySQLIssueRepository extends BaseCRUDRepository<Issue> implem
     }
 
     @Override
-    public void AddIssueToWorkItem(Issue issue, String workItemId) throws RepositoryException {
-        try {
-            new SQL(url).query("UPDATE workitem SET issue_id = ? WHERE id = ?").parameter(issue.getId()).parameter(workItemId)
-                    .insert();
+    public Stream<Issue> getAllStreaming() throws RepositoryException {
+        return super.getAllStreaming(ISSUE_MAPPER);
+    }
 
+    @Override
+    public Page<Issue> getAll(long afterId, int pageSize) throws RepositoryException {
+        return super.getAll(afterId, pageSize, ISSUE_MAPPER);
+    }
+
+    @Override
+    public void AddIssueToWorkItem(Issue issue, long workItemId) throws RepositoryException {
+        try (Transaction transaction = Transaction.begin("MySQLIssueRepository.AddIssueToWorkItem")) {
+            new SQL(url).query("UPDATE workitem SET issue_id = ? WHERE id = ?").parameter(issue.getId()).parameter(workItemId)
+                    .update();
+            Outbox.append(Outbox.WORK_ITEM, workItemId, ChangeType.ADD_ISSUE, issue.getId());
+            transaction.commit();
         } catch (SQLException e) {
             throw new RepositoryException("Could not add issue with title '" + issue.getTitle() + "' to work item with id: " + workItemId, e);
         }
@@ -66,7 +118,7 @@ public final class MySQLIssueRepository extends BaseCRUDRepository<Issue> implem
     public List<WorkItem> getAllWorkItemsWithIssue() throws RepositoryException {
         try {
             return new SQL(url)
-                    .query("SELECT * FROM workitem LEFT JOIN issue ON issue.id = workitem.issue_id WHERE issue.is_active = 1")
+                    .query("SELECT " + WORK_ITEM_COLUMNS + " FROM workitem JOIN issue ON issue.id = workitem.issue_id WHERE issue.is_active = 1")
                     .many(WORK_ITEM_MAPPER);
         } catch (SQLException e) {
             throw new RepositoryException("Could not get all work items with an issue", e);
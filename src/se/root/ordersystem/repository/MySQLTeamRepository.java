@@ -2,47 +2,94 @@ package se.root.ordersystem.repository;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.stream.Stream;
 
+import se.root.ordersystem.helpers.ResultMapper;
 import se.root.ordersystem.helpers.SQL;
+import se.root.ordersystem.helpers.Transaction;
+import se.root.ordersystem.model.CascadeResult;
+import se.root.ordersystem.model.ChangeType;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.Team;
 import se.root.ordersystem.model.User;
 import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.exception.RepositoryException;
 import se.root.ordersystem.repository.interfaces.TeamRepository;
 
 import static se.root.ordersystem.helpers.DBInfo.url;
+import static se.root.ordersystem.helpers.Mapper.TEAM_COLUMNS;
 import static se.root.ordersystem.helpers.Mapper.TEAM_MAPPER;
+import static se.root.ordersystem.helpers.Mapper.USER_COLUMNS;
 import static se.root.ordersystem.helpers.Mapper.USER_MAPPER;
 import static se.root.ordersystem.helpers.Mapper.WORK_ITEM_MAPPER;
 
 public final class MySQLTeamRepository extends BaseCRUDRepository<Team> implements TeamRepository {
 
+	private static final ResultMapper<Long> LONG_MAPPER = r -> r.getLong(1);
+
 	public MySQLTeamRepository() {
-		super("team");
+		super("team", TEAM_COLUMNS);
 	}
 
 	public long create(Team team) throws RepositoryException {
-		try {
-			return new SQL(url).query("INSERT INTO team(name) values(?)").parameter(team.getName()).insert();
+		try (Transaction transaction = Transaction.begin("MySQLTeamRepository.create")) {
+			long id = new SQL(url).query("INSERT INTO team(name) values(?)").parameter(team.getName()).insert();
+			Outbox.append(Outbox.TEAM, id, ChangeType.CREATE, null);
+			transaction.commit();
+			return id;
 		} catch (SQLException e) {
 			throw new RepositoryException("could not create team with name: " + team.getName());
 		}
 	}
 
+	@Override
+	public long[] createAll(List<Team> teams) throws RepositoryException {
+		SQL sql = new SQL(url).query("INSERT INTO team(name) values(?)");
+		for (Team team : teams) {
+			sql.row(team.getName());
+		}
+		try (Transaction transaction = Transaction.begin("MySQLTeamRepository.createAll")) {
+			long[] ids = sql.insertBatch();
+			Outbox.appendAll(Outbox.TEAM, ids, ChangeType.CREATE);
+			transaction.commit();
+			return ids;
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not create " + teams.size() + " teams", e);
+		}
+	}
+
 	public void update(Team team) throws RepositoryException {
-		try {
+		try (Transaction transaction = Transaction.begin("MySQLTeamRepository.update")) {
 			new SQL(url).query("UPDATE team Set name=? WHERE id = ?").parameter(team.getName()).parameter(team.getId())
 					.update();
+			Outbox.append(Outbox.TEAM, team.getId(), ChangeType.UPDATE, null);
+			transaction.commit();
 		} catch (SQLException e) {
 			throw new RepositoryException("Could not update team: " + team.getName());
 		}
 	}
 
-	public Team read(String id) throws RepositoryException {
+	@Override
+	public void updateAll(List<Team> teams) throws RepositoryException {
+		SQL sql = new SQL(url).query("UPDATE team Set name=? WHERE id = ?");
+		for (Team team : teams) {
+			sql.row(team.getName(), team.getId());
+		}
+		try (Transaction transaction = Transaction.begin("MySQLTeamRepository.updateAll")) {
+			sql.updateBatch();
+			Outbox.appendAll(Outbox.TEAM, teams.stream().mapToLong(Team::getId).toArray(), ChangeType.UPDATE);
+			transaction.commit();
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not update " + teams.size() + " teams", e);
+		}
+	}
+
+	public Team read(long id) throws RepositoryException {
 		return super.read(id, TEAM_MAPPER);
 	}
 
-	public void changeStatus(boolean isActive, String id) throws RepositoryException {
+	public void changeStatus(boolean isActive, long id) throws RepositoryException {
 		super.changeStatus(isActive, id);
 	}
 
@@ -51,20 +98,111 @@ public final class MySQLTeamRepository extends BaseCRUDRepository<Team> implemen
 	}
 
 	@Override
-	public List<User> getUsersFromTeam(String id) throws RepositoryException {
+	public Stream<Team> getAllStreaming() throws RepositoryException {
+		return super.getAllStreaming(TEAM_MAPPER);
+	}
+
+	@Override
+	public Page<Team> getAll(long afterId, int pageSize) throws RepositoryException {
+		return super.getAll(afterId, pageSize, TEAM_MAPPER);
+	}
+
+	@Override
+	public List<User> getUsersFromTeam(long id) throws RepositoryException {
 		try {
-			return new SQL(url).query("SELECT * FROM user WHERE team_id = ?").parameter(id).many(USER_MAPPER);
+			return new SQL(url).query("SELECT " + USER_COLUMNS + " FROM user WHERE team_id = ?").parameter(id).many(USER_MAPPER);
 		} catch (SQLException e) {
 			throw new RepositoryException("Could not get users from team: " + id, e);
 		}
 	}
 
 	@Override
-	public void addUserToTeam(String userId, String teamId) throws RepositoryException {
+	public Page<User> getUsersFromTeam(long id, long afterId, int pageSize) throws RepositoryException {
+		checkPageSize(pageSize);
 		try {
+			List<User> rows = new SQL(url).query("SELECT " + USER_COLUMNS + " FROM user WHERE team_id = ? AND id > ? ORDER BY id LIMIT ?")
+					.parameter(id).parameter(afterId).parameter(pageSize + 1).many(USER_MAPPER);
+			return page(rows, pageSize, afterId);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not get users from team: " + id, e);
+		}
+	}
+
+	@Override
+	public void addUserToTeam(long userId, long teamId) throws RepositoryException {
+		try (Transaction transaction = Transaction.begin("MySQLTeamRepository.addUserToTeam")) {
 			new SQL(url).query("UPDATE user SET team_id = ? WHERE id = ?").parameter(teamId).parameter(userId).update();
+			Outbox.append(Outbox.USER, userId, ChangeType.ADD_USER_TO_TEAM, teamId);
+			transaction.commit();
 		} catch (SQLException e) {
 			throw new RepositoryException("Could not add user to team: " + userId, e);
 		}
 	}
+
+	@Override
+	public long addUserToTeamWithRoom(long userId, int maxMembers) throws RepositoryException {
+		try (Transaction transaction = Transaction.begin("MySQLTeamRepository.addUserToTeamWithRoom")) {
+			// the count in the candidate query is a consistent read of the transaction's snapshot,
+			// so a team found full by the locking count would be picked again, start after it
+			long afterTeamId = 0;
+			boolean placementLocked = false;
+			while (true) {
+				Long teamId = new SQL(url)
+						.query("SELECT team.id FROM team WHERE team.id > ? "
+								+ "AND (SELECT COUNT(*) FROM user member WHERE member.team_id = team.id) < ? "
+								+ "ORDER BY team.id LIMIT 1 FOR UPDATE")
+						.parameter(afterTeamId).parameter(maxMembers).optional(LONG_MAPPER);
+				if (teamId == null) {
+					if (placementLocked) {
+						break;
+					}
+					// every team is full, only one transaction at a time may create a team, the
+					// others then look again at the teams created while they waited
+					new SQL(url).query("SELECT id FROM team_placement WHERE id = 1 FOR UPDATE").single(LONG_MAPPER);
+					placementLocked = true;
+					continue;
+				}
+				// the team row is locked now, count again with a locking read to see members
+				// added by transactions that committed while this one waited for the lock
+				long members = new SQL(url).query("SELECT COUNT(*) FROM user WHERE team_id = ? FOR UPDATE")
+						.parameter(teamId).single(LONG_MAPPER);
+				afterTeamId = teamId;
+				if (members < maxMembers) {
+					new SQL(url).query("UPDATE user SET team_id = ? WHERE id = ?").parameter(teamId).parameter(userId)
+							.update();
+					Outbox.append(Outbox.USER, userId, ChangeType.ADD_USER_TO_TEAM, teamId);
+					transaction.commit();
+					return teamId;
+				}
+			}
+			// a locking read, the transaction's snapshot may not have the teams created while it waited
+			long teams = new SQL(url).query("SELECT COUNT(*) FROM team LOCK IN SHARE MODE").single(LONG_MAPPER);
+			long teamId = new SQL(url).query("INSERT INTO team(name) values(?)").parameter("Team " + (teams + 1)).insert();
+			new SQL(url).query("UPDATE user SET team_id = ? WHERE id = ?").parameter(teamId).parameter(userId).update();
+			Outbox.append(Outbox.TEAM, teamId, ChangeType.CREATE, null);
+			Outbox.append(Outbox.USER, userId, ChangeType.ADD_USER_TO_TEAM, teamId);
+			transaction.commit();
+			return teamId;
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not add user to a team with room: " + userId, e);
+		}
+	}
+
+	@Override
+	public CascadeResult inactivateTeamCascade(long teamId, WorkItemStatus workItemStatus) throws RepositoryException {
+		try (Transaction transaction = Transaction.begin("MySQLTeamRepository.inactivateTeamCascade")) {
+			int teams = new SQL(url).query("UPDATE team SET is_active = false WHERE id = ?").parameter(teamId).update();
+			int workItems = new SQL(url)
+					.query("UPDATE workitem INNER JOIN user ON workitem.user_id = user.id SET workitem.status = ? WHERE user.team_id = ?")
+					.parameter(workItemStatus.toString()).parameter(teamId).update();
+			int users = new SQL(url).query("UPDATE user SET is_active = false WHERE team_id = ?").parameter(teamId).update();
+			if (teams > 0) {
+				Outbox.append(Outbox.TEAM, teamId, ChangeType.INACTIVATE_TEAM_CASCADE, workItemStatus);
+			}
+			transaction.commit();
+			return new CascadeResult(teams, users, workItems);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not inactivate team: " + teamId, e);
+		}
+	}
 }
@@ -2,49 +2,114 @@ package se.root.ordersystem.repository;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.stream.Stream;
 
+import se.root.ordersystem.helpers.ResultMapper;
 import se.root.ordersystem.helpers.SQL;
+import se.root.ordersystem.helpers.Transaction;
+import se.root.ordersystem.model.AssignedWorkItem;
+import se.root.ordersystem.model.ChangeType;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.User;
 import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemAssignment;
+import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.exception.RepositoryException;
 import se.root.ordersystem.repository.interfaces.UserRepository;
 
 import static se.root.ordersystem.helpers.DBInfo.url;
+import static se.root.ordersystem.helpers.Mapper.ASSIGNED_WORK_ITEM_COLUMNS;
+import static se.root.ordersystem.helpers.Mapper.ASSIGNED_WORK_ITEM_MAPPER;
+import static se.root.ordersystem.helpers.Mapper.USER_COLUMNS;
 import static se.root.ordersystem.helpers.Mapper.USER_MAPPER;
+import static se.root.ordersystem.helpers.Mapper.WORK_ITEM_COLUMNS;
 import static se.root.ordersystem.helpers.Mapper.WORK_ITEM_MAPPER;
 
 public final class MySQLUserRepository extends BaseCRUDRepository<User> implements UserRepository {
 
+	private static final ResultMapper<Integer> INT_MAPPER = r -> r.getInt(1);
+
+	// the user and the status of the work item, the status is null when the work item does not exist
+	private static final ResultMapper<LockedAssignment> LOCKED_ASSIGNMENT_MAPPER = ResultMapper.indexed(r -> {
+		ResultMapper<User> user = USER_MAPPER.bind(r);
+		int status = r.findColumn("workitem_status");
+		return row -> {
+			String workItemStatus = row.getString(status);
+			return new LockedAssignment(user.map(row), workItemStatus == null ? null : WorkItemStatus.of(workItemStatus));
+		};
+	});
+
 	public MySQLUserRepository() {
-		super("user");
+		super("user", USER_COLUMNS);
 	}
 
 	public long create(User user) throws RepositoryException {
-		try {
-			return new SQL(url).query("INSERT INTO user(username, firstname, lastname) values(?, ?, ?)")
+		try (Transaction transaction = Transaction.begin("MySQLUserRepository.create")) {
+			long id = new SQL(url).query("INSERT INTO user(username, firstname, lastname) values(?, ?, ?)")
 					.parameter(user.getUsername()).parameter(user.getFirstname()).parameter(user.getLastname())
 					.insert();
+			Outbox.append(Outbox.USER, id, ChangeType.CREATE, null);
+			transaction.commit();
+			return id;
 		} catch (SQLException e) {
 			throw new RepositoryException("Could not insert user into database", e);
 		}
 	}
 
+	@Override
+	public long[] createAll(List<User> users) throws RepositoryException {
+		SQL sql = new SQL(url).query("INSERT INTO user(username, firstname, lastname) values(?, ?, ?)");
+		for (User user : users) {
+			sql.row(user.getUsername(), user.getFirstname(), user.getLastname());
+		}
+		try (Transaction transaction = Transaction.begin("MySQLUserRepository.createAll")) {
+			long[] ids = sql.insertBatch();
+			Outbox.appendAll(Outbox.USER, ids, ChangeType.CREATE);
+			transaction.commit();
+			return ids;
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not insert " + users.size() + " users into database", e);
+		}
+	}
+
 	public void update(User user) throws RepositoryException {
-		try {
+		try (Transaction transaction = Transaction.begin("MySQLUserRepository.update")) {
 			new SQL(url).query("UPDATE user SET username=? ,firstname=?,lastname=? WHERE id = ?")
 					.parameter(user.getUsername()).parameter(user.getFirstname()).parameter(user.getLastname())
 					.parameter(user.getId()).update();
+			Outbox.append(Outbox.USER, user.getId(), ChangeType.UPDATE, null);
+			transaction.commit();
 		} catch (SQLException e) {
 			throw new RepositoryException("Could not update user with id: " + user.getId(), e);
 		}
 	}
 
-	public User read(String id) throws RepositoryException {
+	@Override
+	public void updateAll(List<User> users) throws RepositoryException {
+		SQL sql = new SQL(url).query("UPDATE user SET username=? ,firstname=?,lastname=? WHERE id = ?");
+		for (User user : users) {
+			sql.row(user.getUsername(), user.getFirstname(), user.getLastname(), user.getId());
+		}
+		try (Transaction transaction = Transaction.begin("MySQLUserRepository.updateAll")) {
+			sql.updateBatch();
+			Outbox.appendAll(Outbox.USER, users.stream().mapToLong(User::getId).toArray(), ChangeType.UPDATE);
+			transaction.commit();
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not update " + users.size() + " users", e);
+		}
+	}
+
+	public User read(long id) throws RepositoryException {
 		return super.read(id, USER_MAPPER);
 	}
 
 	@Override
-	public void changeStatus(boolean isActive, String id) throws RepositoryException {
+	public List<User> readAll(long[] ids) throws RepositoryException {
+		return super.readAll(ids, USER_MAPPER);
+	}
+
+	@Override
+	public void changeStatus(boolean isActive, long id) throws RepositoryException {
 		super.changeStatus(isActive, id);
 	}
 
@@ -53,10 +118,20 @@ public final class MySQLUserRepository extends BaseCRUDRepository<User> implemen
 		return super.getAll(USER_MAPPER);
 	}
 
+	@Override
+	public Stream<User> getAllStreaming() throws RepositoryException {
+		return super.getAllStreaming(USER_MAPPER);
+	}
+
+	@Override
+	public Page<User> getAll(long afterId, int pageSize) throws RepositoryException {
+		return super.getAll(afterId, pageSize, USER_MAPPER);
+	}
+
 	@Override
 	public List<User> getUsersBy(String username, String firstname, String lastname) throws RepositoryException {
 		try {
-			return new SQL(url).query("SELECT * FROM user WHERE INSTR(username, ?) > 0 AND INSTR(firstname, ?) > 0 AND INSTR(lastname, ?) > 0")
+			return new SQL(url).query("SELECT " + USER_COLUMNS + " FROM user WHERE INSTR(username, ?) > 0 AND INSTR(firstname, ?) > 0 AND INSTR(lastname, ?) > 0")
 					.parameter(username).parameter(firstname).parameter(lastname).many(USER_MAPPER);
 		} catch (SQLException e) {
 			throw new RepositoryException("Could not get users", e);
@@ -64,21 +139,124 @@ public final class MySQLUserRepository extends BaseCRUDRepository<User> implemen
 	}
 
 	@Override
-	public void addWorkItemToUser(String userId, String workId) throws RepositoryException {
+	public List<User> getUsersBy(String username, String firstname, String lastname, int limit) throws RepositoryException {
+		if (limit <= 0) {
+			return getUsersBy(username, firstname, lastname);
+		}
 		try {
+			return new SQL(url).query("SELECT " + USER_COLUMNS + " FROM user WHERE INSTR(username, ?) > 0 AND INSTR(firstname, ?) > 0 AND INSTR(lastname, ?) > 0 ORDER BY id LIMIT ?")
+					.parameter(username).parameter(firstname).parameter(lastname).parameter(limit).many(USER_MAPPER);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not get users", e);
+		}
+	}
+
+	@Override
+	public void addWorkItemToUser(long userId, long workId) throws RepositoryException {
+		try (Transaction transaction = Transaction.begin("MySQLUserRepository.addWorkItemToUser")) {
 			new SQL(url).query("UPDATE workitem SET user_id = ? WHERE id = ?").parameter(userId).parameter(workId)
-					.insert();
+					.update();
+			Outbox.append(Outbox.WORK_ITEM, workId, ChangeType.ASSIGN_WORK_ITEM, userId);
+			transaction.commit();
 		} catch (SQLException e) {
 			throw new RepositoryException("could not add workItem: " + workId + " to user: " + userId, e);
 		}
 	}
 
 	@Override
-	public List<WorkItem> getAllWorkItemsByUser(String id) throws RepositoryException {
+	public int resetWorkItemsByUser(long userId, WorkItemStatus workItemStatus) throws RepositoryException {
+		try (Transaction transaction = Transaction.begin("MySQLUserRepository.resetWorkItemsByUser")) {
+			int workItems = new SQL(url).query("UPDATE workitem SET status = ? WHERE user_id = ?").parameter(workItemStatus.toString())
+					.parameter(userId).update();
+			if (workItems > 0) {
+				Outbox.append(Outbox.USER, userId, ChangeType.RESET_WORK_ITEMS, workItemStatus);
+			}
+			transaction.commit();
+			return workItems;
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not reset workitems of user: " + userId, e);
+		}
+	}
+
+	@Override
+	public int countWorkItemsByUser(long userId) throws RepositoryException {
 		try {
-			return new SQL(url).query("SELECT * FROM workitem WHERE user_id = ?").parameter(id).many(WORK_ITEM_MAPPER);
+			return new SQL(url).query("SELECT COUNT(*) FROM workitem WHERE user_id = ?").parameter(userId).single(INT_MAPPER);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not count workitems of user: " + userId, e);
+		}
+	}
+
+	@Override
+	public WorkItemAssignment assignWorkItemToUser(long userId, long workId, int maxWorkItems) throws RepositoryException {
+		try (Transaction transaction = Transaction.begin("MySQLUserRepository.assignWorkItemToUser")) {
+			// locks the user and the work item, so the status read here is the one it is assigned with
+			LockedAssignment locked = new SQL(url)
+					.query("SELECT " + USER_COLUMNS + ", workitem.status AS workitem_status "
+							+ "FROM user LEFT JOIN workitem ON workitem.id = ? WHERE user.id = ? FOR UPDATE")
+					.parameter(workId).parameter(userId).optional(LOCKED_ASSIGNMENT_MAPPER);
+			if (locked == null || !locked.user.isActive() || locked.status == null) {
+				// nothing was written, commit so a joined outer transaction is not marked for rollback
+				transaction.commit();
+				return locked == null ? WorkItemAssignment.USER_NOT_FOUND
+						: !locked.user.isActive() ? WorkItemAssignment.USER_INACTIVE : WorkItemAssignment.WORK_ITEM_NOT_FOUND;
+			}
+			int assigned = new SQL(url)
+					.query("UPDATE workitem INNER JOIN (SELECT COUNT(*) AS assigned FROM workitem WHERE user_id = ?) AS counted "
+							+ "ON counted.assigned < ? SET workitem.user_id = ? WHERE workitem.id = ?")
+					.parameter(userId).parameter(maxWorkItems).parameter(userId).parameter(workId).update();
+			if (assigned > 0) {
+				Outbox.append(Outbox.WORK_ITEM, workId, ChangeType.ASSIGN_WORK_ITEM, userId);
+			}
+			transaction.commit();
+			// the work item exists, so only the limit can have stopped the update
+			return assigned > 0 ? WorkItemAssignment.assigned(locked.user.getTeamId(), locked.status)
+					: WorkItemAssignment.WORK_ITEM_LIMIT_REACHED;
+		} catch (SQLException e) {
+			throw new RepositoryException("could not add workItem: " + workId + " to user: " + userId, e);
+		}
+	}
+
+	@Override
+	public List<WorkItem> getAllWorkItemsByUser(long id) throws RepositoryException {
+		try {
+			return new SQL(url).query("SELECT " + WORK_ITEM_COLUMNS + " FROM workitem WHERE user_id = ?").parameter(id).many(WORK_ITEM_MAPPER);
 		} catch (SQLException e) {
 			throw new RepositoryException("Could not get work item by status", e);
 		}
 	}
+
+	@Override
+	public Page<WorkItem> getAllWorkItemsByUser(long id, long afterId, int pageSize) throws RepositoryException {
+		checkPageSize(pageSize);
+		try {
+			List<WorkItem> rows = new SQL(url)
+					.query("SELECT " + WORK_ITEM_COLUMNS + " FROM workitem WHERE user_id = ? AND id > ? ORDER BY id LIMIT ?").parameter(id)
+					.parameter(afterId).parameter(pageSize + 1).many(WORK_ITEM_MAPPER);
+			return page(rows, pageSize, afterId);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not get work items by user: " + id, e);
+		}
+	}
+
+	@Override
+	public Stream<AssignedWorkItem> getAssignedWorkItemsStreaming() throws RepositoryException {
+		try {
+			return new SQL(url).query("SELECT " + ASSIGNED_WORK_ITEM_COLUMNS + " FROM workitem JOIN user ON user.id = workitem.user_id")
+					.stream(ASSIGNED_WORK_ITEM_MAPPER);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not stream the assigned work items", e);
+		}
+	}
+
+	private static final class LockedAssignment {
+
+		private final User user;
+		private final WorkItemStatus status;
+
+		private LockedAssignment(User user, WorkItemStatus status) {
+			this.user = user;
+			this.status = status;
+		}
+	}
 }
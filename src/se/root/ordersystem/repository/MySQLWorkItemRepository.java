@@ -1,47 +1,95 @@
 package se.root.ordersystem.repository;
 
+import se.root.ordersystem.helpers.ResultMapper;
 import se.root.ordersystem.helpers.SQL;
+import se.root.ordersystem.helpers.Transaction;
+import se.root.ordersystem.model.ChangeType;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.WorkItem;
 import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.exception.RepositoryException;
 import se.root.ordersystem.repository.interfaces.WorkItemRepository;
 
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static se.root.ordersystem.helpers.DBInfo.url;
+import static se.root.ordersystem.helpers.Mapper.WORK_ITEM_COLUMNS;
 import static se.root.ordersystem.helpers.Mapper.WORK_ITEM_MAPPER;
 
 public final class MySQLWorkItemRepository extends BaseCRUDRepository<WorkItem> implements WorkItemRepository {
 
+	private static final ResultMapper<Long> LONG_MAPPER = r -> r.getLong(1);
+
 	public MySQLWorkItemRepository() {
-		super("workitem");
+		super("workitem", WORK_ITEM_COLUMNS);
 	}
 
 	public long create(WorkItem workItem) throws RepositoryException {
-		try {
-			return new SQL(url).query("INSERT INTO workitem (name) VALUES (?)").parameter(workItem.getName()).insert();
+		try (Transaction transaction = Transaction.begin("MySQLWorkItemRepository.create")) {
+			long id = new SQL(url).query("INSERT INTO workitem (name) VALUES (?)").parameter(workItem.getName()).insert();
+			Outbox.append(Outbox.WORK_ITEM, id, ChangeType.CREATE, null);
+			transaction.commit();
+			return id;
 		} catch (SQLException e) {
 			throw new RepositoryException("");
 		}
 	}
 
+	@Override
+	public long[] createAll(List<WorkItem> workItems) throws RepositoryException {
+		SQL sql = new SQL(url).query("INSERT INTO workitem (name) VALUES (?)");
+		for (WorkItem workItem : workItems) {
+			sql.row(workItem.getName());
+		}
+		try (Transaction transaction = Transaction.begin("MySQLWorkItemRepository.createAll")) {
+			long[] ids = sql.insertBatch();
+			Outbox.appendAll(Outbox.WORK_ITEM, ids, ChangeType.CREATE);
+			transaction.commit();
+			return ids;
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not insert " + workItems.size() + " work items", e);
+		}
+	}
+
 	public void update(WorkItem workItem) throws RepositoryException {
-		try {
-			new SQL(url).query("UPDATE workitem SET (status) VALUES (?) WHERE id = ?").parameter(workItem.getStatus())
-					.parameter(workItem.getId()).update();
+		try (Transaction transaction = Transaction.begin("MySQLWorkItemRepository.update")) {
+			new SQL(url).query("UPDATE workitem SET name = ?, status = ? WHERE id = ?").parameter(workItem.getName())
+					.parameter(workItem.getStatus().toString()).parameter(workItem.getId()).update();
+			Outbox.append(Outbox.WORK_ITEM, workItem.getId(), ChangeType.UPDATE, workItem.getStatus());
+			transaction.commit();
 		} catch (SQLException e) {
 			throw new RepositoryException("");
 		}
 	}
 
 	@Override
-	public WorkItem read(String id) throws RepositoryException {
+	public void updateAll(List<WorkItem> workItems) throws RepositoryException {
+		SQL sql = new SQL(url).query("UPDATE workitem SET name = ?, status = ? WHERE id = ?");
+		Map<Long, WorkItemStatus> statuses = new LinkedHashMap<>();
+		for (WorkItem workItem : workItems) {
+			sql.row(workItem.getName(), workItem.getStatus().toString(), workItem.getId());
+			statuses.put(workItem.getId(), workItem.getStatus());
+		}
+		try (Transaction transaction = Transaction.begin("MySQLWorkItemRepository.updateAll")) {
+			sql.updateBatch();
+			Outbox.appendAll(Outbox.WORK_ITEM, statuses, ChangeType.UPDATE);
+			transaction.commit();
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not update " + workItems.size() + " work items", e);
+		}
+	}
+
+	@Override
+	public WorkItem read(long id) throws RepositoryException {
 		return super.read(id, WORK_ITEM_MAPPER);
 	}
 
 	@Override
-	public void changeStatus(boolean isActive, String id) throws RepositoryException {
+	public void changeStatus(boolean isActive, long id) throws RepositoryException {
 		super.changeStatus(isActive, id);
 	}
 
@@ -51,33 +99,144 @@ public final class MySQLWorkItemRepository extends BaseCRUDRepository<WorkItem>
 	}
 
 	@Override
-	public void changeWorkItemStatus(String id, WorkItemStatus workItemStatus) throws RepositoryException {
-		try {
+	public Stream<WorkItem> getAllStreaming() throws RepositoryException {
+		return super.getAllStreaming(WORK_ITEM_MAPPER);
+	}
+
+	@Override
+	public Page<WorkItem> getAll(long afterId, int pageSize) throws RepositoryException {
+		return super.getAll(afterId, pageSize, WORK_ITEM_MAPPER);
+	}
+
+	@Override
+	public void changeWorkItemStatus(long id, WorkItemStatus workItemStatus) throws RepositoryException {
+		try (Transaction transaction = Transaction.begin("MySQLWorkItemRepository.changeWorkItemStatus")) {
 			new SQL(url).query("UPDATE workitem SET status = ? WHERE id = ?").parameter(workItemStatus.toString())
-					.parameter(id).insert();
+					.parameter(id).update();
+			Outbox.append(Outbox.WORK_ITEM, id, ChangeType.WORK_ITEM_STATUS, workItemStatus);
+			transaction.commit();
 		} catch (SQLException e) {
 			throw new RepositoryException("Could not update workitem status", e);
 		}
 	}
 
+	@Override
+	public void changeWorkItemStatuses(Map<Long, WorkItemStatus> workItemStatuses) throws RepositoryException {
+		SQL sql = new SQL(url).query("UPDATE workitem SET status = ? WHERE id = ?");
+		for (Map.Entry<Long, WorkItemStatus> entry : workItemStatuses.entrySet()) {
+			sql.row(entry.getValue().toString(), entry.getKey());
+		}
+		try (Transaction transaction = Transaction.begin("MySQLWorkItemRepository.changeWorkItemStatuses")) {
+			sql.updateBatch();
+			Outbox.appendAll(Outbox.WORK_ITEM, workItemStatuses, ChangeType.WORK_ITEM_STATUS);
+			transaction.commit();
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not update the status of " + workItemStatuses.size() + " work items", e);
+		}
+	}
+
 	@Override
 	public List<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus) throws RepositoryException {
 		try {
-			return new SQL(url).query("SELECT * FROM workitem WHERE status = ?").parameter(workItemStatus.toString())
+			return new SQL(url).query("SELECT " + WORK_ITEM_COLUMNS + " FROM workitem WHERE status = ?").parameter(workItemStatus.toString())
+					.many(WORK_ITEM_MAPPER);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not get work item by status", e);
+		}
+	}
+
+	@Override
+	public Page<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus, long afterId, int pageSize)
+			throws RepositoryException {
+		checkPageSize(pageSize);
+		try {
+			List<WorkItem> rows = new SQL(url).query("SELECT " + WORK_ITEM_COLUMNS + " FROM workitem WHERE status = ? AND id > ? ORDER BY id LIMIT ?")
+					.parameter(workItemStatus.toString()).parameter(afterId).parameter(pageSize + 1)
 					.many(WORK_ITEM_MAPPER);
+			return page(rows, pageSize, afterId);
 		} catch (SQLException e) {
 			throw new RepositoryException("Could not get work item by status", e);
 		}
 	}
 
 	@Override
-	public List<WorkItem> getAllWorkItemsByTeam(String id) throws RepositoryException {
+	public List<WorkItem> getAllWorkItemsByTeam(long id) throws RepositoryException {
 		try {
 			return new SQL(url)
-					.query("SELECT * FROM workitem LEFT JOIN user ON user.id = workitem.user_id WHERE user.team_id = ?")
+					.query("SELECT " + WORK_ITEM_COLUMNS + " FROM workitem JOIN user ON user.id = workitem.user_id WHERE user.team_id = ?")
 					.parameter(id).many(WORK_ITEM_MAPPER);
 		} catch (SQLException e) {
 			throw new RepositoryException("Could not get work item by status", e);
 		}
 	}
+
+	@Override
+	public Page<WorkItem> getAllWorkItemsByTeam(long id, long afterId, int pageSize) throws RepositoryException {
+		checkPageSize(pageSize);
+		try {
+			List<WorkItem> rows = new SQL(url)
+					.query("SELECT " + WORK_ITEM_COLUMNS + " FROM workitem JOIN user ON user.id = workitem.user_id "
+							+ "WHERE user.team_id = ? AND workitem.id > ? ORDER BY workitem.id LIMIT ?")
+					.parameter(id).parameter(afterId).parameter(pageSize + 1).many(WORK_ITEM_MAPPER);
+			return page(rows, pageSize, afterId);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not get work items by team: " + id, e);
+		}
+	}
+
+	@Override
+	public List<WorkItem> readAll(long[] ids) throws RepositoryException {
+		return super.readAll(ids, WORK_ITEM_MAPPER);
+	}
+
+	@Override
+	public long[] getWorkItemIdsByTeam(long id) throws RepositoryException {
+		try {
+			return toArray(new SQL(url).query("SELECT workitem.id FROM workitem JOIN user ON user.id = workitem.user_id "
+					+ "WHERE user.team_id = ? ORDER BY workitem.id").parameter(id).many(LONG_MAPPER));
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not get work item ids by team: " + id, e);
+		}
+	}
+
+	@Override
+	public long[] getWorkItemIdsByUser(long id) throws RepositoryException {
+		try {
+			return toArray(new SQL(url).query("SELECT id FROM workitem WHERE user_id = ? ORDER BY id").parameter(id)
+					.many(LONG_MAPPER));
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not get work item ids by user: " + id, e);
+		}
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatusAndTeam(WorkItemStatus workItemStatus, long id)
+			throws RepositoryException {
+		try {
+			return new SQL(url).query("SELECT " + WORK_ITEM_COLUMNS + " FROM workitem JOIN user ON user.id = workitem.user_id "
+					+ "WHERE user.team_id = ? AND workitem.status = ? ORDER BY workitem.id").parameter(id)
+					.parameter(workItemStatus.toString()).many(WORK_ITEM_MAPPER);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not get work items by status and team: " + id, e);
+		}
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatusAndUser(WorkItemStatus workItemStatus, long id)
+			throws RepositoryException {
+		try {
+			return new SQL(url).query("SELECT " + WORK_ITEM_COLUMNS + " FROM workitem WHERE user_id = ? AND status = ? ORDER BY id")
+					.parameter(id).parameter(workItemStatus.toString()).many(WORK_ITEM_MAPPER);
+		} catch (SQLException e) {
+			throw new RepositoryException("Could not get work items by status and user: " + id, e);
+		}
+	}
+
+	private static long[] toArray(List<Long> ids) {
+		long[] array = new long[ids.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = ids.get(i);
+		}
+		return array;
+	}
 }
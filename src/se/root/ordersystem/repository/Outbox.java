@@ -0,0 +1,120 @@
+package se.root.ordersystem.repository;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import se.root.ordersystem.helpers.SQL;
+import se.root.ordersystem.helpers.Transaction;
+import se.root.ordersystem.model.ChangeType;
+
+import static se.root.ordersystem.helpers.DBInfo.url;
+
+/**
+ * The Class Outbox - appends the changes made by the MySQL repositories to the outbox table. The
+ * repositories append inside the transaction of the change itself, so a change is in the outbox if
+ * and only if it was committed. Read the outbox with {@link MySQLChangeFeedRepository}.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+final class Outbox {
+
+	static final String TEAM = "team";
+	static final String USER = "user";
+	static final String WORK_ITEM = "workitem";
+	static final String ISSUE = "issue";
+
+	private static final String INSERT = "INSERT INTO outbox(entity, entity_id, type, detail) VALUES(?, ?, ?, ?)";
+
+	private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+
+	private Outbox() {
+	}
+
+	/**
+	 * Appends one change.
+	 *
+	 * @param entity the entity, the name of its table
+	 * @param entityId the entity id
+	 * @param type the type
+	 * @param detail the value the change set, or null
+	 * @throws SQLException the SQL exception
+	 */
+	static void append(String entity, long entityId, ChangeType type, Object detail) throws SQLException {
+		new SQL(url).query(INSERT).parameter(entity).parameter(entityId).parameter(type.toString())
+				.parameter(detail == null ? null : detail.toString()).update();
+		publish(entity, entityId, type, detail == null ? null : detail.toString());
+	}
+
+	/**
+	 * Appends the same change for several entities in one batch.
+	 *
+	 * @param entity the entity, the name of its table
+	 * @param entityIds the entity ids
+	 * @param type the type
+	 * @throws SQLException the SQL exception
+	 */
+	static void appendAll(String entity, long[] entityIds, ChangeType type) throws SQLException {
+		SQL sql = new SQL(url).query(INSERT);
+		for (long entityId : entityIds) {
+			sql.row(entity, entityId, type.toString(), null);
+		}
+		sql.updateBatch();
+		for (long entityId : entityIds) {
+			publish(entity, entityId, type, null);
+		}
+	}
+
+	/**
+	 * Appends one change per entity in one batch, each with its own detail.
+	 *
+	 * @param entity the entity, the name of its table
+	 * @param details the value each change set, by entity id
+	 * @param type the type
+	 * @throws SQLException the SQL exception
+	 */
+	static void appendAll(String entity, Map<Long, ?> details, ChangeType type) throws SQLException {
+		SQL sql = new SQL(url).query(INSERT);
+		for (Map.Entry<Long, ?> detail : details.entrySet()) {
+			sql.row(entity, detail.getKey(), type.toString(), String.valueOf(detail.getValue()));
+		}
+		sql.updateBatch();
+		for (Map.Entry<Long, ?> detail : details.entrySet()) {
+			publish(entity, detail.getKey(), type, String.valueOf(detail.getValue()));
+		}
+	}
+
+	/**
+	 * Registers a listener for the changes committed from now on.
+	 *
+	 * @param listener the listener
+	 */
+	static void addListener(Listener listener) {
+		LISTENERS.add(listener);
+	}
+
+	static void removeListener(Listener listener) {
+		LISTENERS.remove(listener);
+	}
+
+	private static void publish(String entity, long entityId, ChangeType type, String detail) {
+		if (LISTENERS.isEmpty()) {
+			return;
+		}
+		Transaction.afterCommit(() -> {
+			for (Listener listener : LISTENERS) {
+				listener.changed(entity, entityId, type, detail);
+			}
+		});
+	}
+
+	/**
+	 * Told about a change after the transaction that made it has committed, on the thread that
+	 * committed it.
+	 */
+	interface Listener {
+		void changed(String entity, long entityId, ChangeType type, String detail);
+	}
+}
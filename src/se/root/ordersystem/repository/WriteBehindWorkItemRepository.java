@@ -0,0 +1,382 @@
+package se.root.ordersystem.repository;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.ResultMapper;
+import se.root.ordersystem.helpers.Transaction;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.interfaces.WorkItemRepository;
+
+import static se.root.ordersystem.helpers.DBInfo.writeBehindFlushMillis;
+import static se.root.ordersystem.helpers.DBInfo.writeBehindMaxPending;
+
+/**
+ * The Class WriteBehindWorkItemRepository - buffers changeWorkItemStatus calls and writes them to
+ * the wrapped repository in batches, so a work item that goes from unstarted to started to done
+ * within seconds costs one update instead of three.
+ *
+ * Pending changes are kept per work item id, a newer status replaces the pending one. They are
+ * written with one {@link WorkItemRepository#changeWorkItemStatuses(Map)} every flush interval,
+ * as soon as maxPending work items are pending, when the repository is closed and when the JVM
+ * shuts down. Reads through this repository see the pending statuses, queries by status write the
+ * pending changes first.
+ *
+ * Status changes made inside a {@link Transaction}, and updates of whole work items, are written
+ * through right away so they commit or roll back with the caller. Status changes made through
+ * other repositories, like {@code UserRepository.resetWorkItemsByUser}, do not see the buffer, call
+ * {@link #flush()} before them.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class WriteBehindWorkItemRepository implements WorkItemRepository, AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(WriteBehindWorkItemRepository.class.getName());
+
+	private final WorkItemRepository delegate;
+	private final int maxPending;
+	private final ConcurrentMap<Long, WorkItemStatus> pending = new ConcurrentHashMap<>();
+	private final Object flushLock = new Object();
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+	private final ScheduledExecutorService flusher;
+	private final Thread shutdownHook;
+	private volatile boolean closed;
+
+	public WriteBehindWorkItemRepository(WorkItemRepository delegate) {
+		this(delegate, writeBehindFlushMillis, writeBehindMaxPending);
+	}
+
+	/**
+	 * Instantiates a new write behind work item repository.
+	 *
+	 * @param delegate the wrapped repository
+	 * @param flushMillis the longest a status change stays pending
+	 * @param maxPending the number of pending work items that triggers a flush
+	 */
+	public WriteBehindWorkItemRepository(WorkItemRepository delegate, long flushMillis, int maxPending) {
+		if (flushMillis <= 0 || maxPending <= 0) {
+			throw new IllegalArgumentException("flushMillis and maxPending must be positive");
+		}
+		this.delegate = delegate;
+		this.maxPending = maxPending;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "work-item-write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flushInBackground, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+		this.shutdownHook = new Thread(this::close, "work-item-write-behind-shutdown");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	/**
+	 * Writes the pending status changes to the wrapped repository. Inside a transaction the write
+	 * runs on the flush thread, so the changes of other callers do not join the transaction.
+	 *
+	 * @throws RepositoryException the repository exception, the changes stay pending
+	 */
+	public void flush() throws RepositoryException {
+		if (Transaction.current() == null) {
+			flushPending();
+			return;
+		}
+		try {
+			flusher.submit(() -> {
+				flushPending();
+				return null;
+			}).get();
+		} catch (RejectedExecutionException e) {
+			throw new RepositoryException("Could not flush, the repository is closed", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RepositoryException("Interrupted while flushing the pending work item statuses", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RepositoryException) {
+				throw (RepositoryException) e.getCause();
+			}
+			throw new RepositoryException("Could not flush the pending work item statuses", e.getCause());
+		}
+	}
+
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Stops the flush thread and writes what is still pending, later status changes are written
+	 * through.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flushQuietly();
+		if (Thread.currentThread() != shutdownHook) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(shutdownHook);
+			} catch (IllegalStateException e) {
+				// the JVM is shutting down and the hook runs anyway
+			}
+		}
+	}
+
+	@Override
+	public void changeWorkItemStatus(long id, WorkItemStatus workItemStatus) throws RepositoryException {
+		if (closed || Transaction.current() != null) {
+			writeThrough(id);
+			delegate.changeWorkItemStatus(id, workItemStatus);
+			return;
+		}
+		pending.put(id, workItemStatus);
+		if (closed) {
+			flush();
+		} else if (pending.size() >= maxPending * 2) {
+			// the flush thread is falling behind, make the callers wait for the database
+			flush();
+		} else if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+			try {
+				flusher.execute(this::flushInBackground);
+			} catch (RejectedExecutionException e) {
+				flush();
+			}
+		}
+	}
+
+	@Override
+	public void changeWorkItemStatuses(Map<Long, WorkItemStatus> workItemStatuses) throws RepositoryException {
+		for (Map.Entry<Long, WorkItemStatus> entry : workItemStatuses.entrySet()) {
+			changeWorkItemStatus(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	public long create(WorkItem workItem) throws RepositoryException {
+		return delegate.create(workItem);
+	}
+
+	@Override
+	public long[] createAll(List<WorkItem> workItems) throws RepositoryException {
+		return delegate.createAll(workItems);
+	}
+
+	@Override
+	public void update(WorkItem workItem) throws RepositoryException {
+		writeThrough(workItem.getId());
+		delegate.update(workItem);
+	}
+
+	@Override
+	public void updateAll(List<WorkItem> workItems) throws RepositoryException {
+		synchronized (flushLock) {
+			for (WorkItem workItem : workItems) {
+				pending.remove(workItem.getId());
+			}
+		}
+		delegate.updateAll(workItems);
+	}
+
+	@Override
+	public WorkItem read(long id) throws RepositoryException {
+		WorkItemStatus status = pending.get(id);
+		return withStatus(delegate.read(id), status);
+	}
+
+	@Override
+	public WorkItem read(long id, ResultMapper<WorkItem> resultMapper) throws RepositoryException {
+		WorkItemStatus status = pending.get(id);
+		return withStatus(delegate.read(id, resultMapper), status);
+	}
+
+	@Override
+	public void changeStatus(boolean isActive, long id) throws RepositoryException {
+		delegate.changeStatus(isActive, id);
+	}
+
+	@Override
+	public List<WorkItem> getAll() throws RepositoryException {
+		Map<Long, WorkItemStatus> statuses = pendingStatuses();
+		return withStatuses(delegate.getAll(), statuses);
+	}
+
+	@Override
+	public List<WorkItem> getAll(ResultMapper<WorkItem> resultMapper) throws RepositoryException {
+		Map<Long, WorkItemStatus> statuses = pendingStatuses();
+		return withStatuses(delegate.getAll(resultMapper), statuses);
+	}
+
+	@Override
+	public Stream<WorkItem> getAllStreaming() throws RepositoryException {
+		Map<Long, WorkItemStatus> statuses = pendingStatuses();
+		return delegate.getAllStreaming().map(workItem -> withStatus(workItem, statuses.get(workItem.getId())));
+	}
+
+	@Override
+	public Stream<WorkItem> getAllStreaming(ResultMapper<WorkItem> resultMapper) throws RepositoryException {
+		Map<Long, WorkItemStatus> statuses = pendingStatuses();
+		return delegate.getAllStreaming(resultMapper)
+				.map(workItem -> withStatus(workItem, statuses.get(workItem.getId())));
+	}
+
+	@Override
+	public Page<WorkItem> getAll(long afterId, int pageSize) throws RepositoryException {
+		Map<Long, WorkItemStatus> statuses = pendingStatuses();
+		return delegate.getAll(afterId, pageSize).map(workItem -> withStatus(workItem, statuses.get(workItem.getId())));
+	}
+
+	@Override
+	public Page<WorkItem> getAll(long afterId, int pageSize, ResultMapper<WorkItem> resultMapper)
+			throws RepositoryException {
+		Map<Long, WorkItemStatus> statuses = pendingStatuses();
+		return delegate.getAll(afterId, pageSize, resultMapper)
+				.map(workItem -> withStatus(workItem, statuses.get(workItem.getId())));
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus) throws RepositoryException {
+		flushIfPending();
+		return delegate.getWorkItemByStatus(workItemStatus);
+	}
+
+	@Override
+	public Page<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus, long afterId, int pageSize)
+			throws RepositoryException {
+		flushIfPending();
+		return delegate.getWorkItemByStatus(workItemStatus, afterId, pageSize);
+	}
+
+	@Override
+	public List<WorkItem> getAllWorkItemsByTeam(long id) throws RepositoryException {
+		Map<Long, WorkItemStatus> statuses = pendingStatuses();
+		return withStatuses(delegate.getAllWorkItemsByTeam(id), statuses);
+	}
+
+	@Override
+	public Page<WorkItem> getAllWorkItemsByTeam(long id, long afterId, int pageSize) throws RepositoryException {
+		Map<Long, WorkItemStatus> statuses = pendingStatuses();
+		return delegate.getAllWorkItemsByTeam(id, afterId, pageSize)
+				.map(workItem -> withStatus(workItem, statuses.get(workItem.getId())));
+	}
+
+	@Override
+	public List<WorkItem> readAll(long[] ids) throws RepositoryException {
+		Map<Long, WorkItemStatus> statuses = pendingStatuses();
+		return withStatuses(delegate.readAll(ids), statuses);
+	}
+
+	@Override
+	public long[] getWorkItemIdsByTeam(long id) throws RepositoryException {
+		return delegate.getWorkItemIdsByTeam(id);
+	}
+
+	@Override
+	public long[] getWorkItemIdsByUser(long id) throws RepositoryException {
+		return delegate.getWorkItemIdsByUser(id);
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatusAndTeam(WorkItemStatus workItemStatus, long id)
+			throws RepositoryException {
+		flushIfPending();
+		return delegate.getWorkItemByStatusAndTeam(workItemStatus, id);
+	}
+
+	@Override
+	public List<WorkItem> getWorkItemByStatusAndUser(WorkItemStatus workItemStatus, long id)
+			throws RepositoryException {
+		flushIfPending();
+		return delegate.getWorkItemByStatusAndUser(workItemStatus, id);
+	}
+
+	private void flushPending() throws RepositoryException {
+		synchronized (flushLock) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			Map<Long, WorkItemStatus> batch = new HashMap<>(pending);
+			delegate.changeWorkItemStatuses(batch);
+			// a status changed again while the batch was written stays pending
+			for (Map.Entry<Long, WorkItemStatus> entry : batch.entrySet()) {
+				pending.remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	private void flushInBackground() {
+		flushRequested.set(false);
+		flushQuietly();
+	}
+
+	private void flushQuietly() {
+		try {
+			flushPending();
+		} catch (RepositoryException | RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Could not write " + pending.size() + " pending work item statuses", e);
+		}
+	}
+
+	private void flushIfPending() throws RepositoryException {
+		if (!pending.isEmpty()) {
+			flush();
+		}
+	}
+
+	/**
+	 * Drops the pending status of a work item that is about to be written directly, after waiting
+	 * for a flush that could be writing it.
+	 */
+	private void writeThrough(long id) {
+		synchronized (flushLock) {
+			pending.remove(id);
+		}
+	}
+
+	/**
+	 * Copies the pending statuses before a read, a status flushed while the read runs is then still
+	 * applied to the rows it returns.
+	 */
+	private Map<Long, WorkItemStatus> pendingStatuses() {
+		return pending.isEmpty() ? Collections.emptyMap() : new HashMap<>(pending);
+	}
+
+	private static List<WorkItem> withStatuses(List<WorkItem> workItems, Map<Long, WorkItemStatus> statuses) {
+		if (statuses.isEmpty()) {
+			return workItems;
+		}
+		return workItems.stream().map(workItem -> withStatus(workItem, statuses.get(workItem.getId())))
+				.collect(Collectors.toList());
+	}
+
+	private static WorkItem withStatus(WorkItem workItem, WorkItemStatus status) {
+		if (workItem == null || status == null || status == workItem.getStatus()) {
+			return workItem;
+		}
+		return WorkItem.workItemBuilder(workItem.getName()).setId(workItem.getId()).setStatus(status)
+				.setIssue_id(workItem.getIssueId()).setIsActive(workItem.isActive()).build();
+	}
+}
@@ -1,8 +1,11 @@
 package se.root.ordersystem.repository.interfaces;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import se.root.ordersystem.helpers.ResultMapper;
+import se.root.ordersystem.model.Entity;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.exception.RepositoryException;
 
 
@@ -24,6 +27,15 @@ public interface CRUDRepository<T> {
 	 */
 	long create(T t) throws RepositoryException;
 
+	/**
+	 * Creates all, sending the rows to the database in batches.
+	 *
+	 * @param ts the ts
+	 * @return the generated ids, in the same order as the list
+	 * @throws RepositoryException the repository exception
+	 */
+	long[] createAll(List<T> ts) throws RepositoryException;
+
 	/**
 	 * Update.
 	 *
@@ -32,15 +44,23 @@ public interface CRUDRepository<T> {
 	 */
 	void update(T t) throws RepositoryException;
 
+	/**
+	 * Updates all, sending the rows to the database in batches.
+	 *
+	 * @param ts the ts
+	 * @throws RepositoryException the repository exception
+	 */
+	void updateAll(List<T> ts) throws RepositoryException;
+
 	/**
 	 * Read.
 	 *
 	 * @param id the id
 	 * @param resultMapper the result mapper
-	 * @return the t
+	 * @return the t, or null if there is none with the id
 	 * @throws RepositoryException the repository exception
 	 */
-	T read(String id, ResultMapper<T> resultMapper) throws RepositoryException;
+	T read(long id, ResultMapper<T> resultMapper) throws RepositoryException;
 
 	/**
 	 * Change status.
@@ -49,7 +69,7 @@ public interface CRUDRepository<T> {
 	 * @param id the id
 	 * @throws RepositoryException the repository exception
 	 */
-	void changeStatus(boolean isActive, String id) throws RepositoryException;
+	void changeStatus(boolean isActive, long id) throws RepositoryException;
 
 	/**
 	 * Gets the all.
@@ -59,4 +79,41 @@ public interface CRUDRepository<T> {
 	 * @throws RepositoryException the repository exception
 	 */
 	List<T> getAll(ResultMapper<T> resultMapper) throws RepositoryException;
+
+	/**
+	 * Gets the all as a stream, reading one row at a time. The stream holds a database
+	 * connection and must be closed.
+	 *
+	 * @param resultMapper the result mapper
+	 * @return the all
+	 * @throws RepositoryException the repository exception
+	 */
+	Stream<T> getAllStreaming(ResultMapper<T> resultMapper) throws RepositoryException;
+
+	/**
+	 * Gets one page of all, ordered by id.
+	 *
+	 * @param afterId the id of the last row of the previous page, 0 for the first page
+	 * @param pageSize the page size
+	 * @param resultMapper the result mapper
+	 * @return the page
+	 * @throws RepositoryException the repository exception
+	 */
+	Page<T> getAll(long afterId, int pageSize, ResultMapper<T> resultMapper) throws RepositoryException;
+
+	/**
+	 * @deprecated ids are longs, use {@link #read(long, ResultMapper)}
+	 */
+	@Deprecated
+	default T read(String id, ResultMapper<T> resultMapper) throws RepositoryException {
+		return read(Entity.parseId(id), resultMapper);
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #changeStatus(boolean, long)}
+	 */
+	@Deprecated
+	default void changeStatus(boolean isActive, String id) throws RepositoryException {
+		changeStatus(isActive, Entity.parseId(id));
+	}
 }
@@ -0,0 +1,91 @@
+package se.root.ordersystem.repository.interfaces;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.model.Change;
+import se.root.ordersystem.model.Page;
+
+/**
+ * The Interface ChangeFeedRepository - reads the changes the repositories appended to the outbox,
+ * in sequence order. A consumer keeps the sequence of the last change it handled and asks for the
+ * changes after it, instead of reading whole tables to find what changed.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public interface ChangeFeedRepository {
+
+	/**
+	 * Gets the next batch of changes.
+	 *
+	 * @param afterSequence the sequence of the last change handled, 0 to start from the beginning
+	 * @param batchSize the batch size
+	 * @return the changes, the next cursor is the sequence of the last one
+	 * @throws RepositoryException the repository exception
+	 */
+	Page<Change> getChangesAfter(long afterSequence, int batchSize) throws RepositoryException;
+
+	/**
+	 * Gets the sequence of the latest change, for a consumer that starts from now.
+	 *
+	 * @return the sequence, 0 if there are no changes
+	 * @throws RepositoryException the repository exception
+	 */
+	long getLastSequence() throws RepositoryException;
+
+	/**
+	 * Deletes the changes up to a sequence every consumer has handled.
+	 *
+	 * @param sequence the sequence
+	 * @return the number of changes deleted
+	 * @throws RepositoryException the repository exception
+	 */
+	int deleteChangesUpTo(long sequence) throws RepositoryException;
+
+	/**
+	 * Streams the changes after a sequence, reading them batch by batch as the stream is consumed
+	 * until there are no more.
+	 *
+	 * @param afterSequence the sequence of the last change handled, 0 to start from the beginning
+	 * @param batchSize the batch size
+	 * @return the changes
+	 */
+	default Stream<Change> streamChangesAfter(long afterSequence, int batchSize) {
+		Iterator<Change> changes = new Iterator<Change>() {
+			private Page<Change> page;
+			private Iterator<Change> batch;
+
+			@Override
+			public boolean hasNext() {
+				while (batch == null || !batch.hasNext()) {
+					if (page != null && !page.hasNext()) {
+						return false;
+					}
+					try {
+						page = getChangesAfter(page == null ? afterSequence : page.getNextCursor(), batchSize);
+					} catch (RepositoryException e) {
+						throw new RuntimeException("Could not read the changes after sequence " + afterSequence, e);
+					}
+					batch = page.getItems().iterator();
+				}
+				return true;
+			}
+
+			@Override
+			public Change next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return batch.next();
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(changes, Spliterator.ORDERED | Spliterator.NONNULL),
+				false);
+	}
+}
@@ -1,16 +1,21 @@
 package se.root.ordersystem.repository.interfaces;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
+import se.root.ordersystem.model.Entity;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.Issue;
 import se.root.ordersystem.model.WorkItem;
 import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.AsyncExecutor;
 
 
 /**
  * The Interface IssueRepository.
  * @author Root Group
-* @version 1.0.
+ * @version 1.0.
  */
 public interface IssueRepository extends CRUDRepository<Issue> {
 	
@@ -31,7 +36,7 @@ public interface IssueRepository extends CRUDRepository<Issue> {
 	 * @return the issue
 	 * @throws RepositoryException the repository exception
 	 */
-	Issue read(String id) throws RepositoryException;
+	Issue read(long id) throws RepositoryException;
 	
 	/**
 	 * Change status.
@@ -40,7 +45,7 @@ public interface IssueRepository extends CRUDRepository<Issue> {
 	 * @param id the id
 	 * @throws RepositoryException the repository exception
 	 */
-	void changeStatus(boolean isActive, String id) throws RepositoryException;
+	void changeStatus(boolean isActive, long id) throws RepositoryException;
 	
 	/**
 	 * Gets the all issue.
@@ -50,6 +55,24 @@ public interface IssueRepository extends CRUDRepository<Issue> {
 	 */
 	List<Issue> getAll() throws RepositoryException;
 
+	/**
+	 * Gets the all as a stream, reading one row at a time. The stream must be closed.
+	 *
+	 * @return the all
+	 * @throws RepositoryException the repository exception
+	 */
+	Stream<Issue> getAllStreaming() throws RepositoryException;
+
+	/**
+	 * Gets one page of all, ordered by id.
+	 *
+	 * @param afterId the id of the last row of the previous page, 0 for the first page
+	 * @param pageSize the page size
+	 * @return the page
+	 * @throws RepositoryException the repository exception
+	 */
+	Page<Issue> getAll(long afterId, int pageSize) throws RepositoryException;
+
 	/**
 	 * Adds the issue to work item.
 	 *
@@ -57,7 +80,7 @@ public interface IssueRepository extends CRUDRepository<Issue> {
 	 * @param workItemId the work item id
 	 * @throws RepositoryException the repository exception
 	 */
-	void AddIssueToWorkItem(Issue issue, String workItemId) throws RepositoryException;
+	void AddIssueToWorkItem(Issue issue, long workItemId) throws RepositoryException;
 
 	/**
 	 * Gets the all work items with issue.
@@ -66,4 +89,48 @@ public interface IssueRepository extends CRUDRepository<Issue> {
 	 * @throws RepositoryException the repository exception
 	 */
 	List<WorkItem> getAllWorkItemsWithIssue() throws RepositoryException;
+
+	/**
+	 * Read, asynchronously.
+	 *
+	 * @param id the id
+	 * @return the future issue
+	 */
+	default CompletableFuture<Issue> readAsync(long id) {
+		return AsyncExecutor.get().supply(() -> read(id));
+	}
+
+	/**
+	 * Gets the all, asynchronously.
+	 *
+	 * @return the future issues
+	 */
+	default CompletableFuture<List<Issue>> getAllAsync() {
+		return AsyncExecutor.get().supply(() -> getAll());
+	}
+
+	/**
+	 * Gets the all work items with issue, asynchronously.
+	 *
+	 * @return the future work items
+	 */
+	default CompletableFuture<List<WorkItem>> getAllWorkItemsWithIssueAsync() {
+		return AsyncExecutor.get().supply(() -> getAllWorkItemsWithIssue());
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #read(long)}
+	 */
+	@Deprecated
+	default Issue read(String id) throws RepositoryException {
+		return read(Entity.parseId(id));
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #AddIssueToWorkItem(Issue, long)}
+	 */
+	@Deprecated
+	default void AddIssueToWorkItem(Issue issue, String workItemId) throws RepositoryException {
+		AddIssueToWorkItem(issue, Entity.parseId(workItemId));
+	}
 }
@@ -1,10 +1,17 @@
 package se.root.ordersystem.repository.interfaces;
 
+import se.root.ordersystem.model.Entity;
+import se.root.ordersystem.model.CascadeResult;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.Team;
 import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.AsyncExecutor;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * The Interface TeamRepository.
@@ -25,7 +32,7 @@ public interface TeamRepository extends CRUDRepository<Team>{
 	 * @return the team
 	 * @throws RepositoryException the repository exception
 	 */
-	Team read(String id) throws RepositoryException;
+	Team read(long id) throws RepositoryException;
 
 	/**
 	 * Change status.
@@ -34,7 +41,7 @@ public interface TeamRepository extends CRUDRepository<Team>{
 	 * @param id the id
 	 * @throws RepositoryException the repository exception
 	 */
-	void changeStatus(boolean isActive, String id) throws RepositoryException;
+	void changeStatus(boolean isActive, long id) throws RepositoryException;
 
 	/**
 	 * Gets the all.
@@ -44,6 +51,24 @@ public interface TeamRepository extends CRUDRepository<Team>{
 	 */
 	List<Team> getAll() throws RepositoryException;
 
+	/**
+	 * Gets the all as a stream, reading one row at a time. The stream must be closed.
+	 *
+	 * @return the all
+	 * @throws RepositoryException the repository exception
+	 */
+	Stream<Team> getAllStreaming() throws RepositoryException;
+
+	/**
+	 * Gets one page of all, ordered by id.
+	 *
+	 * @param afterId the id of the last row of the previous page, 0 for the first page
+	 * @param pageSize the page size
+	 * @return the page
+	 * @throws RepositoryException the repository exception
+	 */
+	Page<Team> getAll(long afterId, int pageSize) throws RepositoryException;
+
     /**
      * Gets the users from team.
      *
@@ -51,7 +76,18 @@ public interface TeamRepository extends CRUDRepository<Team>{
      * @return the users from team
      * @throws RepositoryException the repository exception
      */
-    List<User> getUsersFromTeam(String id) throws RepositoryException;
+    List<User> getUsersFromTeam(long id) throws RepositoryException;
+
+	/**
+	 * Gets one page of the users from team, ordered by id.
+	 *
+	 * @param id the id
+	 * @param afterId the id of the last user of the previous page, 0 for the first page
+	 * @param pageSize the page size
+	 * @return the page
+	 * @throws RepositoryException the repository exception
+	 */
+	Page<User> getUsersFromTeam(long id, long afterId, int pageSize) throws RepositoryException;
 
 	/**
 	 * Adds the user to team.
@@ -60,5 +96,81 @@ public interface TeamRepository extends CRUDRepository<Team>{
 	 * @param teamId the team id
 	 * @throws RepositoryException the repository exception
 	 */
-	void addUserToTeam(String userId, String teamId) throws RepositoryException;
+	void addUserToTeam(long userId, long teamId) throws RepositoryException;
+
+	/**
+	 * Adds the user to the first team with fewer than maxMembers users, or to a new team when
+	 * every team is full. The chosen team is locked while its users are counted, so concurrent
+	 * calls can not fill a team past maxMembers, and teams are only created by one call at a time.
+	 *
+	 * @param userId the user id
+	 * @param maxMembers the maximum number of users in a team
+	 * @return the team id
+	 * @throws RepositoryException the repository exception
+	 */
+	long addUserToTeamWithRoom(long userId, int maxMembers) throws RepositoryException;
+
+	/**
+	 * Inactivates the team and its users and sets the status of the users' work items, with one
+	 * statement per table in one transaction.
+	 *
+	 * @param teamId the team id
+	 * @param workItemStatus the status of the work items
+	 * @return the number of teams, users and work items changed
+	 * @throws RepositoryException the repository exception
+	 */
+	CascadeResult inactivateTeamCascade(long teamId, WorkItemStatus workItemStatus) throws RepositoryException;
+
+	/**
+	 * Read, asynchronously.
+	 *
+	 * @param id the id
+	 * @return the future team
+	 */
+	default CompletableFuture<Team> readAsync(long id) {
+		return AsyncExecutor.get().supply(() -> read(id));
+	}
+
+	/**
+	 * Gets the all, asynchronously.
+	 *
+	 * @return the future teams
+	 */
+	default CompletableFuture<List<Team>> getAllAsync() {
+		return AsyncExecutor.get().supply(() -> getAll());
+	}
+
+	/**
+	 * Gets the users from team, asynchronously.
+	 *
+	 * @param id the id
+	 * @return the future users
+	 */
+	default CompletableFuture<List<User>> getUsersFromTeamAsync(long id) {
+		return AsyncExecutor.get().supply(() -> getUsersFromTeam(id));
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #read(long)}
+	 */
+	@Deprecated
+	default Team read(String id) throws RepositoryException {
+		return read(Entity.parseId(id));
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #getUsersFromTeam(long)}
+	 */
+	@Deprecated
+	default List<User> getUsersFromTeam(String id) throws RepositoryException {
+		return getUsersFromTeam(Entity.parseId(id));
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #addUserToTeam(long, long)}
+	 */
+	@Deprecated
+	default void addUserToTeam(String userId, String teamId) throws RepositoryException {
+		addUserToTeam(Entity.parseId(userId), Entity.parseId(teamId));
+	}
 }
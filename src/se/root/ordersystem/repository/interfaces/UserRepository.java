@@ -1,10 +1,19 @@
 package se.root.ordersystem.repository.interfaces;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
+import se.root.ordersystem.model.Entity;
+import se.root.ordersystem.model.AssignedWorkItem;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.User;
 import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemAssignment;
+import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.AsyncExecutor;
 
 
 /**
@@ -25,7 +34,7 @@ public interface UserRepository extends CRUDRepository<User> {
 	 * @return the user
 	 * @throws RepositoryException the repository exception
 	 */
-	User read(String id) throws RepositoryException;
+	User read(long id) throws RepositoryException;
 	
 	/**
 	 * Change status.
@@ -34,7 +43,7 @@ public interface UserRepository extends CRUDRepository<User> {
 	 * @param id the id
 	 * @throws RepositoryException the repository exception
 	 */
-	void changeStatus(boolean isActive, String id) throws RepositoryException;
+	void changeStatus(boolean isActive, long id) throws RepositoryException;
 	
 	/**
 	 * Gets the all.
@@ -44,8 +53,56 @@ public interface UserRepository extends CRUDRepository<User> {
 	 */
 	List<User> getAll() throws RepositoryException;
 
+	/**
+	 * Gets the all as a stream, reading one row at a time. The stream must be closed.
+	 *
+	 * @return the all
+	 * @throws RepositoryException the repository exception
+	 */
+	Stream<User> getAllStreaming() throws RepositoryException;
+
+	/**
+	 * Gets one page of all, ordered by id.
+	 *
+	 * @param afterId the id of the last row of the previous page, 0 for the first page
+	 * @param pageSize the page size
+	 * @return the page
+	 * @throws RepositoryException the repository exception
+	 */
+	Page<User> getAll(long afterId, int pageSize) throws RepositoryException;
+
+	/**
+	 * Reads several users, in one query per batch of ids.
+	 *
+	 * @param ids the ids
+	 * @return the users that exist, in the order of the ids
+	 * @throws RepositoryException the repository exception
+	 */
+	default List<User> readAll(long[] ids) throws RepositoryException {
+		List<User> users = new ArrayList<>(ids.length);
+		for (long id : ids) {
+			User user = read(id);
+			if (user != null) {
+				users.add(user);
+			}
+		}
+		return users;
+	}
+
 	List<User> getUsersBy(String username, String lastname, String firstname) throws RepositoryException;
 
+	/**
+	 * Gets the users whose username, firstname and lastname contain the given terms, ordered by id.
+	 *
+	 * @param username the username term
+	 * @param firstname the firstname term
+	 * @param lastname the lastname term
+	 * @param limit the maximum number of users, 0 for no limit
+	 * @return the users
+	 * @throws RepositoryException the repository exception
+	 */
+	List<User> getUsersBy(String username, String firstname, String lastname, int limit) throws RepositoryException;
+
 	/**
 	 * Adds the work item to user.
 	 *
@@ -53,7 +110,39 @@ public interface UserRepository extends CRUDRepository<User> {
 	 * @param workId the work id
 	 * @throws RepositoryException the repository exception
 	 */
-	void addWorkItemToUser(String userId, String workId) throws RepositoryException;
+	void addWorkItemToUser(long userId, long workId) throws RepositoryException;
+
+	/**
+	 * Sets the status of every work item of the user with one statement.
+	 *
+	 * @param userId the user id
+	 * @param workItemStatus the status
+	 * @return the number of work items
+	 * @throws RepositoryException the repository exception
+	 */
+	int resetWorkItemsByUser(long userId, WorkItemStatus workItemStatus) throws RepositoryException;
+
+	/**
+	 * Counts the work items of the user without reading them.
+	 *
+	 * @param userId the user id
+	 * @return the number of work items
+	 * @throws RepositoryException the repository exception
+	 */
+	int countWorkItemsByUser(long userId) throws RepositoryException;
+
+	/**
+	 * Assigns the work item to the user if the user is active and has fewer than maxWorkItems work
+	 * items. The user is locked while the guarded update runs, so concurrent assignments to the
+	 * same user can not pass the limit.
+	 *
+	 * @param userId the user id
+	 * @param workId the work id
+	 * @param maxWorkItems the maximum number of work items of a user
+	 * @return the outcome
+	 * @throws RepositoryException the repository exception
+	 */
+	WorkItemAssignment assignWorkItemToUser(long userId, long workId, int maxWorkItems) throws RepositoryException;
 	
 	/**
 	 * Gets the all work items by user.
@@ -62,5 +151,90 @@ public interface UserRepository extends CRUDRepository<User> {
 	 * @return the all work items by user
 	 * @throws RepositoryException the repository exception
 	 */
-	List<WorkItem> getAllWorkItemsByUser(String id) throws RepositoryException;
+	List<WorkItem> getAllWorkItemsByUser(long id) throws RepositoryException;
+
+	/**
+	 * Gets one page of the work items by user, ordered by id.
+	 *
+	 * @param id the id
+	 * @param afterId the id of the last work item of the previous page, 0 for the first page
+	 * @param pageSize the page size
+	 * @return the page
+	 * @throws RepositoryException the repository exception
+	 */
+	Page<WorkItem> getAllWorkItemsByUser(long id, long afterId, int pageSize) throws RepositoryException;
+
+	/**
+	 * Gets every work item that is assigned to a user, with the team of the user, as a stream. The
+	 * stream must be closed.
+	 *
+	 * @return the assigned work items
+	 * @throws RepositoryException the repository exception
+	 */
+	Stream<AssignedWorkItem> getAssignedWorkItemsStreaming() throws RepositoryException;
+
+	/**
+	 * Read, asynchronously.
+	 *
+	 * @param id the id
+	 * @return the future user
+	 */
+	default CompletableFuture<User> readAsync(long id) {
+		return AsyncExecutor.get().supply(() -> read(id));
+	}
+
+	/**
+	 * Gets the all, asynchronously.
+	 *
+	 * @return the future users
+	 */
+	default CompletableFuture<List<User>> getAllAsync() {
+		return AsyncExecutor.get().supply(() -> getAll());
+	}
+
+	/**
+	 * Gets the users by, asynchronously.
+	 *
+	 * @param username the username
+	 * @param firstname the firstname
+	 * @param lastname the lastname
+	 * @return the future users
+	 */
+	default CompletableFuture<List<User>> getUsersByAsync(String username, String firstname, String lastname) {
+		return AsyncExecutor.get().supply(() -> getUsersBy(username, firstname, lastname));
+	}
+
+	/**
+	 * Gets the all work items by user, asynchronously.
+	 *
+	 * @param id the id
+	 * @return the future work items
+	 */
+	default CompletableFuture<List<WorkItem>> getAllWorkItemsByUserAsync(long id) {
+		return AsyncExecutor.get().supply(() -> getAllWorkItemsByUser(id));
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #read(long)}
+	 */
+	@Deprecated
+	default User read(String id) throws RepositoryException {
+		return read(Entity.parseId(id));
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #addWorkItemToUser(long, long)}
+	 */
+	@Deprecated
+	default void addWorkItemToUser(String userId, String workId) throws RepositoryException {
+		addWorkItemToUser(Entity.parseId(userId), Entity.parseId(workId));
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #getAllWorkItemsByUser(long)}
+	 */
+	@Deprecated
+	default List<WorkItem> getAllWorkItemsByUser(String id) throws RepositoryException {
+		return getAllWorkItemsByUser(Entity.parseId(id));
+	}
 }
@@ -1,10 +1,17 @@
 package se.root.ordersystem.repository.interfaces;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
+import se.root.ordersystem.model.Entity;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.WorkItem;
 import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.AsyncExecutor;
 
 /**
  * The Interface WorkItemRepository.
@@ -24,7 +31,7 @@ public interface WorkItemRepository extends CRUDRepository<WorkItem> {
 	 * @return the work item
 	 * @throws RepositoryException the repository exception
 	 */
-	WorkItem read(String id) throws RepositoryException;
+	WorkItem read(long id) throws RepositoryException;
 
 	/**
 	 * Change status.
@@ -33,7 +40,7 @@ public interface WorkItemRepository extends CRUDRepository<WorkItem> {
 	 * @param id the id
 	 * @throws RepositoryException the repository exception
 	 */
-	void changeStatus(boolean isActive, String id) throws RepositoryException;
+	void changeStatus(boolean isActive, long id) throws RepositoryException;
 
 	/**
 	 * Gets the all.
@@ -43,6 +50,24 @@ public interface WorkItemRepository extends CRUDRepository<WorkItem> {
 	 */
 	List<WorkItem> getAll() throws RepositoryException;
 
+	/**
+	 * Gets the all as a stream, reading one row at a time. The stream must be closed.
+	 *
+	 * @return the all
+	 * @throws RepositoryException the repository exception
+	 */
+	Stream<WorkItem> getAllStreaming() throws RepositoryException;
+
+	/**
+	 * Gets one page of all, ordered by id.
+	 *
+	 * @param afterId the id of the last row of the previous page, 0 for the first page
+	 * @param pageSize the page size
+	 * @return the page
+	 * @throws RepositoryException the repository exception
+	 */
+	Page<WorkItem> getAll(long afterId, int pageSize) throws RepositoryException;
+
 	/**
 	 * Change work item status.
 	 *
@@ -50,7 +75,19 @@ public interface WorkItemRepository extends CRUDRepository<WorkItem> {
 	 * @param workItemStatus the work item status
 	 * @throws RepositoryException the repository exception
 	 */
-	void changeWorkItemStatus(String id, WorkItemStatus workItemStatus) throws RepositoryException;
+	void changeWorkItemStatus(long id, WorkItemStatus workItemStatus) throws RepositoryException;
+
+	/**
+	 * Changes the status of several work items, sending the changes to the database in batches.
+	 *
+	 * @param workItemStatuses the new status by work item id
+	 * @throws RepositoryException the repository exception
+	 */
+	default void changeWorkItemStatuses(Map<Long, WorkItemStatus> workItemStatuses) throws RepositoryException {
+		for (Map.Entry<Long, WorkItemStatus> entry : workItemStatuses.entrySet()) {
+			changeWorkItemStatus(entry.getKey(), entry.getValue());
+		}
+	}
 
 	/**
 	 * Gets the work item by status.
@@ -61,6 +98,18 @@ public interface WorkItemRepository extends CRUDRepository<WorkItem> {
 	 */
 	List<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus) throws RepositoryException;
 
+	/**
+	 * Gets one page of the work items by status, ordered by id.
+	 *
+	 * @param workItemStatus the work item status
+	 * @param afterId the id of the last work item of the previous page, 0 for the first page
+	 * @param pageSize the page size
+	 * @return the page
+	 * @throws RepositoryException the repository exception
+	 */
+	Page<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus, long afterId, int pageSize)
+			throws RepositoryException;
+
 	/**
 	 * Gets the all work items by team.
 	 *
@@ -68,5 +117,145 @@ public interface WorkItemRepository extends CRUDRepository<WorkItem> {
 	 * @return the all work items by team
 	 * @throws RepositoryException the repository exception
 	 */
-	List<WorkItem> getAllWorkItemsByTeam(String id) throws RepositoryException;
+	List<WorkItem> getAllWorkItemsByTeam(long id) throws RepositoryException;
+
+	/**
+	 * Gets one page of the work items by team, ordered by id.
+	 *
+	 * @param id the id
+	 * @param afterId the id of the last work item of the previous page, 0 for the first page
+	 * @param pageSize the page size
+	 * @return the page
+	 * @throws RepositoryException the repository exception
+	 */
+	Page<WorkItem> getAllWorkItemsByTeam(long id, long afterId, int pageSize) throws RepositoryException;
+
+	/**
+	 * Reads several work items, in one query per batch of ids.
+	 *
+	 * @param ids the ids
+	 * @return the work items that exist, in the order of the ids
+	 * @throws RepositoryException the repository exception
+	 */
+	default List<WorkItem> readAll(long[] ids) throws RepositoryException {
+		List<WorkItem> workItems = new ArrayList<>(ids.length);
+		for (long id : ids) {
+			WorkItem workItem = read(id);
+			if (workItem != null) {
+				workItems.add(workItem);
+			}
+		}
+		return workItems;
+	}
+
+	/**
+	 * Gets the ids of the work items of the users in a team.
+	 *
+	 * @param id the team id
+	 * @return the ids, ascending
+	 * @throws RepositoryException the repository exception
+	 */
+	long[] getWorkItemIdsByTeam(long id) throws RepositoryException;
+
+	/**
+	 * Gets the ids of the work items of a user.
+	 *
+	 * @param id the user id
+	 * @return the ids, ascending
+	 * @throws RepositoryException the repository exception
+	 */
+	long[] getWorkItemIdsByUser(long id) throws RepositoryException;
+
+	/**
+	 * Gets the work items by status of the users in a team.
+	 *
+	 * @param workItemStatus the work item status
+	 * @param id the team id
+	 * @return the work items, ordered by id
+	 * @throws RepositoryException the repository exception
+	 */
+	default List<WorkItem> getWorkItemByStatusAndTeam(WorkItemStatus workItemStatus, long id)
+			throws RepositoryException {
+		List<WorkItem> workItems = readAll(getWorkItemIdsByTeam(id));
+		workItems.removeIf(workItem -> workItem.getStatus() != workItemStatus);
+		return workItems;
+	}
+
+	/**
+	 * Gets the work items by status of a user.
+	 *
+	 * @param workItemStatus the work item status
+	 * @param id the user id
+	 * @return the work items, ordered by id
+	 * @throws RepositoryException the repository exception
+	 */
+	default List<WorkItem> getWorkItemByStatusAndUser(WorkItemStatus workItemStatus, long id)
+			throws RepositoryException {
+		List<WorkItem> workItems = readAll(getWorkItemIdsByUser(id));
+		workItems.removeIf(workItem -> workItem.getStatus() != workItemStatus);
+		return workItems;
+	}
+
+	/**
+	 * Read, asynchronously.
+	 *
+	 * @param id the id
+	 * @return the future work item
+	 */
+	default CompletableFuture<WorkItem> readAsync(long id) {
+		return AsyncExecutor.get().supply(() -> read(id));
+	}
+
+	/**
+	 * Gets the all, asynchronously.
+	 *
+	 * @return the future work items
+	 */
+	default CompletableFuture<List<WorkItem>> getAllAsync() {
+		return AsyncExecutor.get().supply(() -> getAll());
+	}
+
+	/**
+	 * Gets the work item by status, asynchronously.
+	 *
+	 * @param workItemStatus the work item status
+	 * @return the future work items
+	 */
+	default CompletableFuture<List<WorkItem>> getWorkItemByStatusAsync(WorkItemStatus workItemStatus) {
+		return AsyncExecutor.get().supply(() -> getWorkItemByStatus(workItemStatus));
+	}
+
+	/**
+	 * Gets the all work items by team, asynchronously.
+	 *
+	 * @param id the id
+	 * @return the future work items
+	 */
+	default CompletableFuture<List<WorkItem>> getAllWorkItemsByTeamAsync(long id) {
+		return AsyncExecutor.get().supply(() -> getAllWorkItemsByTeam(id));
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #read(long)}
+	 */
+	@Deprecated
+	default WorkItem read(String id) throws RepositoryException {
+		return read(Entity.parseId(id));
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #changeWorkItemStatus(long, WorkItemStatus)}
+	 */
+	@Deprecated
+	default void changeWorkItemStatus(String id, WorkItemStatus workItemStatus) throws RepositoryException {
+		changeWorkItemStatus(Entity.parseId(id), workItemStatus);
+	}
+
+	/**
+	 * @deprecated ids are longs, use {@link #getAllWorkItemsByTeam(long)}
+	 */
+	@Deprecated
+	default List<WorkItem> getAllWorkItemsByTeam(String id) throws RepositoryException {
+		return getAllWorkItemsByTeam(Entity.parseId(id));
+	}
 }
@@ -0,0 +1,87 @@
+package se.root.ordersystem.schema;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Class Migration - one version of the schema, the statements and indexes that take the
+ * database from the previous version to this one.
+ *
+ * Indexes are declared separately from the statements because MySQL has no
+ * CREATE INDEX IF NOT EXISTS, {@link Schema} only creates the ones that are missing so a
+ * migration can run against an install that already has some of them.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class Migration {
+
+    private final int version;
+    private final String description;
+    private final List<String> statements = new ArrayList<>();
+    private final List<Index> indexes = new ArrayList<>();
+
+    private Migration(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+
+    public static Migration version(int version, String description) {
+        return new Migration(version, description);
+    }
+
+    public Migration statement(String statement) {
+        statements.add(statement);
+        return this;
+    }
+
+    public Migration index(String table, String name, String... columns) {
+        indexes.add(new Index(table, name, columns));
+        return this;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    public List<Index> getIndexes() {
+        return Collections.unmodifiableList(indexes);
+    }
+
+    /**
+     * A secondary index.
+     */
+    public static final class Index {
+
+        private final String table;
+        private final String name;
+        private final String[] columns;
+
+        private Index(String table, String name, String[] columns) {
+            this.table = table;
+            this.name = name;
+            this.columns = columns.clone();
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String toDDL() {
+            return "CREATE INDEX " + name + " ON " + table + " (" + String.join(", ", columns) + ")";
+        }
+    }
+}
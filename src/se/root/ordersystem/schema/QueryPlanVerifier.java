@@ -0,0 +1,91 @@
+package se.root.ordersystem.schema;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.ResultMapper;
+import se.root.ordersystem.helpers.SQL;
+
+/**
+ * The Class QueryPlanVerifier - runs EXPLAIN on registered queries and reports the ones where
+ * MySQL would scan a whole table instead of using an index.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class QueryPlanVerifier {
+
+    private static final ResultMapper<String[]> PLAN_MAPPER = ResultMapper.indexed(r -> {
+        int table = r.findColumn("table");
+        int type = r.findColumn("type");
+        int key = r.findColumn("key");
+        return row -> new String[]{row.getString(table), row.getString(type), row.getString(key)};
+    });
+
+    private final String url;
+    private final List<Query> queries = new ArrayList<>();
+
+    public QueryPlanVerifier(String url) {
+        this.url = url;
+    }
+
+    /**
+     * Registers a query. The parameters only need to have the right types, EXPLAIN does not run
+     * the query.
+     *
+     * @param name       the name used in the report, for example "getWorkItemByStatus"
+     * @param query      the query
+     * @param parameters the parameters
+     * @return the query plan verifier
+     */
+    public QueryPlanVerifier register(String name, String query, Object... parameters) {
+        queries.add(new Query(name, query, parameters));
+        return this;
+    }
+
+    /**
+     * Explains every registered query.
+     *
+     * @return one line per table a query would scan in full, empty when every query uses an index
+     * @throws RepositoryException if a query could not be explained
+     */
+    public List<String> verify() throws RepositoryException {
+        List<String> problems = new ArrayList<>();
+        for (Query query : queries) {
+            SQL sql = new SQL(url).query("EXPLAIN " + query.query);
+            for (Object parameter : query.parameters) {
+                sql.parameter(parameter);
+            }
+            try {
+                for (String[] plan : sql.many(PLAN_MAPPER)) {
+                    if ("ALL".equals(plan[1]) && !isDerived(plan[0])) {
+                        problems.add(query.name + ": full scan of table '" + plan[0] + "'");
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                throw new RepositoryException("Could not explain query '" + query.name + "'", e);
+            }
+        }
+        return problems;
+    }
+
+    private static boolean isDerived(String table) {
+        return table == null || table.startsWith("<");
+    }
+
+    private static final class Query {
+
+        private final String name;
+        private final String query;
+        private final List<Object> parameters;
+
+        private Query(String name, String query, Object[] parameters) {
+            this.name = name;
+            this.query = query;
+            this.parameters = Arrays.asList(parameters);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package se.root.ordersystem.schema;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.ResultMapper;
+import se.root.ordersystem.helpers.SQL;
+
+import static se.root.ordersystem.helpers.DBInfo.schemaVerification;
+import static se.root.ordersystem.helpers.Mapper.CHANGE_COLUMNS;
+import static se.root.ordersystem.helpers.Mapper.TEAM_COLUMNS;
+import static se.root.ordersystem.helpers.Mapper.USER_COLUMNS;
+import static se.root.ordersystem.helpers.Mapper.WORK_ITEM_COLUMNS;
+
+/**
+ * The Class Schema - the versioned DDL of the ordersystem database and the startup check that the
+ * repository queries use its indexes.
+ *
+ * The applied version is kept in the schema_version table, {@link #migrate()} runs the migrations
+ * above it in order. The tables are created with IF NOT EXISTS, so an install that was set up by
+ * hand is taken over and only gets the indexes it is missing.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+public final class Schema {
+
+    private static final Logger LOGGER = Logger.getLogger(Schema.class.getName());
+
+    private static final ResultMapper<Integer> INT_MAPPER = r -> r.getInt(1);
+
+    private static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+            Migration.version(1, "tables")
+                    .statement("CREATE TABLE IF NOT EXISTS team ("
+                            + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                            + "name VARCHAR(255) NOT NULL, "
+                            + "is_active BOOLEAN NOT NULL DEFAULT TRUE) ENGINE=InnoDB")
+                    .statement("CREATE TABLE IF NOT EXISTS user ("
+                            + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                            + "username VARCHAR(255) NOT NULL, "
+                            + "firstname VARCHAR(255) NOT NULL, "
+                            + "lastname VARCHAR(255) NOT NULL, "
+                            + "team_id BIGINT NULL, "
+                            + "is_active BOOLEAN NOT NULL DEFAULT TRUE) ENGINE=InnoDB")
+                    .statement("CREATE TABLE IF NOT EXISTS issue ("
+                            + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                            + "title VARCHAR(255) NOT NULL, "
+                            + "description TEXT NULL, "
+                            + "is_active BOOLEAN NOT NULL DEFAULT TRUE) ENGINE=InnoDB")
+                    .statement("CREATE TABLE IF NOT EXISTS workitem ("
+                            + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                            + "name VARCHAR(255) NOT NULL, "
+                            + "status VARCHAR(16) NOT NULL DEFAULT 'UNSTARTED', "
+                            + "user_id BIGINT NULL, "
+                            + "issue_id BIGINT NULL, "
+                            + "is_active BOOLEAN NOT NULL DEFAULT TRUE) ENGINE=InnoDB"),
+            // InnoDB appends the primary key to every secondary index, so an index on (status)
+            // also serves "status = ? AND id > ? ORDER BY id" without a sort
+            Migration.version(2, "indexes for the repository predicates")
+                    .index("user", "idx_user_team_active", "team_id", "is_active")
+                    .index("workitem", "idx_workitem_status", "status")
+                    .index("workitem", "idx_workitem_user_status", "user_id", "status")
+                    .index("workitem", "idx_workitem_issue", "issue_id")
+                    .index("issue", "idx_issue_active", "is_active"),
+            Migration.version(3, "outbox")
+                    .statement("CREATE TABLE IF NOT EXISTS outbox ("
+                            + "sequence BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                            + "entity VARCHAR(16) NOT NULL, "
+                            + "entity_id BIGINT NOT NULL, "
+                            + "type VARCHAR(32) NOT NULL, "
+                            + "detail VARCHAR(255) NULL, "
+                            + "created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)) ENGINE=InnoDB"),
+            // one row that team placement locks before it creates a team, so two placements that
+            // find every team full do not both create one
+            Migration.version(4, "team placement lock")
+                    .statement("CREATE TABLE IF NOT EXISTS team_placement ("
+                            + "id TINYINT NOT NULL PRIMARY KEY) ENGINE=InnoDB")
+                    .statement("INSERT IGNORE INTO team_placement(id) VALUES(1)")));
+
+    private final String url;
+
+    public Schema(String url) {
+        this.url = url;
+    }
+
+    /**
+     * Migrates the schema and verifies the query plans, as configured by
+     * ordersystem.schema.verify: "warn" (default) logs queries that scan a whole table, "strict"
+     * fails on them and "off" skips the check.
+     *
+     * @param url the url
+     * @throws RepositoryException the repository exception
+     */
+    public static void bootstrap(String url) throws RepositoryException {
+        Schema schema = new Schema(url);
+        schema.migrate();
+        if ("off".equals(schemaVerification)) {
+            return;
+        }
+        List<String> problems = schema.verifier().verify();
+        if (problems.isEmpty()) {
+            return;
+        }
+        if ("strict".equals(schemaVerification)) {
+            throw new RepositoryException("Queries without an index: " + problems);
+        }
+        for (String problem : problems) {
+            LOGGER.warning(problem);
+        }
+    }
+
+    public static List<Migration> getMigrations() {
+        return MIGRATIONS;
+    }
+
+    /**
+     * Gets the version the database is at.
+     *
+     * @return the version, 0 for an empty database
+     * @throws RepositoryException the repository exception
+     */
+    public int getVersion() throws RepositoryException {
+        try {
+            createVersionTable();
+            return new SQL(url).query("SELECT COALESCE(MAX(version), 0) FROM schema_version").single(INT_MAPPER);
+        } catch (SQLException | RuntimeException e) {
+            throw new RepositoryException("Could not read the schema version", e);
+        }
+    }
+
+    /**
+     * Applies the migrations above the current version. MySQL commits DDL right away, so each
+     * migration is recorded as soon as it has been applied and a failed run continues from there.
+     *
+     * @return the number of migrations applied
+     * @throws RepositoryException the repository exception
+     */
+    public int migrate() throws RepositoryException {
+        int current = getVersion();
+        int applied = 0;
+        for (Migration migration : MIGRATIONS) {
+            if (migration.getVersion() <= current) {
+                continue;
+            }
+            try {
+                for (String statement : migration.getStatements()) {
+                    new SQL(url).query(statement).update();
+                }
+                for (Migration.Index index : migration.getIndexes()) {
+                    if (!indexExists(index)) {
+                        new SQL(url).query(index.toDDL()).update();
+                    }
+                }
+                new SQL(url).query("INSERT INTO schema_version(version, description) VALUES(?, ?)")
+                        .parameter(migration.getVersion()).parameter(migration.getDescription()).update();
+            } catch (SQLException | RuntimeException e) {
+                throw new RepositoryException("Could not apply schema version " + migration.getVersion()
+                        + " (" + migration.getDescription() + ")", e);
+            }
+            LOGGER.info("Applied schema version " + migration.getVersion() + ": " + migration.getDescription());
+            applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * Gets a verifier with the lookups of the repositories registered.
+     *
+     * @return the query plan verifier
+     */
+    public QueryPlanVerifier verifier() {
+        return new QueryPlanVerifier(url)
+                .register("getUsersFromTeam", "SELECT " + USER_COLUMNS + " FROM user WHERE team_id = ?", 1L)
+                .register("getUsersFromTeam paged",
+                        "SELECT " + USER_COLUMNS + " FROM user WHERE team_id = ? AND id > ? ORDER BY id LIMIT ?", 1L, 0L, 10)
+                .register("getWorkItemByStatus", "SELECT " + WORK_ITEM_COLUMNS + " FROM workitem WHERE status = ?", "DONE")
+                .register("getWorkItemByStatus paged",
+                        "SELECT " + WORK_ITEM_COLUMNS + " FROM workitem WHERE status = ? AND id > ? ORDER BY id LIMIT ?",
+                        "DONE", 0L, 10)
+                .register("getAllWorkItemsByUser", "SELECT " + WORK_ITEM_COLUMNS + " FROM workitem WHERE user_id = ?", 1L)
+                .register("countWorkItemsByUser", "SELECT COUNT(*) FROM workitem WHERE user_id = ?", 1L)
+                .register("getAllWorkItemsByTeam", "SELECT " + WORK_ITEM_COLUMNS
+                        + " FROM workitem JOIN user ON user.id = workitem.user_id WHERE user.team_id = ?", 1L)
+                .register("getWorkItemIdsByTeam", "SELECT workitem.id FROM workitem JOIN user ON user.id = workitem.user_id "
+                        + "WHERE user.team_id = ? ORDER BY workitem.id", 1L)
+                .register("getWorkItemIdsByUser", "SELECT id FROM workitem WHERE user_id = ? ORDER BY id", 1L)
+                .register("getWorkItemByStatusAndUser", "SELECT " + WORK_ITEM_COLUMNS
+                        + " FROM workitem WHERE user_id = ? AND status = ? ORDER BY id", 1L, "DONE")
+                .register("readAll work items", "SELECT " + WORK_ITEM_COLUMNS + " FROM workitem WHERE id IN (?, ?) ORDER BY id",
+                        1L, 2L)
+                .register("read team", "SELECT " + TEAM_COLUMNS + " FROM team WHERE id = ?", 1L)
+                .register("getChangesAfter", "SELECT " + CHANGE_COLUMNS + " FROM outbox WHERE sequence > ? "
+                        + "AND created_at <= TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) ORDER BY sequence LIMIT ?",
+                        0L, -1_000_000L, 100);
+    }
+
+    private boolean indexExists(Migration.Index index) throws SQLException {
+        return new SQL(url).query("SELECT COUNT(*) FROM information_schema.statistics "
+                + "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?")
+                .parameter(index.getTable()).parameter(index.getName()).single(INT_MAPPER) > 0;
+    }
+
+    private void createVersionTable() throws SQLException {
+        new SQL(url).query("CREATE TABLE IF NOT EXISTS schema_version ("
+                + "version INT NOT NULL PRIMARY KEY, "
+                + "description VARCHAR(255) NOT NULL, "
+                + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP) ENGINE=InnoDB").update();
+    }
+}
@@ -0,0 +1,45 @@
+package se.root.ordersystem.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import se.root.ordersystem.exception.ServiceException;
+import se.root.ordersystem.helpers.ServiceEvent;
+
+/**
+ * The Class AsyncResults - turns the failures of asynchronous repository calls into
+ * {@link ServiceException}s, the same way the blocking service methods do.
+ *
+ * @author Root Group
+ * @version 1.0.
+ */
+final class AsyncResults {
+
+    private AsyncResults() {
+    }
+
+    /**
+     * Completes with the result of the repository future, or fails with a service exception
+     * carrying the message and the repository failure as cause. The event of the service call is
+     * closed when the repository future completes.
+     *
+     * @param <T>     the generic type
+     * @param event   the event started when the service method was called
+     * @param future  the repository future
+     * @param message the message of the service exception
+     * @return the service future
+     */
+    static <T> CompletableFuture<T> translate(ServiceEvent event, CompletableFuture<T> future, String message) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, error) -> {
+            event.finish();
+            if (error == null) {
+                result.complete(value);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                result.completeExceptionally(new ServiceException(message, cause));
+            }
+        });
+        return result;
+    }
+}
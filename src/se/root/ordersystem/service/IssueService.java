@@ -1,7 +1,11 @@
 package se.root.ordersystem.service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import se.root.ordersystem.helpers.ServiceEvent;
+import se.root.ordersystem.helpers.TeamStatusAggregates;
+import se.root.ordersystem.helpers.Transaction;
 import se.root.ordersystem.model.Issue;
 import se.root.ordersystem.model.User;
 import se.root.ordersystem.model.WorkItem;
@@ -27,15 +31,29 @@ public final class IssueService {
 
     private final IssueRepository issueRepository;
     private final WorkItemRepository workItemRepository;
+    private final TeamStatusAggregates teamStatusAggregates;
 
     public IssueService(IssueRepository issueRepository, WorkItemRepository workItemRepository) {
+        this(issueRepository, workItemRepository, null);
+    }
+
+    /**
+     * Instantiates a new issue service that keeps the given work item counts by team up to date.
+     *
+     * @param issueRepository      the issue repository
+     * @param workItemRepository   the work item repository
+     * @param teamStatusAggregates the work item counts by team, or null
+     */
+    public IssueService(IssueRepository issueRepository, WorkItemRepository workItemRepository,
+                        TeamStatusAggregates teamStatusAggregates) {
         this.issueRepository = issueRepository;
         this.workItemRepository = workItemRepository;
+        this.teamStatusAggregates = teamStatusAggregates;
     }
 
     /**
      * Saves the Issue object in the database and adds it to an existing work
-     * item.
+     * item, in one transaction.
      *
      * @param issue      The issue object that you want to store in the database.
      * @param workItemId The id of the existing work item that you want to add the issue to.
@@ -43,20 +61,31 @@ public final class IssueService {
      * database including its auto-generated id.
      * @throws ServiceException
      */
-    public Issue addIssueToWorkItem(Issue issue, String workItemId) throws ServiceException {
-        try {
-            if (workItemRepository.read(workItemId).getStatus() == WorkItemStatus.DONE) {
+    public Issue addIssueToWorkItem(Issue issue, long workItemId) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("IssueService.addIssueToWorkItem", workItemId);
+        try (Transaction transaction = Transaction.begin("IssueService.addIssueToWorkItem")) {
+            WorkItem workItem = workItemRepository.read(workItemId);
+            if (workItem == null) {
+                throw new ServiceException("Cannot add issue to workitem, id doesn't exist");
+            }
+            if (workItem.getStatus() == WorkItemStatus.DONE) {
                 long generatedId = issueRepository.create(issue);
                 Issue createdIssue = Issue.issueBuilder(issue.getTitle()).setDescription(issue.getDescription())
-                        .setId(String.valueOf(generatedId)).build();
+                        .setId(generatedId).build();
                 issueRepository.AddIssueToWorkItem(createdIssue, workItemId);
                 workItemRepository.changeWorkItemStatus(workItemId, WorkItemStatus.UNSTARTED);
+                transaction.commit();
+                if (teamStatusAggregates != null) {
+                    teamStatusAggregates.statusChanged(workItemId, WorkItemStatus.UNSTARTED);
+                }
                 return createdIssue;
             } else {
                 throw new ServiceException("Could not add issue to workitem, workitem status not DONE");
             }
         } catch (RepositoryException e) {
             throw new ServiceException("Error when reading workitem and getting status", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -67,6 +96,7 @@ public final class IssueService {
      * @throws ServiceException
      */
     public void updateIssue(Issue issue) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("IssueService.updateIssue", issue.getId());
         try {
             if (issueRepository.read(issue.getId()) == null) {
                 throw new ServiceException("Cannot update issue, id doesn't exist");
@@ -76,7 +106,9 @@ public final class IssueService {
             }
             issueRepository.update(issue);
         } catch (RepositoryException e) {
-            throw new ServiceException("Couldn't update issue with title: " + issue.getTitle());
+            throw new ServiceException("Couldn't update issue with title: " + issue.getTitle(), e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -88,10 +120,23 @@ public final class IssueService {
      * @throws ServiceException
      */
     public List<WorkItem> getAllWorkItemsWithIssue() throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("IssueService.getAllWorkItemsWithIssue", 0);
         try {
             return issueRepository.getAllWorkItemsWithIssue();
         } catch (RepositoryException e) {
             throw new ServiceException("Could not get workitems", e);
+        } finally {
+            event.finish();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets all the work items with an issue without blocking the caller.
+     *
+     * @return the future work items
+     */
+    public CompletableFuture<List<WorkItem>> getAllWorkItemsWithIssueAsync() {
+        return AsyncResults.translate(ServiceEvent.start("IssueService.getAllWorkItemsWithIssueAsync", 0),
+                issueRepository.getAllWorkItemsWithIssueAsync(), "Could not get workitems");
+    }
+}
@@ -1,9 +1,20 @@
 package se.root.ordersystem.service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
+import se.root.ordersystem.helpers.ServiceEvent;
+import se.root.ordersystem.helpers.TeamStatusAggregates;
+import se.root.ordersystem.helpers.Transaction;
+import se.root.ordersystem.model.AssignedWorkItem;
+import se.root.ordersystem.model.CascadeResult;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.Team;
 import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.exception.RepositoryException;
 import se.root.ordersystem.exception.ServiceException;
 import se.root.ordersystem.repository.interfaces.TeamRepository;
@@ -21,12 +32,29 @@ import se.root.ordersystem.repository.interfaces.UserRepository;
  */
 public final class TeamService {
 
+    private static final int MAX_TEAM_SIZE = 10;
+
     private final TeamRepository teamRepository;
     private final UserRepository userRepository;
+    private final TeamStatusAggregates teamStatusAggregates;
 
     public TeamService(TeamRepository teamRepository, UserRepository userRepository) {
+        this(teamRepository, userRepository, null);
+    }
+
+    /**
+     * Instantiates a new team service that keeps the given work item counts by team up to date and
+     * serves them.
+     *
+     * @param teamRepository       the team repository
+     * @param userRepository       the user repository
+     * @param teamStatusAggregates the work item counts by team, or null
+     */
+    public TeamService(TeamRepository teamRepository, UserRepository userRepository,
+                       TeamStatusAggregates teamStatusAggregates) {
         this.teamRepository = teamRepository;
         this.userRepository = userRepository;
+        this.teamStatusAggregates = teamStatusAggregates;
     }
 
     /**
@@ -36,11 +64,34 @@ public final class TeamService {
      * @return the users from team
      * @throws ServiceException the service exception
      */
-    public List<User> getUsersFromTeam(String id) throws ServiceException {
+    public List<User> getUsersFromTeam(long id) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("TeamService.getUsersFromTeam", id);
         try {
             return teamRepository.getUsersFromTeam(id);
         } catch (RepositoryException e) {
-            throw new ServiceException("Couldn't get user from team");
+            throw new ServiceException("Couldn't get user from team", e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Gets one page of the users from team, ordered by id.
+     *
+     * @param id       the id
+     * @param afterId  the cursor of the previous page, 0 for the first page
+     * @param pageSize the page size
+     * @return the page
+     * @throws ServiceException the service exception
+     */
+    public Page<User> getUsersFromTeam(long id, long afterId, int pageSize) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("TeamService.getUsersFromTeam", id);
+        try {
+            return teamRepository.getUsersFromTeam(id, afterId, pageSize);
+        } catch (RepositoryException e) {
+            throw new ServiceException("Couldn't get user from team", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -52,12 +103,15 @@ public final class TeamService {
      * @throws ServiceException the service exception
      */
     public Team createTeam(Team team) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("TeamService.createTeam", 0);
         try {
             long generatedId = teamRepository.create(team);
-            return Team.teamBuilder(team.getName()).setId(String.valueOf(generatedId)).build();
+            return Team.teamBuilder(team.getName()).setId(generatedId).build();
 
         } catch (RepositoryException e) {
-            throw new ServiceException("Failed to create team");
+            throw new ServiceException("Failed to create team", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -68,6 +122,7 @@ public final class TeamService {
      * @throws ServiceException the service exception
      */
     public void updateTeam(Team team) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("TeamService.updateTeam", team.getId());
         try {
             if (teamRepository.read(team.getId()) == null) {
                 throw new ServiceException("Cannot update team, id doesn't exist");
@@ -77,25 +132,35 @@ public final class TeamService {
             }
             teamRepository.update(team);
         } catch (RepositoryException e) {
-            throw new ServiceException("Failed to update team");
+            throw new ServiceException("Failed to update team", e);
+        } finally {
+            event.finish();
         }
     }
 
     /**
-     * Inactivate team.
+     * Inactivate team together with its users, and reset the status of their work items.
      *
      * @param id the id
+     * @return the number of teams, users and work items changed
      * @throws ServiceException the service exception
      */
-    public void inactivateTeam(String id) throws ServiceException {
+    public CascadeResult inactivateTeam(long id) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("TeamService.inactivateTeam", id);
         try {
-            teamRepository.changeStatus(false, id);
+            CascadeResult result = teamRepository.inactivateTeamCascade(id, WorkItemStatus.UNSTARTED);
+            if (teamStatusAggregates != null) {
+                teamStatusAggregates.teamWorkItemsReset(id, WorkItemStatus.UNSTARTED);
+            }
+            return result;
         } catch (RepositoryException e) {
             if (e.getMessage().contains("Could not update change status for id:")) {
                 throw new ServiceException(e.getMessage());
             } else {
-                throw new ServiceException("Couldn't inactivate team with id '" + id + "' in the database");
+                throw new ServiceException("Couldn't inactivate team with id '" + id + "' in the database", e);
             }
+        } finally {
+            event.finish();
         }
     }
 
@@ -105,11 +170,14 @@ public final class TeamService {
      * @param id the id
      * @throws ServiceException the service exception
      */
-    public void activateTeam(String id) throws ServiceException {
+    public void activateTeam(long id) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("TeamService.activateTeam", id);
         try {
             teamRepository.changeStatus(true, id);
         } catch (RepositoryException e) {
-            throw new ServiceException("Couldn't activate team with id '" + id + "' in the database");
+            throw new ServiceException("Couldn't activate team with id '" + id + "' in the database", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -120,43 +188,133 @@ public final class TeamService {
      * @throws ServiceException the service exception
      */
     public List<Team> getAllTeams() throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("TeamService.getAllTeams", 0);
         try {
             return teamRepository.getAll();
         } catch (RepositoryException e) {
             throw new ServiceException("Could not get all teams", e);
+        } finally {
+            event.finish();
         }
     }
 
     /**
-     * Adds the user to team if user is active
+     * Gets one page of all teams, ordered by id.
+     *
+     * @param afterId  the cursor of the previous page, 0 for the first page
+     * @param pageSize the page size
+     * @return the page
+     * @throws ServiceException the service exception
+     */
+    public Page<Team> getAllTeams(long afterId, int pageSize) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("TeamService.getAllTeams", 0);
+        try {
+            return teamRepository.getAll(afterId, pageSize);
+        } catch (RepositoryException e) {
+            throw new ServiceException("Could not get teams", e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Adds the user to the first team with room if user is active, in one transaction. A new team
+     * is created when every team is full.
      *
      * @param userId the user id
-     * @return 
+     * @return the team id
      * @throws ServiceException the service exception
      */
-    public long addUserToTeam(String userId) throws ServiceException {
-    	  
-    	  try {
-    	   if (!userRepository.read(userId).isActive()) {
-    	    throw new ServiceException("Could not add user to team since it's inactive");
-    	   }
-    	   
-    	    for (Team t : teamRepository.getAll()) {
-    	     
-    	     if (teamRepository.getUsersFromTeam(t.getId()).size() < 10) {
-    	      teamRepository.addUserToTeam(userId, t.getId());
-    	      return Long.valueOf(t.getId());
-    	     }
-    	    }
-    	    System.out.println("size "+ (teamRepository.getAll().size()+ 1));
-    	     long teamId = teamRepository.create
-    	         (new Team.TeamBuilder("Team " + (teamRepository.getAll().size() + 1)).build());
-    	     teamRepository.addUserToTeam(userId, String.valueOf(teamId));
-    	   
-    	    return teamId;
-    	    
-    	  } catch (RepositoryException e) {
-    	   throw new ServiceException("Could not add user to team", e);
-    	  }
+    public long addUserToTeam(long userId) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("TeamService.addUserToTeam", userId);
+        try (Transaction transaction = Transaction.begin("TeamService.addUserToTeam")) {
+            User user = userRepository.read(userId);
+            if (user == null || !user.isActive()) {
+                throw new ServiceException("Could not add user to team since it's inactive");
+            }
+            long teamId = teamRepository.addUserToTeamWithRoom(userId, MAX_TEAM_SIZE);
+            transaction.commit();
+            if (teamStatusAggregates != null) {
+                teamStatusAggregates.userMoved(userId, teamId);
+            }
+            return teamId;
+        } catch (RepositoryException e) {
+            throw new ServiceException("Could not add user to team", e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Gets the number of work items of the users of a team by status, without reading the work
+     * items.
+     *
+     * @param id the team id
+     * @return the counts, every status is present
+     * @throws ServiceException if the service does not keep work item counts
+     */
+    public Map<WorkItemStatus, Long> getWorkItemCountsByStatus(long id) throws ServiceException {
+        if (teamStatusAggregates == null) {
+            throw new ServiceException("Work item counts by team are not kept by this service");
+        }
+        return teamStatusAggregates.getCounts(id);
+    }
+
+    /**
+     * Recounts the work items of every team from the database.
+     *
+     * @throws ServiceException the service exception
+     */
+    public void rebuildWorkItemCounts() throws ServiceException {
+        if (teamStatusAggregates == null) {
+            throw new ServiceException("Work item counts by team are not kept by this service");
+        }
+        ServiceEvent event = ServiceEvent.start("TeamService.rebuildWorkItemCounts", 0);
+        try (Stream<AssignedWorkItem> assignedWorkItems = userRepository.getAssignedWorkItemsStreaming()) {
+            teamStatusAggregates.rebuild(assignedWorkItems);
+        } catch (RepositoryException e) {
+            throw new ServiceException("Could not count the work items of the teams", e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Gets the users from team without blocking the caller.
+     *
+     * @param id the id
+     * @return the future users
+     */
+    public CompletableFuture<List<User>> getUsersFromTeamAsync(long id) {
+        return AsyncResults.translate(ServiceEvent.start("TeamService.getUsersFromTeamAsync", id),
+                teamRepository.getUsersFromTeamAsync(id), "Couldn't get user from team");
+    }
+
+    /**
+     * Gets the users of several teams, querying the teams in parallel.
+     *
+     * @param ids the team ids
+     * @return the future users by team id
+     */
+    public CompletableFuture<Map<Long, List<User>>> getUsersFromTeamsAsync(long... ids) {
+        Map<Long, CompletableFuture<List<User>>> futures = new LinkedHashMap<>();
+        for (long id : ids) {
+            futures.put(id, getUsersFromTeamAsync(id));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<Long, List<User>> users = new LinkedHashMap<>();
+            futures.forEach((id, future) -> users.put(id, future.join()));
+            return users;
+        });
+    }
+
+    /**
+     * Gets all teams without blocking the caller.
+     *
+     * @return the future teams
+     */
+    public CompletableFuture<List<Team>> getAllTeamsAsync() {
+        return AsyncResults.translate(ServiceEvent.start("TeamService.getAllTeamsAsync", 0),
+                teamRepository.getAllAsync(), "Could not get all teams");
     }
 }
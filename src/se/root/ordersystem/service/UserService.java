@@ -1,9 +1,15 @@
 package se.root.ordersystem.service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import se.root.ordersystem.helpers.ServiceEvent;
+import se.root.ordersystem.helpers.TeamStatusAggregates;
+import se.root.ordersystem.helpers.Transaction;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.User;
 import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemAssignment;
 
 import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.exception.RepositoryException;
@@ -26,12 +32,28 @@ import se.root.ordersystem.repository.interfaces.WorkItemRepository;
  */
 public final class UserService {
 
+    private static final int MAX_WORK_ITEMS = 5;
+
     private final UserRepository userRepository;
     private final WorkItemRepository workItemRepository;
+    private final TeamStatusAggregates teamStatusAggregates;
 
     public UserService(UserRepository userRepository, WorkItemRepository workItemRepository) {
+        this(userRepository, workItemRepository, null);
+    }
+
+    /**
+     * Instantiates a new user service that keeps the given work item counts by team up to date.
+     *
+     * @param userRepository       the user repository
+     * @param workItemRepository   the work item repository
+     * @param teamStatusAggregates the work item counts by team, or null
+     */
+    public UserService(UserRepository userRepository, WorkItemRepository workItemRepository,
+                       TeamStatusAggregates teamStatusAggregates) {
         this.userRepository = userRepository;
         this.workItemRepository = workItemRepository;
+        this.teamStatusAggregates = teamStatusAggregates;
     }
 
     /**
@@ -42,16 +64,19 @@ public final class UserService {
      * @throws ServiceException the service exception
      */
     public User createUser(User user) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.createUser", 0);
         try {
             if (user.getUsername().length() >= 10) {
                 long createdId = userRepository.create(user);
                 return User.userBuilder(user.getUsername(), user.getFirstname(), user.getLastname())
-                        .setTeamId(user.getTeamId()).setId(String.valueOf(createdId)).build();
+                        .setTeamId(user.getTeamId()).setId(createdId).build();
             } else {
                 throw new ServiceException("Username too short, 10 characters required");
             }
         } catch (RepositoryException e) {
-            throw new ServiceException("Failed to create user");
+            throw new ServiceException("Failed to create user", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -62,6 +87,7 @@ public final class UserService {
      * @throws ServiceException the service exception
      */
     public void updateUser(User user) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.updateUser", user.getId());
         try {
             if (userRepository.read(user.getId()) == null) {
                 throw new ServiceException("Cannot update user, id doesn't exist");
@@ -74,7 +100,9 @@ public final class UserService {
             }
             userRepository.update(user);
         } catch (RepositoryException e) {
-            throw new ServiceException("Failed to update user");
+            throw new ServiceException("Failed to update user", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -85,41 +113,74 @@ public final class UserService {
      * @return the user by id
      * @throws ServiceException the service exception
      */
-    public User getUserById(String id) throws ServiceException {
+    public User getUserById(long id) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.getUserById", id);
         try {
             return userRepository.read(id);
         } catch (RepositoryException e) {
             throw new ServiceException("Could not find user by id " + id, e);
+        } finally {
+            event.finish();
         }
     }
 
     public List<User> getUsersBy(String username, String firstname, String lastname) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.getUsersBy", 0);
         try {
             return userRepository.getUsersBy(username, firstname, lastname);
         } catch (RepositoryException e) {
             throw new ServiceException("Could not find user with any of the following parameters: " + firstname, e);
+        } finally {
+            event.finish();
         }
     }
 
     /**
-     * Inactivate user.
+     * Gets at most limit users whose username, firstname and lastname contain the given terms.
      *
-     * @param id the id
+     * @param username  the username term
+     * @param firstname the firstname term
+     * @param lastname  the lastname term
+     * @param limit     the maximum number of users, 0 for no limit
+     * @return the users, ordered by id
      * @throws ServiceException the service exception
      */
-    public void inactivateUser(String id) throws ServiceException {
+    public List<User> getUsersBy(String username, String firstname, String lastname, int limit) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.getUsersBy", 0);
         try {
+            return userRepository.getUsersBy(username, firstname, lastname, limit);
+        } catch (RepositoryException e) {
+            throw new ServiceException("Could not find user with any of the following parameters: " + firstname, e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Inactivate user and reset the status of its work items, in one transaction.
+     *
+     * @param id the id
+     * @return the number of work items reset
+     * @throws ServiceException the service exception
+     */
+    public int inactivateUser(long id) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.inactivateUser", id);
+        try (Transaction transaction = Transaction.begin("UserService.inactivateUser")) {
             userRepository.changeStatus(false, id);
-            List<WorkItem> workItems = userRepository.getAllWorkItemsByUser(id);
-            for (WorkItem w : workItems) {
-                workItemRepository.changeWorkItemStatus(w.getId(), WorkItemStatus.UNSTARTED);
+            int workItems = userRepository.resetWorkItemsByUser(id, WorkItemStatus.UNSTARTED);
+            transaction.commit();
+            if (teamStatusAggregates != null) {
+                teamStatusAggregates.userWorkItemsReset(id, WorkItemStatus.UNSTARTED);
             }
+            return workItems;
         } catch (RepositoryException e) {
             if (e.getMessage().contains("Could not update change status for id:")) {
                 throw new ServiceException(e.getMessage());
             } else {
-                throw new ServiceException("Couldn't inactivate user with id '" + id + "' in the database");
+                throw new ServiceException("Couldn't inactivate user with id '" + id + "' in the database", e);
             }
+        } finally {
+            event.finish();
         }
     }
 
@@ -129,11 +190,14 @@ public final class UserService {
      * @param id the id
      * @throws ServiceException the service exception
      */
-    public void activateUser(String id) throws ServiceException {
+    public void activateUser(long id) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.activateUser", id);
         try {
             userRepository.changeStatus(true, id);
         } catch (RepositoryException e) {
-            throw new ServiceException("Couldn't activate user with id '" + id + "' in the database");
+            throw new ServiceException("Couldn't activate user with id '" + id + "' in the database", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -144,31 +208,65 @@ public final class UserService {
      * @throws ServiceException the service exception
      */
     public List<User> getAll() throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.getAll", 0);
         try {
             return userRepository.getAll();
         } catch (RepositoryException e) {
             throw new ServiceException("Could not get all users", e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Gets one page of all users, ordered by id.
+     *
+     * @param afterId  the cursor of the previous page, 0 for the first page
+     * @param pageSize the page size
+     * @return the page
+     * @throws ServiceException the service exception
+     */
+    public Page<User> getAll(long afterId, int pageSize) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.getAll", 0);
+        try {
+            return userRepository.getAll(afterId, pageSize);
+        } catch (RepositoryException e) {
+            throw new ServiceException("Could not get users", e);
+        } finally {
+            event.finish();
         }
     }
 
     /**
-     * Adds the work item to user.
+     * Adds the work item to user, if the user is active and has fewer than 5 work items.
      *
      * @param userId the user id
      * @param workId the work id
      * @throws ServiceException the service exception
      */
-    public void addWorkItemToUser(String userId, String workId) throws ServiceException {
+    public void addWorkItemToUser(long userId, long workId) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.addWorkItemToUser", userId);
         try {
-            if (!userRepository.read(userId).isActive()) {
+            WorkItemAssignment assignment = userRepository.assignWorkItemToUser(userId, workId, MAX_WORK_ITEMS);
+            switch (assignment.getOutcome()) {
+            case ASSIGNED:
+                if (teamStatusAggregates != null) {
+                    teamStatusAggregates.assigned(workId, userId, assignment.getTeamId(), assignment.getStatus());
+                }
+                return;
+            case USER_NOT_FOUND:
+                throw new ServiceException("Could not add work item to user, user doesn't exist");
+            case USER_INACTIVE:
                 throw new ServiceException("Could not add work item to user since it's inactive");
-            }
-            if (userRepository.getAllWorkItemsByUser(userId).size() >= 5) {
+            case WORK_ITEM_LIMIT_REACHED:
                 throw new ServiceException("Could not add work item to user since it already has 5 work items");
+            default:
+                throw new ServiceException("Could not add work item to user, work item doesn't exist");
             }
-            userRepository.addWorkItemToUser(userId, workId);
         } catch (RepositoryException e) {
             throw new ServiceException("Could not add workitem to user", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -178,11 +276,56 @@ public final class UserService {
      * @return the all work items by user
      * @throws ServiceException the service exception
      */
-    public List<WorkItem> getAllWorkItemsByUser(String userId) throws ServiceException {
+    public List<WorkItem> getAllWorkItemsByUser(long userId) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.getAllWorkItemsByUser", userId);
         try {
             return userRepository.getAllWorkItemsByUser(userId);
         } catch (RepositoryException e) {
-            throw new ServiceException("Could not get workitem list");
+            throw new ServiceException("Could not get workitem list", e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Gets one page of the work items by user, ordered by id.
+     *
+     * @param userId   the user id
+     * @param afterId  the cursor of the previous page, 0 for the first page
+     * @param pageSize the page size
+     * @return the page
+     * @throws ServiceException the service exception
+     */
+    public Page<WorkItem> getAllWorkItemsByUser(long userId, long afterId, int pageSize) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("UserService.getAllWorkItemsByUser", userId);
+        try {
+            return userRepository.getAllWorkItemsByUser(userId, afterId, pageSize);
+        } catch (RepositoryException e) {
+            throw new ServiceException("Could not get workitem list", e);
+        } finally {
+            event.finish();
         }
     }
+
+    /**
+     * Gets the user by id without blocking the caller.
+     *
+     * @param id the id
+     * @return the future user
+     */
+    public CompletableFuture<User> getUserByIdAsync(long id) {
+        return AsyncResults.translate(ServiceEvent.start("UserService.getUserByIdAsync", id),
+                userRepository.readAsync(id), "Could not find user by id " + id);
+    }
+
+    /**
+     * Gets the all work items by user without blocking the caller.
+     *
+     * @param userId the user id
+     * @return the future work items
+     */
+    public CompletableFuture<List<WorkItem>> getAllWorkItemsByUserAsync(long userId) {
+        return AsyncResults.translate(ServiceEvent.start("UserService.getAllWorkItemsByUserAsync", userId),
+                userRepository.getAllWorkItemsByUserAsync(userId), "Could not get workitem list");
+    }
 }
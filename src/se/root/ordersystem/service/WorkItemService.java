@@ -1,5 +1,8 @@
 package se.root.ordersystem.service;
 
+import se.root.ordersystem.helpers.ServiceEvent;
+import se.root.ordersystem.helpers.TeamStatusAggregates;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.WorkItem;
 import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.exception.RepositoryException;
@@ -7,6 +10,7 @@ import se.root.ordersystem.exception.ServiceException;
 import se.root.ordersystem.repository.interfaces.WorkItemRepository;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The Class WorkItemService- Work Item - an item that is assigned to a User
@@ -24,9 +28,21 @@ import java.util.List;
 public final class WorkItemService {
 
     private final WorkItemRepository workItemRepository;
+    private final TeamStatusAggregates teamStatusAggregates;
 
     public WorkItemService(WorkItemRepository workItemRepository) {
+        this(workItemRepository, null);
+    }
+
+    /**
+     * Instantiates a new work item service that keeps the given work item counts by team up to date.
+     *
+     * @param workItemRepository   the work item repository
+     * @param teamStatusAggregates the work item counts by team, or null
+     */
+    public WorkItemService(WorkItemRepository workItemRepository, TeamStatusAggregates teamStatusAggregates) {
         this.workItemRepository = workItemRepository;
+        this.teamStatusAggregates = teamStatusAggregates;
     }
 
     /**
@@ -36,16 +52,26 @@ public final class WorkItemService {
      * @param workItemStatus the work item status
      * @throws ServiceException the service exception
      */
-    public void changeWorkItemStatus(String workItemId, WorkItemStatus workItemStatus) throws ServiceException {
+    public void changeWorkItemStatus(long workItemId, WorkItemStatus workItemStatus) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.changeWorkItemStatus", workItemId);
         try {
-            if (workItemRepository.read(workItemId).isActive()) {
+            WorkItem workItem = workItemRepository.read(workItemId);
+            if (workItem == null) {
+                throw new ServiceException("Cannot change workitem status, id doesn't exist");
+            }
+            if (workItem.isActive()) {
                 workItemRepository.changeWorkItemStatus(workItemId, workItemStatus);
+                if (teamStatusAggregates != null) {
+                    teamStatusAggregates.statusChanged(workItemId, workItemStatus);
+                }
             } else {
                 throw new ServiceException("The workitem is not active and can not be changed");
             }
         } catch (RepositoryException e) {
             throw new ServiceException("Couldn't change work item with id '" + workItemId + "' to status '"
-                    + workItemStatus + "' in the database");
+                    + workItemStatus + "' in the database", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -57,12 +83,15 @@ public final class WorkItemService {
      * @throws ServiceException the service exception
      */
     public WorkItem createWorkItem(WorkItem workItem) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.createWorkItem", 0);
         try {
             long generatedId = workItemRepository.create(workItem);
             return WorkItem.workItemBuilder(workItem.getName()).setIssue_id(workItem.getIssueId())
-                    .setStatus(workItem.getStatus()).setId(String.valueOf(generatedId)).build();
+                    .setStatus(workItem.getStatus()).setId(generatedId).build();
         } catch (RepositoryException e) {
-            throw new ServiceException("Couldn't insert work item with id '" + workItem.getId() + "' in the database");
+            throw new ServiceException("Couldn't insert work item with id '" + workItem.getId() + "' in the database", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -73,6 +102,7 @@ public final class WorkItemService {
      * @throws ServiceException the service exception
      */
     public void updateWorkItem(WorkItem workItem) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.updateWorkItem", workItem.getId());
         try {
             if (workItemRepository.read(workItem.getId()) == null) {
                 throw new ServiceException("Cannot update workitem, id doesn't exist");
@@ -81,8 +111,13 @@ public final class WorkItemService {
                 throw new ServiceException("The workitem is not active and can not be updated");
             }
             workItemRepository.update(workItem);
+            if (teamStatusAggregates != null) {
+                teamStatusAggregates.statusChanged(workItem.getId(), workItem.getStatus());
+            }
         } catch (RepositoryException e) {
-            throw new ServiceException("Failed to update work item: " + workItem.getName());
+            throw new ServiceException("Failed to update work item: " + workItem.getName(), e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -93,11 +128,14 @@ public final class WorkItemService {
      * @return the work item
      * @throws ServiceException the service exception
      */
-    public WorkItem getWorkItem(String id) throws ServiceException {
+    public WorkItem getWorkItem(long id) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.getWorkItem", id);
         try {
             return workItemRepository.read(id);
         } catch (RepositoryException e) {
             throw new ServiceException("Could not get workitem", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -107,12 +145,15 @@ public final class WorkItemService {
      * @param id the id
      * @throws ServiceException the service exception
      */
-    public void inactivateWorkItem(String id) throws ServiceException {
+    public void inactivateWorkItem(long id) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.inactivateWorkItem", id);
         try {
             workItemRepository.changeStatus(false, id);
 
         } catch (RepositoryException e) {
-            throw new ServiceException("Couldn't inactivate work item with id '" + id + "' in the database");
+            throw new ServiceException("Couldn't inactivate work item with id '" + id + "' in the database", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -122,11 +163,14 @@ public final class WorkItemService {
      * @param id the id
      * @throws ServiceException the service exception
      */
-    public void activateWorkItem(String id) throws ServiceException {
+    public void activateWorkItem(long id) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.activateWorkItem", id);
         try {
             workItemRepository.changeStatus(true, id);
         } catch (RepositoryException e) {
-            throw new ServiceException("Couldn't activate work item with id '" + id + "' in the database");
+            throw new ServiceException("Couldn't activate work item with id '" + id + "' in the database", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -137,10 +181,32 @@ public final class WorkItemService {
      * @throws ServiceException the service exception
      */
     public List<WorkItem> getAllWorkItems() throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.getAllWorkItems", 0);
         try {
             return workItemRepository.getAll();
         } catch (RepositoryException e) {
-            throw new ServiceException("Couldn't get all work items from the database");
+            throw new ServiceException("Couldn't get all work items from the database", e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Gets one page of all work items, ordered by id.
+     *
+     * @param afterId  the cursor of the previous page, 0 for the first page
+     * @param pageSize the page size
+     * @return the page
+     * @throws ServiceException the service exception
+     */
+    public Page<WorkItem> getAllWorkItems(long afterId, int pageSize) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.getAllWorkItems", 0);
+        try {
+            return workItemRepository.getAll(afterId, pageSize);
+        } catch (RepositoryException e) {
+            throw new ServiceException("Couldn't get work items from the database", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -152,11 +218,78 @@ public final class WorkItemService {
      * @throws ServiceException the service exception
      */
     public List<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.getWorkItemByStatus", 0);
         try {
             return workItemRepository.getWorkItemByStatus(workItemStatus);
         } catch (RepositoryException e) {
             throw new ServiceException(
-                    "Couldn't get all work items with status '" + workItemStatus + "' from the database");
+                    "Couldn't get all work items with status '" + workItemStatus + "' from the database", e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Gets one page of the work items by status, ordered by id.
+     *
+     * @param workItemStatus the work item status
+     * @param afterId        the cursor of the previous page, 0 for the first page
+     * @param pageSize       the page size
+     * @return the page
+     * @throws ServiceException the service exception
+     */
+    public Page<WorkItem> getWorkItemByStatus(WorkItemStatus workItemStatus, long afterId, int pageSize)
+            throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.getWorkItemByStatus", 0);
+        try {
+            return workItemRepository.getWorkItemByStatus(workItemStatus, afterId, pageSize);
+        } catch (RepositoryException e) {
+            throw new ServiceException(
+                    "Couldn't get work items with status '" + workItemStatus + "' from the database", e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Gets the work items by status of the users in a team.
+     *
+     * @param workItemStatus the work item status
+     * @param teamId         the team id
+     * @return the work items, ordered by id
+     * @throws ServiceException the service exception
+     */
+    public List<WorkItem> getWorkItemByStatusAndTeam(WorkItemStatus workItemStatus, long teamId)
+            throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.getWorkItemByStatusAndTeam", teamId);
+        try {
+            return workItemRepository.getWorkItemByStatusAndTeam(workItemStatus, teamId);
+        } catch (RepositoryException e) {
+            throw new ServiceException("Couldn't get work items with status '" + workItemStatus + "' from team with id '"
+                    + teamId + "' from the database", e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Gets the work items by status of a user.
+     *
+     * @param workItemStatus the work item status
+     * @param userId         the user id
+     * @return the work items, ordered by id
+     * @throws ServiceException the service exception
+     */
+    public List<WorkItem> getWorkItemByStatusAndUser(WorkItemStatus workItemStatus, long userId)
+            throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.getWorkItemByStatusAndUser", userId);
+        try {
+            return workItemRepository.getWorkItemByStatusAndUser(workItemStatus, userId);
+        } catch (RepositoryException e) {
+            throw new ServiceException("Couldn't get work items with status '" + workItemStatus + "' from user with id '"
+                    + userId + "' from the database", e);
+        } finally {
+            event.finish();
         }
     }
 
@@ -167,11 +300,69 @@ public final class WorkItemService {
      * @return the all work items by team
      * @throws ServiceException the service exception
      */
-    public List<WorkItem> getAllWorkItemsByTeam(String id) throws ServiceException {
+    public List<WorkItem> getAllWorkItemsByTeam(long id) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.getAllWorkItemsByTeam", id);
         try {
             return workItemRepository.getAllWorkItemsByTeam(id);
         } catch (RepositoryException e) {
-            throw new ServiceException("Couldn't get work items from team with id '" + id + "' from the database");
+            throw new ServiceException("Couldn't get work items from team with id '" + id + "' from the database", e);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Gets one page of the work items by team, ordered by id.
+     *
+     * @param id       the id
+     * @param afterId  the cursor of the previous page, 0 for the first page
+     * @param pageSize the page size
+     * @return the page
+     * @throws ServiceException the service exception
+     */
+    public Page<WorkItem> getAllWorkItemsByTeam(long id, long afterId, int pageSize) throws ServiceException {
+        ServiceEvent event = ServiceEvent.start("WorkItemService.getAllWorkItemsByTeam", id);
+        try {
+            return workItemRepository.getAllWorkItemsByTeam(id, afterId, pageSize);
+        } catch (RepositoryException e) {
+            throw new ServiceException("Couldn't get work items from team with id '" + id + "' from the database", e);
+        } finally {
+            event.finish();
         }
     }
+
+    /**
+     * Gets the work item without blocking the caller.
+     *
+     * @param id the id
+     * @return the future work item
+     */
+    public CompletableFuture<WorkItem> getWorkItemAsync(long id) {
+        return AsyncResults.translate(ServiceEvent.start("WorkItemService.getWorkItemAsync", id),
+                workItemRepository.readAsync(id), "Could not get workitem");
+    }
+
+    /**
+     * Gets the work item by status without blocking the caller.
+     *
+     * @param workItemStatus the work item status
+     * @return the future work items
+     */
+    public CompletableFuture<List<WorkItem>> getWorkItemByStatusAsync(WorkItemStatus workItemStatus) {
+        return AsyncResults.translate(ServiceEvent.start("WorkItemService.getWorkItemByStatusAsync", 0),
+                workItemRepository.getWorkItemByStatusAsync(workItemStatus),
+                "Couldn't get all work items with status '" + workItemStatus + "' from the database");
+    }
+
+    /**
+     * Gets the all work items by team without blocking the caller.
+     *
+     * @param id the id
+     * @return the future work items
+     */
+    public CompletableFuture<List<WorkItem>> getAllWorkItemsByTeamAsync(long id) {
+        return AsyncResults.translate(ServiceEvent.start("WorkItemService.getAllWorkItemsByTeamAsync", id),
+                workItemRepository.getAllWorkItemsByTeamAsync(id),
+                "Couldn't get work items from team with id '" + id + "' from the database");
+    }
 }
@@ -0,0 +1,38 @@
+package se.root.ordersystem.helpers.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import se.root.ordersystem.helpers.EntityCache;
+
+public final class EntityCacheTest {
+
+	private final EntityCache cache = new EntityCache(100, 60_000, 60_000);
+
+	@Test
+	public void valuesLoadedBeforeAnInvalidationAreNotCached() throws Exception {
+
+		assertEquals("stale", cache.get(String.class, 1, () -> {
+			cache.invalidate(String.class, 1);
+			return "stale";
+		}));
+
+		assertEquals("fresh", cache.get(String.class, 1, () -> "fresh"));
+	}
+
+	@Test
+	public void invalidationsStayVisibleWhenManyMoreFollow() throws Exception {
+
+		assertEquals("stale", cache.get(String.class, 1, () -> {
+			cache.invalidate(String.class, 1);
+			// enough invalidations of other ids to push id 1 out of the versions of its segment
+			for (long id = 2; id < 50_000; id++) {
+				cache.invalidate(String.class, id);
+			}
+			return "stale";
+		}));
+
+		assertEquals("fresh", cache.get(String.class, 1, () -> "fresh"));
+	}
+}
@@ -0,0 +1,161 @@
+package se.root.ordersystem.helpers.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+import se.root.ordersystem.helpers.IdBitmap;
+
+public final class IdBitmapTest {
+
+	@Test
+	public void addContainsAndRemove() {
+
+		IdBitmap bitmap = IdBitmap.of(3, 1, 2, 2);
+
+		assertEquals(3, bitmap.cardinality());
+		assertTrue(bitmap.contains(2));
+		assertFalse(bitmap.contains(4));
+		assertFalse(bitmap.contains(-1));
+
+		bitmap.remove(2);
+		bitmap.remove(4);
+		bitmap.remove(-1);
+		assertArrayEquals(new long[] { 1, 3 }, bitmap.toArray());
+
+		bitmap.remove(1);
+		bitmap.remove(3);
+		assertTrue(bitmap.isEmpty());
+		assertArrayEquals(new long[0], bitmap.toArray());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void addNegativeId() {
+
+		new IdBitmap().add(-1);
+	}
+
+	@Test
+	public void chunkBecomesBitmapAbove4096IdsAndArrayAgainBelow() {
+
+		long[] ids = LongStream.range(0, 4097).map(i -> i * 3).toArray();
+		IdBitmap bitmap = IdBitmap.of(Arrays.copyOf(ids, 4096));
+		assertArrayEquals(Arrays.copyOf(ids, 4096), bitmap.toArray());
+
+		bitmap.add(ids[4096]);
+		assertEquals(4097, bitmap.cardinality());
+		assertArrayEquals(ids, bitmap.toArray());
+		assertTrue(bitmap.contains(ids[4096]));
+		assertFalse(bitmap.contains(ids[4096] - 1));
+
+		bitmap.remove(ids[0]);
+		assertEquals(4096, bitmap.cardinality());
+		assertArrayEquals(Arrays.copyOfRange(ids, 1, 4097), bitmap.toArray());
+
+		bitmap.add(ids[0]);
+		assertArrayEquals(ids, bitmap.toArray());
+	}
+
+	@Test
+	public void idsAcrossChunks() {
+
+		long[] ids = { 0, 65535, 65536, 131071, 1L << 32, (1L << 40) + 7 };
+		IdBitmap bitmap = IdBitmap.of((1L << 40) + 7, 65536, 0, 1L << 32, 131071, 65535);
+
+		assertEquals(ids.length, bitmap.cardinality());
+		assertArrayEquals(ids, bitmap.toArray());
+		for (long id : ids) {
+			assertTrue(bitmap.contains(id));
+		}
+		assertFalse(bitmap.contains(65537));
+		assertFalse(bitmap.contains((1L << 40) + 6));
+
+		bitmap.remove(65536);
+		bitmap.remove(131071);
+		assertArrayEquals(new long[] { 0, 65535, 1L << 32, (1L << 40) + 7 }, bitmap.toArray());
+	}
+
+	@Test
+	public void andOrAndNotOnArrayAndBitmapChunks() {
+
+		IdBitmap dense = IdBitmap.of(LongStream.range(0, 5000).toArray());
+		dense.add(70000);
+		IdBitmap sparse = IdBitmap.of(1, 4999, 5000, 70000, 140000);
+
+		assertArrayEquals(new long[] { 1, 4999, 70000 }, dense.and(sparse).toArray());
+		assertArrayEquals(new long[] { 1, 4999, 70000 }, sparse.and(dense).toArray());
+
+		IdBitmap union = dense.or(sparse);
+		assertEquals(5003, union.cardinality());
+		assertTrue(union.contains(5000));
+		assertTrue(union.contains(140000));
+		assertEquals(union.cardinality(), sparse.or(dense).cardinality());
+
+		IdBitmap difference = dense.andNot(sparse);
+		assertEquals(4998, difference.cardinality());
+		assertFalse(difference.contains(1));
+		assertFalse(difference.contains(70000));
+		assertArrayEquals(new long[] { 5000, 140000 }, sparse.andNot(dense).toArray());
+
+		IdBitmap half = IdBitmap.of(LongStream.range(0, 10000).filter(i -> i % 2 == 0).toArray());
+		assertEquals(2500, dense.and(half).cardinality());
+		assertEquals(2501, dense.andNot(half).cardinality());
+
+		assertEquals(5001, dense.cardinality());
+		assertEquals(5, sparse.cardinality());
+	}
+
+	@Test
+	public void copyIsIndependent() {
+
+		IdBitmap bitmap = IdBitmap.of(1, 2, 3);
+		IdBitmap copy = bitmap.copy();
+
+		copy.add(4);
+		copy.remove(1);
+
+		assertArrayEquals(new long[] { 1, 2, 3 }, bitmap.toArray());
+		assertArrayEquals(new long[] { 2, 3, 4 }, copy.toArray());
+	}
+
+	@Test
+	public void toArrayPagesThroughArrayChunks() {
+
+		IdBitmap bitmap = IdBitmap.of(5, 10, 15, 65540, 65550, 200000);
+
+		assertArrayEquals(new long[] { 5, 10 }, bitmap.toArray(0, 2));
+		assertArrayEquals(new long[] { 15, 65540 }, bitmap.toArray(10, 2));
+		assertArrayEquals(new long[] { 65550, 200000 }, bitmap.toArray(65540, 2));
+		assertArrayEquals(new long[0], bitmap.toArray(200000, 2));
+
+		// afterId does not have to be in the bitmap, nor in a chunk the bitmap has
+		assertArrayEquals(new long[] { 10, 15 }, bitmap.toArray(7, 2));
+		assertArrayEquals(new long[] { 200000 }, bitmap.toArray(131072, 10));
+		assertArrayEquals(new long[0], bitmap.toArray(0, 0));
+	}
+
+	@Test
+	public void toArrayPagesThroughBitmapChunks() {
+
+		long[] ids = LongStream.range(60000, 140000).toArray();
+		IdBitmap bitmap = IdBitmap.of(ids);
+
+		long afterId = 0;
+		int pages = 0;
+		long[] seen = new long[0];
+		for (long[] page = bitmap.toArray(afterId, 7000); page.length > 0; page = bitmap.toArray(afterId, 7000)) {
+			seen = LongStream.concat(Arrays.stream(seen), Arrays.stream(page)).toArray();
+			afterId = page[page.length - 1];
+			pages++;
+		}
+
+		assertEquals(12, pages);
+		assertArrayEquals(ids, seen);
+		assertArrayEquals(new long[] { 65535, 65536, 65537 }, bitmap.toArray(65534, 3));
+		assertArrayEquals(new long[] { 131072 }, bitmap.toArray(131071, 1));
+		assertArrayEquals(new long[0], bitmap.toArray(139999, 5));
+	}
+}
@@ -0,0 +1,137 @@
+package se.root.ordersystem.helpers.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.root.ordersystem.helpers.TrigramIndex;
+
+public final class TrigramIndexTest {
+
+	private static final long[] NONE = new long[0];
+
+	private TrigramIndex index;
+
+	@Before
+	public void setUp() {
+		index = new TrigramIndex(3);
+		index.put(1, "anna01", "Anna", "Andersson");
+		index.put(2, "bertil", "Bertil", "Anderberg");
+		index.put(3, "cecilia", "Cecilia", "Abcxbcd");
+		index.put(4, "nolastname", "David", null);
+	}
+
+	@Test
+	public void searchIntersectsTheTrigramsOfEachTerm() {
+
+		assertArrayEquals(new long[] { 1, 2 }, index.search(0, "", "", "ander"));
+		assertArrayEquals(new long[] { 1 }, index.search(0, "", "", "erss"));
+		assertArrayEquals(new long[] { 2 }, index.search(0, "ber", "", "ander"));
+		assertArrayEquals(NONE, index.search(0, "anna", "", "berg"));
+		assertArrayEquals(NONE, index.search(0, "", "", "andxrs"));
+	}
+
+	@Test
+	public void searchChecksCandidatesThatHaveEveryTrigram() {
+
+		// has the trigrams abc and bcd but not abcd
+		assertArrayEquals(NONE, index.search(0, "", "", "abcd"));
+		assertArrayEquals(new long[] { 3 }, index.search(0, "", "", "xbcd"));
+	}
+
+	@Test
+	public void shortTermsAreCheckedAgainstEveryValue() {
+
+		assertArrayEquals(new long[] { 1, 2 }, index.search(0, "", "", "an"));
+		assertArrayEquals(new long[] { 1, 3 }, index.search(0, "", "a", ""));
+		assertArrayEquals(new long[] { 2 }, index.search(0, "er", "", "nd"));
+		assertArrayEquals(NONE, index.search(0, "zz", "", ""));
+	}
+
+	@Test
+	public void searchIgnoresCase() {
+
+		assertArrayEquals(new long[] { 1 }, index.search(0, "ANNA", "aNn", "SSON"));
+		assertArrayEquals(new long[] { 2 }, index.search(0, "", "BE", ""));
+	}
+
+	@Test
+	public void nullTermsMatchNothingAndNullValuesAreNeverMatched() {
+
+		assertArrayEquals(NONE, index.search(0, null, "", ""));
+		assertArrayEquals(NONE, index.search(0, "", "", null));
+		assertArrayEquals(new long[] { 1, 2, 3 }, index.search(0, "", "", ""));
+		assertArrayEquals(NONE, index.search(0, "", "david", ""));
+	}
+
+	@Test
+	public void searchStopsAtTheLimit() {
+
+		assertArrayEquals(new long[] { 1 }, index.search(1, "", "", "ander"));
+		assertArrayEquals(new long[] { 1, 2 }, index.search(2, "", "", ""));
+	}
+
+	@Test
+	public void searchStartsAfterTheGivenId() {
+
+		assertArrayEquals(new long[] { 2 }, index.search(1, 0, "", "", "ander"));
+		assertArrayEquals(new long[] { 3 }, index.search(2, 1, "", "", ""));
+		assertArrayEquals(NONE, index.search(3, 0, "", "", ""));
+	}
+
+	@Test
+	public void idsAddedOutOfOrderStaySorted() {
+
+		TrigramIndex users = new TrigramIndex(3);
+		for (long id : new long[] { 10, 2, 30, 1, 20, 2 }) {
+			users.put(id, "user" + id, "First", "Last");
+		}
+
+		assertArrayEquals(new long[] { 1, 2, 10, 20, 30 }, users.search(0, "user", "", ""));
+		assertArrayEquals(new long[] { 1, 10 }, users.search(0, "user1", "", ""));
+
+		users.remove(10);
+		assertArrayEquals(new long[] { 1, 2, 20, 30 }, users.search(0, "user", "irs", "ast"));
+	}
+
+	@Test
+	public void putReplacesTheValuesOfAnId() {
+
+		index.put(1, "anna01", "Anna", "Lindqvist");
+
+		assertArrayEquals(new long[] { 2 }, index.search(0, "", "", "ander"));
+		assertArrayEquals(new long[] { 1 }, index.search(0, "", "", "lindq"));
+		assertEquals(4, index.size());
+	}
+
+	@Test
+	public void removeDropsAnIdButKeepsTheOthersOfItsTrigrams() {
+
+		index.remove(2);
+		index.remove(42);
+
+		assertArrayEquals(new long[] { 1 }, index.search(0, "", "", "ander"));
+		assertArrayEquals(NONE, index.search(0, "bertil", "", ""));
+		assertEquals(3, index.size());
+
+		index.put(2, "bertil", "Bertil", "Anderberg");
+		assertArrayEquals(new long[] { 1, 2 }, index.search(0, "", "", "ander"));
+
+		index.clear();
+		assertEquals(0, index.size());
+		assertArrayEquals(NONE, index.search(0, "", "", ""));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void putChecksTheNumberOfFields() {
+
+		index.put(5, "username", "firstname");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void searchChecksTheNumberOfTerms() {
+
+		index.search(0, "username");
+	}
+}
@@ -0,0 +1,178 @@
+package se.root.ordersystem.repository.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemAssignment;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.InMemoryDatabase;
+import se.root.ordersystem.repository.InMemoryTeamRepository;
+import se.root.ordersystem.repository.InMemoryUserRepository;
+import se.root.ordersystem.repository.InMemoryWorkItemRepository;
+
+public final class InMemoryUserRepositoryTest {
+
+	private static final int MAX_WORK_ITEMS = 5;
+
+	private InMemoryUserRepository userRepository;
+	private InMemoryWorkItemRepository workItemRepository;
+	private InMemoryTeamRepository teamRepository;
+
+	@Before
+	public void setUp() {
+		InMemoryDatabase database = new InMemoryDatabase();
+		userRepository = new InMemoryUserRepository(database);
+		workItemRepository = new InMemoryWorkItemRepository(database);
+		teamRepository = new InMemoryTeamRepository(database);
+	}
+
+	@Test
+	public void assignmentStopsAtTheLimit() throws RepositoryException {
+
+		long userId = userRepository.create(User.userBuilder("anna01", "Anna", "Andersson").build());
+		long teamId = teamRepository.addUserToTeamWithRoom(userId, 10);
+		long[] workItems = createWorkItems(MAX_WORK_ITEMS + 1);
+		workItemRepository.changeWorkItemStatus(workItems[0], WorkItemStatus.STARTED);
+
+		WorkItemAssignment first = userRepository.assignWorkItemToUser(userId, workItems[0], MAX_WORK_ITEMS);
+		assertEquals(WorkItemAssignment.Outcome.ASSIGNED, first.getOutcome());
+		assertEquals(teamId, first.getTeamId());
+		assertEquals(WorkItemStatus.STARTED, first.getStatus());
+		for (int i = 1; i < MAX_WORK_ITEMS; i++) {
+			assertEquals(WorkItemAssignment.Outcome.ASSIGNED,
+					userRepository.assignWorkItemToUser(userId, workItems[i], MAX_WORK_ITEMS).getOutcome());
+		}
+
+		assertSame(WorkItemAssignment.WORK_ITEM_LIMIT_REACHED,
+				userRepository.assignWorkItemToUser(userId, workItems[MAX_WORK_ITEMS], MAX_WORK_ITEMS));
+		assertEquals(MAX_WORK_ITEMS, userRepository.countWorkItemsByUser(userId));
+		assertFalse(userRepository.getAllWorkItemsByUser(userId).stream()
+				.anyMatch(workItem -> workItem.getId() == workItems[MAX_WORK_ITEMS]));
+	}
+
+	@Test
+	public void assignmentReportsWhatStoppedIt() throws RepositoryException {
+
+		long userId = userRepository.create(User.userBuilder("anna01", "Anna", "Andersson").build());
+		long workItemId = createWorkItems(1)[0];
+
+		assertSame(WorkItemAssignment.USER_NOT_FOUND, userRepository.assignWorkItemToUser(42, workItemId, MAX_WORK_ITEMS));
+		assertSame(WorkItemAssignment.WORK_ITEM_NOT_FOUND, userRepository.assignWorkItemToUser(userId, 42, MAX_WORK_ITEMS));
+		assertSame(WorkItemAssignment.WORK_ITEM_NOT_FOUND, userRepository.assignWorkItemToUser(userId, 42, 0));
+
+		userRepository.changeStatus(false, userId);
+		assertSame(WorkItemAssignment.USER_INACTIVE, userRepository.assignWorkItemToUser(userId, workItemId, MAX_WORK_ITEMS));
+		assertEquals(0, userRepository.countWorkItemsByUser(userId));
+	}
+
+	@Test
+	public void concurrentAssignmentsDoNotPassTheLimit() throws Exception {
+
+		long userId = userRepository.create(User.userBuilder("anna01", "Anna", "Andersson").build());
+		long[] workItems = createWorkItems(200);
+
+		List<Integer> outcomes = runConcurrently(workItems.length, i -> {
+			WorkItemAssignment assignment = userRepository.assignWorkItemToUser(userId, workItems[i], MAX_WORK_ITEMS);
+			return assignment.getOutcome() == WorkItemAssignment.Outcome.ASSIGNED ? 1 : 0;
+		});
+
+		assertEquals(MAX_WORK_ITEMS, outcomes.stream().mapToInt(Integer::intValue).sum());
+		assertEquals(MAX_WORK_ITEMS, userRepository.countWorkItemsByUser(userId));
+		assertEquals(MAX_WORK_ITEMS, userRepository.getAllWorkItemsByUser(userId).size());
+	}
+
+	@Test
+	public void placementFillsTheFirstTeamWithRoomBeforeCreatingOne() throws RepositoryException {
+
+		long[] userIds = new long[5];
+		for (int i = 0; i < userIds.length; i++) {
+			userIds[i] = userRepository.create(User.userBuilder("user" + i, "First", "Last").build());
+		}
+
+		long first = teamRepository.addUserToTeamWithRoom(userIds[0], 2);
+		assertEquals(first, teamRepository.addUserToTeamWithRoom(userIds[1], 2));
+		long second = teamRepository.addUserToTeamWithRoom(userIds[2], 2);
+		assertNotEquals(first, second);
+		assertEquals("Team 2", teamRepository.read(second).getName());
+
+		// a member moving to another team makes room in the first team again
+		teamRepository.addUserToTeam(userIds[1], second);
+		assertEquals(first, teamRepository.addUserToTeamWithRoom(userIds[3], 2));
+		assertEquals(3, teamRepository.addUserToTeamWithRoom(userIds[4], 2));
+	}
+
+	@Test
+	public void concurrentPlacementsDoNotOverfillTeams() throws Exception {
+
+		int maxMembers = 3;
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			users.add(User.userBuilder("user" + i, "First", "Last").build());
+		}
+		long[] userIds = userRepository.createAll(users);
+
+		runConcurrently(userIds.length, i -> (int) teamRepository.addUserToTeamWithRoom(userIds[i], maxMembers));
+
+		// 100 users in teams of 3 need 34 teams, no more
+		assertEquals(34, teamRepository.getAll().size());
+		for (long teamId : teamRepository.getAll().stream().mapToLong(team -> team.getId()).toArray()) {
+			assertTrue(teamRepository.getUsersFromTeam(teamId).size() <= maxMembers);
+		}
+		for (long userId : userIds) {
+			assertTrue(userRepository.read(userId).getTeamId() > 0);
+		}
+	}
+
+	private long[] createWorkItems(int count) throws RepositoryException {
+		List<WorkItem> workItems = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			workItems.add(WorkItem.workItemBuilder("workitem" + i).build());
+		}
+		return workItemRepository.createAll(workItems);
+	}
+
+	private interface Task {
+		int run(int i) throws RepositoryException;
+	}
+
+	/**
+	 * Runs the tasks on eight threads that all start together.
+	 */
+	private static List<Integer> runConcurrently(int tasks, Task task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < tasks; i++) {
+				int index = i;
+				Callable<Integer> callable = () -> {
+					start.await();
+					return task.run(index);
+				};
+				futures.add(executor.submit(callable));
+			}
+			start.countDown();
+			List<Integer> results = new ArrayList<>();
+			for (Future<Integer> future : futures) {
+				results.add(future.get(10, TimeUnit.SECONDS));
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
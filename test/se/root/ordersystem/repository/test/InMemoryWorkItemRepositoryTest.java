@@ -0,0 +1,124 @@
+package se.root.ordersystem.repository.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.InMemoryDatabase;
+import se.root.ordersystem.repository.InMemoryWorkItemRepository;
+
+public final class InMemoryWorkItemRepositoryTest {
+
+	// more than three blocks of the status index
+	private static final int WORK_ITEMS = 2000;
+
+	private InMemoryWorkItemRepository workItemRepository;
+	private List<Long> created;
+
+	@Before
+	public void setUp() throws RepositoryException {
+		workItemRepository = new InMemoryWorkItemRepository(new InMemoryDatabase());
+		List<WorkItem> workItems = new ArrayList<>();
+		for (int i = 0; i < WORK_ITEMS; i++) {
+			workItems.add(WorkItem.workItemBuilder("workitem" + i).build());
+		}
+		created = new ArrayList<>();
+		for (long id : workItemRepository.createAll(workItems)) {
+			created.add(id);
+		}
+	}
+
+	@Test
+	public void statusesKeepTheirIdsSortedWhenChangedInAnyOrder() throws RepositoryException {
+
+		// ids land in the middle of full blocks, which splits them
+		List<Long> shuffled = new ArrayList<>(created);
+		Collections.shuffle(shuffled, new Random(42));
+		for (long id : shuffled) {
+			workItemRepository.changeWorkItemStatus(id, WorkItemStatus.DONE);
+		}
+
+		assertTrue(workItemRepository.getWorkItemByStatus(WorkItemStatus.UNSTARTED).isEmpty());
+		assertEquals(created, ids(workItemRepository.getWorkItemByStatus(WorkItemStatus.DONE)));
+
+		// every third one moves back, emptying whole blocks on the way
+		List<Long> unstarted = new ArrayList<>();
+		List<Long> done = new ArrayList<>();
+		for (long id : shuffled) {
+			if (id % 3 == 0) {
+				workItemRepository.changeWorkItemStatus(id, WorkItemStatus.UNSTARTED);
+			}
+		}
+		for (long id : created) {
+			(id % 3 == 0 ? unstarted : done).add(id);
+		}
+
+		assertEquals(unstarted, ids(workItemRepository.getWorkItemByStatus(WorkItemStatus.UNSTARTED)));
+		assertEquals(done, ids(workItemRepository.getWorkItemByStatus(WorkItemStatus.DONE)));
+		assertEquals(done, ids(pages(WorkItemStatus.DONE, 100)));
+	}
+
+	@Test
+	public void statusPagesFollowTheCursor() throws RepositoryException {
+
+		assertEquals(created, ids(pages(WorkItemStatus.UNSTARTED, 512)));
+		assertEquals(created, ids(pages(WorkItemStatus.UNSTARTED, 7)));
+
+		Page<WorkItem> last = workItemRepository.getWorkItemByStatus(WorkItemStatus.UNSTARTED, created.get(WORK_ITEMS - 3), 2);
+		assertEquals(created.subList(WORK_ITEMS - 2, WORK_ITEMS), ids(last.getItems()));
+		assertFalse(last.hasNext());
+	}
+
+	@Test
+	public void pagesOfAllWorkItemsStartAfterTheCursor() throws RepositoryException {
+
+		Page<WorkItem> first = workItemRepository.getAll(0, 10);
+		assertEquals(created.subList(0, 10), ids(first.getItems()));
+		assertTrue(first.hasNext());
+
+		Page<WorkItem> middle = workItemRepository.getAll(first.getNextCursor(), 10);
+		assertEquals(created.subList(10, 20), ids(middle.getItems()));
+
+		// a cursor between ids, or past the last one
+		assertEquals(created.subList(5, 8), ids(workItemRepository.getAll(created.get(4), 3).getItems()));
+		assertTrue(workItemRepository.getAll(created.get(WORK_ITEMS - 1), 10).getItems().isEmpty());
+
+		List<WorkItem> all = new ArrayList<>();
+		long afterId = 0;
+		Page<WorkItem> page;
+		do {
+			page = workItemRepository.getAll(afterId, 300);
+			all.addAll(page.getItems());
+			afterId = page.getNextCursor();
+		} while (page.hasNext());
+		assertEquals(created, ids(all));
+	}
+
+	private List<WorkItem> pages(WorkItemStatus status, int pageSize) throws RepositoryException {
+		List<WorkItem> workItems = new ArrayList<>();
+		long afterId = 0;
+		Page<WorkItem> page;
+		do {
+			page = workItemRepository.getWorkItemByStatus(status, afterId, pageSize);
+			assertTrue(page.getItems().size() <= pageSize);
+			workItems.addAll(page.getItems());
+			afterId = page.getNextCursor();
+		} while (page.hasNext());
+		return workItems;
+	}
+
+	private static List<Long> ids(List<WorkItem> workItems) {
+		return workItems.stream().map(WorkItem::getId).collect(Collectors.toList());
+	}
+}
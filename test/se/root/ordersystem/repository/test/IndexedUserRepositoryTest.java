@@ -0,0 +1,110 @@
+package se.root.ordersystem.repository.test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.model.User;
+import se.root.ordersystem.repository.InMemoryDatabase;
+import se.root.ordersystem.repository.InMemoryUserRepository;
+import se.root.ordersystem.repository.IndexedUserRepository;
+import se.root.ordersystem.repository.interfaces.UserRepository;
+
+public final class IndexedUserRepositoryTest {
+
+	private InMemoryUserRepository delegate;
+	private IndexedUserRepository userRepository;
+
+	@Before
+	public void setUp() {
+		delegate = new InMemoryUserRepository(new InMemoryDatabase());
+		userRepository = new IndexedUserRepository(delegate);
+	}
+
+	@Test
+	public void searchFindsUsersCreatedBeforeAndAfterTheFirstSearch() throws RepositoryException {
+
+		long anna = delegate.create(User.userBuilder("anna01", "Anna", "Andersson").build());
+
+		assertEquals(ids(anna), ids(userRepository.getUsersBy("anna", "", "")));
+
+		long bertil = userRepository.create(User.userBuilder("bertil", "Bertil", "Anderberg").build());
+
+		assertEquals(ids(anna, bertil), ids(userRepository.getUsersBy("", "", "ander")));
+	}
+
+	@Test
+	public void updatesReplaceTheIndexedNames() throws RepositoryException {
+
+		long anna = userRepository.create(User.userBuilder("anna01", "Anna", "Andersson").build());
+		userRepository.getUsersBy("", "", "");
+
+		userRepository.update(User.userBuilder("anna01", "Anna", "Lindqvist").setId(anna).build());
+
+		assertTrue(userRepository.getUsersBy("", "", "andersson").isEmpty());
+		assertEquals(ids(anna), ids(userRepository.getUsersBy("", "", "lindq")));
+	}
+
+	@Test
+	public void limitCountsOnlyUsersThatStillMatch() throws RepositoryException {
+
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			users.add(User.userBuilder("user" + i, "First", "Last").build());
+		}
+		long[] created = userRepository.createAll(users);
+		userRepository.getUsersBy("", "", "");
+
+		// renamed behind the index's back, the index still has them under "user"
+		for (int i = 0; i < 4; i++) {
+			delegate.update(User.userBuilder("renamed" + i, "First", "Last").setId(created[i]).build());
+		}
+
+		List<User> found = userRepository.getUsersBy("user", "", "", 3);
+
+		assertEquals(ids(created[4], created[5], created[6]), ids(found));
+		assertEquals(6, userRepository.getUsersBy("user", "", "", 100).size());
+	}
+
+	@Test
+	public void rebuildPicksUpUsersWrittenWhileItRuns() throws RepositoryException {
+
+		UserRepository mockDelegate = mock(UserRepository.class);
+		IndexedUserRepository indexed = new IndexedUserRepository(mockDelegate);
+		User anna = User.userBuilder("anna01", "Anna", "Andersson").setId(1).build();
+		User bertil = User.userBuilder("bertil", "Bertil", "Anderberg").setId(2).build();
+
+		when(mockDelegate.create(bertil)).thenReturn(2L);
+		when(mockDelegate.getAllStreaming()).thenAnswer(invocation -> {
+			// the stream has already been opened when bertil is created
+			indexed.create(bertil);
+			return Stream.of(anna);
+		});
+		when(mockDelegate.readAll(new long[] { 2 })).thenReturn(Collections.singletonList(bertil));
+		when(mockDelegate.readAll(new long[] { 1, 2 })).thenReturn(List.of(anna, bertil));
+
+		assertEquals(ids(1, 2), ids(indexed.getUsersBy("", "", "ander")));
+	}
+
+	private static List<Long> ids(long... ids) {
+		List<Long> list = new ArrayList<>();
+		for (long id : ids) {
+			list.add(id);
+		}
+		return list;
+	}
+
+	private static List<Long> ids(List<User> users) {
+		return users.stream().map(User::getId).collect(Collectors.toList());
+	}
+}
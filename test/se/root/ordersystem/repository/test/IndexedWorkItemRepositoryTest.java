@@ -0,0 +1,114 @@
+package se.root.ordersystem.repository.test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.model.Page;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.IndexedWorkItemRepository;
+import se.root.ordersystem.repository.interfaces.WorkItemRepository;
+
+@RunWith(MockitoJUnitRunner.class)
+
+public final class IndexedWorkItemRepositoryTest {
+
+	@Mock
+	private WorkItemRepository delegate;
+
+	private IndexedWorkItemRepository workItemRepository;
+
+	// what the wrapped repository has now, the index only sees it on a rebuild
+	private Map<Long, WorkItem> stored;
+
+	@Before
+	public void setUp() throws RepositoryException {
+		stored = new HashMap<>();
+		for (long id = 1; id <= 6; id++) {
+			store(id, WorkItemStatus.DONE);
+		}
+		when(delegate.getAllStreaming()).thenAnswer(invocation -> new ArrayList<>(stored.values()).stream());
+		when(delegate.readAll(any(long[].class))).thenAnswer(invocation -> {
+			List<WorkItem> workItems = new ArrayList<>();
+			for (long id : (long[]) invocation.getArguments()[0]) {
+				if (stored.containsKey(id)) {
+					workItems.add(stored.get(id));
+				}
+			}
+			return workItems;
+		});
+		workItemRepository = new IndexedWorkItemRepository(delegate);
+		workItemRepository.rebuild();
+	}
+
+	@After
+	public void tearDown() {
+		workItemRepository.close();
+	}
+
+	@Test
+	public void pagesSkipStaleIdsWithoutEndingEarly() throws RepositoryException {
+
+		store(2, WorkItemStatus.STARTED);
+		store(5, WorkItemStatus.STARTED);
+
+		Page<WorkItem> first = workItemRepository.getWorkItemByStatus(WorkItemStatus.DONE, 0, 2);
+		assertEquals(ids(1, 3), ids(first.getItems()));
+		assertTrue(first.hasNext());
+
+		Page<WorkItem> second = workItemRepository.getWorkItemByStatus(WorkItemStatus.DONE, first.getNextCursor(), 2);
+		assertEquals(ids(4, 6), ids(second.getItems()));
+		assertFalse(second.hasNext());
+	}
+
+	@Test
+	public void listsOnlyReturnWorkItemsThatStillHaveTheStatus() throws RepositoryException {
+
+		store(3, WorkItemStatus.UNSTARTED);
+
+		assertEquals(ids(1, 2, 4, 5, 6), ids(workItemRepository.getWorkItemByStatus(WorkItemStatus.DONE)));
+	}
+
+	@Test
+	public void workItemsReadWithAnotherStatusMoveToItsBitmap() throws RepositoryException {
+
+		// as if an older change to DONE was applied after the newer change to UNSTARTED
+		store(4, WorkItemStatus.UNSTARTED);
+		assertTrue(workItemRepository.getWorkItemByStatus(WorkItemStatus.UNSTARTED).isEmpty());
+
+		workItemRepository.getWorkItemByStatus(WorkItemStatus.DONE);
+
+		assertEquals(ids(4), ids(workItemRepository.getWorkItemByStatus(WorkItemStatus.UNSTARTED)));
+	}
+
+	private void store(long id, WorkItemStatus status) {
+		stored.put(id, new WorkItem.WorkItemBuilder("workitem" + id).setId(id).setStatus(status).build());
+	}
+
+	private static List<Long> ids(long... ids) {
+		List<Long> list = new ArrayList<>();
+		for (long id : ids) {
+			list.add(id);
+		}
+		return list;
+	}
+
+	private static List<Long> ids(List<WorkItem> workItems) {
+		return workItems.stream().map(WorkItem::getId).collect(Collectors.toList());
+	}
+}
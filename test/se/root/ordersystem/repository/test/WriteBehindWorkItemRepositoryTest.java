@@ -0,0 +1,180 @@
+package se.root.ordersystem.repository.test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import se.root.ordersystem.exception.RepositoryException;
+import se.root.ordersystem.helpers.Transaction;
+import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemStatus;
+import se.root.ordersystem.repository.WriteBehindWorkItemRepository;
+import se.root.ordersystem.repository.interfaces.WorkItemRepository;
+
+@RunWith(MockitoJUnitRunner.class)
+
+public final class WriteBehindWorkItemRepositoryTest {
+
+	// long enough that the timer never flushes during a test
+	private static final long FLUSH_MILLIS = 60 * 60 * 1000;
+
+	@Mock
+	private WorkItemRepository delegate;
+
+	private WriteBehindWorkItemRepository workItemRepository;
+
+	private WorkItem workItem1;
+	private WorkItem workItem2;
+
+	@Before
+	public void setUp() {
+		workItem1 = new WorkItem.WorkItemBuilder("workitem1").setId(1).setStatus(WorkItemStatus.UNSTARTED).build();
+		workItem2 = new WorkItem.WorkItemBuilder("workitem2").setId(2).setStatus(WorkItemStatus.UNSTARTED).build();
+		workItemRepository = new WriteBehindWorkItemRepository(delegate, FLUSH_MILLIS, 100);
+	}
+
+	@After
+	public void tearDown() {
+		workItemRepository.close();
+	}
+
+	@Test
+	public void changesOfOneWorkItemAreCoalesced() throws RepositoryException {
+
+		workItemRepository.changeWorkItemStatus(1, WorkItemStatus.STARTED);
+		workItemRepository.changeWorkItemStatus(1, WorkItemStatus.DONE);
+		workItemRepository.changeWorkItemStatus(2, WorkItemStatus.STARTED);
+		workItemRepository.changeWorkItemStatus(1, WorkItemStatus.UNSTARTED);
+		assertEquals(2, workItemRepository.getPendingCount());
+
+		workItemRepository.flush();
+
+		Map<Long, WorkItemStatus> expected = new HashMap<>();
+		expected.put(1L, WorkItemStatus.UNSTARTED);
+		expected.put(2L, WorkItemStatus.STARTED);
+		verify(delegate).changeWorkItemStatuses(expected);
+		verify(delegate, never()).changeWorkItemStatus(anyLong(), any(WorkItemStatus.class));
+		assertEquals(0, workItemRepository.getPendingCount());
+	}
+
+	@Test
+	public void readsSeeThePendingStatus() throws RepositoryException {
+
+		List<WorkItem> workItems = Arrays.asList(workItem1, workItem2);
+		when(delegate.read(1)).thenReturn(workItem1);
+		when(delegate.getAll()).thenReturn(workItems);
+		when(delegate.readAll(new long[] { 1, 2 })).thenReturn(workItems);
+
+		workItemRepository.changeWorkItemStatus(1, WorkItemStatus.DONE);
+
+		WorkItem read = workItemRepository.read(1);
+		assertEquals(WorkItemStatus.DONE, read.getStatus());
+		assertEquals(workItem1.getName(), read.getName());
+
+		List<WorkItem> all = workItemRepository.getAll();
+		assertEquals(WorkItemStatus.DONE, all.get(0).getStatus());
+		assertEquals(WorkItemStatus.UNSTARTED, all.get(1).getStatus());
+
+		List<WorkItem> readAll = workItemRepository.readAll(new long[] { 1, 2 });
+		assertEquals(WorkItemStatus.DONE, readAll.get(0).getStatus());
+		assertSame(workItem2, readAll.get(1));
+
+		verify(delegate, never()).changeWorkItemStatuses(anyMapOf(Long.class, WorkItemStatus.class));
+	}
+
+	@Test
+	public void flushesWhenMaxPendingIsReached() throws RepositoryException {
+
+		workItemRepository.close();
+		workItemRepository = new WriteBehindWorkItemRepository(delegate, FLUSH_MILLIS, 2);
+
+		workItemRepository.changeWorkItemStatus(1, WorkItemStatus.DONE);
+		verify(delegate, never()).changeWorkItemStatuses(anyMapOf(Long.class, WorkItemStatus.class));
+
+		workItemRepository.changeWorkItemStatus(2, WorkItemStatus.STARTED);
+
+		Map<Long, WorkItemStatus> expected = new HashMap<>();
+		expected.put(1L, WorkItemStatus.DONE);
+		expected.put(2L, WorkItemStatus.STARTED);
+		verify(delegate, timeout(5000)).changeWorkItemStatuses(expected);
+	}
+
+	@Test
+	public void closeFlushesAndLaterChangesAreWrittenThrough() throws RepositoryException {
+
+		workItemRepository.changeWorkItemStatus(1, WorkItemStatus.DONE);
+
+		workItemRepository.close();
+
+		verify(delegate).changeWorkItemStatuses(Collections.singletonMap(1L, WorkItemStatus.DONE));
+		assertEquals(0, workItemRepository.getPendingCount());
+
+		workItemRepository.changeWorkItemStatus(2, WorkItemStatus.STARTED);
+
+		verify(delegate).changeWorkItemStatus(2, WorkItemStatus.STARTED);
+		assertEquals(0, workItemRepository.getPendingCount());
+	}
+
+	@Test
+	public void changesInsideATransactionAreWrittenThrough() throws RepositoryException {
+
+		workItemRepository.changeWorkItemStatus(1, WorkItemStatus.STARTED);
+
+		try (Transaction transaction = Transaction.begin("WriteBehindWorkItemRepositoryTest")) {
+			workItemRepository.changeWorkItemStatus(1, WorkItemStatus.DONE);
+
+			verify(delegate).changeWorkItemStatus(1, WorkItemStatus.DONE);
+			// the older pending status must not overwrite the one written in the transaction
+			assertEquals(0, workItemRepository.getPendingCount());
+			transaction.commit();
+		}
+
+		workItemRepository.flush();
+		verify(delegate, never()).changeWorkItemStatuses(anyMapOf(Long.class, WorkItemStatus.class));
+	}
+
+	@Test
+	public void changeDuringAFlushStaysPending() throws RepositoryException {
+
+		boolean[] changedDuringFlush = new boolean[1];
+		doAnswer(invocation -> {
+			if (!changedDuringFlush[0]) {
+				changedDuringFlush[0] = true;
+				workItemRepository.changeWorkItemStatus(1, WorkItemStatus.DONE);
+			}
+			return null;
+		}).when(delegate).changeWorkItemStatuses(anyMapOf(Long.class, WorkItemStatus.class));
+		when(delegate.read(1)).thenReturn(workItem1);
+
+		workItemRepository.changeWorkItemStatus(1, WorkItemStatus.STARTED);
+		workItemRepository.flush();
+
+		verify(delegate).changeWorkItemStatuses(Collections.singletonMap(1L, WorkItemStatus.STARTED));
+		assertEquals(1, workItemRepository.getPendingCount());
+		assertEquals(WorkItemStatus.DONE, workItemRepository.read(1).getStatus());
+
+		workItemRepository.flush();
+
+		verify(delegate).changeWorkItemStatuses(Collections.singletonMap(1L, WorkItemStatus.DONE));
+		assertEquals(0, workItemRepository.getPendingCount());
+	}
+}
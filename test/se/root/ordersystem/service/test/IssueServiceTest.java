@@ -16,6 +16,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import se.root.ordersystem.exception.RepositoryException;
 import se.root.ordersystem.exception.ServiceException;
+import se.root.ordersystem.helpers.Transaction;
 import se.root.ordersystem.model.Issue;
 import se.root.ordersystem.model.WorkItem;
 import se.root.ordersystem.model.WorkItemStatus;
@@ -44,27 +45,27 @@ public final class IssueServiceTest {
 
 	@BeforeClass
 	public static void setUp() {
-		issue1 = new Issue.IssueBuilder("issuenr1").setId("1").build();
-		issue2 = new Issue.IssueBuilder("issuenr1").setId("2").build();
+		issue1 = new Issue.IssueBuilder("issuenr1").setId(1).build();
+		issue2 = new Issue.IssueBuilder("issuenr1").setId(2).build();
 
 		issues = new ArrayList<>();
 		issues.add(issue1);
 		issues.add(issue2);
 
-		workItem1 = new WorkItem.WorkItemBuilder("problem1").setId("1").setStatus(WorkItemStatus.DONE).build();
+		workItem1 = new WorkItem.WorkItemBuilder("problem1").setId(1).setStatus(WorkItemStatus.DONE).build();
 	}
 
 	@Test
 	public void addIssueToWorkItem() throws RepositoryException, ServiceException {
 
-		Issue issue = new Issue.IssueBuilder("problem").setId("5").build();
-		String workItemId = "2";
+		Issue issue = new Issue.IssueBuilder("problem").setId(5).build();
+		long workItemId = 2;
 
 		when(workItemRepository.read(workItemId)).thenReturn(workItem1);
 		when(issueRepository.create(issue)).thenReturn(5L);
 		long generatedId = issueRepository.create(issue);
 
-		assertEquals(issue.getId(), String.valueOf(generatedId));
+		assertEquals(issue.getId(), generatedId);
 
 		issueService.addIssueToWorkItem(issue, workItemId);
 
@@ -73,10 +74,45 @@ public final class IssueServiceTest {
 
 	}
 
+	@Test
+	public void addIssueToWorkItemEndsTransactionWhenNotDone() throws RepositoryException {
+
+		Issue issue = new Issue.IssueBuilder("problem").build();
+		long workItemId = 3;
+		WorkItem unstarted = new WorkItem.WorkItemBuilder("problem3").setId(workItemId).build();
+
+		when(workItemRepository.read(workItemId)).thenReturn(unstarted);
+
+		try {
+			issueService.addIssueToWorkItem(issue, workItemId);
+			fail("Expected ServiceException");
+		} catch (ServiceException e) {
+			assertEquals("Could not add issue to workitem, workitem status not DONE", e.getMessage());
+		}
+		assertNull(Transaction.current());
+	}
+
+	@Test
+	public void addIssueToUnknownWorkItem() throws RepositoryException {
+
+		Issue issue = new Issue.IssueBuilder("problem").build();
+		long workItemId = 42;
+
+		when(workItemRepository.read(workItemId)).thenReturn(null);
+
+		try {
+			issueService.addIssueToWorkItem(issue, workItemId);
+			fail("Expected ServiceException");
+		} catch (ServiceException e) {
+			assertEquals("Cannot add issue to workitem, id doesn't exist", e.getMessage());
+		}
+		assertNull(Transaction.current());
+	}
+
 	@Test
 	public void updateIssue() throws ServiceException, RepositoryException {
 
-		Issue updatedIssue = new Issue.IssueBuilder("updatedIssue").setId("1").build();
+		Issue updatedIssue = new Issue.IssueBuilder("updatedIssue").setId(1).build();
 
 		when(issueRepository.read(issue1.getId())).thenReturn(issue1);
 		assertEquals(updatedIssue.getId(), issue1.getId());
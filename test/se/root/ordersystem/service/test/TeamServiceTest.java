@@ -1,11 +1,16 @@
 package se.root.ordersystem.service.test;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -17,8 +22,13 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import se.root.ordersystem.exception.RepositoryException;
 import se.root.ordersystem.exception.ServiceException;
+import se.root.ordersystem.helpers.TeamStatusAggregates;
+import se.root.ordersystem.model.AssignedWorkItem;
+import se.root.ordersystem.model.CascadeResult;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.Team;
 import se.root.ordersystem.model.User;
+import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.repository.interfaces.TeamRepository;
 import se.root.ordersystem.repository.interfaces.UserRepository;
 import se.root.ordersystem.service.TeamService;
@@ -53,17 +63,17 @@ public final class TeamServiceTest {
 		users = new ArrayList<>();
 		teams = new ArrayList<>();
 
-		team1 = new Team.TeamBuilder("team1").setId("1").build();
-		team2 = new Team.TeamBuilder("team2").setId("2").build();
-		team3 = new Team.TeamBuilder("team3").setId("3").build();
+		team1 = new Team.TeamBuilder("team1").setId(1).build();
+		team2 = new Team.TeamBuilder("team2").setId(2).build();
+		team3 = new Team.TeamBuilder("team3").setId(3).build();
 
 		for (int i = 1; i <= 3; i++) {
-			teams.add(new Team.TeamBuilder("team " + i).setId("" + i + "").build());
+			teams.add(new Team.TeamBuilder("team " + i).setId(i).build());
 		}
 
-		user1 = new User.UserBuilder("usernr1", "test", "test").setTeamId("1").build();
-		user2 = new User.UserBuilder("usernr2", "test", "test").setTeamId("1").build();
-		user3 = new User.UserBuilder("usernr3", "test", "test").setTeamId("1").build();
+		user1 = new User.UserBuilder("usernr1", "test", "test").setTeamId(1).build();
+		user2 = new User.UserBuilder("usernr2", "test", "test").setTeamId(1).build();
+		user3 = new User.UserBuilder("usernr3", "test", "test").setTeamId(1).build();
 
 		users.add(user1);
 		users.add(user2);
@@ -72,7 +82,7 @@ public final class TeamServiceTest {
 	@Test
 	public void getUserFromTeamByTeamId() throws ServiceException, RepositoryException {
 
-		String teamId = "1";
+		long teamId = 1;
 
 		when(teamRepository.getUsersFromTeam(teamId)).thenReturn(users);
 		List<User> usersFromTeam = teamService.getUsersFromTeam(teamId);
@@ -83,6 +93,53 @@ public final class TeamServiceTest {
 		verify(teamRepository).getUsersFromTeam(teamId);
 	}
 
+	@Test
+	public void getUsersFromTeamPage() throws ServiceException, RepositoryException {
+
+		long teamId = 1;
+		List<User> teamUsers = new ArrayList<>();
+		teamUsers.add(new User.UserBuilder("usernr4", "test", "test").setId(4).setTeamId(teamId).build());
+		Page<User> page = Page.of(teamUsers, 10, 3, User::getId);
+
+		when(teamRepository.getUsersFromTeam(teamId, 3, 10)).thenReturn(page);
+		Page<User> result = teamService.getUsersFromTeam(teamId, 3, 10);
+
+		assertEquals(4, result.getNextCursor());
+		assertFalse(result.hasNext());
+		verify(teamRepository).getUsersFromTeam(teamId, 3, 10);
+	}
+
+	@Test
+	public void getUsersFromTeamsAsync() throws ExecutionException, InterruptedException {
+
+		List<User> otherUsers = new ArrayList<>();
+		otherUsers.add(user3);
+
+		when(teamRepository.getUsersFromTeamAsync(1)).thenReturn(CompletableFuture.completedFuture(users));
+		when(teamRepository.getUsersFromTeamAsync(2)).thenReturn(CompletableFuture.completedFuture(otherUsers));
+
+		Map<Long, List<User>> usersByTeam = teamService.getUsersFromTeamsAsync(1, 2).get();
+
+		assertEquals(users, usersByTeam.get(1L));
+		assertEquals(otherUsers, usersByTeam.get(2L));
+	}
+
+	@Test
+	public void getUsersFromTeamAsyncFailsWithServiceException() throws InterruptedException {
+
+		CompletableFuture<List<User>> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new RepositoryException("Could not get users from team: 1"));
+		when(teamRepository.getUsersFromTeamAsync(1)).thenReturn(failed);
+
+		try {
+			teamService.getUsersFromTeamAsync(1).get();
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ServiceException);
+			assertTrue(e.getCause().getCause() instanceof RepositoryException);
+		}
+	}
+
 	@Test
 	public void createTeam() throws ServiceException, RepositoryException {
 
@@ -93,7 +150,7 @@ public final class TeamServiceTest {
 	@Test
 	public void updateTeam() throws ServiceException, RepositoryException {
 
-		Team updateTeam = new Team.TeamBuilder("team updated").setId("2").build();
+		Team updateTeam = new Team.TeamBuilder("team updated").setId(2).build();
 
 		when(teamRepository.read(team2.getId())).thenReturn(team2);
 		assertEquals(updateTeam.getId(), team2.getId());
@@ -106,7 +163,7 @@ public final class TeamServiceTest {
 	@Test
 	public void activeTeam() throws ServiceException, RepositoryException {
 
-		String teamId = "1";
+		long teamId = 1;
 		boolean isActive = true;
 
 		teamService.activateTeam(teamId);
@@ -116,11 +173,14 @@ public final class TeamServiceTest {
 	@Test
 	public void inactivateTeam() throws RepositoryException, ServiceException {
 
-		String teamId = "2";
-		boolean isActive = false;
+		long teamId = 2;
 
-		teamService.inactivateTeam(teamId);
-		verify(teamRepository).changeStatus(isActive, teamId);
+		when(teamRepository.inactivateTeamCascade(teamId, WorkItemStatus.UNSTARTED)).thenReturn(new CascadeResult(1, 3, 5));
+
+		CascadeResult result = teamService.inactivateTeam(teamId);
+		assertEquals(3, result.getUsers());
+		assertEquals(5, result.getWorkItems());
+		verify(teamRepository).inactivateTeamCascade(teamId, WorkItemStatus.UNSTARTED);
 	}
 
 	@Test
@@ -135,23 +195,60 @@ public final class TeamServiceTest {
 	@Test
 	public void addUserToTeamSkipOneIfTeamIsFull() throws ServiceException, RepositoryException {
 
-		String userId = "1";
-		String fullTeamId = "1";
-
-		List<User> fullTeam = new ArrayList<>();
-		for (int i = 1; i <= 10; i++) {
-			fullTeam.add(new User.UserBuilder("usernr" + i + "", "test", "test").setId("" + i + "")
-					.setTeamId(fullTeamId).build());
-		}
+		long userId = 1;
+		long fullTeamId = 1;
 
 		when(userRepository.read(userId)).thenReturn(user1);
-		when(teamRepository.getAll()).thenReturn(teams);
-		when(teamRepository.getUsersFromTeam(fullTeamId)).thenReturn(fullTeam);
+		when(teamRepository.addUserToTeamWithRoom(userId, 10)).thenReturn(team2.getId());
 
 		long resultTeamId = teamService.addUserToTeam(userId);
 
-		assertNotSame(resultTeamId, Long.valueOf(fullTeamId));
-		verify(teamRepository).addUserToTeam(userId, String.valueOf(resultTeamId));
+		assertNotEquals(fullTeamId, resultTeamId);
+		verify(teamRepository).addUserToTeamWithRoom(userId, 10);
+		verify(teamRepository, never()).getAll();
+	}
+
+	@Test(expected = ServiceException.class)
+	public void addUserToTeamFailsIfUserIsInactive() throws ServiceException, RepositoryException {
+
+		long userId = 3;
+
+		when(userRepository.read(userId)).thenReturn(new User.UserBuilder("usernr3", "test", "test").setId(userId)
+				.setActive(false).build());
+
+		teamService.addUserToTeam(userId);
+	}
+
+	@Test
+	public void workItemCountsFollowUsersThatMoveTeam() throws ServiceException, RepositoryException {
+
+		TeamService countingTeamService = new TeamService(teamRepository, userRepository, new TeamStatusAggregates());
+		when(userRepository.getAssignedWorkItemsStreaming()).thenReturn(Stream.of(
+				new AssignedWorkItem(1, 1, 1, WorkItemStatus.STARTED),
+				new AssignedWorkItem(2, 1, 1, WorkItemStatus.DONE),
+				new AssignedWorkItem(3, 2, 1, WorkItemStatus.STARTED),
+				new AssignedWorkItem(4, 3, 0, WorkItemStatus.UNSTARTED)));
+		when(userRepository.read(1)).thenReturn(user1);
+		when(teamRepository.addUserToTeamWithRoom(1, 10)).thenReturn(2L);
+
+		countingTeamService.rebuildWorkItemCounts();
+		assertEquals(Long.valueOf(2), countingTeamService.getWorkItemCountsByStatus(1).get(WorkItemStatus.STARTED));
+		assertEquals(Long.valueOf(1), countingTeamService.getWorkItemCountsByStatus(1).get(WorkItemStatus.DONE));
+
+		countingTeamService.addUserToTeam(1);
+		Map<WorkItemStatus, Long> oldTeam = countingTeamService.getWorkItemCountsByStatus(1);
+		Map<WorkItemStatus, Long> newTeam = countingTeamService.getWorkItemCountsByStatus(2);
+		assertEquals(Long.valueOf(1), oldTeam.get(WorkItemStatus.STARTED));
+		assertEquals(Long.valueOf(0), oldTeam.get(WorkItemStatus.DONE));
+		assertEquals(Long.valueOf(1), newTeam.get(WorkItemStatus.STARTED));
+		assertEquals(Long.valueOf(1), newTeam.get(WorkItemStatus.DONE));
+		assertEquals(Long.valueOf(0), newTeam.get(WorkItemStatus.UNSTARTED));
+	}
+
+	@Test(expected = ServiceException.class)
+	public void workItemCountsFailIfNotKept() throws ServiceException {
+
+		teamService.getWorkItemCountsByStatus(1);
 	}
 
-}
\ No newline at end of file
+}
@@ -17,8 +17,11 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import se.root.ordersystem.exception.RepositoryException;
 import se.root.ordersystem.exception.ServiceException;
+import se.root.ordersystem.helpers.TeamStatusAggregates;
 import se.root.ordersystem.model.User;
 import se.root.ordersystem.model.WorkItem;
+import se.root.ordersystem.model.WorkItemAssignment;
+import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.repository.interfaces.UserRepository;
 import se.root.ordersystem.repository.interfaces.WorkItemRepository;
 import se.root.ordersystem.service.UserService;
@@ -48,15 +51,15 @@ public final class UserServiceTest {
 	@BeforeClass
 	public static void setUp() {
 
-		user1 = new User.UserBuilder("usernr1234", "test", "testsson").setId("1").build();
-		user2 = new User.UserBuilder("usernr2", "test", "testsson").setId("2").setActive(false).build();
+		user1 = new User.UserBuilder("usernr1234", "test", "testsson").setId(1).build();
+		user2 = new User.UserBuilder("usernr2", "test", "testsson").setId(2).setActive(false).build();
 
 		users = new ArrayList<>();
 		users.add(user1);
 		users.add(user2);
 
 		workItems = new ArrayList<>();
-		workItem = new WorkItem.WorkItemBuilder("problem?").setId("1").build();
+		workItem = new WorkItem.WorkItemBuilder("problem?").setId(1).build();
 		workItems.add(workItem);
 	}
 
@@ -76,7 +79,7 @@ public final class UserServiceTest {
 
 	@Test
 	public void getUserById() throws ServiceException, RepositoryException {
-		String userId = "2";
+		long userId = 2;
 		String username = "usernr2";
 		String firstname = "test";
 		String lastname = "test";
@@ -90,7 +93,7 @@ public final class UserServiceTest {
 	@Test
 	public void updateUser() throws ServiceException, RepositoryException {
 
-		User updatedUser = new User.UserBuilder("updatedUser", "test", "testsson").setId("1").build();
+		User updatedUser = new User.UserBuilder("updatedUser", "test", "testsson").setId(1).build();
 
 		when(userRepository.read(updatedUser.getId())).thenReturn(user1);
 		assertEquals(updatedUser.getId(), user1.getId());
@@ -103,7 +106,7 @@ public final class UserServiceTest {
 	@Test
 	public void activateUserById() throws ServiceException, RepositoryException {
 
-		String userId = "1";
+		long userId = 1;
 		boolean isActive = true;
 
 		userService.activateUser(userId);
@@ -113,11 +116,14 @@ public final class UserServiceTest {
 	@Test
 	public void inactivateUserById() throws ServiceException, RepositoryException {
 
-		String userId = "1";
+		long userId = 1;
 		boolean isActive = false;
 
-		userService.inactivateUser(userId);
+		when(userRepository.resetWorkItemsByUser(userId, WorkItemStatus.UNSTARTED)).thenReturn(2);
+
+		assertEquals(2, userService.inactivateUser(userId));
 		verify(userRepository).changeStatus(isActive, userId);
+		verify(userRepository).resetWorkItemsByUser(userId, WorkItemStatus.UNSTARTED);
 	}
 
 	@Test
@@ -131,8 +137,8 @@ public final class UserServiceTest {
 	@Test
 	public void getUsersByUsername() throws RepositoryException, ServiceException {
 
-		User DBUser1 = new User.UserBuilder("username", "first", "last").setId("2").build();
-		User DBUser2 = new User.UserBuilder("username", "first", "last").setId("3").build();
+		User DBUser1 = new User.UserBuilder("username", "first", "last").setId(2).build();
+		User DBUser2 = new User.UserBuilder("username", "first", "last").setId(3).build();
 
 		List<User> DBusers = new ArrayList<>();
 		DBusers.add(DBUser1);
@@ -147,8 +153,8 @@ public final class UserServiceTest {
 	@Test
 	public void getUsersByFirstname() throws RepositoryException, ServiceException {
 
-		User DBUser1 = new User.UserBuilder("username", "first", "last").setId("2").build();
-		User DBUser2 = new User.UserBuilder("username", "first", "last").setId("3").build();
+		User DBUser1 = new User.UserBuilder("username", "first", "last").setId(2).build();
+		User DBUser2 = new User.UserBuilder("username", "first", "last").setId(3).build();
 
 		List<User> DBusers = new ArrayList<>();
 		DBusers.add(DBUser1);
@@ -163,8 +169,8 @@ public final class UserServiceTest {
 	@Test
 	public void getUsersByLastname() throws RepositoryException, ServiceException {
 
-		User DBUser1 = new User.UserBuilder("username", "first", "last").setId("2").build();
-		User DBUser2 = new User.UserBuilder("username", "first", "last").setId("3").build();
+		User DBUser1 = new User.UserBuilder("username", "first", "last").setId(2).build();
+		User DBUser2 = new User.UserBuilder("username", "first", "last").setId(3).build();
 
 		List<User> DBusers = new ArrayList<>();
 		DBusers.add(DBUser1);
@@ -176,17 +182,46 @@ public final class UserServiceTest {
 		verify(userRepository).getUsersBy(null, null, DBUser1.getLastname());
 	}
 
+	@Test
+	public void getUsersByWithLimit() throws RepositoryException, ServiceException {
+
+		List<User> DBusers = new ArrayList<>();
+		DBusers.add(new User.UserBuilder("username", "first", "last").setId(2).build());
+
+		when(userRepository.getUsersBy("user", "", "", 1)).thenReturn(DBusers);
+
+		assertEquals(DBusers, userService.getUsersBy("user", "", "", 1));
+		verify(userRepository).getUsersBy("user", "", "", 1);
+	}
+
 	@Test
 	public void addWorkItemToUser() throws ServiceException, RepositoryException {
 
-		String userId = "1";
-		String workId = "1";
+		long userId = 1;
+		long workId = 1;
 
-		when(userRepository.read(userId)).thenReturn(user1);
-		when(userRepository.getAllWorkItemsByUser(userId)).thenReturn(workItems);
+		when(userRepository.assignWorkItemToUser(userId, workId, 5)).thenReturn(WorkItemAssignment.assigned(0, WorkItemStatus.UNSTARTED));
 
 		userService.addWorkItemToUser(userId, workId);
-		verify(userRepository).addWorkItemToUser(userId, workId);
+		verify(userRepository).assignWorkItemToUser(userId, workId, 5);
+		verify(userRepository, never()).getAllWorkItemsByUser(userId);
+	}
+
+	@Test
+	public void addWorkItemToUserCountsItForTheTeamItSaw() throws ServiceException, RepositoryException {
+
+		long userId = 1;
+		long workId = 1;
+		TeamStatusAggregates aggregates = new TeamStatusAggregates();
+		UserService countingUserService = new UserService(userRepository, workItemRepository, aggregates);
+
+		when(userRepository.assignWorkItemToUser(userId, workId, 5))
+				.thenReturn(WorkItemAssignment.assigned(7, WorkItemStatus.STARTED));
+
+		countingUserService.addWorkItemToUser(userId, workId);
+		assertEquals(1, aggregates.getCount(7, WorkItemStatus.STARTED));
+		verify(userRepository, never()).read(userId);
+		verify(workItemRepository, never()).read(workId);
 	}
 
 	@Test
@@ -195,11 +230,10 @@ public final class UserServiceTest {
 		thrown.expect(ServiceException.class);
 		thrown.expectMessage("Could not add work item to user since it's inactive");
 
-		String userId = "2";
-		String workId = "1";
+		long userId = 2;
+		long workId = 1;
 
-		when(userRepository.read(userId)).thenReturn(user2);
-		when(userRepository.getAllWorkItemsByUser(userId)).thenReturn(workItems);
+		when(userRepository.assignWorkItemToUser(userId, workId, 5)).thenReturn(WorkItemAssignment.USER_INACTIVE);
 
 		userService.addWorkItemToUser(userId, workId);
 	}
@@ -210,15 +244,10 @@ public final class UserServiceTest {
 		thrown.expect(ServiceException.class);
 		thrown.expectMessage("Could not add work item to user since it already has 5 work items");
 
-		String userId = "2";
-		String workId = "1";
+		long userId = 2;
+		long workId = 1;
 
-		List<WorkItem> userWorkItems = new ArrayList<>();
-		for (int i = 0; i < 5; i++) {
-			userWorkItems.add(workItem);
-		}
-		when(userRepository.read(userId)).thenReturn(user1);
-		when(userRepository.getAllWorkItemsByUser(userId)).thenReturn(userWorkItems);
+		when(userRepository.assignWorkItemToUser(userId, workId, 5)).thenReturn(WorkItemAssignment.WORK_ITEM_LIMIT_REACHED);
 
 		userService.addWorkItemToUser(userId, workId);
 
@@ -227,7 +256,7 @@ public final class UserServiceTest {
 	@Test
 	public void getAllWorkItemsByUser() throws RepositoryException, ServiceException {
 
-		String userId = "1";
+		long userId = 1;
 
 		when(userRepository.getAllWorkItemsByUser(userId)).thenReturn(workItems);
 		userService.getAllWorkItemsByUser(userId);
@@ -17,6 +17,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import se.root.ordersystem.exception.RepositoryException;
 import se.root.ordersystem.exception.ServiceException;
+import se.root.ordersystem.model.Page;
 import se.root.ordersystem.model.WorkItem;
 import se.root.ordersystem.model.WorkItemStatus;
 import se.root.ordersystem.repository.interfaces.TeamRepository;
@@ -41,7 +42,7 @@ public final class WorkItemServiceTest {
 	@BeforeClass
 	public static void setUp() {
 
-		workItem1 = new WorkItem.WorkItemBuilder("workitem1?").setId("1").setStatus(WorkItemStatus.UNSTARTED).build();
+		workItem1 = new WorkItem.WorkItemBuilder("workitem1?").setId(1).setStatus(WorkItemStatus.UNSTARTED).build();
 		workItem2 = new WorkItem.WorkItemBuilder("workitem2").build();
 		workItems = new ArrayList<>();
 		workItems.add(workItem1);
@@ -59,7 +60,7 @@ public final class WorkItemServiceTest {
 	@Test
 	public void updateWorkItem() throws RepositoryException, ServiceException {
 
-		WorkItem updatedWorkItem = new WorkItem.WorkItemBuilder("UpdatedProblem").setId("1")
+		WorkItem updatedWorkItem = new WorkItem.WorkItemBuilder("UpdatedProblem").setId(1)
 				.setStatus(WorkItemStatus.UNSTARTED).build();
 
 		when(workItemRepository.read(workItem1.getId())).thenReturn(workItem1);
@@ -73,7 +74,7 @@ public final class WorkItemServiceTest {
 	@Test
 	public void getWorkItem() throws ServiceException, RepositoryException {
 
-		String workItemId = "1";
+		long workItemId = 1;
 
 		when(workItemRepository.read(workItemId)).thenReturn(workItem1);
 
@@ -82,10 +83,20 @@ public final class WorkItemServiceTest {
 
 	}
 
+	@Test(expected = ServiceException.class)
+	public void changeWorkItemStatusOfUnknownWorkItem() throws ServiceException, RepositoryException {
+
+		long workItemId = 42;
+
+		when(workItemRepository.read(workItemId)).thenReturn(null);
+
+		workItemService.changeWorkItemStatus(workItemId, WorkItemStatus.DONE);
+	}
+
 	@Test
 	public void activateWorkItem() throws ServiceException, RepositoryException {
 
-		String workItemId = "1";
+		long workItemId = 1;
 		boolean isActive = true;
 
 		workItemService.activateWorkItem(workItemId);
@@ -95,7 +106,7 @@ public final class WorkItemServiceTest {
 
 	@Test
 	public void inactivateWorkItem() throws ServiceException, RepositoryException {
-		String workItemId = "1";
+		long workItemId = 1;
 		boolean isActive = false;
 
 		workItemService.inactivateWorkItem(workItemId);
@@ -120,10 +131,37 @@ public final class WorkItemServiceTest {
 		verify(workItemRepository).getWorkItemByStatus(status);
 	}
 
+	@Test
+	public void getWorkItemByStatusPage() throws RepositoryException, ServiceException {
+
+		WorkItemStatus status = WorkItemStatus.UNSTARTED;
+		Page<WorkItem> page = Page.of(workItems, 1, 0, WorkItem::getId);
+
+		when(workItemRepository.getWorkItemByStatus(status, 0, 1)).thenReturn(page);
+
+		Page<WorkItem> result = workItemService.getWorkItemByStatus(status, 0, 1);
+		assertEquals(1, result.getItems().size());
+		assertEquals(1, result.getNextCursor());
+		assertTrue(result.hasNext());
+		verify(workItemRepository).getWorkItemByStatus(status, 0, 1);
+	}
+
+	@Test
+	public void getWorkItemByStatusAndTeam() throws RepositoryException, ServiceException {
+
+		WorkItemStatus status = WorkItemStatus.DONE;
+		long teamId = 1;
+
+		when(workItemRepository.getWorkItemByStatusAndTeam(status, teamId)).thenReturn(workItems);
+
+		assertEquals(workItems, workItemService.getWorkItemByStatusAndTeam(status, teamId));
+		verify(workItemRepository).getWorkItemByStatusAndTeam(status, teamId);
+	}
+
 	@Test
 	public void getAllWorkItemsByTeam() throws ServiceException, RepositoryException {
 
-		String teamId = "1";
+		long teamId = 1;
 
 		// TODO Get workItems from teamId if list has multiple team ids
 		when(workItemRepository.getAllWorkItemsByTeam(teamId)).thenReturn(workItems);
@@ -137,7 +175,7 @@ public final class WorkItemServiceTest {
 	@Test
 	public void changeWorkItemStatus() throws ServiceException, RepositoryException{
 		
-		String workitemId = "1";
+		long workitemId = 1;
 		
 		WorkItemStatus workItemStatus = WorkItemStatus.STARTED;
 		